@@ -8,6 +8,7 @@ import com.iyundao.base.shiro.SecurityConsts;
 import com.iyundao.base.utils.*;
 import com.iyundao.entity.User;
 import com.iyundao.entity.UserRelation;
+import com.iyundao.service.UserBatchService;
 import com.iyundao.service.UserRelationService;
 import com.iyundao.service.UserService;
 import org.apache.commons.collections.CollectionUtils;
@@ -30,7 +31,9 @@ import javax.servlet.http.HttpServletResponse;
 import javax.validation.ConstraintViolation;
 import javax.validation.Validator;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -136,6 +139,36 @@ public abstract class BaseController implements Serializable {
         return flag;
     }
 
+    /**
+     * 数组参数转为列表, 去掉空值
+     * @param ids
+     * @return
+     */
+    protected List<String> toList(String[] ids) {
+        List<String> list = new ArrayList<>();
+        if (ids != null) {
+            for (String id : ids) {
+                if (StringUtils.isNotBlank(id)) {
+                    list.add(id);
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 验证批量调整的参数: 用户不超过最大数量, 添加/移除至少一项且不能相同
+     * @param userIds
+     * @param addIds
+     * @param removeIds
+     * @return
+     */
+    protected boolean isBatchParam(List<String> userIds, List<String> addIds, List<String> removeIds) {
+        return !userIds.isEmpty() && userIds.size() <= UserBatchService.MAX_USERS
+                && !(addIds.isEmpty() && removeIds.isEmpty())
+                && Collections.disjoint(addIds, removeIds);
+    }
+
     /**
      * 验证时间格式是否正确
      * @param times
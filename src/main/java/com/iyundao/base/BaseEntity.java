@@ -3,22 +3,22 @@ package com.iyundao.base;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.iyundao.base.utils.ClassUtils;
 import com.iyundao.base.utils.TimeUtils;
-import org.apache.commons.lang.StringUtils;
-import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.dom4j.tree.AbstractEntity;
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.proxy.HibernateProxy;
 
 import javax.persistence.*;
 import javax.validation.groups.Default;
 import java.io.Serializable;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.util.Collection;
-import java.util.Date;
-import java.util.Iterator;
-import java.util.Map;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @ClassName: User
@@ -49,27 +49,32 @@ public abstract class BaseEntity<ID extends Serializable> implements Serializabl
      */
     public static final String VERSION_PROPERTY_NAME = "version";
     private static final long serialVersionUID = -67188388306700736L;
+
+    /**
+     * 各实体类toString输出的属性getter
+     */
+    private static final ConcurrentMap<Class<?>, Method[]> TO_STRING_GETTERS = new ConcurrentHashMap<>();
     @Transient
     protected final transient Log logger = LogFactory.getLog(this.getClass());
     /**
      * 创建日期
      */
     @JsonIgnore
-    @Column(name = "CREATEDATE", nullable = false, updatable = false, length = 16)
-    private String createdDate;
+    @Column(name = "CREATEDATE", nullable = false, updatable = false)
+    private LocalDateTime createdDate;
     /**
      * 最后修改日期
      */
     @JsonIgnore
-    @Column(name = "LASTMODIFIEDTIME", nullable = false, length = 16)
-    private String lastModifiedDate;
+    @Column(name = "LASTMODIFIEDTIME", nullable = false)
+    private LocalDateTime lastModifiedDate;
     /**
      * ID
      */
     @Id
-    @GeneratedValue(generator = "jpa-uuid")
-    @GenericGenerator(name = "jpa-uuid",
-            strategy = "uuid")
+    @GeneratedValue(generator = "jpa-id")
+    @GenericGenerator(name = "jpa-id",
+            strategy = "com.iyundao.base.EntityIdGenerator")
     @Column(name = "ID", length = 32)
     private ID id;
     /**
@@ -86,7 +91,7 @@ public abstract class BaseEntity<ID extends Serializable> implements Serializabl
      * @return ID
      */
     public ID getId() {
-        return (ID) id.toString().replace("-", "");
+        return id;
     }
 
     /**
@@ -95,19 +100,16 @@ public abstract class BaseEntity<ID extends Serializable> implements Serializabl
      * @param id ID
      */
     private void setId(ID id) {
-        this.id = (ID)id.toString().replace("-", "");
+        this.id = id;
     }
 
     /**
      * 获取创建日期
      *
-     * @return 创建日期
+     * @return 创建日期 yyyyMMddHHmmss
      */
     public String getCreatedDate() {
-        if (StringUtils.isBlank(this.createdDate)) {
-            this.createdDate = TimeUtils.nowTime();
-        }
-        return createdDate;
+        return TimeUtils.format(getCreatedTime());
     }
 
     /**
@@ -116,19 +118,29 @@ public abstract class BaseEntity<ID extends Serializable> implements Serializabl
      * @param createdDate 创建日期
      */
     public void setCreatedDate(Date createdDate) {
-        this.createdDate = TimeUtils.convertTime(createdDate, "yyyyMMddHHmmss");
+        this.createdDate = TimeUtils.toLocalDateTime(createdDate);
+    }
+
+    /**
+     * 获取创建时间
+     *
+     * @return 创建时间
+     */
+    @JsonIgnore
+    public LocalDateTime getCreatedTime() {
+        if (this.createdDate == null) {
+            this.createdDate = TimeUtils.now();
+        }
+        return createdDate;
     }
 
     /**
      * 获取最后修改日期
      *
-     * @return 最后修改日期
+     * @return 最后修改日期 yyyyMMddHHmmss
      */
     public String getLastModifiedDate() {
-        if (StringUtils.isBlank(this.lastModifiedDate)) {
-            this.lastModifiedDate = TimeUtils.nowTime();
-        }
-        return lastModifiedDate;
+        return TimeUtils.format(getLastModifiedTime());
     }
 
     /**
@@ -137,7 +149,29 @@ public abstract class BaseEntity<ID extends Serializable> implements Serializabl
      * @param lastModifiedDate 最后修改日期
      */
     public void setLastModifiedDate(Date lastModifiedDate) {
-        this.lastModifiedDate = TimeUtils.convertTime(lastModifiedDate, "yyyyMMddHHmmss");
+        this.lastModifiedDate = TimeUtils.toLocalDateTime(lastModifiedDate);
+    }
+
+    /**
+     * 获取最后修改时间
+     *
+     * @return 最后修改时间
+     */
+    @JsonIgnore
+    public LocalDateTime getLastModifiedTime() {
+        if (this.lastModifiedDate == null) {
+            this.lastModifiedDate = TimeUtils.now();
+        }
+        return lastModifiedDate;
+    }
+
+    /**
+     * 保存前补齐未设置的创建/最后修改时间
+     */
+    @PrePersist
+    protected void initTime() {
+        getCreatedTime();
+        getLastModifiedTime();
     }
 
     /**
@@ -169,58 +203,51 @@ public abstract class BaseEntity<ID extends Serializable> implements Serializabl
     }
 
     /**
-     * 重写toString方法
+     * 重写toString方法, 输出非关联、非集合的属性, 各类的属性及getter只解析一次
      *
      * @return 字符串
      */
     @Override
     public String toString() {
-        StringBuilder builder = new StringBuilder(this.getClass().getSimpleName());
+        Class<?> clazz = this.getClass();
+        Method[] getters = TO_STRING_GETTERS.get(clazz);
+        if (getters == null) {
+            getters = TO_STRING_GETTERS.computeIfAbsent(clazz, BaseEntity::toStringGetters);
+        }
+        StringBuilder builder = new StringBuilder(clazz.getSimpleName());
         builder.append("[");
-        Iterator var3 = ClassUtils.getDeclaredFieldsWithSuper(this.getClass()).values().iterator();
-
-        while (var3.hasNext()) {
-            Field field = (Field) var3.next();
-            Class<? extends Object> typeClazz = field.getType();
-            if (!BaseEntity.class.isAssignableFrom(typeClazz) && !Collection.class.isAssignableFrom(typeClazz) && !Map.class.isAssignableFrom(typeClazz)) {
-                int modifiers = field.getModifiers();
-                if (field.getName().indexOf(36) == -1 && !Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
-                    builder.append(field.getName()+"="+ ClassUtils.forceGetProperty(this, field.getName())+", ");
-                }
+        for (Method getter : getters) {
+            Object value;
+            try {
+                value = getter.invoke(this);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                value = null;
             }
+            builder.append(propertyName(getter)).append("=").append(value != null ? value : "").append(", ");
         }
-        return builder.substring(0, builder.length() -2) + "]";
+        if (getters.length > 0) {
+            builder.setLength(builder.length() - 2);
+        }
+        return builder.append("]").toString();
     }
-    
+
     /**
-     * 重写equals方法
+     * 重写equals方法, 按实体类型和ID比较, 未保存(ID为空)的实体只与自身相等
+     * 不访问其他属性, 未初始化的代理也不会触发加载
      *
      * @param other 对象
      * @return 是否相等
      */
     @Override
     public boolean equals(Object other) {
-        if (other == null) {
-            return false;
-        } else if (this.getClass().isInstance(other) && other.getClass().isInstance(this)) {
-            EqualsBuilder builder = new EqualsBuilder();
-            Iterator var4 = ClassUtils.getDeclaredFieldsWithSuper(this.getClass()).values().iterator();
-
-            while (var4.hasNext()) {
-                Field field = (Field) var4.next();
-                Class<? extends Object> typeClazz = field.getType();
-                if (!AbstractEntity.class.isAssignableFrom(typeClazz) && !Collection.class.isAssignableFrom(typeClazz) && !Map.class.isAssignableFrom(typeClazz)) {
-                    int modifiers = field.getModifiers();
-                    if (field.getName().indexOf(36) == -1 && !Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
-                        builder.append(ClassUtils.forceGetProperty(this, field.getName()), ClassUtils.forceGetProperty(other, field.getName()));
-                    }
-                }
-            }
-
-            return builder.isEquals();
-        } else {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof BaseEntity) || entityClass(this) != entityClass(other)) {
             return false;
         }
+        Object id = identifier(this);
+        return id != null && id.equals(identifier((BaseEntity<?>) other));
     }
 
     /**
@@ -230,11 +257,78 @@ public abstract class BaseEntity<ID extends Serializable> implements Serializabl
      */
     @Override
     public int hashCode() {
+        Object id = identifier(this);
         int hashCode = 17;
-        hashCode += getId() != null ? getId().hashCode() * 31 : 0;
+        hashCode += id != null ? id.hashCode() * 31 : 0;
         return hashCode;
     }
 
+    /**
+     * 去掉Hibernate代理后的实体类型
+     */
+    private static Class<?> entityClass(Object entity) {
+        if (entity instanceof HibernateProxy) {
+            return ((HibernateProxy) entity).getHibernateLazyInitializer().getPersistentClass();
+        }
+        return entity.getClass();
+    }
+
+    /**
+     * 实体ID, 代理直接取代理中保存的ID
+     */
+    private static Object identifier(BaseEntity<?> entity) {
+        if (entity instanceof HibernateProxy) {
+            return ((HibernateProxy) entity).getHibernateLazyInitializer().getIdentifier();
+        }
+        return entity.id;
+    }
+
+    /**
+     * toString输出的属性: 从BaseEntity到实体类声明的非静态、非transient字段,
+     * 排除关联实体、集合和Map, 按getter读取
+     */
+    private static Method[] toStringGetters(Class<?> clazz) {
+        Deque<Class<?>> hierarchy = new ArrayDeque<>();
+        for (Class<?> c = clazz; c != null && BaseEntity.class.isAssignableFrom(c); c = c.getSuperclass()) {
+            hierarchy.push(c);
+        }
+        List<Method> getters = new ArrayList<>();
+        for (Class<?> c : hierarchy) {
+            for (Field field : c.getDeclaredFields()) {
+                Class<?> type = field.getType();
+                int modifiers = field.getModifiers();
+                if (BaseEntity.class.isAssignableFrom(type) || Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)
+                        || field.getName().indexOf('$') != -1 || Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+                    continue;
+                }
+                Method getter = getter(clazz, field);
+                if (getter != null) {
+                    getters.add(getter);
+                }
+            }
+        }
+        return getters.toArray(new Method[0]);
+    }
+
+    private static Method getter(Class<?> clazz, Field field) {
+        String name = ClassUtils.toFirstUpperCase(field.getName());
+        for (String prefix : new String[]{"get", "is"}) {
+            try {
+                Method method = clazz.getMethod(prefix + name);
+                if (method.getParameterCount() == 0) {
+                    return method;
+                }
+            } catch (NoSuchMethodException ignored) {
+            }
+        }
+        return null;
+    }
+
+    private static String propertyName(Method getter) {
+        String name = getter.getName();
+        return Character.toLowerCase(name.charAt(name.startsWith("is") ? 2 : 3)) + name.substring(name.startsWith("is") ? 3 : 4);
+    }
+
     /**
      * 保存验证组
      */
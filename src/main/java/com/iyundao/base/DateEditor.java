@@ -1,12 +1,18 @@
 package com.iyundao.base;
 
 import com.iyundao.base.utils.CommonUtils;
+import com.iyundao.base.utils.TimeUtils;
 import org.apache.commons.lang.StringUtils;
-import org.apache.commons.lang.time.DateFormatUtils;
-import org.apache.commons.lang.time.DateUtils;
 
 import java.beans.PropertyEditorSupport;
-import java.text.ParseException;
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
+import java.time.temporal.ChronoField;
 import java.util.Date;
 
 /**
@@ -29,6 +35,24 @@ public class DateEditor extends PropertyEditorSupport {
      */
     private static final String COMPANY_DATE_FORMAT = "yyyyMMddHHmmss";
 
+	/**
+	 * CommonUtils.DATE_PATTERNS对应的解析器, 缺少的月、日、时、分、秒取最小值
+	 */
+	private static final DateTimeFormatter[] PARSERS = new DateTimeFormatter[CommonUtils.DATE_PATTERNS.length];
+
+	static {
+		for (int i = 0; i < PARSERS.length; i++) {
+			PARSERS[i] = new DateTimeFormatterBuilder()
+					.appendPattern(CommonUtils.DATE_PATTERNS[i].replace('y', 'u'))
+					.parseDefaulting(ChronoField.MONTH_OF_YEAR, 1)
+					.parseDefaulting(ChronoField.DAY_OF_MONTH, 1)
+					.parseDefaulting(ChronoField.HOUR_OF_DAY, 0)
+					.parseDefaulting(ChronoField.MINUTE_OF_HOUR, 0)
+					.parseDefaulting(ChronoField.SECOND_OF_MINUTE, 0)
+					.toFormatter()
+					.withResolverStyle(ResolverStyle.STRICT);
+		}
+	}
 
 	/**
 	 * 是否将空转换为null
@@ -42,7 +66,7 @@ public class DateEditor extends PropertyEditorSupport {
 
 	/**
 	 * 构造方法
-	 * 
+	 *
 	 * @param emptyAsNull
 	 *            是否将空转换为null
 	 */
@@ -52,7 +76,7 @@ public class DateEditor extends PropertyEditorSupport {
 
 	/**
 	 * 构造方法
-	 * 
+	 *
 	 * @param emptyAsNull
 	 *            是否将空转换为null
 	 * @param dateFormat
@@ -65,39 +89,64 @@ public class DateEditor extends PropertyEditorSupport {
 
 	/**
 	 * 获取日期
-	 * 
+	 *
 	 * @return 日期
 	 */
 	@Override
 	public String getAsText() {
 		Date value = (Date) getValue();
-		return value != null ? DateFormatUtils.format(value, dateFormat) : StringUtils.EMPTY;
+		return value != null ? TimeUtils.convertTime(value, dateFormat) : StringUtils.EMPTY;
 	}
 
 	/**
 	 * 设置日期
-	 * 
+	 *
 	 * @param text
 	 *            字符串
 	 */
 	@Override
 	public void setAsText(String text) {
-		if (text != null) {
-			String value = text.trim();
-			if (emptyAsNull && StringUtils.isEmpty(text)) {
-				setValue(null);
-			} else {
-				try {
-					setValue(DateUtils.parseDate(value, CommonUtils.DATE_PATTERNS));
-				} catch (ParseException e) {
-					setValue(null);
-				}
-			}
-		} else {
+		if (text == null || (emptyAsNull && StringUtils.isEmpty(text))) {
 			setValue(null);
+			return;
 		}
+		LocalDateTime time = parse(text.trim());
+		setValue(time != null ? Date.from(time.atZone(ZoneId.systemDefault()).toInstant()) : null);
 	}
 
+	/**
+	 * 先按公司日期格式快速解析, 再依次尝试其他格式
+	 * 按长度和parseUnresolved预先匹配, 不匹配的格式不抛出异常
+	 *
+	 * @param value
+	 *            字符串
+	 * @return 都不匹配时返回null
+	 */
+	private static LocalDateTime parse(String value) {
+		if (value.length() == COMPANY_DATE_FORMAT.length()) {
+			LocalDateTime time = TimeUtils.parse(value);
+			if (time != null) {
+				return time;
+			}
+		}
+		for (int i = 0; i < PARSERS.length; i++) {
+			// 各格式均为定长, 长度不同的直接跳过
+			if (value.length() != CommonUtils.DATE_PATTERNS[i].length()) {
+				continue;
+			}
+			DateTimeFormatter parser = PARSERS[i];
+			ParsePosition position = new ParsePosition(0);
+			if (parser.parseUnresolved(value, position) == null || position.getIndex() != value.length()) {
+				continue;
+			}
+			try {
+				return parser.parse(value, LocalDateTime::from);
+			} catch (DateTimeException e) {
+				// 格式匹配但日期不存在, 如2月30日
+				return null;
+			}
+		}
+		return null;
+	}
 
-
-}
\ No newline at end of file
+}
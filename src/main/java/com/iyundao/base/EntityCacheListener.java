@@ -0,0 +1,43 @@
+package com.iyundao.base;
+
+import com.iyundao.base.config.EntityCacheConfig;
+import com.iyundao.base.shiro.RedisManager;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * @ClassName: EntityCacheListener
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/6 10:40
+ * @Description: 二级缓存实体的监听, 修改提交后通知其他节点清除缓存
+ * @Version: V2.0
+ */
+public class EntityCacheListener {
+
+    @Autowired
+    private RedisManager redisManager;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Object entity) {
+        String message = EntityCacheConfig.NODE_ID + ":" + Hibernate.getClass(entity).getName();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            redisManager.publish(EntityCacheConfig.CHANNEL, message);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                redisManager.publish(EntityCacheConfig.CHANNEL, message);
+            }
+        });
+    }
+}
@@ -0,0 +1,23 @@
+package com.iyundao.base;
+
+import com.iyundao.base.utils.IdUtils;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.io.Serializable;
+
+/**
+ * @ClassName: EntityIdGenerator
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/5 9:40
+ * @Description: 实体主键生成, 策略由server.id.strategy配置, 见IdUtils
+ * @Version: V2.0
+ */
+public class EntityIdGenerator implements IdentifierGenerator {
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        return IdUtils.nextId();
+    }
+}
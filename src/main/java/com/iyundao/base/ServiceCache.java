@@ -0,0 +1,254 @@
+package com.iyundao.base;
+
+import com.iyundao.base.config.EntityCacheConfig;
+import com.iyundao.base.config.ServiceCacheConfig;
+import com.iyundao.base.shiro.RedisManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @ClassName: ServiceCache
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/9 10:10
+ * @Description: 服务缓存, 本地缓存在前, redis在后;
+ *               清除时删除redis并通知其他节点清除本地缓存, 本地缓存过期时间较短, 兜底通知丢失的情况
+ * @Version: V2.0
+ */
+public class ServiceCache implements Cache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceCache.class);
+
+    private static final String PREFIX = "iyundao:service_cache:";
+
+    private final String name;
+
+    private final RedisManager redisManager;
+
+    /**
+     * redis过期时间, 单位: 秒
+     */
+    private final long ttl;
+
+    /**
+     * 本地过期时间, 单位: 毫秒
+     */
+    private final long localTtl;
+
+    private final int localMaxSize;
+
+    /**
+     * 本地缓存, 键统一转为字符串, 与通知中的键一致
+     */
+    private final ConcurrentMap<String, LocalEntry> local = new ConcurrentHashMap<>();
+
+    private final LongAdder localHits = new LongAdder();
+
+    private final LongAdder redisHits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder puts = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    public ServiceCache(String name, RedisManager redisManager, long ttl, long localTtl, int localMaxSize) {
+        this.name = name;
+        this.redisManager = redisManager;
+        this.ttl = ttl;
+        this.localTtl = localTtl * 1000;
+        this.localMaxSize = localMaxSize;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object value = lookup(String.valueOf(key));
+        return value != null ? new SimpleValueWrapper(value) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        Object value = lookup(String.valueOf(key));
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = lookup(String.valueOf(key));
+        if (value != null) {
+            return (T) value;
+        }
+        T loaded;
+        try {
+            loaded = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, loaded);
+        return loaded;
+    }
+
+    /**
+     * 不缓存null, 查不到的结果每次都查询数据库
+     * @param key
+     * @param value
+     */
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            return;
+        }
+        String localKey = String.valueOf(key);
+        putLocal(localKey, value);
+        try {
+            redisManager.set(redisKey(localKey), value, ttl);
+        } catch (RuntimeException e) {
+            logger.warn("service cache put fail: " + name, e);
+        }
+        puts.increment();
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = get(key);
+        if (existing == null) {
+            put(key, value);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        String localKey = String.valueOf(key);
+        local.remove(localKey);
+        // redis删除失败时其他节点清除本地缓存后仍会读到redis中的旧值, 只在删除成功后通知
+        try {
+            redisManager.del(redisKey(localKey));
+            redisManager.publish(ServiceCacheConfig.CHANNEL, EntityCacheConfig.NODE_ID + ":" + name + ":" + localKey);
+        } catch (RuntimeException e) {
+            logger.warn("service cache evict fail: " + name, e);
+        }
+        evictions.increment();
+    }
+
+    @Override
+    public void clear() {
+        local.clear();
+        try {
+            Set<String> keys = redisManager.scan(PREFIX + name + ":*");
+            redisManager.del(keys.toArray(new String[0]));
+            redisManager.publish(ServiceCacheConfig.CHANNEL, EntityCacheConfig.NODE_ID + ":" + name + ":");
+        } catch (RuntimeException e) {
+            logger.warn("service cache clear fail: " + name, e);
+        }
+        evictions.increment();
+    }
+
+    /**
+     * 其他节点修改后只清除本地缓存, redis已由该节点删除
+     * @param key 为null时清空
+     */
+    public void evictLocal(String key) {
+        if (key == null) {
+            local.clear();
+        } else {
+            local.remove(key);
+        }
+    }
+
+    private Object lookup(String key) {
+        LocalEntry entry = local.get(key);
+        if (entry != null && entry.expireTime > System.currentTimeMillis()) {
+            localHits.increment();
+            return entry.value;
+        }
+        Object value = null;
+        try {
+            value = redisManager.get(redisKey(key));
+        } catch (RuntimeException e) {
+            // redis不可用时按未命中处理, 直接查询数据库
+            logger.warn("service cache get fail: " + name, e);
+        }
+        if (value == null) {
+            misses.increment();
+            return null;
+        }
+        redisHits.increment();
+        putLocal(key, value);
+        return value;
+    }
+
+    private void putLocal(String key, Object value) {
+        long now = System.currentTimeMillis();
+        if (local.size() >= localMaxSize) {
+            local.values().removeIf(entry -> entry.expireTime <= now);
+            if (local.size() >= localMaxSize) {
+                local.clear();
+            }
+        }
+        local.put(key, new LocalEntry(value, now + localTtl));
+    }
+
+    private String redisKey(String key) {
+        return PREFIX + name + ":" + key;
+    }
+
+    public long getLocalHits() {
+        return localHits.sum();
+    }
+
+    public long getRedisHits() {
+        return redisHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getPuts() {
+        return puts.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int getLocalSize() {
+        return local.size();
+    }
+
+    private static class LocalEntry {
+
+        private final Object value;
+
+        private final long expireTime;
+
+        private LocalEntry(Object value, long expireTime) {
+            this.value = value;
+            this.expireTime = expireTime;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.iyundao.base;
+
+import com.iyundao.base.config.ServiceCacheConfig;
+import com.iyundao.entity.Activity;
+import com.iyundao.entity.Depart;
+import com.iyundao.entity.Label;
+import com.iyundao.entity.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * @ClassName: ServiceCacheListener
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/9 11:00
+ * @Description: 实体修改后清除对应的服务缓存, 清除在事务提交后执行
+ * @Version: V2.0
+ */
+public class ServiceCacheListener {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Object entity) {
+        if (entity instanceof User) {
+            cacheManager.getCache(ServiceCacheConfig.USER_ACCOUNT).evict(((User) entity).getAccount());
+        } else if (entity instanceof Activity) {
+            cacheManager.getCache(ServiceCacheConfig.ACTIVITY).evict(((Activity) entity).getId());
+        } else if (entity instanceof Depart) {
+            // 部门可能更换机构, 旧机构的键无法得知, 直接清空
+            cacheManager.getCache(ServiceCacheConfig.DEPART_SUBJECT).clear();
+        } else if (entity instanceof Label) {
+            cacheManager.getCache(ServiceCacheConfig.LABEL_PAGE).clear();
+            cacheManager.getCache(ServiceCacheConfig.LABEL_COUNT).clear();
+        }
+    }
+}
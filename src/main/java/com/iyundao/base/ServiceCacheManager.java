@@ -0,0 +1,47 @@
+package com.iyundao.base;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @ClassName: ServiceCacheManager
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/9 10:30
+ * @Description: 服务缓存管理, 放入和清除在事务提交后执行, 回滚的数据不会进入缓存
+ * @Version: V2.0
+ */
+public class ServiceCacheManager extends AbstractTransactionSupportingCacheManager {
+
+    private final List<ServiceCache> caches;
+
+    public ServiceCacheManager(List<ServiceCache> caches) {
+        this.caches = caches;
+        setTransactionAware(true);
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return caches;
+    }
+
+    /**
+     * 未经事务包装的缓存, 用于统计和处理其他节点的通知
+     * @return
+     */
+    public List<ServiceCache> getServiceCaches() {
+        return caches;
+    }
+
+    public ServiceCache getServiceCache(String name) {
+        for (ServiceCache cache : caches) {
+            if (cache.getName().equals(name)) {
+                return cache;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,76 @@
+package com.iyundao.base;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * @ClassName: SqlStatementInspector
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/10 9:50
+ * @Description: Hibernate准备语句前计数, 不修改SQL; 会话事件中记录执行时间和连接的获取/释放
+ * @Version: V2.0
+ */
+public class SqlStatementInspector implements StatementInspector {
+
+    private static final long serialVersionUID = 6083412957310528743L;
+
+    @Override
+    public String inspect(String sql) {
+        SqlStatistics statistics = SqlStatistics.current();
+        if (statistics != null) {
+            statistics.statement(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * 每个会话一个实例, 累计语句的执行时间和连接的持有时间
+     */
+    public static class TimingListener extends BaseSessionEventListener {
+
+        private static final long serialVersionUID = -2719304861536294410L;
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            SqlStatistics statistics = SqlStatistics.current();
+            if (statistics != null) {
+                statistics.executeStart();
+            }
+        }
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            SqlStatistics statistics = SqlStatistics.current();
+            if (statistics != null) {
+                statistics.executeEnd();
+            }
+        }
+
+        @Override
+        public void jdbcConnectionAcquisitionEnd() {
+            SqlStatistics statistics = SqlStatistics.current();
+            if (statistics != null) {
+                statistics.connectionAcquired();
+            }
+        }
+
+        @Override
+        public void jdbcConnectionReleaseStart() {
+            SqlStatistics statistics = SqlStatistics.current();
+            if (statistics != null) {
+                statistics.connectionReleased();
+            }
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            jdbcExecuteStatementStart();
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            jdbcExecuteStatementEnd();
+        }
+    }
+}
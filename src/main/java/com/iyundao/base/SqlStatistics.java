@@ -0,0 +1,159 @@
+package com.iyundao.base;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * @ClassName: SqlStatistics
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/10 9:30
+ * @Description: 当前请求执行的SQL统计, 由SqlStatisticsFilter开启和结束, 线程内有效;
+ *               语句按形状(去掉字面量、合并IN列表)计数, 同一形状多次执行通常是循环中的延迟加载;
+ *               另统计Hibernate持有数据库连接的时间
+ * @Version: V2.0
+ */
+public final class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+\\b");
+
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+
+    private final Map<String, Integer> shapes = new HashMap<>();
+
+    private int statements;
+
+    private long executeStart;
+
+    private long executeNanos;
+
+    /**
+     * 当前持有的连接数, 嵌套的新事务会同时持有多个
+     */
+    private int held;
+
+    private int connections;
+
+    private long heldSince;
+
+    private long holdNanos;
+
+    private SqlStatistics() {
+    }
+
+    /**
+     * 开始统计当前线程
+     * @return
+     */
+    public static SqlStatistics start() {
+        SqlStatistics statistics = new SqlStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * 结束统计当前线程
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return 当前线程未开启统计时返回null
+     */
+    public static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    public void statement(String sql) {
+        statements++;
+        shapes.merge(shape(sql), 1, Integer::sum);
+    }
+
+    public void executeStart() {
+        executeStart = System.nanoTime();
+    }
+
+    public void executeEnd() {
+        if (executeStart > 0) {
+            executeNanos += System.nanoTime() - executeStart;
+            executeStart = 0;
+        }
+    }
+
+    public void connectionAcquired() {
+        hold();
+        held++;
+        connections++;
+    }
+
+    public void connectionReleased() {
+        if (held > 0) {
+            hold();
+            held--;
+        }
+    }
+
+    /**
+     * 累计上次变化以来各连接的持有时间
+     */
+    private void hold() {
+        long now = System.nanoTime();
+        holdNanos += held * (now - heldSince);
+        heldSince = now;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    /**
+     * @return 重复执行的语句数, 即各形状执行次数减一之和
+     */
+    public int getDuplicates() {
+        return statements - shapes.size();
+    }
+
+    /**
+     * @return 执行次数最多的语句形状
+     */
+    public Map.Entry<String, Integer> getTopShape() {
+        Map.Entry<String, Integer> top = null;
+        for (Map.Entry<String, Integer> entry : shapes.entrySet()) {
+            if (top == null || entry.getValue() > top.getValue()) {
+                top = entry;
+            }
+        }
+        return top;
+    }
+
+    public long getExecuteMillis() {
+        return executeNanos / 1000000;
+    }
+
+    /**
+     * @return 获取连接的次数
+     */
+    public int getConnections() {
+        return connections;
+    }
+
+    /**
+     * @return 持有连接的时间, 同时持有多个连接时分别计算; 统计时仍未释放的计到当前
+     */
+    public long getConnectionMillis() {
+        hold();
+        return holdNanos / 1000000;
+    }
+
+    static String shape(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        return IN_LIST.matcher(shape).replaceAll("(?)");
+    }
+}
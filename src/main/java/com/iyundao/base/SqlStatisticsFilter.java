@@ -0,0 +1,79 @@
+package com.iyundao.base;
+
+import com.iyundao.base.annotation.QueryBudget;
+import com.iyundao.service.MonitorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * @ClassName: SqlStatisticsFilter
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/10 10:40
+ * @Description: 统计每个请求执行的SQL, 包括认证过滤器中的查询;
+ *               语句过多、重复过多或超出@QueryBudget时记录日志
+ * @Version: V2.0
+ */
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatisticsFilter.class);
+
+    /**
+     * 未匹配到接口的请求(如认证失败、404)合并统计
+     */
+    private static final String OTHER = "other";
+
+    private final MonitorService monitorService;
+
+    private final int warnStatements;
+
+    private final int warnDuplicates;
+
+    private final boolean failOnBudget;
+
+    public SqlStatisticsFilter(MonitorService monitorService, int warnStatements, int warnDuplicates, boolean failOnBudget) {
+        this.monitorService = monitorService;
+        this.warnStatements = warnStatements;
+        this.warnDuplicates = warnDuplicates;
+        this.failOnBudget = failOnBudget;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.currentTimeMillis();
+        SqlStatistics statistics = SqlStatistics.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlStatistics.end();
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = pattern != null ? pattern.toString() : OTHER;
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        QueryBudget budget = handler instanceof HandlerMethod ? ((HandlerMethod) handler).getMethodAnnotation(QueryBudget.class) : null;
+        boolean overBudget = budget != null
+                && (statistics.getStatements() > budget.statements() || statistics.getDuplicates() > budget.duplicates());
+        monitorService.recordSql(endpoint, statistics, System.currentTimeMillis() - start, overBudget);
+        if (overBudget || statistics.getStatements() > warnStatements || statistics.getDuplicates() > warnDuplicates) {
+            Map.Entry<String, Integer> top = statistics.getTopShape();
+            logger.warn("sql: {} statements={} duplicates={} executeMillis={} overBudget={} top={}x {}",
+                    endpoint, statistics.getStatements(), statistics.getDuplicates(), statistics.getExecuteMillis(),
+                    overBudget, top != null ? top.getValue() : 0, top != null ? top.getKey() : "");
+        }
+        if (overBudget && failOnBudget) {
+            throw new ServletException("sql budget exceeded: " + endpoint + " statements=" + statistics.getStatements()
+                    + "/" + budget.statements() + " duplicates=" + statistics.getDuplicates() + "/" + budget.duplicates());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.iyundao.base.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * @ClassName: QueryBudget
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/10 10:00
+ * @Description: 接口的SQL预算, 超出时记录日志; server.sql.failOnBudget开启时(测试环境)请求抛出异常
+ * @Version: V2.0
+ */
+@Target(value = {ElementType.METHOD})
+@Retention(value = RetentionPolicy.RUNTIME)
+@Documented
+public @interface QueryBudget {
+
+    /**
+     * 最多执行的语句数, 包括认证过程中的查询
+     */
+    int statements();
+
+    /**
+     * 最多重复执行的语句数, 默认不允许重复
+     */
+    int duplicates() default 0;
+}
@@ -0,0 +1,90 @@
+package com.iyundao.base.config;
+
+import com.iyundao.base.utils.IdUtils;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.Cache;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @ClassName: EntityCacheConfig
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/6 10:20
+ * @Description: Hibernate二级缓存配置, 缓存区域见ehcache.xml;
+ *               各节点的缓存在本地, 参考数据修改后通过redis通知其他节点清除对应的缓存
+ * @Version: V2.0
+ */
+@Configuration
+public class EntityCacheConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntityCacheConfig.class);
+
+    /**
+     * 缓存失效通知频道, 消息为 节点标识:实体类名
+     */
+    public static final String CHANNEL = "iyundao:entity_cache";
+
+    /**
+     * 本节点标识, 忽略本节点发出的通知
+     */
+    public static final String NODE_ID = IdUtils.ID_STRATEGY.uuid.next();
+
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager() throws IOException {
+        return Caching.getCachingProvider(EhcacheCachingProvider.class.getName())
+                .getCacheManager(new ClassPathResource("ehcache.xml").getURI(), EntityCacheConfig.class.getClassLoader());
+    }
+
+    /**
+     * Hibernate使用上面的CacheManager, 不再按hibernate.javax.cache.uri自行创建
+     * @param entityCacheManager
+     * @return
+     */
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer(CacheManager entityCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+    }
+
+    /**
+     * 收到其他节点的通知后清除该实体的缓存, 以及所有集合缓存和查询缓存
+     * 参考数据很少修改, 按区域清除即可
+     * @param redisConnectionFactory
+     * @param entityManagerFactory
+     * @return
+     */
+    @Bean
+    public RedisMessageListenerContainer entityCacheListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                      EntityManagerFactory entityManagerFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener((message, pattern) -> {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            int index = body.indexOf(':');
+            if (index < 0 || NODE_ID.equals(body.substring(0, index))) {
+                return;
+            }
+            String entityName = body.substring(index + 1);
+            Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+            cache.evictEntityData(entityName);
+            cache.evictCollectionData();
+            cache.evictQueryRegions();
+            logger.debug("evict entity cache: " + entityName);
+        }, new ChannelTopic(CHANNEL));
+        return container;
+    }
+}
@@ -0,0 +1,30 @@
+package com.iyundao.base.config;
+
+import com.iyundao.base.utils.IdUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * @ClassName: IdConfig
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/5 9:50
+ * @Description: 主键策略配置
+ * @Version: V2.0
+ */
+@Configuration
+public class IdConfig {
+
+    /**
+     * ulid-26位, 按时间有序(默认); uuid7-32位, 按时间有序; uuid-32位, 随机(原方案)
+     */
+    @Value("${server.id.strategy:ulid}")
+    private IdUtils.ID_STRATEGY strategy;
+
+    @PostConstruct
+    public void init() {
+        IdUtils.setStrategy(strategy);
+    }
+}
@@ -0,0 +1,78 @@
+package com.iyundao.base.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * @ClassName: JobConfig
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/8/22 10:05
+ * @Description: 后台任务配置
+ * @Version: V2.0
+ */
+@Configuration
+@EnableScheduling
+public class JobConfig {
+
+    /**
+     * 本节点同时执行的导入/导出任务数
+     */
+    @Value("${server.job.maxRunning:2}")
+    private int maxRunning;
+
+    /**
+     * 排队等待的任务数, 超出后拒绝提交
+     */
+    @Value("${server.job.queueCapacity:20}")
+    private int queueCapacity;
+
+    /**
+     * 同时生成衍生图片的线程数
+     */
+    @Value("${server.image.workers:2}")
+    private int imageWorkers;
+
+    /**
+     * 排队生成衍生图片的原图数, 超出后放弃, 访问时再补生成
+     */
+    @Value("${server.image.queueCapacity:200}")
+    private int imageQueueCapacity;
+
+    /**
+     * 导入/导出任务线程池
+     * @return
+     */
+    @Bean("jobExecutor")
+    public ThreadPoolTaskExecutor jobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxRunning);
+        executor.setMaxPoolSize(maxRunning);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("job-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+    /**
+     * 衍生图片线程池, 不占用请求线程
+     * @return
+     */
+    @Bean("imageExecutor")
+    public ThreadPoolTaskExecutor imageExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(imageWorkers);
+        executor.setMaxPoolSize(imageWorkers);
+        executor.setQueueCapacity(imageQueueCapacity);
+        executor.setThreadNamePrefix("image-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+}
@@ -0,0 +1,59 @@
+package com.iyundao.base.config;
+
+import com.iyundao.base.SqlStatementInspector;
+import com.iyundao.base.SqlStatisticsFilter;
+import com.iyundao.service.MonitorService;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * @ClassName: MonitorConfig
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/10 11:00
+ * @Description: 接口监控配置, 统计见/monitor/sql
+ * @Version: V2.0
+ */
+@Configuration
+public class MonitorConfig {
+
+    @Value("${server.sql.warnStatements:30}")
+    private int warnStatements;
+
+    @Value("${server.sql.warnDuplicates:10}")
+    private int warnDuplicates;
+
+    @Value("${server.sql.failOnBudget:false}")
+    private boolean failOnBudget;
+
+    /**
+     * Hibernate执行的语句计数及计时
+     * @return
+     */
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatisticsCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementInspector());
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, SqlStatementInspector.TimingListener.class.getName());
+        };
+    }
+
+    /**
+     * 排在shiro之前, 认证过程中的查询也计入
+     * @param monitorService
+     * @return
+     */
+    @Bean
+    public FilterRegistrationBean<SqlStatisticsFilter> sqlStatisticsFilter(MonitorService monitorService) {
+        FilterRegistrationBean<SqlStatisticsFilter> registration = new FilterRegistrationBean<>(
+                new SqlStatisticsFilter(monitorService, warnStatements, warnDuplicates, failOnBudget));
+        registration.addUrlPatterns("/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,126 @@
+package com.iyundao.base.config;
+
+import com.iyundao.base.utils.TimeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.data.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @ClassName: SchemaMigration
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/8/27 9:10
+ * @Description: 数据库版本迁移, 启动时按版本号顺序执行classpath:db/migration/V{版本}__{描述}.sql,
+ *               已执行的版本记录在t_schema_version, 每个脚本只执行一次;
+ *               V0为基线, 表结构完全由迁移管理, 在EntityManagerFactory之前执行, Hibernate只做校验
+ * @Version: V2.0
+ */
+@Component
+public class SchemaMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigration.class);
+
+    private static final String LOCATION = "classpath:db/migration/V*__*.sql";
+
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V([0-9_]+)__(.+)\\.sql");
+
+    private static final String CREATE_VERSION_TABLE = "CREATE TABLE IF NOT EXISTS t_schema_version (VERSION varchar(50) NOT NULL PRIMARY KEY, " +
+            "DESCRIPTION varchar(200) NOT NULL, INSTALLEDON varchar(16) NOT NULL) ENGINE=InnoDB DEFAULT CHARSET=utf8";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void migrate() throws IOException, SQLException {
+        jdbcTemplate.execute(CREATE_VERSION_TABLE);
+        Set<String> installed = new HashSet<>(jdbcTemplate.queryForList("SELECT VERSION FROM t_schema_version", String.class));
+        List<Script> scripts = new ArrayList<>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(LOCATION)) {
+            Matcher matcher = SCRIPT_NAME.matcher(Objects.requireNonNull(resource.getFilename()));
+            if (matcher.matches()) {
+                scripts.add(new Script(matcher.group(1).replace('_', '.'), matcher.group(2).replace('_', ' '), resource));
+            }
+        }
+        scripts.sort(Comparator.naturalOrder());
+        for (Script script : scripts) {
+            if (installed.contains(script.version)) {
+                continue;
+            }
+            logger.info("migrate schema to V" + script.version + ": " + script.description);
+            try (Connection connection = dataSource.getConnection()) {
+                try {
+                    ScriptUtils.executeSqlScript(connection, new EncodedResource(script.resource, StandardCharsets.UTF_8));
+                } finally {
+                    // 脚本中途失败时不会执行到结尾的SET FOREIGN_KEY_CHECKS = 1, 连接归还连接池前恢复
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("SET FOREIGN_KEY_CHECKS = 1");
+                    }
+                }
+            }
+            jdbcTemplate.update("INSERT INTO t_schema_version (VERSION, DESCRIPTION, INSTALLEDON) VALUES (?, ?, ?)",
+                    script.version, script.description, TimeUtils.nowTime());
+        }
+    }
+
+    private static class Script implements Comparable<Script> {
+
+        private final String version;
+
+        private final String description;
+
+        private final Resource resource;
+
+        private final int[] parts;
+
+        private Script(String version, String description, Resource resource) {
+            this.version = version;
+            this.description = description;
+            this.resource = resource;
+            this.parts = Arrays.stream(version.split("\\.")).mapToInt(Integer::parseInt).toArray();
+        }
+
+        @Override
+        public int compareTo(Script o) {
+            for (int i = 0; i < Math.max(parts.length, o.parts.length); i++) {
+                int a = i < parts.length ? parts[i] : 0;
+                int b = i < o.parts.length ? o.parts[i] : 0;
+                if (a != b) {
+                    return Integer.compare(a, b);
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * EntityManagerFactory依赖本迁移, 校验实体时表结构已是最新版本
+     */
+    @Component
+    static class EntityManagerFactoryDependsOnSchemaMigration extends EntityManagerFactoryDependsOnPostProcessor {
+
+        EntityManagerFactoryDependsOnSchemaMigration() {
+            super("schemaMigration");
+        }
+    }
+}
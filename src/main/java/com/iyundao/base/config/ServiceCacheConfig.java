@@ -0,0 +1,104 @@
+package com.iyundao.base.config;
+
+import com.iyundao.base.ServiceCache;
+import com.iyundao.base.ServiceCacheManager;
+import com.iyundao.base.shiro.RedisManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @ClassName: ServiceCacheConfig
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/9 10:40
+ * @Description: 服务缓存配置, 缓存只保存ID和数量, 实体由调用方的会话加载(命中二级缓存时不查询数据库),
+ *               避免把带延迟加载集合、会被修改保存的实体放入缓存
+ * @Version: V2.0
+ */
+@Configuration
+@EnableCaching
+public class ServiceCacheConfig {
+
+    /**
+     * 缓存清除通知频道, 消息为 节点标识:缓存名:键, 键为空表示清空
+     */
+    public static final String CHANNEL = "iyundao:service_cache";
+
+    /**
+     * 账号 -> 用户ID
+     */
+    public static final String USER_ACCOUNT = "user_account";
+
+    /**
+     * 机构ID -> 部门ID列表
+     */
+    public static final String DEPART_SUBJECT = "depart_subject";
+
+    /**
+     * 标签类型:页码:每页数量 -> 标签ID列表
+     */
+    public static final String LABEL_PAGE = "label_page";
+
+    /**
+     * 标签类型 -> 标签数量
+     */
+    public static final String LABEL_COUNT = "label_count";
+
+    /**
+     * 活动ID -> 未删除的活动ID
+     */
+    public static final String ACTIVITY = "activity";
+
+    private static final String[] NAMES = {USER_ACCOUNT, DEPART_SUBJECT, LABEL_PAGE, LABEL_COUNT, ACTIVITY};
+
+    @Value("${server.cache.ttl:1800}")
+    private long ttl;
+
+    @Value("${server.cache.localTtl:60}")
+    private long localTtl;
+
+    @Value("${server.cache.localMaxSize:10000}")
+    private int localMaxSize;
+
+    @Bean
+    public ServiceCacheManager cacheManager(RedisManager redisManager) {
+        List<ServiceCache> caches = new ArrayList<>();
+        for (String name : NAMES) {
+            caches.add(new ServiceCache(name, redisManager, ttl, localTtl, localMaxSize));
+        }
+        return new ServiceCacheManager(caches);
+    }
+
+    /**
+     * 收到其他节点的通知后清除本地缓存
+     * @param redisConnectionFactory
+     * @param cacheManager
+     * @return
+     */
+    @Bean
+    public RedisMessageListenerContainer serviceCacheListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                       ServiceCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener((message, pattern) -> {
+            String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(":", 3);
+            if (parts.length != 3 || EntityCacheConfig.NODE_ID.equals(parts[0])) {
+                return;
+            }
+            ServiceCache cache = cacheManager.getServiceCache(parts[1]);
+            if (cache != null) {
+                cache.evictLocal(parts[2].isEmpty() ? null : parts[2]);
+            }
+        }, new ChannelTopic(CHANNEL));
+        return container;
+    }
+}
@@ -7,17 +7,26 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.DefaultTypedTuple;
 import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * @author: 念
@@ -31,6 +40,21 @@ public class RedisManager {
 
     Logger logger = LoggerFactory.getLogger(RedisManager.class);
 
+    /**
+     * 存在的有序集合才写入, 写入后只保留分数最大的size个;
+     * 判断和写入在同一个脚本中执行, 不会在键过期后写入只有一个值的集合
+     */
+    private static final RedisScript<Long> Z_ADD_IF_EXISTS = new DefaultRedisScript<>(
+            "local n = 0\n" +
+            "for i, key in ipairs(KEYS) do\n" +
+            "  if redis.call('EXISTS', key) == 1 then\n" +
+            "    redis.call('ZADD', key, ARGV[2], ARGV[1])\n" +
+            "    redis.call('ZREMRANGEBYRANK', key, 0, -tonumber(ARGV[3]) - 1)\n" +
+            "    n = n + 1\n" +
+            "  end\n" +
+            "end\n" +
+            "return n", Long.class);
+
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
@@ -198,6 +222,26 @@ public class RedisManager {
         }
     }
 
+    /**
+     * 键不存在时放入并设置时间
+     *
+     * @param key
+     *            键
+     * @param value
+     *            值
+     * @param time
+     *            时间(秒) 要大于0
+     * @return true放入成功 false已存在或失败
+     */
+    public boolean setIfAbsent(String key, Object value, long time) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, value, time, TimeUnit.SECONDS));
+        } catch (Exception e) {
+            logger.error("execute fail", e);
+            return false;
+        }
+    }
+
     /**
      * 递增
      *
@@ -697,6 +741,192 @@ public class RedisManager {
         }
     }
 
+    /**
+     * 获取hash中多个项的值
+     *
+     * @param key
+     *            键
+     * @param items
+     *            项
+     * @return 与items顺序一致, 不存在的项为null
+     */
+    public List<Object> hmultiGet(String key, Collection<Object> items) {
+        return redisTemplate.opsForHash().multiGet(key, items);
+    }
+
+    /**
+     * 有序集合按分数从大到小取值
+     *
+     * @param key
+     *            键
+     * @param min
+     *            最小分数(包含)
+     * @param max
+     *            最大分数(包含)
+     * @param offset
+     *            跳过的个数
+     * @param count
+     *            个数
+     * @return 值及分数
+     */
+    public Set<ZSetOperations.TypedTuple<Object>> zRevRangeByScore(String key, double min, double max, long offset, long count) {
+        return redisTemplate.opsForZSet().reverseRangeByScoreWithScores(key, min, max, offset, count);
+    }
+
+    /**
+     * 替换有序集合的全部内容, 删除/写入/过期在一次往返中完成
+     *
+     * @param key
+     *            键
+     * @param values
+     *            值及分数
+     * @param time
+     *            时间(秒)
+     * @return
+     */
+    public boolean zReplace(String key, Map<Object, Double> values, long time) {
+        try {
+            pipelined(operations -> {
+                operations.delete(key);
+                if (!values.isEmpty()) {
+                    Set<ZSetOperations.TypedTuple<Object>> tuples = new HashSet<>();
+                    for (Map.Entry<Object, Double> entry : values.entrySet()) {
+                        tuples.add(new DefaultTypedTuple<>(entry.getKey(), entry.getValue()));
+                    }
+                    operations.opsForZSet().add(key, tuples);
+                    if (time > 0) {
+                        operations.expire(key, time, TimeUnit.SECONDS);
+                    }
+                }
+            });
+            return true;
+        } catch (Exception e) {
+            logger.error("execute fail", e);
+            return false;
+        }
+    }
+
+    /**
+     * 向有序集合写入多个值, 写入后只保留分数最大的size个并设置过期时间, 在一次往返中完成;
+     * 不删除已有的值, 并发写入的值会保留
+     *
+     * @param key
+     *            键
+     * @param values
+     *            值及分数
+     * @param size
+     *            保留个数
+     * @param time
+     *            时间(秒)
+     * @return
+     */
+    public boolean zAddAll(String key, Map<Object, Double> values, long size, long time) {
+        try {
+            pipelined(operations -> {
+                if (!values.isEmpty()) {
+                    Set<ZSetOperations.TypedTuple<Object>> tuples = new HashSet<>();
+                    for (Map.Entry<Object, Double> entry : values.entrySet()) {
+                        tuples.add(new DefaultTypedTuple<>(entry.getKey(), entry.getValue()));
+                    }
+                    operations.opsForZSet().add(key, tuples);
+                    operations.opsForZSet().removeRange(key, 0, -size - 1);
+                }
+                if (time > 0) {
+                    operations.expire(key, time, TimeUnit.SECONDS);
+                }
+            });
+            return true;
+        } catch (Exception e) {
+            logger.error("execute fail", e);
+            return false;
+        }
+    }
+
+    /**
+     * 向多个已存在的有序集合写入同一个值, 写入后只保留分数最大的size个, 不存在的键跳过
+     *
+     * @param keys
+     *            键
+     * @param value
+     *            值
+     * @param score
+     *            分数
+     * @param size
+     *            保留个数
+     * @return 写入的集合数, 失败时返回-1
+     */
+    public long zAddAllIfExists(List<String> keys, Object value, double score, long size) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        try {
+            return redisTemplate.execute(Z_ADD_IF_EXISTS, keys, value, score, size);
+        } catch (Exception e) {
+            logger.error("execute fail", e);
+            return -1;
+        }
+    }
+
+    /**
+     * 从多个有序集合移除同一个值
+     *
+     * @param keys
+     *            键
+     * @param value
+     *            值
+     * @return
+     */
+    public boolean zRemoveAll(Collection<String> keys, Object value) {
+        try {
+            pipelined(operations -> {
+                for (String key : keys) {
+                    operations.opsForZSet().remove(key, value);
+                }
+            });
+            return true;
+        } catch (Exception e) {
+            logger.error("execute fail", e);
+            return false;
+        }
+    }
+
+    /**
+     * 发布消息, 消息体为UTF-8字符串, 不经过值的序列化
+     *
+     * @param channel
+     *            频道
+     * @param message
+     *            消息
+     * @return
+     */
+    public boolean publish(String channel, String message) {
+        try {
+            redisTemplate.execute((RedisCallback<Long>) connection ->
+                    connection.publish(channel.getBytes(StandardCharsets.UTF_8), message.getBytes(StandardCharsets.UTF_8)));
+            return true;
+        } catch (Exception e) {
+            logger.error("publish fail", e);
+            return false;
+        }
+    }
+
+    /**
+     * 以管道方式执行多个命令
+     * @param commands
+     * @return 每个命令的返回值
+     */
+    private List<Object> pipelined(Consumer<RedisOperations<String, Object>> commands) {
+        return redisTemplate.executePipelined(new SessionCallback<Object>() {
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                commands.accept((RedisOperations<String, Object>) operations);
+                return null;
+            }
+        });
+    }
+
     /**
      * 使用scan命令 查询某些前缀的key
      * @param key
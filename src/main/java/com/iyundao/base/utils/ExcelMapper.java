@@ -0,0 +1,158 @@
+package com.iyundao.base.utils;
+
+import com.iyundao.base.annotation.Excel;
+import org.apache.commons.lang.StringUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * @ClassName: ExcelMapper
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/8/20 10:12
+ * @Description: 工具类 - excel行映射
+ * @Version: V2.0
+ */
+public class ExcelMapper<T> {
+
+    /**
+     * 已解析的列(列下标 -> 赋值器)
+     */
+    private final Map<Integer, Column> columns = new LinkedHashMap<>();
+
+    /**
+     * 根据表头预编译@Excel字段的赋值器,同一sheet内每行只做转换和赋值
+     * @param cls
+     * @param header
+     */
+    public ExcelMapper(Class<T> cls, List<String> header) {
+        Map<String, Field> fields = new HashMap<>();
+        for (Class<?> c = cls; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                Excel excel = field.getAnnotation(Excel.class);
+                if (excel != null && !fields.containsKey(excel.name())) {
+                    fields.put(excel.name(), field);
+                }
+            }
+        }
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (int i = 0; i < header.size(); i++) {
+            String name = StringUtils.trim(header.get(i));
+            Field field = fields.get(name);
+            if (field == null) {
+                continue;
+            }
+            try {
+                field.setAccessible(true);
+                columns.put(i, new Column(name, lookup.unreflectSetter(field), converter(field.getType())));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * 表头是否匹配到字段
+     * @return
+     */
+    public boolean isEmpty() {
+        return columns.isEmpty();
+    }
+
+    /**
+     * 本行映射的列中是否有非空值
+     * @param cells
+     * @return
+     */
+    public boolean hasValue(List<String> cells) {
+        for (Integer index : columns.keySet()) {
+            if (index < cells.size() && StringUtils.isNotBlank(cells.get(index))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 行数据赋值到对象
+     * @param cells
+     * @param target
+     * @throws IllegalArgumentException 单元格格式不正确
+     */
+    public void map(List<String> cells, T target) {
+        for (Map.Entry<Integer, Column> entry : columns.entrySet()) {
+            int index = entry.getKey();
+            String value = index < cells.size() ? StringUtils.trimToNull(cells.get(index)) : null;
+            if (value == null) {
+                continue;
+            }
+            Column column = entry.getValue();
+            Object converted;
+            try {
+                converted = column.converter.convert(value);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException(column.name + "格式不正确: " + value);
+            }
+            try {
+                column.setter.invoke(target, converted);
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * 按字段类型选择转换器
+     * @param type
+     * @return
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Converter converter(Class<?> type) {
+        if (type == String.class) {
+            return value -> value;
+        }
+        if (type == int.class || type == Integer.class) {
+            return value -> new BigDecimal(value).intValueExact();
+        }
+        if (type == long.class || type == Long.class) {
+            return value -> new BigDecimal(value).longValueExact();
+        }
+        if (type == double.class || type == Double.class) {
+            return Double::valueOf;
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return value -> "1".equals(value) || "是".equals(value) || Boolean.parseBoolean(value);
+        }
+        if (type.isEnum()) {
+            Class<? extends Enum> enumType = (Class<? extends Enum>) type;
+            Object[] constants = type.getEnumConstants();
+            return value -> StringUtils.isNumeric(value)
+                    ? constants[Integer.parseInt(value)]
+                    : Enum.valueOf(enumType, value);
+        }
+        throw new IllegalStateException("不支持的excel字段类型: " + type.getName());
+    }
+
+    private interface Converter {
+        Object convert(String value);
+    }
+
+    private static class Column {
+
+        private final String name;
+
+        private final MethodHandle setter;
+
+        private final Converter converter;
+
+        private Column(String name, MethodHandle setter, Converter converter) {
+            this.name = name;
+            this.setter = setter;
+            this.converter = converter;
+        }
+    }
+}
@@ -1,20 +1,40 @@
 package com.iyundao.base.utils;
 
-import com.iyundao.base.BaseEntity;
 import com.iyundao.base.annotation.Excel;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.time.FastDateFormat;
+import org.apache.poi.hssf.eventusermodel.*;
+import org.apache.poi.hssf.eventusermodel.dummyrecord.LastCellOfRowDummyRecord;
+import org.apache.poi.hssf.record.*;
 import org.apache.poi.hssf.usermodel.*;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.SAXHelper;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
 import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
-import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
 import java.io.*;
 import java.lang.reflect.Field;
+import java.net.URLEncoder;
 import java.text.DecimalFormat;
 import java.util.*;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
+import javax.xml.parsers.ParserConfigurationException;
+
 /**
  * @ClassName: ExcelUtils
  * @project: IYunDao
@@ -35,21 +55,37 @@ public class ExcelUtils {
 
     private static final Pattern POINTS_PATTERN = Pattern.compile("0.0+_*[^/s]+"); //小数匹配
 
+    /**
+     * 导出时每次从数据库读取的行数
+     */
+    public static final int EXPORT_PAGE_SIZE = 1000;
+
+    /**
+     * 导出时内存中保留的行数, 超出的行刷写到临时文件
+     */
+    private static final int EXPORT_WINDOW_SIZE = 500;
+
+    /**
+     * xlsx单个sheet最大行数(含表头)
+     */
+    private static final int MAX_SHEET_ROWS = 1048576;
+
     /**
      * 模板生成
      * @return
      */
-    public static HSSFWorkbook createWorkBook(Class<? extends BaseEntity> cls) {
+    public static HSSFWorkbook createWorkBook(Class<?>... classes) {
         // 创建excel工作簿
         HSSFWorkbook wb = new HSSFWorkbook();
         HSSFSheet sheet = wb.createSheet();
         // 设置列宽
-        Field[] fields = cls.getDeclaredFields();
         List<Excel> excels = new ArrayList<>();
-        for (Field field : fields) {
-            Excel annotation = field.getAnnotation(Excel.class);
-            if (annotation != null) {
-                excels.add(annotation);
+        for (Class<?> cls : classes) {
+            for (Field field : cls.getDeclaredFields()) {
+                Excel annotation = field.getAnnotation(Excel.class);
+                if (annotation != null) {
+                    excels.add(annotation);
+                }
             }
         }
         for(int i=0;i<excels.size();i++){
@@ -87,38 +123,109 @@ public class ExcelUtils {
      * @throws IOException
      */
     public static void downloadWorkBook(String fileName,
-                                        Class<? extends BaseEntity> cls,
-                                        HttpServletResponse response) throws IOException{
-        ByteArrayOutputStream os = new ByteArrayOutputStream();
-        try {
-            createWorkBook(cls).write(os);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        byte[] content = os.toByteArray();
-        InputStream is = new ByteArrayInputStream(content);
+                                        HttpServletResponse response,
+                                        Class<?>... classes) throws IOException{
+        HSSFWorkbook wb = createWorkBook(classes);
         // 设置response参数
         response.reset();
         response.setContentType("application/vnd.ms-excel;charset=utf-8");
         response.setHeader("Content-Disposition", "attachment;filename="+ new String((fileName + ".xls").getBytes(), "iso-8859-1"));
-        ServletOutputStream out = response.getOutputStream();
-        BufferedInputStream bis = null;
-        BufferedOutputStream bos = null;
         try {
-            bis = new BufferedInputStream(is);
-            bos = new BufferedOutputStream(out);
-            byte[] buff = new byte[2048];
-            int bytesRead;
-            while (-1 != (bytesRead = bis.read(buff, 0, buff.length))) {
-                bos.write(buff, 0, bytesRead);
+            wb.write(response.getOutputStream());
+        } finally {
+            wb.close();
+        }
+    }
+
+    /**
+     * 设置xlsx下载的response参数
+     * @param fileName 不含后缀
+     * @param response
+     * @throws IOException
+     */
+    public static void setXlsxResponse(String fileName, HttpServletResponse response) throws IOException {
+        response.reset();
+        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        response.setHeader("Content-Disposition", "attachment;filename*=UTF-8''" + URLEncoder.encode(fileName + ".xlsx", "UTF-8").replace("+", "%20"));
+    }
+
+    /**
+     * 流式写出xlsx
+     * 按页从source读取数据, 内存中只保留EXPORT_WINDOW_SIZE行, 写满一个sheet后自动新建sheet
+     * @param os 输出流, 不会被关闭
+     * @param headers 表头
+     * @param source 分页数据
+     * @param rowMapper 数据转为单元格值
+     * @param listener 每页写完后回调已写出的行数
+     * @param <T>
+     * @throws IOException
+     */
+    public static <T> void writeExcel(OutputStream os,
+                                      String[] headers,
+                                      PageSource<T> source,
+                                      Function<T, Object[]> rowMapper,
+                                      ProgressListener listener) throws IOException {
+        SXSSFWorkbook wb = new SXSSFWorkbook(EXPORT_WINDOW_SIZE);
+        wb.setCompressTempFiles(true);
+        try {
+            CellStyle headerStyle = wb.createCellStyle();
+            Font font = wb.createFont();
+            font.setBold(true);
+            headerStyle.setFont(font);
+            Sheet sheet = null;
+            int rowNum = MAX_SHEET_ROWS;
+            long total = 0;
+            T last = null;
+            List<T> page;
+            while (!(page = source.next(last)).isEmpty()) {
+                for (T t : page) {
+                    if (rowNum >= MAX_SHEET_ROWS) {
+                        sheet = createSheet(wb, headers, headerStyle);
+                        rowNum = 1;
+                    }
+                    Row row = sheet.createRow(rowNum++);
+                    Object[] values = rowMapper.apply(t);
+                    for (int i = 0; i < values.length; i++) {
+                        setCellValue(row.createCell(i), values[i]);
+                    }
+                }
+                last = page.get(page.size() - 1);
+                total += page.size();
+                listener.progress(total);
+            }
+            if (sheet == null) {
+                createSheet(wb, headers, headerStyle);
             }
-        } catch (final IOException e) {
-            throw e;
+            wb.write(os);
+            os.flush();
         } finally {
-            if (bis != null)
-                bis.close();
-            if (bos != null)
-                bos.close();
+            wb.dispose();
+            wb.close();
+        }
+    }
+
+    private static Sheet createSheet(SXSSFWorkbook wb, String[] headers, CellStyle headerStyle) {
+        Sheet sheet = wb.createSheet();
+        Row row = sheet.createRow(0);
+        for (int i = 0; i < headers.length; i++) {
+            sheet.setColumnWidth(i, 20 * 256);
+            Cell cell = row.createCell(i);
+            cell.setCellValue(headers[i]);
+            cell.setCellStyle(headerStyle);
+        }
+        return sheet;
+    }
+
+    private static void setCellValue(Cell cell, Object value) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Number) {
+            cell.setCellValue(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            cell.setCellValue((Boolean) value);
+        } else {
+            cell.setCellValue(value.toString());
         }
     }
 
@@ -148,78 +255,108 @@ public class ExcelUtils {
 
     /**
      * 获取excel数据 将之转换成bean
-     *
+     * 每个sheet的首行为表头
      * @param cls
      * @param <T>
      * @return
+     * @throws IOException
      */
-    public static <T> List<T> readExcel(MultipartFile file, Class<T> cls) {
-        List<T> dataList = new LinkedList<T>();
-        Workbook workbook = null;
-        try {
-            workbook = getWorkBook(file);
-            Map<String, List<Field>> classMap = new HashMap<>();
-            Field[] fields = cls.getDeclaredFields();
-            for (Field field : fields) {
-                Excel annotation = field.getAnnotation(Excel.class);
-                if (annotation != null) {
-                    String value = annotation.name();
-                    if (!classMap.containsKey(value)) {
-                        classMap.put(value, new ArrayList<>());
-                    }
-                    field.setAccessible(true);
-                    classMap.get(value).add(field);
-                }
+    public static <T> List<T> readExcel(MultipartFile file, Class<T> cls) throws IOException {
+        List<T> dataList = new ArrayList<>();
+        Map<Integer, ExcelMapper<T>> mappers = new HashMap<>();
+        read(file, (sheetIndex, rowNum, cells) -> {
+            ExcelMapper<T> mapper = mappers.get(sheetIndex);
+            if (mapper == null) {
+                mappers.put(sheetIndex, new ExcelMapper<>(cls, cells));
+                return;
             }
-            Map<Integer, List<Field>> reflectionMap = new HashMap<Integer, List<Field>>();
-            int sheetsNumber = workbook.getNumberOfSheets();
-            for (int n = 0; n < sheetsNumber; n++) {
-                Sheet sheet = workbook.getSheetAt(n);
-                for (int j = sheet.getRow(0).getFirstCellNum(); j < sheet.getRow(0).getLastCellNum(); j++) { //首行提取注解
-                    Object cellValue = getCellValue(sheet.getRow(0).getCell(j));
-                    if (classMap.containsKey(cellValue)) {
-                        reflectionMap.put(j, classMap.get(cellValue));
-                    }
-                }
-                Row row = null;
-                Cell cell = null;
-                for (int i = sheet.getFirstRowNum() + 1; i < sheet.getPhysicalNumberOfRows(); i++) {
-                    row = sheet.getRow(i);
-                    T t = cls.newInstance();
-                    for (int j = row.getFirstCellNum(); j < row.getLastCellNum(); j++) {
-                        cell = row.getCell(j);
-                        if (reflectionMap.containsKey(j)) {
-                            Object cellValue = getCellValue(cell);
-                            List<Field> fieldList = reflectionMap.get(j);
-                            for (Field field : fieldList) {
-                                try {
-                                    switch (field.getType().getSimpleName()) {
-                                        case  "String":
-                                             field.set(t, cellValue);
-                                             break;
-                                        case  "int":
-                                             field.setInt(t, Integer.parseInt(cellValue + ""));
-                                             break;
-                                        default :
-                                             field.set(t, null);
-                                             break;
-                                    }
-                                } catch (Exception e) {
-                                    e.printStackTrace();
-                                }
-                            }
-                        }
-                    }
-                    dataList.add(t);
-                }
+            try {
+                T t = cls.newInstance();
+                mapper.map(cells, t);
+                dataList.add(t);
+            } catch (InstantiationException | IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("第" + (rowNum + 1) + "行" + e.getMessage());
             }
-            file.getInputStream().close();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        });
         return dataList;
     }
 
+    /**
+     * 流式读取excel, 逐行回调, 不构建整个工作簿
+     * xls使用事件模型, xlsx使用SAX解析
+     * @param file
+     * @param handler
+     * @throws IOException
+     */
+    public static void read(MultipartFile file, RowHandler handler) throws IOException {
+        read(file.getOriginalFilename(), file.getInputStream(), handler);
+    }
+
+    /**
+     * 流式读取excel, 按文件名后缀区分xls/xlsx
+     * @param fileName
+     * @param is 读取完成后关闭
+     * @param handler
+     * @throws IOException
+     */
+    public static void read(String fileName, InputStream is, RowHandler handler) throws IOException {
+        try (InputStream in = new BufferedInputStream(is)) {
+            if (StringUtils.endsWithIgnoreCase(fileName, "xlsx")) {
+                readXlsx(in, handler);
+            } else {
+                readXls(in, handler);
+            }
+        }
+    }
+
+    /**
+     * 事件模型读取xls(2003)
+     * @param is
+     * @param handler
+     * @throws IOException
+     */
+    public static void readXls(InputStream is, RowHandler handler) throws IOException {
+        POIFSFileSystem fs = new POIFSFileSystem(is);
+        try {
+            XlsListener listener = new XlsListener(handler);
+            HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(listener.missingRecordListener);
+            new HSSFEventFactory().processWorkbookEvents(request, fs);
+            listener.endRow();
+        } finally {
+            fs.close();
+        }
+    }
+
+    /**
+     * SAX读取xlsx(2007)
+     * @param is
+     * @param handler
+     * @throws IOException
+     */
+    public static void readXlsx(InputStream is, RowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(is)) {
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            XSSFReader reader = new XSSFReader(pkg);
+            StylesTable styles = reader.getStylesTable();
+            DataFormatter formatter = new DataFormatter();
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            int sheetIndex = 0;
+            while (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    XMLReader parser = SAXHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings,
+                            new XlsxSheetHandler(handler, sheetIndex), formatter, false));
+                    parser.parse(new InputSource(sheet));
+                }
+                sheetIndex++;
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("excel解析失败", e);
+        }
+    }
 
     public static Object getCellValue(Cell cell){
         Object value = null;
@@ -278,9 +415,188 @@ public class ExcelUtils {
         //获得文件名
         String fileName = file.getOriginalFilename();
         //判断文件是否是excel文件
-        if(!fileName.endsWith("xls")){
+        if(fileName == null || !(fileName.endsWith("xls") || fileName.endsWith("xlsx"))){
             return false;
         }
         return true;
     }
+
+    /**
+     * 分页数据源, 导出时逐页读取
+     */
+    public interface PageSource<T> {
+
+        /**
+         * @param last 上一页的最后一条, 首页为null
+         * @return 下一页数据, 空集合表示结束
+         */
+        List<T> next(T last);
+    }
+
+    /**
+     * 行回调, 空行不回调
+     */
+    public interface RowHandler {
+
+        /**
+         * @param sheetIndex sheet下标
+         * @param rowNum 行号(从0开始)
+         * @param cells 单元格文本, 下标即列号
+         */
+        void handle(int sheetIndex, int rowNum, List<String> cells);
+    }
+
+    /**
+     * xls事件监听
+     */
+    private static class XlsListener implements HSSFListener {
+
+        private final RowHandler handler;
+
+        private final FormatTrackingHSSFListener formatListener;
+
+        private final MissingRecordAwareHSSFListener missingRecordListener;
+
+        private final List<String> cells = new ArrayList<>();
+
+        private SSTRecord sstRecord;
+
+        private int sheetIndex = -1;
+
+        private int rowNum = -1;
+
+        /**
+         * 公式结果为字符串时, 值在下一条StringRecord中
+         */
+        private int formulaColumn = -1;
+
+        private XlsListener(RowHandler handler) {
+            this.handler = handler;
+            this.formatListener = new FormatTrackingHSSFListener(this);
+            this.missingRecordListener = new MissingRecordAwareHSSFListener(formatListener);
+        }
+
+        @Override
+        public void processRecord(org.apache.poi.hssf.record.Record record) {
+            switch (record.getSid()) {
+                case BOFRecord.sid:
+                    if (((BOFRecord) record).getType() == BOFRecord.TYPE_WORKSHEET) {
+                        endRow();
+                        sheetIndex++;
+                    }
+                    break;
+                case SSTRecord.sid:
+                    sstRecord = (SSTRecord) record;
+                    break;
+                case LabelSSTRecord.sid:
+                    LabelSSTRecord lsr = (LabelSSTRecord) record;
+                    put(lsr.getRow(), lsr.getColumn(), sstRecord.getString(lsr.getSSTIndex()).getString());
+                    break;
+                case LabelRecord.sid:
+                    LabelRecord lr = (LabelRecord) record;
+                    put(lr.getRow(), lr.getColumn(), lr.getValue());
+                    break;
+                case NumberRecord.sid:
+                    NumberRecord nr = (NumberRecord) record;
+                    put(nr.getRow(), nr.getColumn(), formatListener.formatNumberDateCell(nr));
+                    break;
+                case BoolErrRecord.sid:
+                    BoolErrRecord ber = (BoolErrRecord) record;
+                    if (ber.isBoolean()) {
+                        put(ber.getRow(), ber.getColumn(), String.valueOf(ber.getBooleanValue()));
+                    }
+                    break;
+                case FormulaRecord.sid:
+                    FormulaRecord fr = (FormulaRecord) record;
+                    if (fr.hasCachedResultString()) {
+                        rowNum = fr.getRow();
+                        formulaColumn = fr.getColumn();
+                    } else {
+                        put(fr.getRow(), fr.getColumn(), formatListener.formatNumberDateCell(fr));
+                    }
+                    break;
+                case StringRecord.sid:
+                    if (formulaColumn >= 0) {
+                        put(rowNum, formulaColumn, ((StringRecord) record).getString());
+                        formulaColumn = -1;
+                    }
+                    break;
+                default:
+                    if (record instanceof LastCellOfRowDummyRecord) {
+                        endRow();
+                    }
+                    break;
+            }
+        }
+
+        private void put(int row, int column, String value) {
+            if (row != rowNum) {
+                endRow();
+                rowNum = row;
+            }
+            while (cells.size() <= column) {
+                cells.add(null);
+            }
+            cells.set(column, value);
+        }
+
+        private void endRow() {
+            if (rowNum >= 0 && hasValue(cells)) {
+                handler.handle(sheetIndex, rowNum, new ArrayList<>(cells));
+            }
+            cells.clear();
+            rowNum = -1;
+        }
+    }
+
+    /**
+     * xlsx sheet解析
+     */
+    private static class XlsxSheetHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final RowHandler handler;
+
+        private final int sheetIndex;
+
+        private final List<String> cells = new ArrayList<>();
+
+        private XlsxSheetHandler(RowHandler handler, int sheetIndex) {
+            this.handler = handler;
+            this.sheetIndex = sheetIndex;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (hasValue(cells)) {
+                handler.handle(sheetIndex, rowNum, new ArrayList<>(cells));
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference == null ? cells.size() : new CellReference(cellReference).getCol();
+            while (cells.size() <= column) {
+                cells.add(null);
+            }
+            cells.set(column, formattedValue);
+        }
+
+        @Override
+        public void headerFooter(String text, boolean isHeader, String tagName) {
+        }
+    }
+
+    private static boolean hasValue(List<String> cells) {
+        for (String cell : cells) {
+            if (StringUtils.isNotBlank(cell)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -2,16 +2,24 @@ package com.iyundao.base.utils;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.poi.util.IOUtils;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -32,6 +40,17 @@ public class FileUtils {
      */
     protected final static String FILE_IDENTIFIER = ".";
 
+    /**
+     * tomcat sendfile相关的request属性
+     */
+    private final static String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+
+    private final static String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    private final static String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    private final static String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     /**
      * 上传文件
      * @param file  文件
@@ -53,10 +72,10 @@ public class FileUtils {
             map.put("suffix", suffix.substring(suffix.lastIndexOf(FILE_IDENTIFIER)).replace(".", ""));
             map.put("name", UUID.randomUUID().toString().replace("-", ""));
 
-            String filePath = o.getClass().getSimpleName().toLowerCase() + "\\" + map.get("name") + "." + map.get("suffix");
+            String filePath = o.getClass().getSimpleName().toLowerCase() + "/" + map.get("name") + "." + map.get("suffix");
             map.put("url", filePath);
 
-            File newFile = new File(path+filePath);
+            File newFile = Paths.get(path, filePath).toFile();
             if (!newFile.exists()) {
                 newFile.getParentFile().mkdirs();
             }
@@ -89,10 +108,10 @@ public class FileUtils {
             map.put("suffix", suffix.substring(suffix.lastIndexOf(FILE_IDENTIFIER)).replace(".", ""));
             map.put("name", UUID.randomUUID().toString().replace("-", ""));
 
-            String filePath = o.getClass().getSimpleName().toLowerCase() + "\\" +userCode+ "\\" + map.get("name") + "." + map.get("suffix");
+            String filePath = o.getClass().getSimpleName().toLowerCase() + "/" + userCode + "/" + map.get("name") + "." + map.get("suffix");
             map.put("url", filePath);
 
-            File newFile = new File(path+filePath);
+            File newFile = Paths.get(path, filePath).toFile();
             if (!newFile.exists()) {
                 newFile.getParentFile().mkdirs();
             }
@@ -115,33 +134,241 @@ public class FileUtils {
         return false;
     }
 
+    /**
+     * 获取后缀名(不含".")
+     * @param fileName
+     * @return 没有后缀时返回空字符串
+     */
+    public static String getSuffix(String fileName) {
+        if (fileName == null) {
+            return "";
+        }
+        int index = fileName.lastIndexOf(FILE_IDENTIFIER);
+        return index < 0 ? "" : fileName.substring(index + 1);
+    }
+
+    /**
+     * 计算SHA-256摘要, 流式读取, 不关闭输入流
+     * @param is
+     * @return 十六进制小写
+     * @throws IOException
+     */
+    public static String sha256(InputStream is) throws IOException {
+        return sha256(is, null);
+    }
+
+    /**
+     * 计算SHA-256摘要, 同时写入输出流, 读取一遍即完成复制和摘要; 不关闭输入/输出流
+     * @param is
+     * @param os 为null时只计算摘要
+     * @return 十六进制小写
+     * @throws IOException
+     */
+    public static String sha256(InputStream is, OutputStream os) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+            if (os != null) {
+                os.write(buffer, 0, read);
+            }
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * 根据配置的根路径解析实体中保存的相对路径, 兼容"\\"分隔符
+     * @param root 配置的根路径
+     * @param url 相对路径
+     * @return 超出根路径时返回null
+     */
+    public static Path resolve(String root, String url) {
+        if (url == null) {
+            return null;
+        }
+        Path base = Paths.get(root).toAbsolutePath().normalize();
+        Path file = base.resolve(url.replace('\\', '/')).normalize();
+        return file.startsWith(base) ? file : null;
+    }
+
+    /**
+     * 下载文件
+     * @param path 文件绝对路径
+     * @param req
+     * @param resp
+     * @throws IOException
+     */
+    public static void download(String path, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        Path file = Paths.get(path);
+        download(file, file.getFileName().toString(), true, req, resp);
+    }
+
     /**
      * 下载文件
+     * 支持Range(206)断点续传/视频拖动, ETag/Last-Modified协商缓存(304);
+     * 容器支持sendfile时由容器直接发送, 否则通过FileChannel.transferTo写出
+     * @param file 文件
+     * @param fileName 下载时显示的文件名
+     * @param attachment true-附件下载, false-浏览器内打开
+     * @param req
+     * @param resp
+     * @throws IOException
      */
-    public static void download(String path, HttpServletRequest req, HttpServletResponse resp)  {
-        File downloadFile = new File(path);
+    public static void download(Path file, String fileName, boolean attachment, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        long length = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis() / 1000 * 1000;
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
 
-        ServletContext context = req.getServletContext();
+        resp.setHeader("Accept-Ranges", "bytes");
+        resp.setHeader("ETag", etag);
+        resp.setDateHeader("Last-Modified", lastModified);
+        if (notModified(req, etag, lastModified)) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = req.getHeader("Range");
+        if (range != null && ifRangeMatches(req, etag, lastModified)) {
+            long[] r = parseRange(range, length);
+            if (r == null) {
+                resp.setHeader("Content-Range", "bytes */" + length);
+                resp.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (r.length == 2) {
+                start = r[0];
+                end = r[1];
+                resp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                resp.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        long count = end - start + 1;
+
+        String mimeType = req.getServletContext().getMimeType(fileName);
+        resp.setContentType(mimeType == null ? "application/octet-stream" : mimeType);
+        resp.setContentLengthLong(count);
+        resp.setHeader("Content-Disposition", (attachment ? "attachment" : "inline")
+                + "; filename*=UTF-8''" + URLEncoder.encode(fileName, "UTF-8").replace("+", "%20"));
+        if ("HEAD".equalsIgnoreCase(req.getMethod()) || count == 0) {
+            return;
+        }
 
-        String mimeType = context.getMimeType(path);
-        if (mimeType == null) {
-            mimeType = "multipart/form-data";
+        if (Boolean.TRUE.equals(req.getAttribute(SENDFILE_SUPPORTED))) {
+            req.setAttribute(SENDFILE_FILENAME, file.toFile().getCanonicalPath());
+            req.setAttribute(SENDFILE_START, start);
+            req.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(resp.getOutputStream());
+            long position = start;
+            while (count > 0) {
+                long written = channel.transferTo(position, count, out);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+                count -= written;
+            }
+        }
+        resp.flushBuffer();
+    }
+
+    /**
+     * If-None-Match优先于If-Modified-Since
+     */
+    private static boolean notModified(HttpServletRequest req, String etag, long lastModified) {
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                String t = tag.trim();
+                if ("*".equals(t) || etag.equals(t) || ("W/" + etag).equals(t)) {
+                    return true;
+                }
+            }
+            return false;
         }
+        long ifModifiedSince = getDateHeader(req, "If-Modified-Since");
+        return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+    }
 
-        resp.setContentType(mimeType);
-        resp.setContentLength((int) downloadFile.length());
+    /**
+     * If-Range与当前文件不一致时忽略Range, 返回完整文件
+     */
+    private static boolean ifRangeMatches(HttpServletRequest req, String etag, long lastModified) {
+        String ifRange = req.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.trim().startsWith("\"") || ifRange.trim().startsWith("W/")) {
+            // If-Range只允许强校验
+            return etag.equals(ifRange.trim());
+        }
+        long date = getDateHeader(req, "If-Range");
+        return date != -1 && lastModified <= date;
+    }
 
-        String headerKey = "Content-Disposition";
-        String headerValue = String.format("attachment; filename=\"%s\"",
-                downloadFile.getName());
-        resp.setHeader(headerKey, headerValue);
+    private static long getDateHeader(HttpServletRequest req, String name) {
+        try {
+            return req.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
 
+    /**
+     * 解析Range, 只支持单个区间, 多区间时返回完整文件
+     * @param range
+     * @param length
+     * @return [start, end]; 空数组表示返回完整文件; null表示区间无效(416)
+     */
+    private static long[] parseRange(String range, long length) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = range.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
         try {
-            InputStream myStream = new FileInputStream(path);
-            IOUtils.copy(myStream, resp.getOutputStream());
-            resp.flushBuffer();
-        } catch (IOException e) {
-            e.printStackTrace();
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(length - suffix, 0);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            }
+            if (start >= length || start > end) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
         }
     }
 }
@@ -0,0 +1,164 @@
+package com.iyundao.base.utils;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * @ClassName: GeoFence
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/8/26 9:40
+ * @Description: 工具类 - 签到范围, 由出勤的坐标及范围字符串预编译
+ *               范围为半径(如"500", "500米")时以(axisx, axisy)为圆心;
+ *               为"经度,纬度;经度,纬度;..."(至少3个顶点)时为多边形
+ * @Version: V2.0
+ */
+public abstract class GeoFence {
+
+    /**
+     * 地球平均半径, 单位：米
+     */
+    private final static double EARTH_RADIUS = 6371008.8;
+
+    private final static double METERS_PER_DEGREE = Math.PI * EARTH_RADIUS / 180;
+
+    /**
+     * 编译签到范围
+     * @param axisx 经度
+     * @param axisy 纬度
+     * @param area 半径或多边形顶点
+     * @return 未设置或格式不正确时返回null, 即不限制范围
+     */
+    public static GeoFence compile(String axisx, String axisy, String area) {
+        area = StringUtils.trimToNull(area);
+        if (area == null) {
+            return null;
+        }
+        if (area.indexOf(';') >= 0) {
+            return Polygon.compile(area);
+        }
+        Double x = parse(axisx);
+        Double y = parse(axisy);
+        Double radius = parse(StringUtils.removeEnd(StringUtils.removeEnd(StringUtils.removeEndIgnoreCase(area, "m"), "米"), "以内"));
+        if (x == null || y == null || radius == null || radius <= 0) {
+            return null;
+        }
+        return new Circle(x, y, radius);
+    }
+
+    /**
+     * 解析坐标
+     * @param value
+     * @return 不是数字时返回null
+     */
+    public static Double parse(String value) {
+        value = StringUtils.trimToNull(value);
+        if (value == null) {
+            return null;
+        }
+        try {
+            double d = Double.parseDouble(value);
+            return Double.isNaN(d) || Double.isInfinite(d) ? null : d;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 坐标是否在范围内
+     * @param x 经度
+     * @param y 纬度
+     * @return
+     */
+    public abstract boolean contains(double x, double y);
+
+    /**
+     * 圆形范围, 按圆心纬度做等距投影, 几公里内误差可忽略
+     */
+    private static class Circle extends GeoFence {
+
+        private final double x;
+
+        private final double y;
+
+        private final double cosY;
+
+        private final double radiusSquared;
+
+        private Circle(double x, double y, double radius) {
+            this.x = x;
+            this.y = y;
+            this.cosY = Math.cos(Math.toRadians(y));
+            this.radiusSquared = radius * radius;
+        }
+
+        @Override
+        public boolean contains(double x, double y) {
+            double dx = (x - this.x) * cosY * METERS_PER_DEGREE;
+            double dy = (y - this.y) * METERS_PER_DEGREE;
+            return dx * dx + dy * dy <= radiusSquared;
+        }
+    }
+
+    /**
+     * 多边形范围, 先比较外接矩形再做射线判断
+     */
+    private static class Polygon extends GeoFence {
+
+        private final double[] xs;
+
+        private final double[] ys;
+
+        private final double minX, maxX, minY, maxY;
+
+        private static Polygon compile(String area) {
+            String[] points = StringUtils.split(area, ';');
+            if (points.length < 3) {
+                return null;
+            }
+            double[] xs = new double[points.length];
+            double[] ys = new double[points.length];
+            for (int i = 0; i < points.length; i++) {
+                String[] point = StringUtils.split(points[i], ',');
+                Double x = point.length == 2 ? parse(point[0]) : null;
+                Double y = point.length == 2 ? parse(point[1]) : null;
+                if (x == null || y == null) {
+                    return null;
+                }
+                xs[i] = x;
+                ys[i] = y;
+            }
+            return new Polygon(xs, ys);
+        }
+
+        private Polygon(double[] xs, double[] ys) {
+            this.xs = xs;
+            this.ys = ys;
+            double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+            for (int i = 0; i < xs.length; i++) {
+                minX = Math.min(minX, xs[i]);
+                maxX = Math.max(maxX, xs[i]);
+                minY = Math.min(minY, ys[i]);
+                maxY = Math.max(maxY, ys[i]);
+            }
+            this.minX = minX;
+            this.maxX = maxX;
+            this.minY = minY;
+            this.maxY = maxY;
+        }
+
+        @Override
+        public boolean contains(double x, double y) {
+            if (x < minX || x > maxX || y < minY || y > maxY) {
+                return false;
+            }
+            boolean inside = false;
+            for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+                if ((ys[i] > y) != (ys[j] > y)
+                        && x < (xs[j] - xs[i]) * (y - ys[i]) / (ys[j] - ys[i]) + xs[i]) {
+                    inside = !inside;
+                }
+            }
+            return inside;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.iyundao.base.utils;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @ClassName: IdUtils
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/5 9:20
+ * @Description: 主键生成, 实体和JDBC批量写入共用
+ * @Version: V2.0
+ */
+public final class IdUtils {
+
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static volatile ID_STRATEGY strategy = ID_STRATEGY.ulid;
+
+    /**
+     * 上次生成的毫秒时间及随机部分, 同一毫秒内随机部分递增, 保证生成的ID严格有序
+     */
+    private static long lastTime;
+
+    private static long high;
+
+    private static long low;
+
+    /**
+     * 不可实例化
+     */
+    private IdUtils() {
+    }
+
+    /**
+     * 按当前策略生成主键
+     * @return
+     */
+    public static String nextId() {
+        return strategy.next();
+    }
+
+    public static ID_STRATEGY getStrategy() {
+        return strategy;
+    }
+
+    public static void setStrategy(ID_STRATEGY strategy) {
+        IdUtils.strategy = strategy;
+    }
+
+    /**
+     * 主键策略, 生成的ID都不超过32位, 与现有的ID列兼容
+     */
+    public enum ID_STRATEGY {
+        /**
+         * 随机UUID, 32位十六进制, 原有方案, 插入位置随机
+         */
+        uuid {
+            @Override
+            public String next() {
+                UUID uuid = UUID.randomUUID();
+                return hex(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            }
+        },
+
+        /**
+         * UUIDv7, 32位十六进制, 前48位为毫秒时间
+         */
+        uuid7 {
+            @Override
+            public String next() {
+                synchronized (IdUtils.class) {
+                    advance();
+                    long msb = lastTime << 16 | 0x7000L | (high & 0xFFFL);
+                    long lsb = low & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+                    return hex(msb, lsb);
+                }
+            }
+        },
+
+        /**
+         * ULID, 26位Crockford Base32, 前10位为毫秒时间
+         */
+        ulid {
+            @Override
+            public String next() {
+                char[] chars = new char[26];
+                synchronized (IdUtils.class) {
+                    advance();
+                    for (int i = 9; i >= 0; i--) {
+                        chars[9 - i] = CROCKFORD[(int) (lastTime >>> (i * 5)) & 31];
+                    }
+                    for (int i = 15; i >= 0; i--) {
+                        int shift = i * 5;
+                        long bits;
+                        if (shift >= 64) {
+                            bits = high >>> (shift - 64);
+                        } else if (shift + 5 > 64) {
+                            bits = low >>> shift | high << (64 - shift);
+                        } else {
+                            bits = low >>> shift;
+                        }
+                        chars[25 - i] = CROCKFORD[(int) bits & 31];
+                    }
+                }
+                return new String(chars);
+            }
+        };
+
+        public abstract String next();
+    }
+
+    /**
+     * 进入新的毫秒时重新取随机数, 同一毫秒(或时钟回拨)时随机部分加1, 溢出时借用下一毫秒
+     * 调用方持有IdUtils.class锁
+     */
+    private static void advance() {
+        long time = System.currentTimeMillis();
+        if (time > lastTime) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            lastTime = time;
+            high = random.nextInt() & 0xFFFFL;
+            low = random.nextLong();
+        } else if (++low == 0 && ++high > 0xFFFFL) {
+            lastTime++;
+            high = 0;
+        }
+    }
+
+    private static String hex(long msb, long lsb) {
+        char[] chars = new char[32];
+        for (int i = 0; i < 16; i++) {
+            chars[i] = HEX[(int) (msb >>> (60 - i * 4)) & 15];
+            chars[16 + i] = HEX[(int) (lsb >>> (60 - i * 4)) & 15];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,179 @@
+package com.iyundao.base.utils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+
+/**
+ * @ClassName: ImageUtils
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/8/23 14:10
+ * @Description: 工具类 - 图片缩放/压缩
+ * @Version: V2.0
+ */
+public class ImageUtils {
+
+    /**
+     * 衍生图片后缀名
+     */
+    private final static String DERIVATIVE_SUFFIX = ".jpg";
+
+    /**
+     * 无法解码标记的后缀名
+     */
+    private final static String FAILED_SUFFIX = ".failed";
+
+    /**
+     * 衍生图片路径, 与原图同目录: 原图名_尺寸.jpg
+     * @param original 原图
+     * @param size 尺寸名称
+     * @return
+     */
+    public static Path derivative(Path original, String size) {
+        return original.resolveSibling(baseName(original) + "_" + size + DERIVATIVE_SUFFIX);
+    }
+
+    /**
+     * 无法解码标记, 与原图同目录: 原图名.failed
+     * @param original 原图
+     * @return
+     */
+    public static Path failedMarker(Path original) {
+        return original.resolveSibling(baseName(original) + FAILED_SUFFIX);
+    }
+
+    /**
+     * 删除原图的所有衍生图片及无法解码标记
+     * @param original
+     * @throws IOException
+     */
+    public static void deleteDerivatives(Path original) throws IOException {
+        Path dir = original.getParent();
+        if (dir == null || !Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, baseName(original) + "_*" + DERIVATIVE_SUFFIX)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(failedMarker(original));
+    }
+
+    /**
+     * 读取图片, 原图远大于需要的尺寸时按间隔采样解码, 减少内存占用
+     * @param file
+     * @param maxSide 需要的最大边长
+     * @return 不是图片时返回null
+     * @throws IOException
+     */
+    public static BufferedImage read(Path file, int maxSide) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = iis == null ? null : ImageIO.getImageReaders(iis);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int side = Math.max(reader.getWidth(0), reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                // 保留两倍于目标尺寸的像素, 再平滑缩小
+                int step = side / (maxSide * 2);
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 按最大边长等比缩小, 不放大; 每次缩小一半直至目标尺寸, 保证双线性插值的效果
+     * @param image
+     * @param maxSide
+     * @return 不透明的RGB图片
+     */
+    public static BufferedImage scale(BufferedImage image, int maxSide) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double ratio = Math.min(1d, (double) maxSide / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+        BufferedImage current = image;
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = draw(current, width, height);
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    /**
+     * 按质量写入jpg, 先写临时文件再改名
+     * @param image
+     * @param quality 0-1
+     * @param target
+     * @throws IOException
+     */
+    public static void writeJpeg(BufferedImage image, float quality, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        Path temp = Files.createTempFile(target.getParent(), baseName(target), ".tmp");
+        try {
+            try (ImageOutputStream ios = ImageIO.createImageOutputStream(temp.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+                if (param.canWriteProgressive()) {
+                    param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+                }
+                writer.setOutput(ios);
+                writer.write(null, new IIOImage(image, null, null), param);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            writer.dispose();
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 绘制到白色背景的RGB图片, 透明区域转为白色
+     */
+    private static BufferedImage draw(BufferedImage image, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private static String baseName(Path file) {
+        String name = file.getFileName().toString();
+        int index = name.lastIndexOf('.');
+        return index > 0 ? name.substring(0, index) : name;
+    }
+}
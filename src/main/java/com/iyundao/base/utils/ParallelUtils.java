@@ -0,0 +1,46 @@
+package com.iyundao.base.utils;
+
+import java.util.Collection;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * @ClassName: ParallelUtils
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/8/26 16:05
+ * @Description: 工具类 - 限定并行数的批处理, 不占用公共ForkJoinPool
+ * @Version: V2.0
+ */
+public class ParallelUtils {
+
+    /**
+     * 并行处理, 全部完成后返回
+     * @param items
+     * @param parallelism 并行数, 涉及数据库时不应超过连接池大小
+     * @param action
+     * @param <T>
+     * @throws CancellationException 等待时被中断或处理中取消
+     */
+    public static <T> void forEach(Collection<T> items, int parallelism, Consumer<T> action) {
+        if (items.isEmpty()) {
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            pool.submit(() -> items.parallelStream().forEach(action)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.iyundao.base.utils;
+
+/**
+ * @ClassName: ProgressListener
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/8/22 9:30
+ * @Description: 进度回调 - 导入/导出
+ * @Version: V2.0
+ */
+public interface ProgressListener {
+
+    /**
+     * 不关心进度
+     */
+    ProgressListener NONE = done -> {
+    };
+
+    /**
+     * 每处理完一批回调一次
+     * @param done 已处理的行数
+     * @throws java.util.concurrent.CancellationException 任务已取消
+     */
+    void progress(long done);
+}
@@ -1,22 +1,110 @@
 package com.iyundao.base.utils;
 
 import java.sql.Timestamp;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @ClassName: TimeUtils
  * @project: IYunDao
  * @author: 念
  * @Date: 2019/5/15 15:34
- * @Description: 时间工具类
+ * @Description: 时间工具类, 基于java.time, 线程安全
  * @Version: V2.0
  */
 public class TimeUtils {
 
     public final static String yyyyMMddHHmmss = "yyyyMMddHHmmss";
 
+    private static final int yyyyMMddHHmmss_LENGTH = 14;
+
+    /**
+     * 按格式缓存的DateTimeFormatter, 不可变, 可在线程间共用
+     */
+    private static final ConcurrentMap<String, DateTimeFormatter> FORMATTERS = new ConcurrentHashMap<>();
+
+    /**
+     * 获取格式对应的DateTimeFormatter, 同一格式只创建一次
+     * @param pattern
+     * @return
+     */
+    public static DateTimeFormatter formatter(String pattern) {
+        DateTimeFormatter formatter = FORMATTERS.get(pattern);
+        if (formatter == null) {
+            formatter = FORMATTERS.computeIfAbsent(pattern, DateTimeFormatter::ofPattern);
+        }
+        return formatter;
+    }
+
+    /**
+     * 当前时间, 精确到秒, 与数据库DATETIME列一致
+     * @return
+     */
+    public static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    /**
+     * 格式化为yyyyMMddHHmmss, 直接写入字符数组, 不经过DateTimeFormatter
+     * @param time
+     * @return time为null时返回null
+     */
+    public static String format(LocalDateTime time) {
+        if (time == null) {
+            return null;
+        }
+        int year = time.getYear();
+        if (year < 0 || year > 9999) {
+            return formatter(yyyyMMddHHmmss).format(time);
+        }
+        char[] chars = new char[yyyyMMddHHmmss_LENGTH];
+        put(chars, 0, year / 100);
+        put(chars, 2, year % 100);
+        put(chars, 4, time.getMonthValue());
+        put(chars, 6, time.getDayOfMonth());
+        put(chars, 8, time.getHour());
+        put(chars, 10, time.getMinute());
+        put(chars, 12, time.getSecond());
+        return new String(chars);
+    }
+
+    /**
+     * yyyyMMddHHmmss转为LocalDateTime
+     * @param date
+     * @return 格式不正确时返回null
+     */
+    public static LocalDateTime parse(String date) {
+        if (!isyyyyMMddHHmmss(date)) {
+            return null;
+        }
+        return LocalDateTime.of(digits(date, 0, 4), digits(date, 4, 6), digits(date, 6, 8),
+                digits(date, 8, 10), digits(date, 10, 12), digits(date, 12, 14));
+    }
+
+    /**
+     * Date转为LocalDateTime, 精确到秒
+     * @param date
+     * @return date为null时返回null
+     */
+    public static LocalDateTime toLocalDateTime(Date date) {
+        return date == null ? null : toLocal(date).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    /**
+     * 数据库DATETIME列读出的时间格式化为yyyyMMddHHmmss
+     * @param time
+     * @return time为null时返回null
+     */
+    public static String format(Timestamp time) {
+        return time == null ? null : format(time.toLocalDateTime());
+    }
+
     public static String setTime(Date date) {
         return convertTime(date, "yyyy-MM-dd");
     }
@@ -30,228 +118,155 @@ public class TimeUtils {
     }
 
     public static String convertTime(Date date, String patten) {
-        return new SimpleDateFormat(patten).format(date);
+        if (yyyyMMddHHmmss.equals(patten)) {
+            return format(toLocal(date));
+        }
+        return formatter(patten).format(toLocal(date));
     }
 
+    /**
+     * yyyyMMddHHmmss转为Date
+     * @param date
+     * @return 格式不正确时返回null
+     */
     public static Date getDate(String date) {
-        if (isyyyyMMddHHmmss(date)) {
-            Calendar cal = Calendar.getInstance();
-            int year = Integer.parseInt(date.substring(0, 4));
-            int month = Integer.parseInt(date.substring(4, 6));
-            int day = Integer.parseInt(date.substring(6, 8));
-            int hour = Integer.parseInt(date.substring(8, 10));
-            int min = Integer.parseInt(date.substring(10, 12));
-            int sec = Integer.parseInt(date.substring(12, 14));
-            cal.set(year, month - 1, day, hour, min, sec);
-            return cal.getTime();
-        }
-        return null;
+        LocalDateTime time = parse(date);
+        return time == null ? null : toDate(time);
     }
 
+    /**
+     * yyyyMMddHHmmss转为其他格式
+     * @param date
+     * @param patten
+     * @return
+     * @throws IllegalArgumentException 格式不正确
+     */
     public static String convertTime(String date, String patten) {
-        Calendar cal = Calendar.getInstance();
-        int year = Integer.parseInt(date.substring(0, 4));
-        int month = Integer.parseInt(date.substring(4, 6));
-        int day = Integer.parseInt(date.substring(6, 8));
-        int hour = Integer.parseInt(date.substring(8, 10));
-        int min = Integer.parseInt(date.substring(10, 12));
-        int sec = Integer.parseInt(date.substring(12, 14));
-        cal.set(year, month - 1, day, hour, min, sec);
-        return new SimpleDateFormat(patten).format(cal.getTime());
+        LocalDateTime time = parse(date);
+        if (time == null) {
+            throw new IllegalArgumentException("not yyyyMMddHHmmss: " + date);
+        }
+        return formatter(patten).format(time);
     }
 
     public static String nowTime() {
-       return new SimpleDateFormat("yyyyMMddHHmmss").format(new Date(System.currentTimeMillis()));
+        return format(LocalDateTime.now());
     }
 
     /**
-     * 检测时间格式是否符合yyyyMMddHHmmss
+     * yyyyMMddHHmmss转为毫秒时间戳
+     * @param date
+     * @return 格式不正确时返回null
+     */
+    public static Long toMillis(String date) {
+        LocalDateTime time = parse(date);
+        return time == null ? null : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 检测时间格式是否符合yyyyMMddHHmmss, 逐位校验数字及月、日、时、分、秒的范围, 不抛出异常
      * @param date
      * @return
      */
     public static boolean isyyyyMMddHHmmss(String date) {
-        SimpleDateFormat format = new SimpleDateFormat("yyyyMMddHHmmss");
-        try {
-            format.parse(date);
-            return true;
-        } catch (ParseException e) {
+        if (date == null || date.length() != yyyyMMddHHmmss_LENGTH) {
             return false;
         }
+        for (int i = 0; i < yyyyMMddHHmmss_LENGTH; i++) {
+            char c = date.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        int year = digits(date, 0, 4);
+        int month = digits(date, 4, 6);
+        int day = digits(date, 6, 8);
+        return month >= 1 && month <= 12
+                && day >= 1 && day <= Month.of(month).length(Year.isLeap(year))
+                && digits(date, 8, 10) <= 23
+                && digits(date, 10, 12) <= 59
+                && digits(date, 12, 14) <= 59;
     }
 
     //获取当天的开始时间
     public static Date getDayBegin() {
-        Calendar cal = new GregorianCalendar();
-        cal.set(Calendar.HOUR_OF_DAY, 0);
-        cal.set(Calendar.MINUTE, 0);
-        cal.set(Calendar.SECOND, 0);
-        cal.set(Calendar.MILLISECOND, 0);
-        return cal.getTime();
+        return getDayStartTime(null);
     }
     //获取当天的结束时间
     public static Date getDayEnd() {
-        Calendar cal = new GregorianCalendar();
-        cal.set(Calendar.HOUR_OF_DAY, 23);
-        cal.set(Calendar.MINUTE, 59);
-        cal.set(Calendar.SECOND, 59);
-        return cal.getTime();
+        return getDayEndTime(null);
     }
     //获取昨天的开始时间
     public static Date getBeginDayOfYesterday() {
-        Calendar cal = new GregorianCalendar();
-        cal.setTime(getDayBegin());
-        cal.add(Calendar.DAY_OF_MONTH, -1);
-        return cal.getTime();
+        return begin(LocalDate.now().minusDays(1));
     }
     //获取昨天的结束时间
     public static Date getEndDayOfYesterDay() {
-        Calendar cal = new GregorianCalendar();
-        cal.setTime(getDayEnd());
-        cal.add(Calendar.DAY_OF_MONTH, -1);
-        return cal.getTime();
+        return end(LocalDate.now().minusDays(1));
     }
     //获取明天的开始时间
     public static Date getBeginDayOfTomorrow() {
-        Calendar cal = new GregorianCalendar();
-        cal.setTime(getDayBegin());
-        cal.add(Calendar.DAY_OF_MONTH, 1);
-
-        return cal.getTime();
+        return begin(LocalDate.now().plusDays(1));
     }
     //获取明天的结束时间
     public static Date getEndDayOfTomorrow() {
-        Calendar cal = new GregorianCalendar();
-        cal.setTime(getDayEnd());
-        cal.add(Calendar.DAY_OF_MONTH, 1);
-        return cal.getTime();
+        return end(LocalDate.now().plusDays(1));
     }
     //获取本周的开始时间
-    @SuppressWarnings("unused")
     public static Date getBeginDayOfWeek() {
-        Date date = new Date();
-        if (date == null) {
-            return null;
-        }
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(date);
-        int dayofweek = cal.get(Calendar.DAY_OF_WEEK);
-        if (dayofweek == 1) {
-            dayofweek += 7;
-        }
-        cal.add(Calendar.DATE, 2 - dayofweek);
-        return getDayStartTime(cal.getTime());
+        return begin(monday(LocalDate.now()));
     }
     //获取本周的结束时间
     public static Date getEndDayOfWeek(){
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(getBeginDayOfWeek());
-        cal.add(Calendar.DAY_OF_WEEK, 6);
-        Date weekEndSta = cal.getTime();
-        return getDayEndTime(weekEndSta);
+        return end(monday(LocalDate.now()).plusDays(6));
     }
     //获取上周的开始时间
-    @SuppressWarnings("unused")
     public static Date getBeginDayOfLastWeek() {
-        Date date = new Date();
-        if (date == null) {
-            return null;
-        }
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(date);
-        int dayofweek = cal.get(Calendar.DAY_OF_WEEK);
-        if (dayofweek == 1) {
-            dayofweek += 7;
-        }
-        cal.add(Calendar.DATE, 2 - dayofweek - 7);
-        return getDayStartTime(cal.getTime());
+        return begin(monday(LocalDate.now()).minusWeeks(1));
     }
     //获取上周的结束时间
     public static Date getEndDayOfLastWeek(){
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(getBeginDayOfLastWeek());
-        cal.add(Calendar.DAY_OF_WEEK, 6);
-        Date weekEndSta = cal.getTime();
-        return getDayEndTime(weekEndSta);
+        return end(monday(LocalDate.now()).minusDays(1));
     }
     //获取本月的开始时间
     public static Date getBeginDayOfMonth() {
-        Calendar calendar = Calendar.getInstance();
-        calendar.set(getNowYear(), getNowMonth() - 1, 1);
-        return getDayStartTime(calendar.getTime());
+        return begin(LocalDate.now().withDayOfMonth(1));
     }
     //获取本月的结束时间
     public static Date getEndDayOfMonth() {
-        Calendar calendar = Calendar.getInstance();
-        calendar.set(getNowYear(), getNowMonth() - 1, 1);
-        int day = calendar.getActualMaximum(5);
-        calendar.set(getNowYear(), getNowMonth() - 1, day);
-        return getDayEndTime(calendar.getTime());
+        return end(LocalDate.now().with(TemporalAdjusters.lastDayOfMonth()));
     }
     //获取上月的开始时间
     public static Date getBeginDayOfLastMonth() {
-        Calendar calendar = Calendar.getInstance();
-        calendar.set(getNowYear(), getNowMonth() - 2, 1);
-        return getDayStartTime(calendar.getTime());
+        return begin(LocalDate.now().minusMonths(1).withDayOfMonth(1));
     }
     //获取上月的结束时间
     public static Date getEndDayOfLastMonth() {
-        Calendar calendar = Calendar.getInstance();
-        calendar.set(getNowYear(), getNowMonth() - 2, 1);
-        int day = calendar.getActualMaximum(5);
-        calendar.set(getNowYear(), getNowMonth() - 2, day);
-        return getDayEndTime(calendar.getTime());
+        return end(LocalDate.now().minusMonths(1).with(TemporalAdjusters.lastDayOfMonth()));
     }
     //获取本年的开始时间
     public static Date getBeginDayOfYear() {
-        Calendar cal = Calendar.getInstance();
-        cal.set(Calendar.YEAR, getNowYear());
-        // cal.set
-        cal.set(Calendar.MONTH, Calendar.JANUARY);
-        cal.set(Calendar.DATE, 1);
-
-        return getDayStartTime(cal.getTime());
+        return begin(LocalDate.now().withDayOfYear(1));
     }
     //获取本年的结束时间
     public static Date getEndDayOfYear() {
-        Calendar cal = Calendar.getInstance();
-        cal.set(Calendar.YEAR, getNowYear());
-        cal.set(Calendar.MONTH, Calendar.DECEMBER);
-        cal.set(Calendar.DATE, 31);
-        return getDayEndTime(cal.getTime());
+        return end(LocalDate.now().with(TemporalAdjusters.lastDayOfYear()));
     }
     //获取某个日期的开始时间
     public static Timestamp getDayStartTime(Date d) {
-        Calendar calendar = Calendar.getInstance();
-        if(null != d) {
-            calendar.setTime(d);
-        }
-        calendar.set(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH),    calendar.get(Calendar.DAY_OF_MONTH), 0, 0, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-        return new Timestamp(calendar.getTimeInMillis());
+        return begin(d == null ? LocalDate.now() : toLocal(d).toLocalDate());
     }
     //获取某个日期的结束时间
     public static Timestamp getDayEndTime(Date d) {
-        Calendar calendar = Calendar.getInstance();
-        if(null != d) {
-            calendar.setTime(d);
-        }
-        calendar.set(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH),    calendar.get(Calendar.DAY_OF_MONTH), 23, 59, 59);
-        calendar.set(Calendar.MILLISECOND, 999);
-        return new Timestamp(calendar.getTimeInMillis());
+        return end(d == null ? LocalDate.now() : toLocal(d).toLocalDate());
     }
     //获取今年是哪一年
     public static Integer getNowYear() {
-        Date date = new Date();
-        GregorianCalendar gc = (GregorianCalendar) Calendar.getInstance();
-        gc.setTime(date);
-        return Integer.valueOf(gc.get(1));
+        return LocalDate.now().getYear();
     }
     //获取本月是哪一月
     public static int getNowMonth() {
-        Date date = new Date();
-        GregorianCalendar gc = (GregorianCalendar) Calendar.getInstance();
-        gc.setTime(date);
-        return gc.get(2) + 1;
+        return LocalDate.now().getMonthValue();
     }
     //两个日期相减得到的天数
     public static int getDiffDays(Date beginDate, Date endDate) {
@@ -260,12 +275,7 @@ public class TimeUtils {
             throw new IllegalArgumentException("getDiffDays param is null!");
         }
 
-        long diff = (endDate.getTime() - beginDate.getTime())
-                / (1000 * 60 * 60 * 24);
-
-        int days = new Long(diff).intValue();
-
-        return days;
+        return (int) ((endDate.getTime() - beginDate.getTime()) / (1000 * 60 * 60 * 24));
     }
     //两个日期相减得到的毫秒数
     public static long dateDiff(Date beginDate, Date endDate) {
@@ -301,32 +311,22 @@ public class TimeUtils {
     }
     //返回某月该季度的第一个月
     public static Date getFirstSeasonDate(Date date) {
-        final int[] SEASON = { 1, 1, 1, 2, 2, 2, 3, 3, 3, 4, 4, 4 };
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(date);
-        int sean = SEASON[cal.get(Calendar.MONTH)];
-        cal.set(Calendar.MONTH, sean * 3 - 3);
-        return cal.getTime();
+        LocalDateTime time = toLocal(date);
+        int month = (time.get(IsoFields.QUARTER_OF_YEAR) - 1) * 3 + 1;
+        return toDate(time.withMonth(month));
     }
     //返回某个日期下几天的日期
     public static Date getNextDay(Date date, int i) {
-        Calendar cal = new GregorianCalendar();
-        cal.setTime(date);
-        cal.set(Calendar.DATE, cal.get(Calendar.DATE) + i);
-        return cal.getTime();
+        return toDate(toLocal(date).plusDays(i));
     }
     //返回某个日期前几天的日期
     public static Date getFrontDay(Date date, int i) {
-        Calendar cal = new GregorianCalendar();
-        cal.setTime(date);
-        cal.set(Calendar.DATE, cal.get(Calendar.DATE) - i);
-        return cal.getTime();
+        return toDate(toLocal(date).minusDays(i));
     }
     //获取某年某月到某年某月按天的切片日期集合（间隔天数的集合）
-    @SuppressWarnings({ "rawtypes", "unchecked" })
-    public static List getTimeList(int beginYear, int beginMonth, int endYear,
-                                   int endMonth, int k) {
-        List list = new ArrayList();
+    public static List<List<Date>> getTimeList(int beginYear, int beginMonth, int endYear,
+                                               int endMonth, int k) {
+        List<List<Date>> list = new ArrayList<>();
         if (beginYear == endYear) {
             for (int j = beginMonth; j <= endMonth; j++) {
                 list.add(getTimeList(beginYear, j, k));
@@ -350,18 +350,55 @@ public class TimeUtils {
         }
         return list;
     }
-    //获取某年某月按天切片日期集合（某个月间隔多少天的日期集合）
-    @SuppressWarnings({ "unchecked", "rawtypes" })
-    public static List getTimeList(int beginYear, int beginMonth, int k) {
-        List list = new ArrayList();
-        Calendar begincal = new GregorianCalendar(beginYear, beginMonth, 1);
-        int max = begincal.getActualMaximum(Calendar.DATE);
+    //获取某年某月按天切片日期集合（某个月间隔多少天的日期集合）, 月份从0开始
+    public static List<Date> getTimeList(int beginYear, int beginMonth, int k) {
+        List<Date> list = new ArrayList<>();
+        LocalDate first = LocalDate.of(beginYear, beginMonth + 1, 1);
+        int max = first.lengthOfMonth();
         for (int i = 1; i < max; i = i + k) {
-            list.add(begincal.getTime());
-            begincal.add(Calendar.DATE, k);
+            list.add(toDate(first.withDayOfMonth(i).atStartOfDay()));
         }
-        begincal = new GregorianCalendar(beginYear, beginMonth, max);
-        list.add(begincal.getTime());
+        list.add(toDate(first.withDayOfMonth(max).atStartOfDay()));
         return list;
     }
+
+    private static LocalDateTime toLocal(Date date) {
+        // java.sql.Date不支持toInstant
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(date.getTime()), ZoneId.systemDefault());
+    }
+
+    private static Date toDate(LocalDateTime time) {
+        return Date.from(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static Timestamp begin(LocalDate date) {
+        return Timestamp.valueOf(date.atStartOfDay());
+    }
+
+    private static Timestamp end(LocalDate date) {
+        return Timestamp.valueOf(date.atTime(23, 59, 59, 999_000_000));
+    }
+
+    private static LocalDate monday(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    /**
+     * 读取[from, to)位的数字, 调用前已校验为数字
+     */
+    private static int digits(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            value = value * 10 + s.charAt(i) - '0';
+        }
+        return value;
+    }
+
+    /**
+     * 写入两位数字
+     */
+    private static void put(char[] chars, int offset, int value) {
+        chars[offset] = (char) ('0' + value / 10);
+        chars[offset + 1] = (char) ('0' + value % 10);
+    }
 }
@@ -6,8 +6,14 @@ import com.iyundao.base.BaseController;
 import com.iyundao.base.Page;
 import com.iyundao.base.Pageable;
 import com.iyundao.base.annotation.CurrentSubject;
+import com.iyundao.base.annotation.CurrentUser;
+import com.iyundao.base.annotation.QueryBudget;
+import com.iyundao.base.utils.ExcelUtils;
+import com.iyundao.base.utils.FileUtils;
 import com.iyundao.base.utils.JsonResult;
 import com.iyundao.base.utils.JsonUtils;
+import com.iyundao.base.utils.ProgressListener;
+import com.iyundao.base.utils.TimeUtils;
 import com.iyundao.entity.*;
 import com.iyundao.service.*;
 import org.apache.commons.collections.CollectionUtils;
@@ -17,8 +23,16 @@ import org.apache.shiro.authz.annotation.RequiresPermissions;
 import org.apache.shiro.authz.annotation.RequiresRoles;
 import org.apache.shiro.authz.annotation.RequiresUser;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -53,15 +67,31 @@ public class ActivityController extends BaseController {
     @Autowired
     private LabelService labelService;
 
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private SignStatService signStatService;
+
+    @Autowired
+    private AudienceService audienceService;
+
+    @Value("${server.file.maxSize}")
+    private long fileMaxSize;
+
+    @Value("${server.file.imageMaxSize}")
+    private long imageMaxSize;
+
     /**
      * @api {POST} /activity/upload_file 上传文件
      * @apiGroup Activity
      * @apiVersion 2.0.0
      * @apiHeader {String} IYunDao-AssessToken token验证
-     * @apiDescription 上传文件
-     * @apiParam {String} name 必填
-     * @apiParam {String} url 必填
-     * @apiParam {String} suffix 必填
+     * @apiDescription 上传文件, multipart上传file时名称/路径/后缀名取自文件, 内容相同的文件只保存一份
+     * @apiParam {File} file 文件, 不上传时name,url,suffix必填
+     * @apiParam {String} name 名称, 默认取文件名
+     * @apiParam {String} url 路径
+     * @apiParam {String} suffix 后缀名
      * @apiParam {int} type 必填
      * @apiParam {String} content
      * @apiParam {String} fromTo
@@ -70,6 +100,7 @@ public class ActivityController extends BaseController {
      * @apiSuccess (200) {String} code 200:成功</br>
      *                                 601:名称,路径或后缀名不能为空</br>
      *                                 602:文件类型异常</br>
+     *                                 603:文件超出大小限制</br>
      * @apiSuccess (200) {String} message 信息
      * @apiSuccess (200) {String} data 返回用户信息
      * @apiSuccessExample {json} 返回样例:
@@ -81,34 +112,47 @@ public class ActivityController extends BaseController {
      */
     @RequiresPermissions(PERMISSION_ADD)
     @PostMapping("/upload_file")
-    public JsonResult uploadFile(String name,
+    public JsonResult uploadFile(@RequestParam(required = false) MultipartFile file,
+                                 String name,
                                  String url,
                                  String suffix,
                                  @RequestParam(defaultValue = "0") int type,
                                  String content,
-                                 String fromTo) {
-        if (StringUtils.isBlank(name) || StringUtils.isBlank(url) || StringUtils.isBlank(suffix)) {
+                                 String fromTo) throws IOException {
+        boolean uploaded = file != null && !file.isEmpty();
+        if (uploaded) {
+            if (file.getSize() > fileMaxSize) {
+                return JsonResult.failure(603, "文件超出大小限制");
+            }
+            name = StringUtils.defaultIfBlank(name, uploadName(file));
+            suffix = StringUtils.defaultIfBlank(suffix, uploadSuffix(file));
+        } else if (StringUtils.isBlank(url)) {
+            return JsonResult.failure(601, "名称,路径或后缀名不能为空");
+        }
+        if (StringUtils.isBlank(name) || StringUtils.isBlank(suffix)) {
             return JsonResult.failure(601, "名称,路径或后缀名不能为空");
         }
-        ActivityFile file = new ActivityFile();
-        file.setCreatedDate(new Date());
-        file.setLastModifiedDate(new Date());
-        file.setName(name);
-        file.setUrl(url);
-        file.setSuffix(suffix);
+        ActivityFile activityFile = new ActivityFile();
+        activityFile.setCreatedDate(new Date());
+        activityFile.setLastModifiedDate(new Date());
+        activityFile.setName(name);
+        activityFile.setUrl(url);
+        activityFile.setSuffix(suffix);
         for (ActivityFile.ACTIVITY_FILE_TYPE fileType : ActivityFile.ACTIVITY_FILE_TYPE.values()) {
             if (fileType.ordinal() == type) {
-                file.setType(fileType);
+                activityFile.setType(fileType);
                 break;
             }
         }
-        if (file.getType() == null) {
+        if (activityFile.getType() == null) {
             return JsonResult.failure(602, "文件类型异常");
         }
-        file.setContent(content);
-        file.setFromTo(fromTo);
-        file = activityService.saveFile(file);
-        jsonResult.setData(getJson(file));
+        activityFile.setContent(content);
+        activityFile.setFromTo(fromTo);
+        activityFile = uploaded
+                ? activityService.saveFile(activityFile, file)
+                : activityService.saveFile(activityFile);
+        jsonResult.setData(getJson(activityFile));
         return jsonResult;
     }
 
@@ -143,19 +187,48 @@ public class ActivityController extends BaseController {
         return JsonResult.success();
     }
 
+    /**
+     * @api {GET} /activity/download_file 下载活动文件
+     * @apiGroup Activity
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 下载活动文件, 支持Range断点续传及ETag/Last-Modified缓存
+     * @apiParam {String} id 必填
+     * @apiParamExample {json} 请求样例:
+     *                /activity/download_file?id=402881916b2a9588016b2abd6f300001
+     * @apiSuccess (200) {File} file 文件内容, Range请求时返回206
+     * @apiError (404) {String} message 活动文件不存在
+     */
+    @RequiresPermissions(PERMISSION_VIEW)
+    @GetMapping("/download_file")
+    public void downloadFile(String id,
+                             HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        ActivityFile file = StringUtils.isBlank(id) ? null : activityService.findByIds(id);
+        Path path = file == null ? null : FileUtils.resolve(uploadPath, file.getUrl());
+        if (path == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "活动文件不存在");
+            return;
+        }
+        FileUtils.download(path, downloadName(file.getName(), file.getSuffix()), true, request, response);
+    }
+
     /**
      * @api {POST} /activity/upload_image 上传图片
      * @apiGroup Activity
      * @apiVersion 2.0.0
      * @apiHeader {String} IYunDao-AssessToken token验证
-     * @apiDescription 上传图片
-     * @apiParam {String} name 必填
-     * @apiParam {String} url 必填
-     * @apiParam {String} suffix 必填
+     * @apiDescription 上传图片, multipart上传file时名称/路径/后缀名取自文件, 内容相同的图片只保存一份
+     * @apiParam {File} file 图片, 不上传时name,url,suffix必填
+     * @apiParam {String} name 名称, 默认取文件名
+     * @apiParam {String} url 路径
+     * @apiParam {String} suffix 后缀名
      * @apiParamExample {json} 请求样例:
      *                ?name=上传图片&url=1111111&suffix=jpg
      * @apiSuccess (200) {String} code 200:成功</br>
      *                                 601:名称,路径或后缀名不能为空</br>
+     *                                 602:图片格式不正确</br>
+     *                                 603:图片超出大小限制</br>
      * @apiSuccess (200) {String} message 信息
      * @apiSuccess (200) {String} data 返回用户信息
      * @apiSuccessExample {json} 返回样例:
@@ -168,10 +241,24 @@ public class ActivityController extends BaseController {
 
     @RequiresPermissions(PERMISSION_ADD)
     @PostMapping("/upload_image")
-    public JsonResult uploadImage(String name,
+    public JsonResult uploadImage(@RequestParam(required = false) MultipartFile file,
+                                  String name,
                                   String url,
-                                  String suffix) {
-        if (StringUtils.isBlank(name) || StringUtils.isBlank(url) || StringUtils.isBlank(suffix)) {
+                                  String suffix) throws IOException {
+        boolean uploaded = file != null && !file.isEmpty();
+        if (uploaded) {
+            if (!StringUtils.startsWith(file.getContentType(), "image/")) {
+                return JsonResult.failure(602, "图片格式不正确");
+            }
+            if (file.getSize() > imageMaxSize) {
+                return JsonResult.failure(603, "图片超出大小限制");
+            }
+            name = StringUtils.defaultIfBlank(name, uploadName(file));
+            suffix = StringUtils.defaultIfBlank(suffix, uploadSuffix(file));
+        } else if (StringUtils.isBlank(url)) {
+            return JsonResult.failure(601, "名称,路径或后缀名不能为空");
+        }
+        if (StringUtils.isBlank(name) || StringUtils.isBlank(suffix)) {
             return JsonResult.failure(601, "名称,路径或后缀名不能为空");
         }
         ActivityImage image = new ActivityImage();
@@ -180,7 +267,9 @@ public class ActivityController extends BaseController {
         image.setName(name);
         image.setUrl(url);
         image.setSuffix(suffix);
-        image = activityService.saveImage(image);
+        image = uploaded
+                ? activityService.saveImage(image, file)
+                : activityService.saveImage(image);
         jsonResult.setData(getJson(image));
         return jsonResult;
     }
@@ -215,6 +304,44 @@ public class ActivityController extends BaseController {
         return JsonResult.success();
     }
 
+    /**
+     * @api {GET} /activity/download_image 查看活动图片
+     * @apiGroup Activity
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 查看活动图片, 支持Range及ETag/Last-Modified缓存
+     * @apiParam {String} id 必填
+     * @apiParam {String} size 尺寸: thumb-缩略图(200px), list-列表图(640px), full-大图(1600px), 不填返回原图; 尚未生成时返回原图
+     * @apiParamExample {json} 请求样例:
+     *                /activity/download_image?id=402881916b2b9dd2016b2b9f15010002&size=thumb
+     * @apiSuccess (200) {File} file 图片内容
+     * @apiError (404) {String} message 活动图片不存在
+     */
+    @RequiresPermissions(PERMISSION_VIEW)
+    @GetMapping("/download_image")
+    public void downloadImage(String id,
+                              String size,
+                              HttpServletRequest request,
+                              HttpServletResponse response) throws IOException {
+        List<ActivityImage> images = StringUtils.isBlank(id) ? null : activityService.findActivityImageByIds(new String[]{id});
+        ActivityImage image = CollectionUtils.isEmpty(images) ? null : images.get(0);
+        ImageService.IMAGE_SIZE imageSize = null;
+        for (ImageService.IMAGE_SIZE value : ImageService.IMAGE_SIZE.values()) {
+            if (value.name().equals(size)) {
+                imageSize = value;
+                break;
+            }
+        }
+        Path path = image == null ? null : imageService.find(image.getUrl(), imageSize);
+        if (path == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "活动图片不存在");
+            return;
+        }
+        // 衍生图片统一为jpg, 尚未生成时为原图的后缀名
+        String suffix = imageSize == null ? image.getSuffix() : FileUtils.getSuffix(path.getFileName().toString());
+        FileUtils.download(path, downloadName(image.getName(), suffix), false, request, response);
+    }
+
     /**
      * @api {POST} /activity/add_time 添加出勤类型
      * @apiGroup Activity
@@ -225,9 +352,9 @@ public class ActivityController extends BaseController {
      * @apiParam {String} endTime 必填
      * @apiParam {int} day
      * @apiParam {int} type
-     * @apiParam {String} axisx
-     * @apiParam {String} axisy
-     * @apiParam {String} area
+     * @apiParam {String} axisx 经度
+     * @apiParam {String} axisy 纬度
+     * @apiParam {String} area 签到范围: 半径(米, 如500), 以(axisx,axisy)为圆心; 或多边形顶点"经度,纬度;经度,纬度;..."; 为空时不限制
      * @apiParamExample {json} 请求样例:
      *                /activity/add_time?name=上传图片&url=1111111&suffix=jpg
      * @apiSuccess (200) {String} code 200:成功</br>
@@ -455,18 +582,13 @@ public class ActivityController extends BaseController {
      * {
      *     "code": 200,
      *     "message": "成功",
-     *     "data": "["{"version":"0","id":"402881916b2a3187016b2a3247350002","createdDate":"20190606083106","lastModifiedDate":"20190606083106","name":"添加活动1","type":"depart","number":"13","content":"测试内容个","total":"100","info5":"","info4":"","info2":"","info3":"","info1":"","attendances":["{"version":"0","id":"402881916b2a3187016b2a3247360003","createdDate":"20190606083106","lastModifiedDate":"20190606083106","axisy":"","axisx":"","startTime":"2019060511","area":"","day":"13","endTime":"2019","attendanceType":"daily","info5":"","info4":"","info2":"","info3":"","info1":""}"]}","{"version":"0","id":"402881916b2a3187016b2a32570c0004","createdDate":"20190606083110","lastModifiedDate":"20190606083110","name":"添加活动2","type":"depart","number":"13","content":"测试内容个","total":"100","info5":"","info4":"","info2":"","info3":"","info1":"","attendances":["{"version":"0","id":"402881916b2a3187016b2a32570c0005","createdDate":"20190606083110","lastModifiedDate":"20190606083110","axisy":"","axisx":"","startTime":"2019060511","area":"","day":"13","endTime":"2019","attendanceType":"daily","info5":"","info4":"","info2":"","info3":"","info1":""}"]}","{"version":"2","id":"402881916b2a3187016b2a3306ca0006","createdDate":"20190606083155","lastModifiedDate":"20190606083155","name":"添加活动1111","type":"etc","number":"13","content":"测试内容个","total":"100","info5":"","info4":"","info2":"","info3":"","info1":"","attendances":["{"version":"5","id":"402881916b2a9588016b2b5f1c1c0011","createdDate":"20190606135941","lastModifiedDate":"20190606135941","axisy":"333","axisx":"33","startTime":"某年某月某日","area":"500米","day":"100","endTime":"结束时间","attendanceType":"daily","info5":"","info4":"","info2":"","info3":"","info1":""}","{"version":"5","id":"402881916b2a9588016b2b5dbc480010","createdDate":"20190606135811","lastModifiedDate":"20190606135811","axisy":"","axisx":"","startTime":"某年某月某日","area":"","day":"0","endTime":"结束时间","attendanceType":"daily","info5":"","info4":"","info2":"","info3":"","info1":""}","{"version":"0","id":"402881916b2a3187016b2a3306cb0007","createdDate":"20190606083155","lastModifiedDate":"20190606083155","axisy":"","axisx":"","startTime":"2019060511","area":"","day":"13","endTime":"2019","attendanceType":"daily","info5":"","info4":"","info2":"","info3":"","info1":""}"]}","{"version":"0","id":"402881916b2a9588016b2b9a0ef10012","createdDate":"20190606150405","lastModifiedDate":"20190606150405","name":"添加活动2","type":"etc","number":"13","content":"测试内容个","total":"100","info5":"","info4":"","info2":"","info3":"","info1":""}","{"version":"0","id":"402881916b2b9dd2016b2b9e77620000","createdDate":"20190606150853","lastModifiedDate":"20190606150853","name":"添加活动2","type":"etc","number":"13","content":"测试内容个","total":"100","info5":"","info4":"","info2":"","info3":"","info1":""}","{"version":"0","id":"402881916b2b9dd2016b2b9f91f40003","createdDate":"20190606151006","lastModifiedDate":"20190606151006","name":"添加活动2","type":"etc","number":"13","content":"测试内容个","total":"100","info5":"","info4":"","info2":"","info3":"","info1":""}","{"version":"0","id":"402881916b2b9dd2016b2ba9227d0005","createdDate":"20190606152033","lastModifiedDate":"20190606152033","name":"添加活动2","type":"etc","number":"13","content":"测试内容个","total":"100","info5":"","info4":"","info2":"","info3":"","info1":""}"]"
+     *     "data": "[{"id":"402881916b2a3187016b2a3247350002","name":"添加活动1","type":"depart","number":"13","content":"测试内容个","total":"100","attendanceCount":1,"fileCount":0,"imageCount":2}]"
      * }
      */
     @RequiresPermissions(PERMISSION_VIEW)
     @GetMapping("/list")
     public JsonResult list() {
-        List<Activity> activities = activityService.findAll();
-        JSONArray arr = new JSONArray();
-        for (Activity activity : activities) {
-            arr.add(convertActivity(activity));
-        }
-        jsonResult.setData(arr);
+        jsonResult.setData(activityService.findAll());
         return jsonResult;
     }
 
@@ -491,9 +613,10 @@ public class ActivityController extends BaseController {
      * }
      */
     @RequiresPermissions(PERMISSION_VIEW)
+    @QueryBudget(statements = 10, duplicates = 5)
     @PostMapping("/view")
     public JsonResult view(String id) {
-        Activity activity = activityService.find(id);
+        Activity activity = activityService.findDetail(id);
         if (activity == null) {
             return JsonResult.notFound("活动不存在");
         }
@@ -501,16 +624,103 @@ public class ActivityController extends BaseController {
         return jsonResult;
     }
 
+    /**
+     * @api {GET} /activity/exportSign 导出签到记录
+     * @apiGroup Activity
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 导出活动的签到记录(xlsx)
+     * @apiParam {String} id 活动ID 必填
+     * @apiParamExample {json} 请求样例:
+     *                /activity/exportSign?id=402881916b2a3187016b2a3247350002
+     * @apiSuccess (200) {File} file 签到记录
+     * @apiError (200) {String} code 404:活动不存在
+     */
+    @RequiresPermissions(PERMISSION_VIEW)
+    @GetMapping("/exportSign")
+    public JsonResult exportSign(String id,
+                                 HttpServletResponse response) throws IOException {
+        Activity activity = activityService.find(id);
+        if (activity == null) {
+            return JsonResult.notFound("活动不存在");
+        }
+        ExcelUtils.setXlsxResponse(activity.getName() + "签到记录", response);
+        signService.exportByActivityId(activity.getId(), response.getOutputStream(), ProgressListener.NONE);
+        return null;
+    }
+
+    /**
+     * @api {POST} /activity/signStat 签到统计
+     * @apiGroup Activity
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 签到统计, 签到写入时增量更新; type: activity-活动, attendance-出勤时间段, subject-机构, depart-部门, groups-小组, user-用户
+     * @apiParam {String} id 活动ID 必填
+     * @apiParam {String} type 统计维度, 默认activity
+     * @apiParam {String} dimId 维度ID, 填写时只返回该项
+     * @apiParamExample {json} 请求样例:
+     *                /activity/signStat?id=402881916b2a3187016b2a3247350002&type=depart
+     * @apiSuccess (200) {String} code 200:成功</br>
+     *                                 600:参数异常</br>
+     *                                 404:活动不存在</br>
+     * @apiSuccess (200) {String} message 信息
+     * @apiSuccess (200) {String} data 统计列表, 按签到数倒序
+     * @apiSuccessExample {json} 返回样例:
+     * {
+     *     "code": 200,
+     *     "message": "成功",
+     *     "data": [{"activityId":"402881916b2a3187016b2a3247350002","type":"depart","dimId":"402881916b77bff1016b77d6e37a002e","total":"120","normal":"115","out":"3","abnormal":"2"}]
+     * }
+     */
+    @RequiresPermissions(PERMISSION_VIEW)
+    @PostMapping("/signStat")
+    public JsonResult signStat(String id,
+                               @RequestParam(defaultValue = "activity") String type,
+                               String dimId) {
+        SignStat.STAT_TYPE statType = null;
+        for (SignStat.STAT_TYPE value : SignStat.STAT_TYPE.values()) {
+            if (value.name().equals(type)) {
+                statType = value;
+                break;
+            }
+        }
+        if (StringUtils.isBlank(id) || statType == null) {
+            return JsonResult.paramError();
+        }
+        if (activityService.find(id) == null) {
+            return JsonResult.notFound("活动不存在");
+        }
+        List<SignStat> stats;
+        if (StringUtils.isNotBlank(dimId)) {
+            SignStat stat = signStatService.find(id, statType, dimId);
+            stats = stat == null ? Collections.emptyList() : Collections.singletonList(stat);
+        } else {
+            stats = signStatService.findByActivityId(id, statType);
+        }
+        JSONArray arr = new JSONArray();
+        for (SignStat stat : stats) {
+            JSONObject json = getJson(stat);
+            json.remove("id");
+            json.remove("version");
+            arr.add(json);
+        }
+        jsonResult.setData(arr);
+        return jsonResult;
+    }
+
     /**
      * @api {POST} /activity/page 分页
      * @apiGroup Activity
      * @apiVersion 2.0.0
      * @apiHeader {String} IYunDao-AssessToken token验证
-     * @apiDescription 分页
+     * @apiDescription 分页, 可按创建时间范围过滤
+     * @apiParam {String} beginDate 创建时间不早于, yyyyMMddHHmmss
+     * @apiParam {String} endDate 创建时间早于, yyyyMMddHHmmss
      * @apiParamExample {json} 请求示例:
-     *              /activity/page?id=123
+     *              /activity/page?page=0&size=10&beginDate=20190801000000&endDate=20190901000000
      * @apiSuccess (200) {String} code 200:成功</br>
      *                                 404:活动不存在</br>
+     *                                 600:参数异常</br>
      * @apiSuccess (200) {String} message 信息
      * @apiSuccess (200) {String} data 返回用户信息
      * @apiSuccessExample {json} 返回样例:
@@ -524,9 +734,44 @@ public class ActivityController extends BaseController {
     @PostMapping("/page")
     public JsonResult page(@RequestParam(defaultValue = "1") int page,
                            @RequestParam(defaultValue = "10") int size,
-                           String search) {
-        Page<Activity> activityPage = activityService.findAllForPage(new Pageable(page, size));
-        jsonResult.setData(getPage(activityPage));
+                           String search,
+                           String beginDate,
+                           String endDate) {
+        LocalDateTime from = TimeUtils.parse(beginDate);
+        LocalDateTime to = TimeUtils.parse(endDate);
+        if ((StringUtils.isNotEmpty(beginDate) && from == null) || (StringUtils.isNotEmpty(endDate) && to == null)) {
+            return JsonResult.paramError();
+        }
+        jsonResult.setData(activityService.findAllForPage(new Pageable(page, size), from, to));
+        return jsonResult;
+    }
+
+    /**
+     * @api {POST} /activity/mine 我的活动
+     * @apiGroup Activity
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 当前用户所属机构/部门/组织(含上级部门/组织)发布范围内的活动, 按创建时间倒序
+     * @apiParam {int} page 跳过的页数
+     * @apiParam {int} size 每页的数量
+     * @apiParamExample {json} 请求样例:
+     *                /activity/mine?page=0&size=10
+     * @apiSuccess (200) {String} code 200:成功</br>
+     * @apiSuccess (200) {String} message 信息
+     * @apiSuccess (200) {String} data 活动分页
+     * @apiSuccessExample {json} 返回样例:
+     * {
+     *     "code": 200,
+     *     "message": "成功",
+     *     "data": {"total":1,"totalPage":1,"page":0,"content":[{"id":"402881916b2a3187016b2a3247350002","name":"添加活动1","type":"depart","number":"13","content":"测试内容个","total":"100","attendanceCount":1,"fileCount":0,"imageCount":2}]}
+     * }
+     */
+    @PostMapping("/mine")
+    public JsonResult mine(@CurrentUser User user,
+                           @RequestParam(defaultValue = "0") int page,
+                           @RequestParam(defaultValue = "10") int size) {
+        List<String> ids = audienceService.findActivityIds(user.getId());
+        jsonResult.setData(activityService.findPageByIds(ids, new Pageable(page, size)));
         return jsonResult;
     }
 
@@ -579,9 +824,7 @@ public class ActivityController extends BaseController {
             Pageable pageable = new Pageable(page,size);
             pageable.setSearchKey("name");
             pageable.setSearchValue(name);
-            Page<Activity> activityPage = activityService.findAllForPage(pageable);
-        JSONObject jsonObject = getPage(activityPage);
-        jsonResult.setData(jsonObject);
+        jsonResult.setData(activityService.findAllForPage(pageable, null, null));
         return jsonResult;
     }
 
@@ -752,11 +995,45 @@ public class ActivityController extends BaseController {
         if (CollectionUtils.isNotEmpty(activity.getActivityImages())) {
             arr = new JSONArray();
             for (ActivityImage image : activity.getActivityImages()) {
-                arr.add(image);
+                arr.add(getJson(image));
             }
             json.put("activityImages", arr);
         }
         return json;
     }
 
+    /**
+     * 上传文件的名称(不含后缀), 超长时截断
+     * @param file
+     * @return
+     */
+    private String uploadName(MultipartFile file) {
+        // 部分浏览器上传时带有客户端路径
+        String name = StringUtils.defaultString(file.getOriginalFilename());
+        name = name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\')) + 1);
+        int index = name.lastIndexOf('.');
+        return StringUtils.left(index > 0 ? name.substring(0, index) : name, 50);
+    }
+
+    /**
+     * 上传文件的后缀名, 超过4位时截断
+     * @param file
+     * @return
+     */
+    private String uploadSuffix(MultipartFile file) {
+        return StringUtils.left(FileUtils.getSuffix(file.getOriginalFilename()).toLowerCase(), 4);
+    }
+
+    /**
+     * 下载文件名, 名称中没有后缀时补上
+     * @param name
+     * @param suffix
+     * @return
+     */
+    private String downloadName(String name, String suffix) {
+        if (StringUtils.isBlank(suffix) || StringUtils.endsWithIgnoreCase(name, "." + suffix)) {
+            return name;
+        }
+        return name + "." + suffix;
+    }
 }
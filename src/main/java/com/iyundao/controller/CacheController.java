@@ -0,0 +1,53 @@
+package com.iyundao.controller;
+
+import com.iyundao.base.BaseController;
+import com.iyundao.base.utils.JsonResult;
+import com.iyundao.service.CacheService;
+import org.apache.shiro.authz.annotation.RequiresRoles;
+import org.apache.shiro.authz.annotation.RequiresUser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static com.iyundao.base.BaseController.*;
+
+/**
+ * @ClassName: CacheController
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/6 11:30
+ * @Description: 控制层 - 缓存
+ * @Version: V2.0
+ */
+@RequiresUser
+@RequiresRoles(ROLE_ADMIN)
+@RestController
+@RequestMapping("/cache")
+public class CacheController extends BaseController {
+
+    @Autowired
+    private CacheService cacheService;
+
+    /**
+     * @api {POST} /cache/statistics 缓存统计
+     * @apiGroup Cache
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 本节点启动以来二级缓存(主体/角色/权限/行业/标签/岗位/部门)、查询缓存和服务缓存的命中统计
+     * @apiSuccess (200) {int} code 200:成功</br>
+     * @apiSuccess (200) {String} message 信息
+     * @apiSuccess (200) {Object} data total-二级缓存合计, query-查询缓存合计, regions-各区域统计, services-各服务缓存统计;
+     *                                 每项为hit-命中数, miss-未命中数, put-放入数, hitRate-命中率;
+     *                                 服务缓存另有localHit-本地命中数, redisHit-redis命中数, evict-清除次数, size-本地条数
+     * @apiSuccessExample {json} 返回样例:
+     * {"code":200,"data":{"total":{"hit":120,"miss":8,"put":8,"hitRate":0.9375},
+     * "query":{"hit":30,"miss":2,"put":2,"hitRate":0.9375},
+     * "regions":{"com.iyundao.entity.Role":{"hit":40,"miss":2,"put":2,"hitRate":0.952,"size":2}},
+     * "services":{"user_account":{"hit":95,"miss":5,"put":5,"hitRate":0.95,"localHit":90,"redisHit":5,"evict":1,"size":4}}},"message":"成功"}
+     */
+    @PostMapping("/statistics")
+    public JsonResult statistics() {
+        return JsonResult.success(cacheService.statistics());
+    }
+}
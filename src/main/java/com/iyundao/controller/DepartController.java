@@ -9,8 +9,10 @@ import com.iyundao.base.utils.JsonUtils;
 import com.iyundao.entity.Depart;
 import com.iyundao.entity.Subject;
 import com.iyundao.entity.User;
+import com.iyundao.service.AudienceService;
 import com.iyundao.service.DepartService;
 import com.iyundao.service.SubjectService;
+import com.iyundao.service.UserRowService;
 import com.iyundao.service.UserService;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
@@ -46,6 +48,12 @@ public class DepartController extends BaseController {
     @Autowired
     private SubjectService subjectService;
 
+    @Autowired
+    private AudienceService audienceService;
+
+    @Autowired
+    private UserRowService userRowService;
+
     /**
      * @api {POST} /depart/list 机构部门列表
      * @apiName list
@@ -257,10 +265,12 @@ public class DepartController extends BaseController {
         if (depart == null) {
             return JsonResult.notFound("此部门不存在");
         }
+        String oldName = depart.getName();
         depart.setLastModifiedDate(new Date(System.currentTimeMillis()));
         depart.setName(name);
         depart.setCode(code);
         depart.setSubject(subject);
+        String oldFatherId = depart.getFather() == null ? null : depart.getFather().getId();
         if (StringUtils.isNotBlank(fatherId)) {
             Depart father = departService.findById(fatherId);
             depart.setFather(father);
@@ -270,6 +280,13 @@ public class DepartController extends BaseController {
             depart.setUser(user);
         }
         depart = departService.save(depart);
+        String newFatherId = depart.getFather() == null ? null : depart.getFather().getId();
+        if (!StringUtils.equals(oldFatherId, newFatherId)) {
+            audienceService.refreshDepart(depart.getId());
+        }
+        if (!StringUtils.equals(oldName, depart.getName())) {
+            userRowService.refreshDepart(depart.getId());
+        }
         jsonResult.setData(convertJson(depart));
         return jsonResult;
     }
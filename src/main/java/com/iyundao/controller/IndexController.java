@@ -4,6 +4,7 @@ import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.iyundao.base.BaseController;
 import com.iyundao.base.annotation.CurrentUser;
+import com.iyundao.base.annotation.QueryBudget;
 import com.iyundao.base.shiro.JwtToken;
 import com.iyundao.base.shiro.SecurityConsts;
 import com.iyundao.base.utils.JsonResult;
@@ -120,6 +121,7 @@ public class IndexController extends BaseController {
      * 	"data": "{'version':'0','id':'0a4179fc06cb49e3ac0db7bcc8cf0882','createdDate':'20190517111111','lastModifiedDate':'20190517111111','name':'管理员','password':'b356a1a11a067620275401a5a3de04300bf0c47267071e06','status':'normal','remark':'未填写','sex':'0','salt':'3a10624a300f4670','account':'admin','userType':'amdin'}"
      * }
      */
+    @QueryBudget(statements = 10, duplicates = 5)
     @GetMapping("/subjectList")
     public JsonResult subjectList(@CurrentUser User user) {
         Set<com.iyundao.entity.Subject> set = new HashSet<>();
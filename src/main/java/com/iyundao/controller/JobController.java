@@ -0,0 +1,437 @@
+package com.iyundao.controller;
+
+import com.alibaba.fastjson.JSONObject;
+import com.iyundao.base.BaseController;
+import com.iyundao.base.annotation.CurrentSubject;
+import com.iyundao.base.annotation.CurrentUser;
+import com.iyundao.base.utils.ExcelUtils;
+import com.iyundao.base.utils.JsonResult;
+import com.iyundao.entity.*;
+import com.iyundao.service.*;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.shiro.authz.annotation.Logical;
+import org.apache.shiro.authz.annotation.RequiresPermissions;
+import org.apache.shiro.authz.annotation.RequiresRoles;
+import org.apache.shiro.authz.annotation.RequiresUser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.iyundao.base.BaseController.*;
+
+/**
+ * @ClassName: JobController
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/8/22 11:02
+ * @Description: 控制层 - 后台任务(导入/导出)
+ * @Version: V2.0
+ */
+@RequiresUser
+@RequiresRoles(value = {ROLE_ADMIN, ROLE_USER, ROLE_MANAGER}, logical = Logical.OR)
+@RestController
+@RequestMapping("/job")
+public class JobController extends BaseController {
+
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ActivityService activityService;
+
+    @Autowired
+    private SignService signService;
+
+    @Autowired
+    private SignStatService signStatService;
+
+    @Autowired
+    private AudienceService audienceService;
+
+    @Autowired
+    private FeedService feedService;
+
+    @Autowired
+    private UserRowService userRowService;
+
+    @Autowired
+    private PoliticsService politicsService;
+
+    @Autowired
+    private RoleService roleService;
+
+    @Autowired
+    private PermissionService permissionService;
+
+    /**
+     * @api {POST} /job/exportUsers 导出用户名册
+     * @apiGroup Job
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 后台导出当前机构的用户名册, 通过/job/view查询进度, 完成后通过/job/download下载
+     * @apiSuccess (200) {int} code 200:成功</br>
+     *                              601:任务队列已满,请稍后再试</br>
+     * @apiSuccess (200) {String} message 信息
+     * @apiSuccess (200) {String} data 任务ID
+     * @apiSuccessExample {json} 返回样例:
+     * {
+     *     "code": 200,
+     *     "message": "成功",
+     *     "data": "6f1d0b2c9e8a4f3b8c2d7e6a5b4c3d2e"
+     * }
+     */
+    @RequiresRoles(ROLE_ADMIN)
+    @PostMapping("/exportUsers")
+    public JsonResult exportUsers(@CurrentUser User user,
+                                  @CurrentSubject Subject subject) {
+        String id = jobService.submit("exportUsers", user.getId(), "用户名册", (result, listener) -> {
+            try (OutputStream os = Files.newOutputStream(result)) {
+                userService.exportUsers(subject, os, listener);
+            }
+            return null;
+        });
+        return submitted(id);
+    }
+
+    /**
+     * @api {POST} /job/exportSign 导出签到记录
+     * @apiGroup Job
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 后台导出活动的签到记录
+     * @apiParam {String} id 活动ID 必填
+     * @apiParamExample {json} 请求样例:
+     *                /job/exportSign?id=402881916b2a3187016b2a3247350002
+     * @apiSuccess (200) {int} code 200:成功</br>
+     *                              404:活动不存在</br>
+     *                              601:任务队列已满,请稍后再试</br>
+     * @apiSuccess (200) {String} message 信息
+     * @apiSuccess (200) {String} data 任务ID
+     */
+    @RequiresPermissions(PERMISSION_VIEW)
+    @PostMapping("/exportSign")
+    public JsonResult exportSign(@CurrentUser User user,
+                                 String id) {
+        Activity activity = activityService.find(id);
+        if (activity == null) {
+            return JsonResult.notFound("活动不存在");
+        }
+        String activityId = activity.getId();
+        String jobId = jobService.submit("exportSign", user.getId(), activity.getName() + "签到记录", (result, listener) -> {
+            try (OutputStream os = Files.newOutputStream(result)) {
+                signService.exportByActivityId(activityId, os, listener);
+            }
+            return null;
+        });
+        return submitted(jobId);
+    }
+
+    /**
+     * @api {POST} /job/revalidateSign 重新校验签到范围
+     * @apiGroup Job
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 按出勤的签到范围重新校验历史签到记录的签到状态, 完成后统计在/job/view的data中
+     * @apiParam {String} id 活动ID, 为空时校验所有设置了签到范围的活动
+     * @apiParamExample {json} 请求样例:
+     *                /job/revalidateSign?id=402881916b2a3187016b2a3247350002
+     * @apiSuccess (200) {int} code 200:成功</br>
+     *                              404:活动不存在</br>
+     *                              601:任务队列已满,请稍后再试</br>
+     * @apiSuccess (200) {String} message 信息
+     * @apiSuccess (200) {String} data 任务ID
+     */
+    @RequiresRoles(ROLE_ADMIN)
+    @PostMapping("/revalidateSign")
+    public JsonResult revalidateSign(@CurrentUser User user,
+                                     String id) {
+        if (StringUtils.isNotBlank(id) && activityService.find(id) == null) {
+            return JsonResult.notFound("活动不存在");
+        }
+        String jobId = jobService.submit("revalidateSign", user.getId(), null,
+                (result, listener) -> signService.revalidate(id, listener));
+        return submitted(jobId);
+    }
+
+    /**
+     * @api {POST} /job/rebuildSignStat 重建签到统计
+     * @apiGroup Job
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 根据签到记录重新计算签到统计, 应在活动签到结束后执行
+     * @apiParam {String} id 活动ID, 为空时重建所有有签到的活动
+     * @apiSuccess (200) {int} code 200:成功</br>
+     *                              404:活动不存在</br>
+     *                              601:任务队列已满,请稍后再试</br>
+     * @apiSuccess (200) {String} message 信息
+     * @apiSuccess (200) {String} data 任务ID
+     */
+    @RequiresRoles(ROLE_ADMIN)
+    @PostMapping("/rebuildSignStat")
+    public JsonResult rebuildSignStat(@CurrentUser User user,
+                                      String id) {
+        if (StringUtils.isNotBlank(id) && activityService.find(id) == null) {
+            return JsonResult.notFound("活动不存在");
+        }
+        String jobId = jobService.submit("rebuildSignStat", user.getId(), null,
+                (result, listener) -> signStatService.rebuild(id, listener));
+        return submitted(jobId);
+    }
+
+    /**
+     * @api {POST} /job/rebuildAudience 重建活动可见范围
+     * @apiGroup Job
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 按发布范围及部门/组织层级重新计算所有活动的可见用户, 完成后统计在/job/view的data中
+     * @apiSuccess (200) {int} code 200:成功</br>
+     *                              601:任务队列已满,请稍后再试</br>
+     * @apiSuccess (200) {String} message 信息
+     * @apiSuccess (200) {String} data 任务ID
+     */
+    @RequiresRoles(ROLE_ADMIN)
+    @PostMapping("/rebuildAudience")
+    public JsonResult rebuildAudience(@CurrentUser User user) {
+        String jobId = jobService.submit("rebuildAudience", user.getId(), null,
+                (result, listener) -> audienceService.rebuild(listener));
+        return submitted(jobId);
+    }
+
+    /**
+     * @api {POST} /job/backfillFeed 重新加载用户动态
+     * @apiGroup Job
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 从数据库重新加载所有用户的活动/议事动态, 应在/job/rebuildAudience完成后执行
+     * @apiSuccess (200) {int} code 200:成功</br>
+     *                              601:任务队列已满,请稍后再试</br>
+     * @apiSuccess (200) {String} message 信息
+     * @apiSuccess (200) {String} data 任务ID
+     */
+    @RequiresRoles(ROLE_ADMIN)
+    @PostMapping("/backfillFeed")
+    public JsonResult backfillFeed(@CurrentUser User user) {
+        String jobId = jobService.submit("backfillFeed", user.getId(), null,
+                (result, listener) -> feedService.backfill(listener));
+        return submitted(jobId);
+    }
+
+    /**
+     * @api {POST} /job/rebuildUserRow 重建用户列表
+     * @apiGroup Job
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 按用户、机构关系及标签重新生成/user/search使用的用户列表行, 用于列表行与用户数据不一致时修复, 完成后统计在/job/view的data中
+     * @apiSuccess (200) {int} code 200:成功</br>
+     *                              601:任务队列已满,请稍后再试</br>
+     * @apiSuccess (200) {String} message 信息
+     * @apiSuccess (200) {String} data 任务ID
+     */
+    @RequiresRoles(ROLE_ADMIN)
+    @PostMapping("/rebuildUserRow")
+    public JsonResult rebuildUserRow(@CurrentUser User user) {
+        String jobId = jobService.submit("rebuildUserRow", user.getId(), null,
+                (result, listener) -> userRowService.rebuild(listener));
+        return submitted(jobId);
+    }
+
+    /**
+     * @api {POST} /job/exportPoliticsUsers 导出参政人员
+     * @apiGroup Job
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 后台导出参政议政的参与人员
+     * @apiParam {String} politicsId 必填
+     * @apiParamExample {json} 请求样例:
+     *                /job/exportPoliticsUsers?politicsId=4028d8816c4aa85a016c4aa8913d0000
+     * @apiSuccess (200) {int} code 200:成功</br>
+     *                              404:找不到参政议政</br>
+     *                              601:任务队列已满,请稍后再试</br>
+     * @apiSuccess (200) {String} message 信息
+     * @apiSuccess (200) {String} data 任务ID
+     */
+    @PostMapping("/exportPoliticsUsers")
+    public JsonResult exportPoliticsUsers(@CurrentUser User user,
+                                          String politicsId) {
+        Politics politics = politicsService.findPoliticsById(politicsId);
+        if (politics == null) {
+            return JsonResult.notFound("找不到参政议政");
+        }
+        String id = politics.getId();
+        String jobId = jobService.submit("exportPoliticsUsers", user.getId(), politics.getTitle() + "参政人员", (result, listener) -> {
+            try (OutputStream os = Files.newOutputStream(result)) {
+                politicsService.exportUsers(id, os, listener);
+            }
+            return null;
+        });
+        return submitted(jobId);
+    }
+
+    /**
+     * @api {POST} /job/importUsers 批量导入用户
+     * @apiGroup Job
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 后台导入用户, 参数同/user/import, 完成后导入统计及逐行错误在/job/view的data中
+     * @apiParam {File} file excel文件 必填
+     * @apiParam {String} departId 部门ID
+     * @apiParam {String} groupsId 组织ID
+     * @apiParam {String} password 默认密码, 密码列为空时使用
+     * @apiParam {String[]} roleIds 角色IDS 必填
+     * @apiParam {String[]} permissionIds 权限IDS 必填
+     * @apiSuccess (200) {int} code 200:成功</br>
+     *                              600:参数异常</br>
+     *                              601:任务队列已满,请稍后再试</br>
+     *                              605:账号必须分配角色,权限</br>
+     * @apiSuccess (200) {String} message 信息
+     * @apiSuccess (200) {String} data 任务ID
+     */
+    @RequiresRoles(ROLE_ADMIN)
+    @PostMapping("/importUsers")
+    public JsonResult importUsers(@CurrentUser User user,
+                                  @CurrentSubject Subject subject,
+                                  MultipartFile file,
+                                  String departId,
+                                  String groupsId,
+                                  String password,
+                                  String[] roleIds,
+                                  String[] permissionIds) throws IOException {
+        if (!ExcelUtils.checkFile(file)) {
+            return JsonResult.paramError();
+        }
+        List<Role> roles = roleService.findByRoleIds(roleIds);
+        List<Permission> permissions = permissionService.findByIds(permissionIds);
+        if (CollectionUtils.isEmpty(roles) || CollectionUtils.isEmpty(permissions)) {
+            return JsonResult.failure(605, "账号必须分配角色,权限");
+        }
+        // 请求结束后上传的临时文件会被删除, 先复制到任务目录
+        String fileName = file.getOriginalFilename();
+        Path upload = Files.createTempFile(jobService.getJobDir(), "import", "." + StringUtils.substringAfterLast(fileName, "."));
+        file.transferTo(upload.toFile());
+        String id = jobService.submit("importUsers", user.getId(), null, (result, listener) -> {
+            try {
+                JsonResult importResult = userService.importUsers(fileName, Files.newInputStream(upload), subject, departId, groupsId, roles, permissions, password, listener, JsonResult.success());
+                if (importResult.getCode() != JsonResult.CODE_SUCCESS) {
+                    throw new IllegalStateException(importResult.getMessage());
+                }
+                return importResult.getData();
+            } finally {
+                Files.deleteIfExists(upload);
+            }
+        });
+        if (id == null) {
+            Files.deleteIfExists(upload);
+        }
+        return submitted(id);
+    }
+
+    /**
+     * @api {POST} /job/view 查看任务
+     * @apiGroup Job
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 查询任务状态及进度, status: waiting-排队中, running-执行中, success-成功, failure-失败, cancelled-已取消; progress为已处理行数
+     * @apiParam {String} id 任务ID 必填
+     * @apiParamExample {json} 请求样例:
+     *                /job/view?id=6f1d0b2c9e8a4f3b8c2d7e6a5b4c3d2e
+     * @apiSuccess (200) {int} code 200:成功</br>
+     *                              404:任务不存在</br>
+     * @apiSuccess (200) {String} message 信息
+     * @apiSuccess (200) {String} data 任务信息
+     * @apiSuccessExample {json} 返回样例:
+     * {
+     *     "code": 200,
+     *     "message": "成功",
+     *     "data": {"id": "6f1d0b2c9e8a4f3b8c2d7e6a5b4c3d2e","type": "exportUsers","status": "running","progress": 12000,"resultName": "用户名册","createdDate": "20190822110512","userId": "402881916b77bff1016b77d6e37a002e"}
+     * }
+     */
+    @PostMapping("/view")
+    public JsonResult view(@CurrentUser User user,
+                           String id) {
+        JSONObject job = findOwnJob(user, id);
+        if (job == null) {
+            return JsonResult.notFound("任务不存在");
+        }
+        jsonResult.setData(job);
+        return jsonResult;
+    }
+
+    /**
+     * @api {POST} /job/cancel 取消任务
+     * @apiGroup Job
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 取消排队中或执行中的任务, 执行中的任务在处理完当前批次后停止, 已导入的批次保留
+     * @apiParam {String} id 任务ID 必填
+     * @apiSuccess (200) {int} code 200:成功</br>
+     *                              404:任务不存在</br>
+     *                              602:任务已结束</br>
+     * @apiSuccess (200) {String} message 信息
+     */
+    @PostMapping("/cancel")
+    public JsonResult cancel(@CurrentUser User user,
+                             String id) {
+        if (findOwnJob(user, id) == null) {
+            return JsonResult.notFound("任务不存在");
+        }
+        if (!jobService.cancel(id)) {
+            return JsonResult.failure(602, "任务已结束");
+        }
+        return JsonResult.success();
+    }
+
+    /**
+     * @api {GET} /job/download 下载任务结果
+     * @apiGroup Job
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 下载导出任务生成的文件
+     * @apiParam {String} id 任务ID 必填
+     * @apiSuccess (200) {File} file 导出文件
+     * @apiError (200) {String} code 404:任务不存在</br>
+     *                               603:任务未完成或没有结果文件</br>
+     */
+    @GetMapping("/download")
+    public JsonResult download(@CurrentUser User user,
+                               String id,
+                               HttpServletResponse response) throws IOException {
+        JSONObject job = findOwnJob(user, id);
+        if (job == null) {
+            return JsonResult.notFound("任务不存在");
+        }
+        Path result = jobService.findResult(id);
+        if (result == null) {
+            return JsonResult.failure(603, "任务未完成或没有结果文件");
+        }
+        ExcelUtils.setXlsxResponse(job.getString("resultName"), response);
+        response.setContentLengthLong(Files.size(result));
+        Files.copy(result, response.getOutputStream());
+        return null;
+    }
+
+    private JSONObject findOwnJob(User user, String id) {
+        if (StringUtils.isBlank(id)) {
+            return null;
+        }
+        JSONObject job = jobService.find(id);
+        return job == null || !user.getId().equals(job.getString("userId")) ? null : job;
+    }
+
+    private JsonResult submitted(String id) {
+        if (id == null) {
+            return JsonResult.failure(601, "任务队列已满,请稍后再试");
+        }
+        return JsonResult.success(id);
+    }
+}
@@ -0,0 +1,54 @@
+package com.iyundao.controller;
+
+import com.iyundao.base.BaseController;
+import com.iyundao.base.utils.JsonResult;
+import com.iyundao.service.MonitorService;
+import org.apache.shiro.authz.annotation.RequiresRoles;
+import org.apache.shiro.authz.annotation.RequiresUser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static com.iyundao.base.BaseController.*;
+
+/**
+ * @ClassName: MonitorController
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/10 11:10
+ * @Description: 控制层 - 接口监控
+ * @Version: V2.0
+ */
+@RequiresUser
+@RequiresRoles(ROLE_ADMIN)
+@RestController
+@RequestMapping("/monitor")
+public class MonitorController extends BaseController {
+
+    @Autowired
+    private MonitorService monitorService;
+
+    /**
+     * @api {POST} /monitor/sql SQL统计
+     * @apiGroup Monitor
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 本节点启动以来各接口执行的SQL及持有数据库连接的统计, 重复语句多通常是循环中的延迟加载(N+1)
+     * @apiSuccess (200) {int} code 200:成功</br>
+     * @apiSuccess (200) {String} message 信息
+     * @apiSuccess (200) {Object} data 按接口路径, 每项为requests-请求数, statements-语句数, maxStatements-单次最多语句数,
+     *                                 duplicates-重复语句数, maxDuplicates-单次最多重复数, executeMillis-执行时间(毫秒),
+     *                                 maxExecuteMillis-单次最长执行时间, requestMillis-请求处理时间, connections-获取连接次数,
+     *                                 connectionMillis-持有连接时间, maxConnectionMillis-单次最长持有时间,
+     *                                 connectionRatio-持有连接时间占请求时间的比例, overBudget-超出@QueryBudget的次数
+     * @apiSuccessExample {json} 返回样例:
+     * {"code":200,"data":{"/user/list":{"requests":12,"statements":252,"maxStatements":23,"duplicates":216,
+     * "maxDuplicates":20,"executeMillis":180,"maxExecuteMillis":31,"requestMillis":960,"connections":36,
+     * "connectionMillis":410,"maxConnectionMillis":52,"connectionRatio":0.427,"overBudget":0}},"message":"成功"}
+     */
+    @PostMapping("/sql")
+    public JsonResult sql() {
+        return JsonResult.success(monitorService.sqlStatistics());
+    }
+}
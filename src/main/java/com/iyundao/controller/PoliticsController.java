@@ -7,8 +7,10 @@ import com.iyundao.base.BaseController;
 
 import com.iyundao.base.Page;
 import com.iyundao.base.Pageable;
+import com.iyundao.base.utils.ExcelUtils;
 import com.iyundao.base.utils.JsonResult;
 import com.iyundao.base.utils.JsonUtils;
+import com.iyundao.base.utils.ProgressListener;
 import com.iyundao.entity.*;
 import com.iyundao.service.*;
 import org.apache.commons.collections.CollectionUtils;
@@ -17,6 +19,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import sun.nio.cs.ext.SJIS;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -171,6 +175,30 @@ public class PoliticsController extends BaseController{
         return jsonResult;
     }
 
+    /**
+     * @api {GET} /politics/exportUsers 导出参政人员
+     * @apiGroup Politics
+     * @apiVersion 1.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 导出参政议政的参与人员及查看状态(xlsx)
+     * @apiParam {String} politicsId 必填
+     * @apiParamExample {json} 请求样例:
+     *                /politics/exportUsers?politicsId=4028d8816c4aa85a016c4aa8913d0000
+     * @apiSuccess (200) {File} file 参政人员
+     * @apiError (200) {String} code 404:找不到参政议政
+     */
+    @GetMapping("/exportUsers")
+    public JsonResult exportUsers(String politicsId,
+                                  HttpServletResponse response) throws IOException {
+        Politics politics = politicsService.findPoliticsById(politicsId);
+        if (politics == null) {
+            return JsonResult.notFound("找不到参政议政");
+        }
+        ExcelUtils.setXlsxResponse(politics.getTitle() + "参政人员", response);
+        politicsService.exportUsers(politics.getId(), response.getOutputStream(), ProgressListener.NONE);
+        return null;
+    }
+
 
     /**
     * @api {POST} /politics/addIssueData 添加议政数据
@@ -43,6 +43,9 @@ public class PositionController extends BaseController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserBatchService userBatchService;
+
     /**
      * @api {POST} /position/add 添加岗位
      * @apiGroup Position
@@ -135,6 +138,47 @@ public class PositionController extends BaseController {
         return jsonResult;
     }
 
+    /**
+     * @api {POST} /position/batchDistribute 批量分配岗位
+     * @apiGroup Position
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 为多个用户同时分配/取消多个岗位, 在一个事务中完成, 已有的岗位不重复分配
+     * @apiParam {String[]} userIds 用户ID集合, 必填, 最多1000个
+     * @apiParam {String[]} positionIds 分配的岗位ID集合
+     * @apiParam {String[]} removePositionIds 取消的岗位ID集合, 与positionIds至少填一个且不能相同
+     * @apiParamExample {json} 请求样例
+     *                /position/batchDistribute?userIds=0a4179fc06cb49e3ac0db7bcc8cf0882&positionIds=402881916c561b01016c56234bf00000
+     * @apiSuccess (200) {int} code 200:成功</br>
+     *                              600:参数异常</br>
+     *                              404:用户或岗位不存在</br>
+     * @apiSuccess (200) {String} message 信息
+     * @apiSuccess (200) {String} data users-用户数, added-分配数, removed-取消数, unchanged-已存在数
+     * @apiSuccessExample {json} 返回样例:
+     * {
+     *     "code": 200,
+     *     "message": "成功",
+     *     "data": {"users": 1,"added": 1,"removed": 0,"unchanged": 0}
+     * }
+     */
+    @PostMapping("/batchDistribute")
+    public JsonResult batchDistribute(String[] userIds,
+                                      String[] positionIds,
+                                      String[] removePositionIds) {
+        List<String> users = toList(userIds);
+        List<String> adds = toList(positionIds);
+        List<String> removes = toList(removePositionIds);
+        if (!isBatchParam(users, adds, removes)) {
+            return JsonResult.paramError();
+        }
+        JSONObject summary = userBatchService.updatePositions(users, adds, removes);
+        if (summary == null) {
+            return JsonResult.notFound("用户或岗位不存在");
+        }
+        jsonResult.setData(summary);
+        return jsonResult;
+    }
+
     /**
      * @api {GET} /position/list 岗位分页
      * @apiGroup Position
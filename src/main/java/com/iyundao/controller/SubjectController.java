@@ -12,6 +12,7 @@ import com.iyundao.service.DepartService;
 import com.iyundao.service.GroupService;
 import com.iyundao.service.SubjectService;
 import com.iyundao.service.UserRelationService;
+import com.iyundao.service.UserRowService;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.shiro.authz.annotation.Logical;
@@ -43,6 +44,9 @@ public class SubjectController extends BaseController {
     @Autowired
     private SubjectService subjectService;
 
+    @Autowired
+    private UserRowService userRowService;
+
     /**
      * @api {GET} /subject/list 机构列表
      * @apiGroup Subject
@@ -296,6 +300,7 @@ public class SubjectController extends BaseController {
         if (subject == null) {
             return JsonResult.notFound("未查询到此机构");
         }
+        String oldName = subject.getName();
         subject.setLastModifiedDate(new Date(System.currentTimeMillis()));
         subject.setName(name);
         if (type != 3) {
@@ -307,6 +312,9 @@ public class SubjectController extends BaseController {
             }
         }
         subject = subjectService.save(subject);
+        if (!StringUtils.equals(oldName, subject.getName())) {
+            userRowService.refreshSubject(subject.getId());
+        }
         jsonResult.setData(converType(subject));
         return jsonResult;
     }
@@ -3,10 +3,15 @@ package com.iyundao.controller;
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.iyundao.base.BaseController;
+import com.iyundao.base.Order;
 import com.iyundao.base.Page;
 import com.iyundao.base.Pageable;
 import com.iyundao.base.annotation.CurrentSubject;
+import com.iyundao.base.annotation.CurrentUser;
+import com.iyundao.base.annotation.QueryBudget;
+import com.iyundao.base.utils.ExcelUtils;
 import com.iyundao.base.utils.JsonResult;
+import com.iyundao.base.utils.ProgressListener;
 import com.iyundao.entity.*;
 import com.iyundao.service.*;
 import org.apache.commons.collections.CollectionUtils;
@@ -16,7 +21,10 @@ import org.apache.shiro.authz.annotation.RequiresUser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.Date;
 import java.util.List;
 
@@ -40,6 +48,15 @@ public class UserController extends BaseController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private SignService signService;
+
+    @Autowired
+    private FeedService feedService;
+
+    @Autowired
+    private UserBatchService userBatchService;
+
     @Autowired
     private ActivityService activityService;
 
@@ -52,6 +69,9 @@ public class UserController extends BaseController {
     @Autowired
     private LabelService labelService;
 
+    @Autowired
+    private UserRowService userRowService;
+
     /**
      * @api {POST} /user/checkCode 检测code
      * @apiGroup User
@@ -178,27 +198,32 @@ public class UserController extends BaseController {
      * @apiGroup User
      * @apiVersion 2.0.0
      * @apiHeader {String} IYunDao-AssessToken token验证
-     * @apiDescription 用户搜索
-     * @apiParam {String} key 搜索条件
-     * @apiParam {String} value 查询值
-     * @apiParam {int} page 页数(默认:1)
+     * @apiDescription 用户搜索, 从用户列表读模型单表查询, 机构关系和标签为名称拼接的字符串; 列表行由V6迁移回填并随用户数据更新, 不一致时可执行/job/rebuildUserRow修复
+     * @apiParam {String} key 搜索字段: account/name/code/statusName/remark/relations/labels
+     * @apiParam {String} value 查询值, 包含匹配
+     * @apiParam {String} orderProperty 排序字段: 搜索字段及sex/status/createdDate/lastModifiedDate, 默认按创建时间
+     * @apiParam {String} orderDirection 排序方向: asc/desc(默认:asc)
+     * @apiParam {int} page 页数(默认:0)
      * @apiParam {int} size 长度(默认:10)
      * @apiParamExample {json} 请求样例
-     *                ?key=张三&page=1&size=10
+     *                ?key=labels&value=高知群体&orderProperty=name&page=0&size=10
      * @apiSuccess (200) {int} code 200:成功</br>
      *                              404:不存在此用户</br>
+     *                              600:参数异常</br>
      * @apiSuccess (200) {String} message 信息
      * @apiSuccess (200) {String} data 返回用户信息
      * @apiSuccessExample {json} 返回样例:
      * {
      *     "code": 200,
      *     "message": "成功",
-     *     "data": "{'pages':1,'elements':1,'entity':[{'version':'0','id':'0a4179fc06cb49e3ac0db7bcc8cf0882','createdDate':'20190517111111','lastModifiedDate':'20190517111111','name':'管理员','status':'normal','password':'b356a1a11a067620275401a5a3de04300bf0c47267071e06','remark':'未填写','sex':'0','salt':'3a10624a300f4670','userType':'amdin','account':'admin'}]}"
+     *     "data": {"total":1,"totalPage":1,"page":0,"content":[{"id":"0a4179fc06cb49e3ac0db7bcc8cf0882","account":"admin","name":"管理员","code":"0001","sex":0,"status":"normal","statusName":"正常","remark":"未填写","relations":"总院-总-部门-组织,分院-分-部门","labels":"高知群体"}]}
      * }
      */
     @PostMapping("/search")
     public JsonResult search(String key,
                              String value,
+                             String orderProperty,
+                             String orderDirection,
                              @RequestParam(defaultValue = "0") int page,
                              @RequestParam(defaultValue = "10") int size) {
         if (StringUtils.isBlank(key)) {
@@ -209,7 +234,13 @@ public class UserController extends BaseController {
         pageable.setSearchValue(value);
         pageable.setPageNumber(page);
         pageable.setPageSize(size);
-        Page<User> userPage = userService.findByKey(pageable);
+        if (StringUtils.isNotBlank(orderProperty)) {
+            pageable.getOrders().add("desc".equalsIgnoreCase(orderDirection) ? Order.desc(orderProperty) : Order.asc(orderProperty));
+        }
+        Page<UserRow> userPage = userRowService.findPage(pageable);
+        if (userPage == null) {
+            return JsonResult.paramError();
+        }
         if (CollectionUtils.isEmpty(userPage.getContent())) {
             return JsonResult.notFound("不存在此用户");
         }
@@ -290,6 +321,81 @@ public class UserController extends BaseController {
         return userService.save(user, subject, departId, groupsId, roles, permissions, labels, jsonResult);
     }
 
+    /**
+     * @api {POST} /user/import 批量导入用户
+     * @apiGroup User
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 通过excel(xls/xlsx)批量导入用户, 首行为表头(见/user/importTemplate), 导入的用户归属同一部门/组织
+     * @apiParam {File} file excel文件 必填
+     * @apiParam {String} departId 部门ID
+     * @apiParam {String} groupsId 组织ID
+     * @apiParam {String} password 默认密码, 密码列为空时使用
+     * @apiParam {String[]} roleIds 角色IDS 必填
+     * @apiParam {String[]} permissionIds 权限IDS 必填
+     * @apiParamExample {json} 请求样例：
+     *                /user/import?departId=4028818a6b8f0a5c016b8f0b3d2a0001&password=123456&roleIds=b08a1e16dfe04d6c98e1599007c31490&permissionIds=cc2ad9e1c10b4bd4be1c4c05a4d4a6f4
+     * @apiSuccess (200) {int} code 200:成功</br>
+     *                                 600:参数异常</br>
+     *                                 603:部门/组织不存在</br>
+     *                                 604:机构不存在</br>
+     *                                 605:账号必须分配角色,权限</br>
+     * @apiSuccess (200) {String} message 信息
+     * @apiSuccess (200) {String} data 导入统计, errors为失败行及原因
+     * @apiSuccessExample {json} 返回样例:
+     * {
+     *     "code": 200,
+     *     "message": "成功",
+     *     "data": {"total": 3,"success": 2,"failed": 1,"elapsed": 412,"rowsPerSecond": 7,"errors": [{"sheet": 1,"row": 3,"message": "账号已存在: a4"}]}
+     * }
+     */
+    @PostMapping("/import")
+    public JsonResult importUsers(MultipartFile file,
+                                  @CurrentSubject Subject subject,
+                                  String departId,
+                                  String groupsId,
+                                  String password,
+                                  String[] roleIds,
+                                  String[] permissionIds) throws IOException {
+        if (!ExcelUtils.checkFile(file)) {
+            return JsonResult.paramError();
+        }
+        List<Role> roles = roleService.findByRoleIds(roleIds);
+        List<Permission> permissions = permissionService.findByIds(permissionIds);
+        if (CollectionUtils.isEmpty(roles) || CollectionUtils.isEmpty(permissions)) {
+            return JsonResult.failure(605, "账号必须分配角色,权限");
+        }
+        return userService.importUsers(file.getOriginalFilename(), file.getInputStream(), subject, departId, groupsId, roles, permissions, password, ProgressListener.NONE, jsonResult);
+    }
+
+    /**
+     * @api {GET} /user/importTemplate 下载导入模板
+     * @apiGroup User
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 下载批量导入用户的excel模板
+     * @apiSuccess (200) {File} file 模板文件
+     */
+    @GetMapping("/importTemplate")
+    public void importTemplate(HttpServletResponse response) throws IOException {
+        ExcelUtils.downloadWorkBook("用户导入模板", response, User.class, UserInfo.class);
+    }
+
+    /**
+     * @api {GET} /user/export 导出用户名册
+     * @apiGroup User
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 导出当前机构的用户名册(xlsx)
+     * @apiSuccess (200) {File} file 用户名册
+     */
+    @GetMapping("/export")
+    public void export(@CurrentSubject Subject subject,
+                       HttpServletResponse response) throws IOException {
+        ExcelUtils.setXlsxResponse("用户名册", response);
+        userService.exportUsers(subject, response.getOutputStream(), ProgressListener.NONE);
+    }
+
     /**
      * @api {POST} /user/view 查看用户
      * @apiGroup User
@@ -514,6 +620,7 @@ public class UserController extends BaseController {
      *     "data": "{'total':3,'content':[{'id':'0a4179fc06cb49e3ac0db7bcc8cf0882','account':'admin','sex':'男','userType':'管理员','status':'正常','createdTime':'20190517111111','relation':['总院-分-部门-无','分院-总-部门-无'],'remark':'未填写'},{'id':'5cf0d3c3b0da4cbaad179e0d6d230d0c','account':'test','sex':'男','userType':'普通用户','status':'正常','createdTime':'20190517111111','relation':['总院-总-部门-无'],'remark':'未填写'},{'id':'cd22e3407ace4d86bac92f92b9e9dd3e','account':'user','sex':'男','userType':'普通用户','status':'正常','createdTime':'20190517111111','relation':[],'remark':'未填写'}]}"
      * }
      */
+    @QueryBudget(statements = 10, duplicates = 5)
     @PostMapping("/groupUser")
     public JsonResult groupUser(String groupId,
                            @RequestParam(defaultValue = "0") int page,
@@ -1007,12 +1114,97 @@ public class UserController extends BaseController {
         return JsonResult.success();
     }
 
+    /**
+     * @api {POST} /user/batchLabel 批量调整用户标签
+     * @apiGroup Label
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 为多个用户同时添加/移除多个标签, 在一个事务中完成, 已有的标签不重复添加
+     * @apiParam {String[]} userIds 用户ID集合, 必填, 最多1000个
+     * @apiParam {String[]} labelIds 添加的标签ID集合
+     * @apiParam {String[]} removeLabelIds 移除的标签ID集合, 与labelIds至少填一个且不能相同
+     * @apiParamExample {json} 请求样例
+     *                /user/batchLabel?userIds=402881916c476c6a016c47716397000a&userIds=0a4179fc06cb49e3ac0db7bcc8cf0882&labelIds=402881916c471adc016c472906340013
+     * @apiSuccess (200) {int} code 200:成功</br>
+     *                              600:参数异常</br>
+     *                              404:用户或标签不存在</br>
+     * @apiSuccess (200) {String} message 信息
+     * @apiSuccess (200) {String} data users-用户数, added-添加数, removed-移除数, unchanged-已存在数
+     * @apiSuccessExample {json} 返回样例:
+     * {
+     *     "code": 200,
+     *     "message": "成功",
+     *     "data": {"users": 2,"added": 1,"removed": 0,"unchanged": 1}
+     * }
+     */
+    @PostMapping("/batchLabel")
+    public JsonResult batchLabel(String[] userIds,
+                                 String[] labelIds,
+                                 String[] removeLabelIds) {
+        List<String> users = toList(userIds);
+        List<String> adds = toList(labelIds);
+        List<String> removes = toList(removeLabelIds);
+        if (!isBatchParam(users, adds, removes)) {
+            return JsonResult.paramError();
+        }
+        JSONObject summary = userBatchService.updateLabels(users, adds, removes);
+        if (summary == null) {
+            return JsonResult.notFound("用户或标签不存在");
+        }
+        jsonResult.setData(summary);
+        return jsonResult;
+    }
+
+    /**
+     * @api {POST} /user/batchRole 批量调整用户角色
+     * @apiGroup User
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 为多个用户同时添加/移除多个角色, 在一个事务中完成, 添加的角色拥有permissionIds中的权限, 移除角色时同时移除其所有权限
+     * @apiParam {String[]} userIds 用户ID集合, 必填, 最多1000个
+     * @apiParam {String[]} roleIds 添加的角色ID集合
+     * @apiParam {String[]} permissionIds 添加的角色的权限ID集合, 填写roleIds时必填
+     * @apiParam {String[]} removeRoleIds 移除的角色ID集合, 与roleIds至少填一个且不能相同
+     * @apiParamExample {json} 请求样例
+     *                /user/batchRole?userIds=402881916c476c6a016c47716397000a&roleIds=4028d8816c4aa85a016c4aa8913d0000&permissionIds=4028d8816c4aa85a016c4aa8913d0001
+     * @apiSuccess (200) {int} code 200:成功</br>
+     *                              600:参数异常</br>
+     *                              404:用户、角色或权限不存在</br>
+     * @apiSuccess (200) {String} message 信息
+     * @apiSuccess (200) {String} data users-用户数, added-添加数, removed-移除数, unchanged-已存在数
+     * @apiSuccessExample {json} 返回样例:
+     * {
+     *     "code": 200,
+     *     "message": "成功",
+     *     "data": {"users": 1,"added": 1,"removed": 0,"unchanged": 0}
+     * }
+     */
+    @PostMapping("/batchRole")
+    public JsonResult batchRole(String[] userIds,
+                                String[] roleIds,
+                                String[] permissionIds,
+                                String[] removeRoleIds) {
+        List<String> users = toList(userIds);
+        List<String> adds = toList(roleIds);
+        List<String> permissions = toList(permissionIds);
+        List<String> removes = toList(removeRoleIds);
+        if (!isBatchParam(users, adds, removes) || adds.isEmpty() != permissions.isEmpty()) {
+            return JsonResult.paramError();
+        }
+        JSONObject summary = userBatchService.updateRoles(users, adds, permissions, removes);
+        if (summary == null) {
+            return JsonResult.notFound("用户、角色或权限不存在");
+        }
+        jsonResult.setData(summary);
+        return jsonResult;
+    }
+
     /**
      * @api {POST} /user/sign 用户签到
      * @apiGroup User
      * @apiVersion 2.0.0
      * @apiHeader {String} IYunDao-AssessToken token验证
-     * @apiDescription 查看
+     * @apiDescription 签到, 校验通过后立即返回, 签到记录在后台批量写入; 去重时间内重复扫码返回604
      * @apiParam {String} userId 用户ID
      * @apiParam {int} type 签到类型
      * @apiParam {String} activityId 活动ID
@@ -1025,6 +1217,8 @@ public class UserController extends BaseController {
      *                              601:用户不存在</br>
      *                              602:活动不存在</br>
      *                              603:签到类型不能为空</br>
+     *                              604:请勿重复签到</br>
+     *                              605:签到人数过多,请稍后再试</br>
      * @apiSuccess (200) {String} message 信息
      * @apiSuccess (200) {String} data 返回用户信息
      * @apiSuccessExample {json} 返回样例:
@@ -1041,33 +1235,90 @@ public class UserController extends BaseController {
                            String singTime,
                            String axisx,
                            String axisy) {
-        User user = userService.findById(userId);
-        if (user == null) {
-            return JsonResult.failure(601, "用户不存在");
-        }
-        Activity activity = activityService.find(activityId);
-        if (activity == null) {
-            return JsonResult.failure(602, "活动不存在");
-        }
-        Sign s = new Sign();
-        s.setCreatedDate(new Date());
-        s.setLastModifiedDate(new Date());
-        s.setSignTime(singTime);
-        s.setAxisx(axisx);
-        s.setAxisy(axisy);
-        s.setUserId(userId);
-        s.setActivity(activity);
+        Sign.SIGN_TYPE signType = null;
         for (Sign.SIGN_TYPE st : Sign.SIGN_TYPE.values()) {
             if (st.ordinal() == type) {
-                s.setSignType(st);
+                signType = st;
                 break;
-            } 
+            }
         }
-        if (s.getSignType() == null) {
+        if (signType == null) {
             return JsonResult.failure(603, "签到类型不能为空");
         }
-        s = activityService.saveUserSign(s);
-        jsonResult.setData(getJson(s));
+        return signService.sign(userId, activityId, signType, singTime, axisx, axisy, jsonResult);
+    }
+
+    /**
+     * @api {POST} /user/signHistory 我的签到记录
+     * @apiGroup User
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 当前用户的签到记录, 按签到时间倒序, 下一页传入上一页返回的cursor
+     * @apiParam {int} type 签到类型, 默认0
+     * @apiParam {String} cursor 游标, 首页为空
+     * @apiParam {int} size 每页数量, 默认20, 最大100
+     * @apiParamExample {json} 请求样例
+     *                /user/signHistory?type=0&size=20
+     * @apiSuccess (200) {int} code 200:成功</br>
+     *                              600:参数异常</br>
+     * @apiSuccess (200) {String} message 信息
+     * @apiSuccess (200) {String} data content-签到列表, cursor-下一页游标, 没有更多时为空
+     * @apiSuccessExample {json} 返回样例:
+     * {
+     *     "code": 200,
+     *     "message": "成功",
+     *     "data": {"content": [{"id": "2c92eb816b32f12a016b33962eb90012","signTime": "20190608041648","signTs": 1559938608000,"signType": "normal","axisx": "123","axisy": "456","activityId": "402881916b2a3187016b2a3247350002","activityName": "添加活动2"}],"cursor": "1559938608000-2c92eb816b32f12a016b33962eb90012"}
+     * }
+     */
+    @PostMapping("/signHistory")
+    public JsonResult signHistory(@CurrentUser User user,
+                                  @RequestParam(defaultValue = "0") int type,
+                                  String cursor,
+                                  @RequestParam(defaultValue = "20") int size) {
+        if (type < 0 || type >= Sign.SIGN_TYPE.values().length || size < 1 || size > 100) {
+            return JsonResult.paramError();
+        }
+        JSONObject history = signService.findHistory(user.getId(), Sign.SIGN_TYPE.values()[type], cursor, size);
+        if (history == null) {
+            return JsonResult.paramError();
+        }
+        jsonResult.setData(history);
+        return jsonResult;
+    }
+
+    /**
+     * @api {POST} /user/feed 我的动态
+     * @apiGroup User
+     * @apiVersion 2.0.0
+     * @apiHeader {String} IYunDao-AssessToken token验证
+     * @apiDescription 当前用户可见的活动及参与的议事, 按创建时间倒序, 下一页传入上一页返回的cursor
+     * @apiParam {String} cursor 游标, 首页为空
+     * @apiParam {int} size 每页数量, 默认20, 最大100
+     * @apiParamExample {json} 请求样例
+     *                /user/feed?size=20
+     * @apiSuccess (200) {int} code 200:成功</br>
+     *                              600:参数异常</br>
+     * @apiSuccess (200) {String} message 信息
+     * @apiSuccess (200) {String} data content-动态列表(type: activity-活动, politics-议事), cursor-下一页游标, 没有更多时为空
+     * @apiSuccessExample {json} 返回样例:
+     * {
+     *     "code": 200,
+     *     "message": "成功",
+     *     "data": {"content": [{"type": "activity","id": "402881916b2a3187016b2a3247350002","title": "添加活动2","createdDate": "20190608041648"}],"cursor": "20190608041648-1"}
+     * }
+     */
+    @PostMapping("/feed")
+    public JsonResult feed(@CurrentUser User user,
+                           String cursor,
+                           @RequestParam(defaultValue = "20") int size) {
+        if (size < 1 || size > 100) {
+            return JsonResult.paramError();
+        }
+        JSONObject feed = feedService.read(user.getId(), cursor, size);
+        if (feed == null) {
+            return JsonResult.paramError();
+        }
+        jsonResult.setData(feed);
         return jsonResult;
     }
 
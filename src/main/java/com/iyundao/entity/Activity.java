@@ -1,6 +1,8 @@
 package com.iyundao.entity;
 
 import com.iyundao.base.BaseEntity;
+import com.iyundao.base.ServiceCacheListener;
+import org.hibernate.annotations.Where;
 
 import javax.persistence.*;
 import java.util.Set;
@@ -15,6 +17,8 @@ import java.util.Set;
  */
 @Entity
 @Table(name = "t_activity")
+@Where(clause = "DELETED = 0")
+@EntityListeners(ServiceCacheListener.class)
 public class Activity extends BaseEntity<String> {
 
     private final static long serialVersionUID = -19841293471923748L;
@@ -68,6 +68,13 @@ public class ActivityFile extends BaseEntity<String> {
     @Column(name = "HOTS", columnDefinition = "tinyint default 0", nullable = false)
     private int hots;
 
+    /**
+     * 文件内容, 上传文件时关联, url与内容的url一致
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "BLOBID")
+    private FileBlob blob;
+
     public String getContent() {
         return content;
     }
@@ -132,6 +139,14 @@ public class ActivityFile extends BaseEntity<String> {
         this.type = type;
     }
 
+    public FileBlob getBlob() {
+        return blob;
+    }
+
+    public void setBlob(FileBlob blob) {
+        this.blob = blob;
+    }
+
     public enum ACTIVITY_FILE_TYPE{
         /**
          * 文档
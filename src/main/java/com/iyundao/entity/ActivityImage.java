@@ -49,6 +49,13 @@ public class ActivityImage extends BaseEntity<String> {
     @JoinColumn(name = "ACTIVITYID")
     private Activity activity;
 
+    /**
+     * 文件内容, 上传文件时关联, url与内容的url一致
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "BLOBID")
+    private FileBlob blob;
+
     public String getName() {
         return name;
     }
@@ -89,4 +96,11 @@ public class ActivityImage extends BaseEntity<String> {
         this.activity = activity;
     }
 
+    public FileBlob getBlob() {
+        return blob;
+    }
+
+    public void setBlob(FileBlob blob) {
+        this.blob = blob;
+    }
 }
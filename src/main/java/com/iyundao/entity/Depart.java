@@ -1,6 +1,10 @@
 package com.iyundao.entity;
 
 import com.iyundao.base.BaseEntity;
+import com.iyundao.base.EntityCacheListener;
+import com.iyundao.base.ServiceCacheListener;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.Set;
@@ -15,6 +19,9 @@ import java.util.Set;
  */
 @Entity
 @Table(name = "t_depart")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners({EntityCacheListener.class, ServiceCacheListener.class})
 public class Depart extends BaseEntity<String> {
 
     private static final long serialVerisonUID = -1294037981273498L;
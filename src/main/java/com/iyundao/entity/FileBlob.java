@@ -0,0 +1,76 @@
+package com.iyundao.entity;
+
+import com.iyundao.base.BaseEntity;
+
+import javax.persistence.*;
+
+/**
+ * @ClassName: FileBlob
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/8/23 9:15
+ * @Description: 实体 - 文件内容(按SHA-256去重, 引用计数为0时删除)
+ * @Version: V2.0
+ */
+@Entity
+@Table(name = "t_file_blob")
+public class FileBlob extends BaseEntity<String> {
+
+    private final static long serialVersionUID = -4417202396718830157L;
+
+    /**
+     * SHA-256摘要(十六进制)
+     */
+    @Column(name = "HASH", nullable = false, unique = true, columnDefinition = "char(64)")
+    private String hash;
+
+    /**
+     * 文件大小, 单位：字节
+     */
+    @Column(name = "FILESIZE", nullable = false)
+    private long size;
+
+    /**
+     * 相对上传根路径的url, 以"/"分隔
+     */
+    @Column(name = "URL", nullable = false, length = 100)
+    private String url;
+
+    /**
+     * 引用数
+     */
+    @Column(name = "REFCOUNT", nullable = false)
+    private int refCount;
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public int getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(int refCount) {
+        this.refCount = refCount;
+    }
+}
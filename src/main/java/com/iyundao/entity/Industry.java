@@ -1,6 +1,9 @@
 package com.iyundao.entity;
 
 import com.iyundao.base.BaseEntity;
+import com.iyundao.base.EntityCacheListener;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.Set;
@@ -15,6 +18,9 @@ import java.util.Set;
  */
 @Entity
 @Table(name = "t_industry")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners(EntityCacheListener.class)
 public class Industry extends BaseEntity<String> {
 
     private static final long serialVersionUID = -123412433124809890L;
@@ -48,6 +54,7 @@ public class Industry extends BaseEntity<String> {
      * 岗位
      */
     @OneToMany(mappedBy = "industry", cascade = {CascadeType.MERGE, CascadeType.PERSIST}, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private Set<Position> positions;
 
     public String getCode() {
@@ -1,6 +1,10 @@
 package com.iyundao.entity;
 
 import com.iyundao.base.BaseEntity;
+import com.iyundao.base.EntityCacheListener;
+import com.iyundao.base.ServiceCacheListener;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.Set;
@@ -15,6 +19,9 @@ import java.util.Set;
  */
 @Entity
 @Table(name = "t_label")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners({EntityCacheListener.class, ServiceCacheListener.class})
 public class Label extends BaseEntity<String> {
 
     private static final long serialVersionUID = 9132041012843019284L;
@@ -1,6 +1,9 @@
 package com.iyundao.entity;
 
 import com.iyundao.base.BaseEntity;
+import com.iyundao.base.EntityCacheListener;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
@@ -14,6 +17,9 @@ import javax.persistence.*;
  */
 @Entity
 @Table(name = "t_position")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners(EntityCacheListener.class)
 public class Position extends BaseEntity<String> {
 
     private static final long serialVersionUID = 120940912830948123L;
@@ -1,6 +1,7 @@
 package com.iyundao.entity;
 
 import com.iyundao.base.BaseEntity;
+import com.iyundao.base.utils.TimeUtils;
 
 import javax.persistence.*;
 
@@ -24,6 +25,12 @@ public class Sign extends BaseEntity<String> {
     @Column(name = "SIGNTIME", nullable = false)
     private String signTime;
 
+    /**
+     * 签到时间戳(毫秒), 签到时间不是yyyyMMddHHmmss格式时取创建时间, 用于历史记录排序分页
+     */
+    @Column(name = "SIGNTS")
+    private Long signTs;
+
     /**
      * 签到状态
      */
@@ -104,6 +111,22 @@ public class Sign extends BaseEntity<String> {
         this.axisy = axisy;
     }
 
+    public Long getSignTs() {
+        return signTs;
+    }
+
+    public void setSignTs(Long signTs) {
+        this.signTs = signTs;
+    }
+
+    @PrePersist
+    public void prePersist() {
+        if (signTs == null) {
+            Long ts = TimeUtils.toMillis(signTime);
+            signTs = ts != null ? ts : TimeUtils.toMillis(getCreatedDate());
+        }
+    }
+
     public enum SIGN_TYPE{
         /**
          * 正常
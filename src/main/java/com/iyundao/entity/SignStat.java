@@ -0,0 +1,151 @@
+package com.iyundao.entity;
+
+import com.iyundao.base.BaseEntity;
+
+import javax.persistence.*;
+
+/**
+ * @ClassName: SignStat
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/8/26 15:20
+ * @Description: 实体 - 签到统计, 写入签到时增量更新, 按活动+维度+维度ID唯一
+ * @Version: V2.0
+ */
+@Entity
+@Table(name = "t_sign_stat", uniqueConstraints = @UniqueConstraint(name = "UK_SIGN_STAT", columnNames = {"ACTIVITYID", "DIMTYPE", "DIMID"}))
+public class SignStat extends BaseEntity<String> {
+
+    private final static long serialVersionUID = -7260938264801375123L;
+
+    /**
+     * 活动ID
+     */
+    @Column(name = "ACTIVITYID", nullable = false, length = 32)
+    private String activityId;
+
+    /**
+     * 统计维度
+     */
+    @Enumerated(value = EnumType.ORDINAL)
+    @Column(name = "DIMTYPE", nullable = false)
+    private STAT_TYPE type;
+
+    /**
+     * 维度ID: 活动/出勤/机构/部门/小组/用户ID
+     */
+    @Column(name = "DIMID", nullable = false, length = 32)
+    private String dimId;
+
+    /**
+     * 签到数
+     */
+    @Column(name = "TOTAL", nullable = false)
+    private long total;
+
+    /**
+     * 正常
+     */
+    @Column(name = "NORMAL", nullable = false)
+    private long normal;
+
+    /**
+     * 超出范围
+     */
+    @Column(name = "OUTS", nullable = false)
+    private long out;
+
+    /**
+     * 异常
+     */
+    @Column(name = "ABNORMAL", nullable = false)
+    private long abnormal;
+
+    public String getActivityId() {
+        return activityId;
+    }
+
+    public void setActivityId(String activityId) {
+        this.activityId = activityId;
+    }
+
+    public STAT_TYPE getType() {
+        return type;
+    }
+
+    public void setType(STAT_TYPE type) {
+        this.type = type;
+    }
+
+    public String getDimId() {
+        return dimId;
+    }
+
+    public void setDimId(String dimId) {
+        this.dimId = dimId;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getNormal() {
+        return normal;
+    }
+
+    public void setNormal(long normal) {
+        this.normal = normal;
+    }
+
+    public long getOut() {
+        return out;
+    }
+
+    public void setOut(long out) {
+        this.out = out;
+    }
+
+    public long getAbnormal() {
+        return abnormal;
+    }
+
+    public void setAbnormal(long abnormal) {
+        this.abnormal = abnormal;
+    }
+
+    public enum STAT_TYPE {
+        /**
+         * 活动
+         */
+        activity,
+
+        /**
+         * 出勤时间段
+         */
+        attendance,
+
+        /**
+         * 机构
+         */
+        subject,
+
+        /**
+         * 部门
+         */
+        depart,
+
+        /**
+         * 小组
+         */
+        groups,
+
+        /**
+         * 用户
+         */
+        user
+    }
+}
@@ -1,6 +1,9 @@
 package com.iyundao.entity;
 
 import com.iyundao.base.BaseEntity;
+import com.iyundao.base.EntityCacheListener;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.Set;
@@ -15,6 +18,9 @@ import java.util.Set;
  */
 @Entity
 @Table(name = "t_subject")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners(EntityCacheListener.class)
 public class Subject extends BaseEntity<String> {
 
     private static final long serialVersionUID = -129079014789123784L;
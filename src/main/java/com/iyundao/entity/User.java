@@ -1,6 +1,8 @@
 package com.iyundao.entity;
 
 import com.iyundao.base.BaseEntity;
+import com.iyundao.base.ServiceCacheListener;
+import com.iyundao.base.annotation.Excel;
 
 import javax.persistence.*;
 import java.util.Set;
@@ -15,6 +17,7 @@ import java.util.Set;
  */
 @Entity
 @Table(name = "t_user")
+@EntityListeners(ServiceCacheListener.class)
 public class User extends BaseEntity<String> {
 
     private static final long serialVersionUID = -1172094710974098503L;
@@ -22,24 +25,28 @@ public class User extends BaseEntity<String> {
     /**
      * 账号
      */
+    @Excel(name = "账号")
     @Column(name = "ACCOUNT", nullable = false, unique = true, length = 50)
     private String account;
 
     /**
      * 姓名
      */
+    @Excel(name = "姓名")
     @Column(name ="NAME", nullable = false,length = 50)
     private String name;
 
     /**
      * 编号
      */
+    @Excel(name = "编号")
     @Column(name = "CODE", nullable = false, length = 10, unique = true)
     private String code;
 
     /**
      * 密码
      */
+    @Excel(name = "密码")
     @Column(name = "PASSWORD", nullable = false, length = 50)
     private String password;
 
@@ -52,6 +59,7 @@ public class User extends BaseEntity<String> {
     /**
      * 性别 0-男, 1-女
      */
+    @Excel(name = "性别")
     @Column(name = "SEX")
     private int sex;
 
@@ -71,6 +79,7 @@ public class User extends BaseEntity<String> {
     /**
      * 用户简介
      */
+    @Excel(name = "简介")
     @Column(name = "REMARK", columnDefinition = "varchar(20) default '未填写'", length = 500)
     private String remark;
 
@@ -4,6 +4,7 @@ import com.iyundao.base.BaseEntity;
 import com.iyundao.base.utils.TimeUtils;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 import java.util.Date;
 
 /**
@@ -74,7 +75,7 @@ public class UserApp extends BaseEntity<String> {
      * 最后登录时间
      */
     @Column(name = "LASTLOGINTIME", nullable = false)
-    private String lastLoginTime;
+    private LocalDateTime lastLoginTime;
 
     public APP_TYPE getType() {
         return type;
@@ -141,11 +142,11 @@ public class UserApp extends BaseEntity<String> {
     }
 
     public String getLastLoginTime() {
-        return lastLoginTime;
+        return TimeUtils.format(lastLoginTime);
     }
 
     public void setLastLoginTime(Date lastLoginTime) {
-        this.lastLoginTime = TimeUtils.convertTime(lastLoginTime, "yyyyMMddHHmmss");
+        this.lastLoginTime = TimeUtils.toLocalDateTime(lastLoginTime);
     }
 
     public enum APP_TYPE{
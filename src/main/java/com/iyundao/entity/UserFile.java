@@ -76,6 +76,13 @@ public class UserFile extends BaseEntity<String> {
     @OneToMany(mappedBy = "userFile", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Set<UserFileTo> userFileTo;
 
+    /**
+     * 文件内容, 上传文件时关联, url与内容的url一致
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "BLOBID")
+    private FileBlob blob;
+
     public String getName() {
         return name;
     }
@@ -148,6 +155,14 @@ public class UserFile extends BaseEntity<String> {
         this.userFileTo = userFileTo;
     }
 
+    public FileBlob getBlob() {
+        return blob;
+    }
+
+    public void setBlob(FileBlob blob) {
+        this.blob = blob;
+    }
+
     public enum TYPE{
         /**
          * 文档
@@ -2,6 +2,7 @@ package com.iyundao.entity;
 
 import com.fasterxml.jackson.core.sym.NameN;
 import com.iyundao.base.BaseEntity;
+import com.iyundao.base.annotation.Excel;
 
 import javax.persistence.*;
 
@@ -35,84 +36,98 @@ public class UserInfo extends BaseEntity<String> {
     /**
      * 民族
      */
+    @Excel(name = "民族")
     @Column(name = "NATION", length = 20)
     private String nation;
 
     /**
      * 年龄
      */
+    @Excel(name = "年龄")
     @Column(name = "AGE", columnDefinition = "tinyint(3) default '0'")
     private int age;
 
     /**
      * 政治面貌
      */
+    @Excel(name = "政治面貌")
     @Column(name = "POLITICAL", length = 50)
     private String political;
 
     /**
      * 籍贯
      */
+    @Excel(name = "籍贯")
     @Column(name = "NATIVEPLACE", length = 50)
     private String nativePlace;
 
     /**
      * 毕业院校
      */
+    @Excel(name = "毕业院校")
     @Column(name = "UNIVERSITY", length = 50)
     private String university;
 
     /**
      * 专业
      */
+    @Excel(name = "专业")
     @Column(name = "MAJOR", length = 50)
     private String major;
 
     /**
      * 学历
      */
+    @Excel(name = "学历")
     @Column(name = "EDUCATION", length = 50)
     private String education;
 
     /**
      * 出生日期
      */
+    @Excel(name = "出生日期")
     @Column(name = "BIRTHDAY", length = 8)
     private String birthDay;
 
     /**
      * 地址
      */
+    @Excel(name = "地址")
     @Column(name = "ADDRESS", length = 100)
     private String address;
 
     /**
      * 电话
      */
+    @Excel(name = "电话")
     @Column(name = "TEL", length = 11, unique = true)
     private long tel;
 
     /**
      * 邮箱
      */
+    @Excel(name = "邮箱")
     @Column(name = "EMAIL", length = 50)
     private String email;
 
     /**
      * 微信
      */
+    @Excel(name = "微信")
     @Column(name = "WX", length = 50, unique = true)
     private String wx;
 
     /**
      * QQ
      */
+    @Excel(name = "QQ")
     @Column(name = "QQ", length = 20, unique = true)
     private String qq;
 
     /**
      * 身份证号
      */
+    @Excel(name = "身份证号")
     @Column(name = "ICARD", length = 18, unique = true)
     private String iCard;
 
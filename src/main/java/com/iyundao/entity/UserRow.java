@@ -0,0 +1,149 @@
+package com.iyundao.entity;
+
+import com.iyundao.base.BaseEntity;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+
+/**
+ * @ClassName: UserRow
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/11 9:30
+ * @Description: 实体 - 用户列表行, 由UserRowService在用户/机构关系/标签写入时更新, ID与用户ID相同, 只读
+ * @Version: V2.0
+ */
+@Entity
+@Immutable
+@Table(name = "t_user_row")
+public class UserRow extends BaseEntity<String> {
+
+    private static final long serialVersionUID = 4716302958127364051L;
+
+    /**
+     * 账号
+     */
+    @Column(name = "ACCOUNT", nullable = false, unique = true, length = 50)
+    private String account;
+
+    /**
+     * 姓名
+     */
+    @Column(name = "NAME", nullable = false, length = 50)
+    private String name;
+
+    /**
+     * 编号
+     */
+    @Column(name = "CODE", nullable = false, length = 10)
+    private String code;
+
+    /**
+     * 性别 0-男, 1-女
+     */
+    @Column(name = "SEX")
+    private Integer sex;
+
+    /**
+     * 账号状态
+     */
+    @Enumerated(value = EnumType.ORDINAL)
+    @Column(name = "STATUS")
+    private User.ACCOUNT_TYPE status;
+
+    /**
+     * 账号状态名称
+     */
+    @Column(name = "STATUSNAME", length = 10)
+    private String statusName;
+
+    /**
+     * 用户简介
+     */
+    @Column(name = "REMARK", length = 500)
+    private String remark;
+
+    /**
+     * 机构关系, 每项为机构-部门-小组, 逗号分隔
+     */
+    @Column(name = "RELATIONS", length = 1000)
+    private String relations;
+
+    /**
+     * 标签名称, 逗号分隔
+     */
+    @Column(name = "LABELS", length = 1000)
+    private String labels;
+
+    public String getAccount() {
+        return account;
+    }
+
+    public void setAccount(String account) {
+        this.account = account;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public Integer getSex() {
+        return sex;
+    }
+
+    public void setSex(Integer sex) {
+        this.sex = sex;
+    }
+
+    public User.ACCOUNT_TYPE getStatus() {
+        return status;
+    }
+
+    public void setStatus(User.ACCOUNT_TYPE status) {
+        this.status = status;
+    }
+
+    public String getStatusName() {
+        return statusName;
+    }
+
+    public void setStatusName(String statusName) {
+        this.statusName = statusName;
+    }
+
+    public String getRemark() {
+        return remark;
+    }
+
+    public void setRemark(String remark) {
+        this.remark = remark;
+    }
+
+    public String getRelations() {
+        return relations;
+    }
+
+    public void setRelations(String relations) {
+        this.relations = relations;
+    }
+
+    public String getLabels() {
+        return labels;
+    }
+
+    public void setLabels(String labels) {
+        this.labels = labels;
+    }
+}
@@ -2,6 +2,8 @@ package com.iyundao.repository;
 
 import com.iyundao.base.BaseRepository;
 import com.iyundao.entity.ActivityFile;
+import com.iyundao.entity.FileBlob;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -25,4 +27,21 @@ public interface ActivityFileRepository extends BaseRepository<ActivityFile, Str
      */
     @Query("select af from ActivityFile af where af.activity.id = ?1")
     List<ActivityFile> findByActivityId(String id);
+
+    /**
+     * 活动引用的文件内容
+     * @param activityId
+     * @return
+     */
+    @Query("select af.blob from ActivityFile af where af.activity.id = ?1")
+    List<FileBlob> findBlobsByActivityId(String activityId);
+
+    /**
+     * 删除活动的所有文件
+     * @param activityId
+     * @return
+     */
+    @Modifying
+    @Query(value = "DELETE FROM t_activity_file WHERE ACTIVITYID = ?1", nativeQuery = true)
+    int deleteByActivityId(String activityId);
 }
@@ -1,6 +1,8 @@
 package com.iyundao.repository;
 
 import com.iyundao.entity.ActivityImage;
+import com.iyundao.entity.FileBlob;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
@@ -25,4 +27,21 @@ public interface ActivityImageRepository extends CrudRepository<ActivityImage, S
     //根据活动ID获取集合信息
     @Query("select ai from ActivityImage ai where ai.activity.id = ?1")
     List<ActivityImage> findByActivityId(String id);
+
+    /**
+     * 活动引用的文件内容
+     * @param activityId
+     * @return
+     */
+    @Query("select ai.blob from ActivityImage ai where ai.activity.id = ?1")
+    List<FileBlob> findBlobsByActivityId(String activityId);
+
+    /**
+     * 删除活动的所有图片
+     * @param activityId
+     * @return
+     */
+    @Modifying
+    @Query(value = "DELETE FROM t_activity_image WHERE ACTIVITYID = ?1", nativeQuery = true)
+    int deleteByActivityId(String activityId);
 }
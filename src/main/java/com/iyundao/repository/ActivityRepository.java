@@ -1,12 +1,16 @@
 package com.iyundao.repository;
 
 import com.iyundao.base.BaseRepository;
-import com.iyundao.base.Page;
-import com.iyundao.base.Pageable;
+import com.iyundao.base.config.ServiceCacheConfig;
 import com.iyundao.entity.Activity;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -20,6 +24,15 @@ import java.util.List;
 @Repository
 public interface ActivityRepository extends BaseRepository<Activity, String> {
 
+    /**
+     * 列表视图: 列表显示的字段和出勤/文件/图片数量
+     */
+    String SELECT_SUMMARY = "select a.id, a.name, a.content, a.number, a.total, a.type, " +
+            "(select count(t) from Attendance t where t.activity = a), " +
+            "(select count(f) from ActivityFile f where f.activity = a), " +
+            "(select count(i) from ActivityImage i where i.activity = a) " +
+            "from Activity a ";
+
     /**
      * 根据ID查找实体
      * @param id
@@ -30,17 +43,78 @@ public interface ActivityRepository extends BaseRepository<Activity, String> {
     Activity find(String id);
 
     /**
-     * 获取活动列表集合
+     * 活动未删除时返回其ID, 结果缓存
+     * @param id
+     * @return
+     */
+    @Cacheable(cacheNames = ServiceCacheConfig.ACTIVITY, key = "#p0")
+    @Query("select a.id from Activity a where a.id = ?1")
+    String findLiveId(String id);
+
+    /**
+     * 查询活动及出勤/文件/图片(一次查询)
+     * @param id
      * @return
      */
-    @Query("select a from Activity a")
-    List<Activity> findAllForList();
+    @Query("select distinct a from Activity a left join fetch a.attendances " +
+            "left join fetch a.activityFiles left join fetch a.activityImages where a.id = ?1")
+    Activity findDetail(String id);
 
     /**
-     * 查询活动分页
+     * 活动列表视图: 只查询列表显示的字段和出勤/文件/图片数量
+     * @param name 名称模糊匹配, 为null时不过滤
+     * @param from 创建时间不早于, 为null时不过滤
+     * @param to 创建时间早于, 为null时不过滤
      * @param pageable
+     * @return [id, name, content, number, total, type, 出勤数, 文件数, 图片数]
+     */
+    @Query(SELECT_SUMMARY + "where (?1 is null or a.name like ?1) " +
+            "and (?2 is null or a.createdDate >= ?2) and (?3 is null or a.createdDate < ?3) order by a.createdDate")
+    List<Object[]> findSummary(String name, LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+    /**
+     * 根据ID查询活动列表视图, 顺序不定
+     * @param ids
+     * @return [id, name, content, number, total, type, 出勤数, 文件数, 图片数]
+     */
+    @Query(SELECT_SUMMARY + "where a.id in ?1")
+    List<Object[]> findSummaryByIds(Collection<String> ids);
+
+    /**
+     * 统计活动列表视图的总数
+     * @param name 名称模糊匹配, 为null时不过滤
+     * @param from 创建时间不早于, 为null时不过滤
+     * @param to 创建时间早于, 为null时不过滤
+     * @return
+     */
+    @Query("select count(a) from Activity a where (?1 is null or a.name like ?1) " +
+            "and (?2 is null or a.createdDate >= ?2) and (?3 is null or a.createdDate < ?3)")
+    long countSummary(String name, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * 标记删除, 同时锁定该行, 防止并发清理
+     * @param id
+     * @param date
+     * @return 匹配的行数, 0表示已被清理
+     */
+    @Modifying
+    @Query(value = "UPDATE t_activity SET DELETED = 1, LASTMODIFIEDTIME = ?2 WHERE ID = ?1", nativeQuery = true)
+    int markDeleted(String id, LocalDateTime date);
+
+    /**
+     * 已标记删除, 等待清理的活动
+     * @param limit
+     * @return
+     */
+    @Query(value = "SELECT ID FROM t_activity WHERE DELETED = 1 LIMIT ?1", nativeQuery = true)
+    List<String> findDeletedIds(int limit);
+
+    /**
+     * 删除活动, 关联数据需先删除
+     * @param id
      * @return
      */
-    @Query("select a from Activity a")
-    Page<Activity> findAllForPage(Pageable pageable);
+    @Modifying(clearAutomatically = true)
+    @Query(value = "DELETE FROM t_activity WHERE ID = ?1", nativeQuery = true)
+    int purge(String id);
 }
@@ -2,6 +2,7 @@ package com.iyundao.repository;
 
 import com.iyundao.base.BaseRepository;
 import com.iyundao.entity.Attendance;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -34,4 +35,20 @@ public interface AttendanceRepository extends BaseRepository<Attendance, String>
     @Override
     @Query("select a from Attendance a where a.id in (?1)")
     List<Attendance> findByIds(String[] attendanceIds);
+
+    /**
+     * 设置了签到范围的活动ID
+     * @return
+     */
+    @Query("select distinct a.activity.id from Attendance a where a.activity is not null and a.area is not null and a.area <> ''")
+    List<String> findFencedActivityIds();
+
+    /**
+     * 删除活动的所有出勤
+     * @param activityId
+     * @return
+     */
+    @Modifying
+    @Query(value = "DELETE FROM t_attendance WHERE ACTIVITYID = ?1", nativeQuery = true)
+    int deleteByActivityId(String activityId);
 }
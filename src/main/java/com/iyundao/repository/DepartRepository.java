@@ -1,7 +1,9 @@
 package com.iyundao.repository;
 
 import com.iyundao.base.BaseRepository;
+import com.iyundao.base.config.ServiceCacheConfig;
 import com.iyundao.entity.Depart;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -26,6 +28,15 @@ public interface DepartRepository extends BaseRepository<Depart, String> {
     @Query(value = "select d from Depart d  where d.subject.id = ?1")
     List<Depart> findBySubjectId(String subjectId);
 
+    /**
+     * 获取机构的部门ID列表, 结果缓存
+     * @param subjectId
+     * @return
+     */
+    @Cacheable(cacheNames = ServiceCacheConfig.DEPART_SUBJECT, key = "#p0")
+    @Query(value = "select d.id from Depart d where d.subject.id = ?1")
+    List<String> findIdsBySubjectId(String subjectId);
+
     /**
      * 根据ID获取部门实体
      * @param departId
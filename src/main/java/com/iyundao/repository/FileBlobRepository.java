@@ -0,0 +1,69 @@
+package com.iyundao.repository;
+
+import com.iyundao.base.BaseRepository;
+import com.iyundao.entity.FileBlob;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * @ClassName: FileBlobRepository
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/8/23 9:20
+ * @Description: 仓库 - 文件内容
+ * @Version: V2.0
+ */
+@Repository
+public interface FileBlobRepository extends BaseRepository<FileBlob, String> {
+
+    /**
+     * 根据摘要获取
+     * @param hash
+     * @return
+     */
+    @Query("select fb from FileBlob fb where fb.hash = ?1")
+    FileBlob findByHash(String hash);
+
+    /**
+     * 新增内容, 摘要已存在时引用数+1
+     * @param id
+     * @param date
+     * @param hash
+     * @param size
+     * @param url
+     * @return
+     */
+    @Modifying
+    @Query(value = "INSERT INTO t_file_blob (ID, CREATEDATE, LASTMODIFIEDTIME, VERSION, HASH, FILESIZE, URL, REFCOUNT) VALUES (?1, ?2, ?2, 0, ?3, ?4, ?5, 1) " +
+            "ON DUPLICATE KEY UPDATE REFCOUNT = REFCOUNT + 1, LASTMODIFIEDTIME = ?2", nativeQuery = true)
+    int reference(String id, LocalDateTime date, String hash, long size, String url);
+
+    /**
+     * 引用数-1
+     * @param id
+     * @return
+     */
+    @Modifying
+    @Query(value = "UPDATE t_file_blob SET REFCOUNT = REFCOUNT - 1 WHERE ID = ?1 AND REFCOUNT > 0", nativeQuery = true)
+    int release(String id);
+
+    /**
+     * 删除无引用的内容
+     * @param id
+     * @return
+     */
+    @Modifying
+    @Query(value = "DELETE FROM t_file_blob WHERE ID = ?1 AND REFCOUNT <= 0", nativeQuery = true)
+    int deleteUnreferenced(String id);
+
+    /**
+     * 锁定摘要, 不存在时锁定唯一索引的间隙, 并发的reference在当前事务提交前等待
+     * @param hash
+     * @return 摘要的记录数
+     */
+    @Query(value = "SELECT COUNT(*) FROM t_file_blob WHERE HASH = ?1 FOR UPDATE", nativeQuery = true)
+    int lockByHash(String hash);
+}
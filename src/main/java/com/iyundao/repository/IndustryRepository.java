@@ -3,9 +3,11 @@ package com.iyundao.repository;
 import com.iyundao.base.BaseRepository;
 import com.iyundao.entity.Industry;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
 /**
@@ -24,6 +26,7 @@ public interface IndustryRepository extends BaseRepository<Industry, String> {
      * @return
      */
     @Query("select i from Industry i where i.father is null order by i.code")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<Industry> findByFatherIsNull();
 
     /**
@@ -32,5 +35,6 @@ public interface IndustryRepository extends BaseRepository<Industry, String> {
      * @return
      */
     @Query("select i from Industry i where i.father.id = ?1")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<Industry> findByFatherId(String id);
 }
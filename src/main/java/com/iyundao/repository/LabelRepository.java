@@ -1,10 +1,14 @@
 package com.iyundao.repository;
 
 import com.iyundao.base.BaseRepository;
+import com.iyundao.base.config.ServiceCacheConfig;
 import com.iyundao.entity.Label;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
 /**
@@ -24,6 +28,7 @@ public interface LabelRepository extends BaseRepository<Label, String> {
      * @return
      */
     @Query("select l from Label l where l.code = ?1")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Label findByCode(String code);
 
     /**
@@ -36,12 +41,24 @@ public interface LabelRepository extends BaseRepository<Label, String> {
     @Query(value = "SELECT l.* FROM t_label l WHERE l.TYPE = ?1 LIMIT ?2, ?3", nativeQuery = true)
     List<Label> findLabelByType(int type, int pageNumber, int pageSize);
 
+    /**
+     * 查询类型标签ID, 结果缓存
+     * @param type
+     * @param pageNumber
+     * @param pageSize
+     * @return
+     */
+    @Cacheable(cacheNames = ServiceCacheConfig.LABEL_PAGE, key = "#p0 + ':' + #p1 + ':' + #p2")
+    @Query(value = "SELECT l.ID FROM t_label l WHERE l.TYPE = ?1 LIMIT ?2, ?3", nativeQuery = true)
+    List<String> findIdsByType(int type, int pageNumber, int pageSize);
+
     /**
      * 统计标签类型总数
      *
      * @param type
      * @return
      */
+    @Cacheable(cacheNames = ServiceCacheConfig.LABEL_COUNT, key = "#p0")
     @Query(value = "SELECT COUNT(*) FROM t_label l WHERE l.TYPE = ?1", nativeQuery = true)
     int countLabelByType(int type);
 }
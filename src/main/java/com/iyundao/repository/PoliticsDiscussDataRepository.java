@@ -29,12 +29,13 @@ public interface PoliticsDiscussDataRepository extends BaseRepository<PoliticsDi
     List<PoliticsDiscussData> findByIssueData(PoliticsIssueData pid);
 
     /**
-     * 通过议题数据id删除所有讨论数据
-     * @param id
+     * 通过议题数据id批量删除所有讨论数据
+     * @param ids
+     * @return
      */
     @Modifying
-    @Query(value = "DELETE FROM t_politics_discuss_data WHERE POLITICSISSUEDATAID = ?1",nativeQuery = true)
-    void deleteByIssueDataId(String id);
+    @Query(value = "DELETE FROM t_politics_discuss_data WHERE POLITICSISSUEDATAID IN (?1)", nativeQuery = true)
+    int deleteByIssueDataIds(List<String> ids);
 
 
 }
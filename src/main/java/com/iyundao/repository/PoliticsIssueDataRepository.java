@@ -23,7 +23,12 @@ public interface PoliticsIssueDataRepository extends BaseRepository<PoliticsIssu
     @Query("select pid from PoliticsIssueData pid where pid.politics = ?1")
     List<PoliticsIssueData> findIssueDataByPolitics(Politics politics);
 
-    @Modifying
-    @Query(value = "DELETE FROM t_politics_issue_data WHERE id = ?1",nativeQuery = true)
-    void deleteByIssueDataId(String id);
+    /**
+     * 通过议题数据id批量删除
+     * @param ids
+     * @return
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = "DELETE FROM t_politics_issue_data WHERE ID IN (?1)", nativeQuery = true)
+    int deleteByIssueDataIds(List<String> ids);
 }
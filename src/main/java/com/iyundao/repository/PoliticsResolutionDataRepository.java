@@ -7,6 +7,8 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * @ClassName: PoliticsResolutionDataRepository
  * @project: //todo
@@ -27,10 +29,11 @@ public interface PoliticsResolutionDataRepository extends BaseRepository<Politic
     PoliticsResolutionData findByIssueData(PoliticsIssueData pid);
 
     /**
-     * 通过议题数据id删除所有决议数据
-     * @param id
+     * 通过议题数据id批量删除所有决议数据
+     * @param ids
+     * @return
      */
     @Modifying
-    @Query(value = "DELETE FROM  t_politics_resolution_data WHERE POLITICSISSUEDATAID = ?1",nativeQuery = true)
-    void deleteByIssueDataId(String id);
+    @Query(value = "DELETE FROM t_politics_resolution_data WHERE POLITICSISSUEDATAID IN (?1)", nativeQuery = true)
+    int deleteByIssueDataIds(List<String> ids);
 }
@@ -2,8 +2,12 @@ package com.iyundao.repository;
 
 import com.iyundao.base.BaseRepository;
 import com.iyundao.entity.PoliticsUser;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * @ClassName: PoliticsUserRepository
  * @project: //todo
@@ -14,4 +18,16 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface PoliticsUserRepository extends BaseRepository<PoliticsUser, String> {
+
+    /**
+     * 导出参政人员, 按ID分页(keyset)
+     * @param politicsId
+     * @param lastId 上一页最后一条的ID, 首页为空串
+     * @param pageable
+     * @return [id, 账号, 姓名, 编号, 查看状态]
+     */
+    @Query("select pu.id, u.account, u.name, u.code, pu.state from PoliticsUser pu join pu.user u " +
+            "where pu.politics.id = ?1 and pu.id > ?2 order by pu.id")
+    List<Object[]> findExportPage(String politicsId, String lastId, Pageable pageable);
+
 }
@@ -3,8 +3,10 @@ package com.iyundao.repository;
 import com.iyundao.base.BaseRepository;
 import com.iyundao.entity.Position;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
 /**
@@ -24,6 +26,7 @@ public interface PositionRepository extends BaseRepository<Position, String> {
      * @return
      */
     @Query("select p from Position p where p.depart.id = ?1")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<Position> findByDepartId(String departId);
 
     /**
@@ -32,5 +35,6 @@ public interface PositionRepository extends BaseRepository<Position, String> {
      * @return
      */
     @Query("select p from Position p where p.group.id = ?1")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<Position> findByGroupId(String groupId);
 }
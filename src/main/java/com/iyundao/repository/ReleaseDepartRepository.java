@@ -2,6 +2,8 @@ package com.iyundao.repository;
 
 import com.iyundao.base.BaseRepository;
 import com.iyundao.entity.ReleaseDepart;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -15,4 +17,12 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface ReleaseDepartRepository extends BaseRepository<ReleaseDepart, String> {
 
+    /**
+     * 删除活动的所有发布部门
+     * @param activityId
+     * @return
+     */
+    @Modifying
+    @Query(value = "DELETE FROM t_release_depart WHERE ACTIVITYID = ?1", nativeQuery = true)
+    int deleteByActivityId(String activityId);
 }
@@ -2,6 +2,7 @@ package com.iyundao.repository;
 
 import com.iyundao.base.BaseRepository;
 import com.iyundao.entity.RoleRelation;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -19,10 +20,11 @@ import java.util.Set;
 public interface RoleRelationRepository extends BaseRepository<RoleRelation, String> {
 
     /**
-     * 根据用户ID查询实体集合
+     * 根据用户ID查询实体集合, 同时加载角色和权限
      * @param id
      * @return
      */
+    @EntityGraph(attributePaths = {"role", "permission"})
     @Query("select rr from RoleRelation rr where rr.user.id = ?1")
     Set<RoleRelation> findRolesByUserId(String id);
 }
@@ -2,9 +2,11 @@ package com.iyundao.repository;
 
 import com.iyundao.entity.Role;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
 /**
@@ -23,6 +25,7 @@ public interface RoleRepository extends CrudRepository<Role, String> {
      * @return
      */
     @Query("select r from Role r")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<Role> getList();
 
     /**
@@ -31,6 +34,7 @@ public interface RoleRepository extends CrudRepository<Role, String> {
      * @return
      */
     @Query("select r from Role r where r.id = ?1")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Role findByRoleId(String id);
 
     /**
@@ -39,5 +43,6 @@ public interface RoleRepository extends CrudRepository<Role, String> {
      * @return
      */
     @Query("select r from Role r where r.id in (?1)")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<Role> findByRoleIds(String[] roleIds);
 }
@@ -2,7 +2,9 @@ package com.iyundao.repository;
 
 import com.iyundao.base.BaseRepository;
 import com.iyundao.entity.Sign;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -26,7 +28,36 @@ public interface SignRepository extends BaseRepository<Sign, String> {
     @Query("select s from Sign s where s.activity.id = ?1")
     List<Sign> findByActivityId(String id);
 
-    @Query(value = "select * from t_sign  where type = ?1 and userid = ?2 order by signTime desc", nativeQuery = true)
-    List<Sign> findActivityByUserId(int aaa, String id);
+    /**
+     * 用户签到历史, 走(USERID, TYPE, SIGNTS)索引倒序读取, 按(签到时间戳, ID)游标分页
+     * @param userId
+     * @param signType
+     * @param lastTs 上一页最后一条的时间戳, 首页为Long.MAX_VALUE
+     * @param lastId 上一页最后一条的ID
+     * @param pageable
+     * @return [id, 签到时间, 时间戳, 签到类型, 经度, 纬度, 活动ID, 活动名称]
+     */
+    @Query("select s.id, s.signTime, s.signTs, s.signType, s.axisx, s.axisy, a.id, a.name from Sign s join s.activity a " +
+            "where s.userId = ?1 and s.signType = ?2 and (s.signTs < ?3 or (s.signTs = ?3 and s.id < ?4)) order by s.signTs desc, s.id desc")
+    List<Object[]> findHistory(String userId, Sign.SIGN_TYPE signType, long lastTs, String lastId, Pageable pageable);
+
+    /**
+     * 导出活动签到记录, 按ID分页(keyset)
+     * @param activityId
+     * @param lastId 上一页最后一条的ID, 首页为空串
+     * @param pageable
+     * @return [id, 账号, 姓名, 签到时间, 签到类型, 经度, 纬度]
+     */
+    @Query("select s.id, u.account, u.name, s.signTime, s.signType, s.axisx, s.axisy from Sign s left join User u on u.id = s.userId " +
+            "where s.activity.id = ?1 and s.id > ?2 order by s.id")
+    List<Object[]> findExportPage(String activityId, String lastId, Pageable pageable);
 
+    /**
+     * 删除活动的所有签到记录
+     * @param activityId
+     * @return
+     */
+    @Modifying
+    @Query(value = "DELETE FROM t_sign WHERE ACTIVITYID = ?1", nativeQuery = true)
+    int deleteByActivityId(String activityId);
 }
@@ -0,0 +1,49 @@
+package com.iyundao.repository;
+
+import com.iyundao.base.BaseRepository;
+import com.iyundao.entity.SignStat;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * @ClassName: SignStatRepository
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/8/26 15:30
+ * @Description: 仓库 - 签到统计
+ * @Version: V2.0
+ */
+@Repository
+public interface SignStatRepository extends BaseRepository<SignStat, String> {
+
+    /**
+     * 根据唯一键获取
+     * @param activityId
+     * @param type
+     * @param dimId
+     * @return
+     */
+    @Query("select ss from SignStat ss where ss.activityId = ?1 and ss.type = ?2 and ss.dimId = ?3")
+    SignStat find(String activityId, SignStat.STAT_TYPE type, String dimId);
+
+    /**
+     * 活动某一维度的统计, 签到数倒序
+     * @param activityId
+     * @param type
+     * @return
+     */
+    @Query("select ss from SignStat ss where ss.activityId = ?1 and ss.type = ?2 order by ss.total desc")
+    List<SignStat> findByActivityId(String activityId, SignStat.STAT_TYPE type);
+
+    /**
+     * 删除活动的统计
+     * @param activityId
+     * @return
+     */
+    @Modifying
+    @Query(value = "DELETE FROM t_sign_stat WHERE ACTIVITYID = ?1", nativeQuery = true)
+    int deleteByActivityId(String activityId);
+}
@@ -3,8 +3,11 @@ package com.iyundao.repository;
 import com.iyundao.base.BaseRepository;
 import com.iyundao.entity.Subject;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+
 /**
  * @ClassName: SubjectRepository
  * @project: ayundao
@@ -22,5 +25,6 @@ public interface SubjectRepository extends BaseRepository<Subject, String> {
      * @return
      */
     @Query("select s from Subject s where s.code = (?1)")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Subject findByCode(String code);
 }
@@ -5,6 +5,9 @@ import com.iyundao.entity.UserInfo;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * @ClassName: UserInfoRepository
  * @project: unitedfront
@@ -24,4 +27,36 @@ public interface UserInfoRepository extends BaseRepository<UserInfo, String> {
      */
     @Query("select ui from UserInfo ui where ui.user.id = ?1")
     UserInfo findUserInfoByUserId(String id);
+
+    /**
+     * 查询已存在的电话
+     * @param tels
+     * @return
+     */
+    @Query("select ui.tel from UserInfo ui where ui.tel in ?1")
+    List<Long> findTelsIn(Collection<Long> tels);
+
+    /**
+     * 查询已存在的身份证号
+     * @param iCards
+     * @return
+     */
+    @Query("select ui.iCard from UserInfo ui where ui.iCard in ?1")
+    List<String> findICardsIn(Collection<String> iCards);
+
+    /**
+     * 查询已存在的微信号
+     * @param wxs
+     * @return
+     */
+    @Query("select ui.wx from UserInfo ui where ui.wx in ?1")
+    List<String> findWxsIn(Collection<String> wxs);
+
+    /**
+     * 查询已存在的QQ号
+     * @param qqs
+     * @return
+     */
+    @Query("select ui.qq from UserInfo ui where ui.qq in ?1")
+    List<String> findQqsIn(Collection<String> qqs);
 }
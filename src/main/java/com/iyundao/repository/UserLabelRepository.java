@@ -5,6 +5,8 @@ import com.iyundao.entity.UserLabel;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * @ClassName: UserLabelRepository
  * @project: unitedfront
@@ -24,4 +26,12 @@ public interface UserLabelRepository extends BaseRepository<UserLabel, String> {
      */
     @Query("select ul from UserLabel ul where ul.user.id = ?1 and ul.label.id = ?2")
     UserLabel findUserLabelByUserIdAndLabelId(String userId, String labelId);
+
+    /**
+     * 拥有标签的用户ID
+     * @param labelId
+     * @return
+     */
+    @Query("select distinct ul.user.id from UserLabel ul where ul.label.id = ?1")
+    List<String> findUserIdsByLabelId(String labelId);
 }
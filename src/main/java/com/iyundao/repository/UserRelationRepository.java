@@ -2,6 +2,7 @@ package com.iyundao.repository;
 
 import com.iyundao.entity.User;
 import com.iyundao.entity.UserRelation;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
@@ -20,17 +21,19 @@ import java.util.List;
 public interface UserRelationRepository extends CrudRepository<UserRelation, String> {
 
     /**
-     * 获取用户关系
+     * 获取用户关系, 同时加载机构/部门/组织
      * @param user
      * @return
      */
+    @EntityGraph(attributePaths = {"subject", "depart", "group"})
     List<UserRelation> findByUser(User user);
 
     /**
-     * 根据用户ID获取用户关系
+     * 根据用户ID获取用户关系, 同时加载机构/部门/组织
      * @param id
      * @return
      */
+    @EntityGraph(attributePaths = {"subject", "depart", "group"})
     List<UserRelation> findByUserId(String id);
 
     /**
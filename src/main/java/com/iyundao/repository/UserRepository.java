@@ -3,11 +3,14 @@ package com.iyundao.repository;
 import com.iyundao.base.BaseRepository;
 import com.iyundao.base.Page;
 import com.iyundao.base.Pageable;
+import com.iyundao.base.config.ServiceCacheConfig;
 import com.iyundao.entity.User;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -28,6 +31,15 @@ public interface UserRepository extends BaseRepository<User, String> {
      */
     User findByAccount(String account);
 
+    /**
+     * 根据账号查询用户ID, 结果缓存
+     * @param account
+     * @return
+     */
+    @Cacheable(cacheNames = ServiceCacheConfig.USER_ACCOUNT, key = "#p0")
+    @Query("select u.id from User u where u.account = ?1")
+    String findIdByAccount(String account);
+
     /**
      * 根据账号,密码查询用户信息
      * @param account
@@ -41,7 +53,7 @@ public interface UserRepository extends BaseRepository<User, String> {
      * @param key 查询条件
      * @return
      */
-    @Query("select u from User u where u.account like ?1 or u.name like ?1 or u.createdDate like ?1")
+    @Query("select u from User u where u.account like ?1 or u.name like ?1 or date_format(u.createdDate, '%Y%m%d%H%i%s') like ?1")
     Page<User> findByKey(String key, Pageable pageable);
 
     /**
@@ -57,9 +69,19 @@ public interface UserRepository extends BaseRepository<User, String> {
      * @param groupId
      * @return
      */
-    @Query(value = "SELECT u.* from t_user u left join t_user_relations ur on ur.USERID = u.ID where ur.GROUPSID = (?1)", nativeQuery = true)
+    @Query(value = "SELECT u.* from t_user u left join t_user_relations ur on ur.USERID = u.ID where ur.GROUPID = (?1)", nativeQuery = true)
     List<User> findByGroupIdForPage(String groupId);
 
+    /**
+     * 组织用户, 同时加载用户的全部关系及关系中的机构/部门/组织
+     * @param groupId
+     * @return
+     */
+    @Query("select distinct u from User u left join fetch u.userRelations ur left join fetch ur.subject " +
+            "left join fetch ur.depart left join fetch ur.group " +
+            "where u.id in (select r.user.id from UserRelation r where r.group.id = ?1)")
+    List<User> findWithRelationsByGroupId(String groupId);
+
     /**
      * 部门用户分页
      * @param departId
@@ -84,4 +106,31 @@ public interface UserRepository extends BaseRepository<User, String> {
     @Query(value = "select u.* from t_user u left join t_user_relations ur on ur.USERID = u.ID where ur.SUBJECTID = (?1)", nativeQuery = true)
     List<User> findBySubjectIdForPage(String id);
 
+    /**
+     * 查询已存在的账号
+     * @param accounts
+     * @return
+     */
+    @Query("select u.account from User u where u.account in ?1")
+    List<String> findAccountsIn(Collection<String> accounts);
+
+    /**
+     * 查询已存在的编号
+     * @param codes
+     * @return
+     */
+    @Query("select u.code from User u where u.code in ?1")
+    List<String> findCodesIn(Collection<String> codes);
+
+    /**
+     * 导出机构用户名册, 按ID分页(keyset)
+     * @param subjectId
+     * @param lastId 上一页最后一条的ID, 首页为空串
+     * @param pageable
+     * @return [id, 账号, 姓名, 编号, 性别, 状态, 电话, 邮箱, 创建时间]
+     */
+    @Query("select u.id, u.account, u.name, u.code, u.sex, u.status, ui.tel, ui.email, u.createdDate from User u left join u.userInfo ui " +
+            "where u.id > ?2 and exists (select ur.id from UserRelation ur where ur.user = u and ur.subject.id = ?1) order by u.id")
+    List<Object[]> findExportPage(String subjectId, String lastId, org.springframework.data.domain.Pageable pageable);
+
 }
@@ -0,0 +1,17 @@
+package com.iyundao.repository;
+
+import com.iyundao.base.BaseRepository;
+import com.iyundao.entity.UserRow;
+import org.springframework.stereotype.Repository;
+
+/**
+ * @ClassName: UserRowRepository
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/11 9:40
+ * @Description: 仓库 - 用户列表行, 只用于分页查询, 写入见UserRowServiceImpl
+ * @Version: V2.0
+ */
+@Repository
+public interface UserRowRepository extends BaseRepository<UserRow, String> {
+}
@@ -1,10 +1,14 @@
 package com.iyundao.service;
 
 
-import com.iyundao.base.Page;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
 import com.iyundao.base.Pageable;
 import com.iyundao.entity.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -38,11 +42,17 @@ public interface ActivityService {
     Activity find(String id);
 
     /**
-     * 删除实体
+     * 删除实体及签到/出勤/文件/图片/发布范围, 开启软删除时只做标记, 由后台清理
      * @param activity
      */
     void delete(Activity activity);
 
+    /**
+     * 清理已标记删除的活动及其关联数据
+     * @return 清理的活动数
+     */
+    int purgeDeleted();
+
     /**
      * 保存活动文件
      * @param file
@@ -50,6 +60,15 @@ public interface ActivityService {
      */
     ActivityFile saveFile(ActivityFile file);
 
+    /**
+     * 保存活动文件及上传的文件内容, 内容相同的文件只保存一份
+     * @param file
+     * @param upload
+     * @return
+     * @throws IOException
+     */
+    ActivityFile saveFile(ActivityFile file, MultipartFile upload) throws IOException;
+
     /**
      * 保存活动图片
      * @param image
@@ -57,6 +76,15 @@ public interface ActivityService {
      */
     ActivityImage saveImage(ActivityImage image);
 
+    /**
+     * 保存活动图片及上传的图片内容
+     * @param image
+     * @param upload
+     * @return
+     * @throws IOException
+     */
+    ActivityImage saveImage(ActivityImage image, MultipartFile upload) throws IOException;
+
     /**
      * 根据IDS获取活动文件集合
      * @param activityFileIds
@@ -87,17 +115,34 @@ public interface ActivityService {
     void delImage(String[] ids);
 
     /**
-     * 查询活动列表
+     * 查询活动及出勤/文件/图片, 用于查看详情
+     * @param id
      * @return
      */
-    List<Activity> findAll();
+    Activity findDetail(String id);
 
     /**
-     * 活动列表分页
+     * 查询活动列表(列表视图, 不加载关联集合)
      * @return
+     */
+    JSONArray findAll();
+
+    /**
+     * 活动列表分页(列表视图, 不加载关联集合)
+     * @return
+     * @param pageable 支持按名称(searchKey=name)模糊查询
+     * @param from 创建时间不早于, 为null时不过滤
+     * @param to 创建时间早于, 为null时不过滤
+     */
+    JSONObject findAllForPage(Pageable pageable, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * 按给定的活动ID顺序分页(列表视图)
+     * @param ids 用户可见的活动ID
      * @param pageable
+     * @return
      */
-    Page<Activity> findAllForPage(Pageable pageable);
+    JSONObject findPageByIds(List<String> ids, Pageable pageable);
 
     /**
      * 保存用户签到流程
@@ -0,0 +1,58 @@
+package com.iyundao.service;
+
+import com.alibaba.fastjson.JSONObject;
+import com.iyundao.base.utils.ProgressListener;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @ClassName: AudienceService
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/8/30 9:20
+ * @Description: 服务 - 活动可见范围
+ * @Version: V2.0
+ */
+public interface AudienceService {
+
+    /**
+     * 活动发布范围变化后更新该活动的可见用户
+     * 发布到部门/组织时包含其下级, 未设置发布范围的活动不出现在任何用户的活动列表中
+     * @param activityId
+     */
+    void refreshActivity(String activityId);
+
+    /**
+     * 用户所属机构/部门/组织变化后更新用户可见的活动
+     * @param userIds
+     */
+    void refreshUsers(Collection<String> userIds);
+
+    /**
+     * 部门上级变化后更新该部门及下级部门内用户可见的活动
+     * @param departId
+     */
+    void refreshDepart(String departId);
+
+    /**
+     * 重建所有活动的可见用户, 用于部门/组织层级批量调整后
+     * @param listener
+     * @return 处理的活动数及变化的可见关系数
+     */
+    JSONObject rebuild(ProgressListener listener);
+
+    /**
+     * 活动的可见用户ID
+     * @param activityId
+     * @return
+     */
+    List<String> findUserIds(String activityId);
+
+    /**
+     * 用户可见的活动ID, 按活动创建时间倒序
+     * @param userId
+     * @return
+     */
+    List<String> findActivityIds(String userId);
+}
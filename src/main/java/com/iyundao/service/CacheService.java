@@ -0,0 +1,22 @@
+package com.iyundao.service;
+
+import com.alibaba.fastjson.JSONObject;
+
+/**
+ * @ClassName: CacheService
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/6 11:10
+ * @Description: 服务 - 缓存统计
+ * @Version: V2.0
+ */
+public interface CacheService {
+
+    /**
+     * 本节点Hibernate二级缓存、查询缓存及服务缓存的命中统计
+     * @return total-二级缓存合计, query-查询缓存合计, regions-各区域的统计, services-各服务缓存的统计;
+     *         每项为 hit-命中数, miss-未命中数, put-放入数, hitRate-命中率;
+     *         服务缓存另有 localHit-本地命中数, redisHit-redis命中数, evict-清除次数, size-本地条数
+     */
+    JSONObject statistics();
+}
@@ -0,0 +1,81 @@
+package com.iyundao.service;
+
+import com.alibaba.fastjson.JSONObject;
+import com.iyundao.base.utils.ProgressListener;
+
+import java.util.Collection;
+
+/**
+ * @ClassName: FeedService
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/2 10:15
+ * @Description: 服务 - 用户动态(活动/议事)
+ * @Version: V2.0
+ */
+public interface FeedService {
+
+    /**
+     * 发布时写入用户的动态, 事务提交后执行
+     * 只写入已有的动态, 没有动态的用户在下次读取时从数据库加载
+     * @param type
+     * @param id
+     * @param title 标题, 同时更新已发布的标题
+     * @param createdDate 创建时间 yyyyMMddHHmmss
+     * @param userIds
+     */
+    void publish(FEED_TYPE type, String id, String title, String createdDate, Collection<String> userIds);
+
+    /**
+     * 从用户的动态中移除, 事务提交后执行
+     * @param type
+     * @param id
+     * @param userIds
+     */
+    void remove(FEED_TYPE type, String id, Collection<String> userIds);
+
+    /**
+     * 删除后从用户的动态中移除并删除标题, 事务提交后执行
+     * @param type
+     * @param id
+     * @param userIds
+     */
+    void delete(FEED_TYPE type, String id, Collection<String> userIds);
+
+    /**
+     * 清除用户的动态, 下次读取时从数据库重新加载
+     * @param userIds
+     */
+    void evict(Collection<String> userIds);
+
+    /**
+     * 按创建时间倒序读取用户的动态
+     * @param userId
+     * @param cursor 游标, 首页为空
+     * @param size
+     * @return content-动态列表, cursor-下一页游标, 游标格式不正确时返回null
+     */
+    JSONObject read(String userId, String cursor, int size);
+
+    /**
+     * 从数据库重新加载所有用户的动态
+     * @param listener
+     * @return 处理的用户数
+     */
+    JSONObject backfill(ProgressListener listener);
+
+    /**
+     * 动态类型
+     */
+    enum FEED_TYPE {
+        /**
+         * 活动
+         */
+        activity,
+
+        /**
+         * 议事
+         */
+        politics
+    }
+}
@@ -0,0 +1,32 @@
+package com.iyundao.service;
+
+import com.iyundao.entity.FileBlob;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+
+/**
+ * @ClassName: FileBlobService
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/8/23 9:25
+ * @Description: 服务 - 文件内容
+ * @Version: V2.0
+ */
+public interface FileBlobService {
+
+    /**
+     * 保存上传的文件, 内容相同的文件只保存一份, 引用数+1
+     * 需在调用方事务内执行, 事务回滚时引用数一并回滚
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    FileBlob store(MultipartFile file) throws IOException;
+
+    /**
+     * 释放引用, 引用数为0时在事务提交后删除文件
+     * @param blob 为null时忽略
+     */
+    void release(FileBlob blob);
+}
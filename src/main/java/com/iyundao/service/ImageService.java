@@ -0,0 +1,72 @@
+package com.iyundao.service;
+
+import java.nio.file.Path;
+
+/**
+ * @ClassName: ImageService
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/8/23 14:40
+ * @Description: 服务 - 图片衍生尺寸
+ * @Version: V2.0
+ */
+public interface ImageService {
+
+    /**
+     * 后台生成各尺寸的衍生图片, 有事务时在提交后执行
+     * 线程池已满时放弃, 访问时再补生成
+     * @param url 原图相对路径
+     */
+    void generate(String url);
+
+    /**
+     * 获取指定尺寸的图片
+     * @param url 原图相对路径
+     * @param size 尺寸, 为null时返回原图
+     * @return 衍生图片尚未生成时返回原图并触发生成; 原图不存在时返回null
+     */
+    Path find(String url, IMAGE_SIZE size);
+
+    /**
+     * 衍生尺寸
+     */
+    enum IMAGE_SIZE {
+        /**
+         * 缩略图
+         */
+        thumb(200, 0.75f),
+
+        /**
+         * 列表图
+         */
+        list(640, 0.8f),
+
+        /**
+         * 大图
+         */
+        full(1600, 0.85f);
+
+        /**
+         * 最大边长
+         */
+        private final int maxSide;
+
+        /**
+         * jpg压缩质量
+         */
+        private final float quality;
+
+        IMAGE_SIZE(int maxSide, float quality) {
+            this.maxSide = maxSide;
+            this.quality = quality;
+        }
+
+        public int getMaxSide() {
+            return maxSide;
+        }
+
+        public float getQuality() {
+            return quality;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.iyundao.service;
+
+import com.alibaba.fastjson.JSONObject;
+import com.iyundao.base.utils.ProgressListener;
+
+import java.nio.file.Path;
+
+/**
+ * @ClassName: JobService
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/8/22 10:20
+ * @Description: 服务 - 后台任务(导入/导出)
+ * @Version: V2.0
+ */
+public interface JobService {
+
+    /**
+     * 提交任务, 立即返回
+     * @param type 任务类型
+     * @param userId 提交人
+     * @param resultName 结果文件名(不含后缀), 无结果文件时为null
+     * @param task
+     * @return 任务ID, 队列已满时返回null
+     */
+    String submit(String type, String userId, String resultName, Task task);
+
+    /**
+     * 查询任务状态
+     * @param id
+     * @return 任务不存在或已过期时返回null
+     */
+    JSONObject find(String id);
+
+    /**
+     * 取消任务, 排队中的直接取消, 执行中的在下一批处理前停止
+     * @param id
+     * @return
+     */
+    boolean cancel(String id);
+
+    /**
+     * 获取结果文件
+     * @param id
+     * @return 任务未成功或没有结果文件时返回null
+     */
+    Path findResult(String id);
+
+    /**
+     * 任务创建的临时目录, 用于保存上传的文件
+     * @return
+     */
+    Path getJobDir();
+
+    /**
+     * 任务内容
+     */
+    interface Task {
+
+        /**
+         * @param result 结果文件路径, 导出任务写入此文件
+         * @param listener 进度回调
+         * @return 任务返回的数据, 保存到任务状态中
+         * @throws Exception
+         */
+        Object run(Path result, ProgressListener listener) throws Exception;
+    }
+
+    /**
+     * 任务状态
+     */
+    enum JOB_STATUS {
+        /**
+         * 排队中
+         */
+        waiting,
+
+        /**
+         * 执行中
+         */
+        running,
+
+        /**
+         * 成功
+         */
+        success,
+
+        /**
+         * 失败
+         */
+        failure,
+
+        /**
+         * 已取消
+         */
+        cancelled
+    }
+}
@@ -0,0 +1,33 @@
+package com.iyundao.service;
+
+import com.alibaba.fastjson.JSONObject;
+import com.iyundao.base.SqlStatistics;
+
+/**
+ * @ClassName: MonitorService
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/10 10:20
+ * @Description: 服务 - 接口监控
+ * @Version: V2.0
+ */
+public interface MonitorService {
+
+    /**
+     * 记录一次请求的SQL统计
+     * @param endpoint 接口路径
+     * @param statistics
+     * @param requestMillis 请求处理时间
+     * @param overBudget 是否超出@QueryBudget
+     */
+    void recordSql(String endpoint, SqlStatistics statistics, long requestMillis, boolean overBudget);
+
+    /**
+     * 本节点启动以来各接口的SQL统计
+     * @return 按接口路径, 每项为 requests-请求数, statements-语句数, maxStatements-单次最多语句数,
+     *         duplicates-重复语句数, maxDuplicates-单次最多重复数, executeMillis-执行时间, maxExecuteMillis-单次最长执行时间,
+     *         requestMillis-请求处理时间, connections-获取连接次数, connectionMillis-持有连接时间,
+     *         maxConnectionMillis-单次最长持有时间, connectionRatio-持有连接时间占请求时间的比例, overBudget-超出预算的次数
+     */
+    JSONObject sqlStatistics();
+}
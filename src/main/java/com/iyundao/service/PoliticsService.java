@@ -3,8 +3,11 @@ package com.iyundao.service;
 import com.alibaba.fastjson.JSONObject;
 import com.iyundao.base.Page;
 import com.iyundao.base.Pageable;
+import com.iyundao.base.utils.ProgressListener;
 import com.iyundao.entity.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -123,4 +126,13 @@ public interface PoliticsService {
      * @param politicsIssueData
      */
     void deleteIssueDatas(List<PoliticsIssueData> politicsIssueData);
+
+    /**
+     * 导出参政人员(xlsx)
+     * @param politicsId
+     * @param os
+     * @param listener
+     * @throws IOException
+     */
+    void exportUsers(String politicsId, OutputStream os, ProgressListener listener) throws IOException;
 }
@@ -1,8 +1,13 @@
 package com.iyundao.service;
 
 
+import com.alibaba.fastjson.JSONObject;
+import com.iyundao.base.utils.JsonResult;
+import com.iyundao.base.utils.ProgressListener;
 import com.iyundao.entity.Sign;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -21,4 +26,52 @@ public interface SignService {
      * @return
      */
     List<Sign> findByActivityId(String id);
+
+    /**
+     * 导出活动签到记录(xlsx)
+     * @param activityId
+     * @param os
+     * @param listener
+     * @throws IOException
+     */
+    void exportByActivityId(String activityId, OutputStream os, ProgressListener listener) throws IOException;
+
+    /**
+     * 签到: 按缓存的活动/出勤快照校验后放入缓冲队列立即返回, 后台批量写入t_sign
+     * 同一用户在去重时间内对同一活动重复扫码只记录第一次
+     * @param userId
+     * @param activityId
+     * @param signType
+     * @param signTime 为空时取服务器时间
+     * @param axisx
+     * @param axisy
+     * @param jsonResult
+     * @return 601:用户不存在 602:活动不存在 604:请勿重复签到 605:签到人数过多,请稍后再试
+     */
+    JsonResult sign(String userId, String activityId, Sign.SIGN_TYPE signType, String signTime, String axisx, String axisy, JsonResult jsonResult);
+
+    /**
+     * 按出勤的签到范围重新校验历史签到记录, 范围内为正常, 范围外为超出范围, 坐标无法解析为异常
+     * @param activityId 为空时校验所有设置了签到范围的活动, 多个活动并行处理
+     * @param listener
+     * @return 统计: total-校验数, changed-修改数, normal, out, abnormal
+     */
+    JSONObject revalidate(String activityId, ProgressListener listener);
+
+    /**
+     * 用户签到历史, 按签到时间倒序, 游标分页
+     * @param userId
+     * @param signType
+     * @param cursor 上一页返回的cursor, 首页为空
+     * @param size
+     * @return content-签到列表, cursor-下一页游标(没有更多时为null); 游标格式不正确时返回null
+     */
+    JSONObject findHistory(String userId, Sign.SIGN_TYPE signType, String cursor, int size);
+
+    /**
+     * 活动删除/清理时调用: 清除本节点的活动快照, 丢弃队列中该活动尚未写入的签到;
+     * 在事务中调用时提交后再执行一次, 避免提交前的签到重新加载快照
+     * @param activityId
+     */
+    void evictActivity(String activityId);
 }
@@ -0,0 +1,87 @@
+package com.iyundao.service;
+
+import com.alibaba.fastjson.JSONObject;
+import com.iyundao.base.utils.ProgressListener;
+import com.iyundao.entity.Sign;
+import com.iyundao.entity.SignStat;
+
+import java.util.List;
+
+/**
+ * @ClassName: SignStatService
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/8/26 15:40
+ * @Description: 服务 - 签到统计
+ * @Version: V2.0
+ */
+public interface SignStatService {
+
+    /**
+     * 按新写入的签到累加统计, 需与写入签到在同一事务内调用
+     * @param rows
+     */
+    void increment(List<SignRow> rows);
+
+    /**
+     * 根据t_sign重新计算统计
+     * @param activityId 为空时重建所有有签到的活动, 多个活动并行处理
+     * @param listener
+     * @return 统计: activities-活动数, signs-签到数
+     */
+    JSONObject rebuild(String activityId, ProgressListener listener);
+
+    /**
+     * 获取单项统计
+     * @param activityId
+     * @param type
+     * @param dimId
+     * @return 没有签到时返回null
+     */
+    SignStat find(String activityId, SignStat.STAT_TYPE type, String dimId);
+
+    /**
+     * 活动某一维度的所有统计
+     * @param activityId
+     * @param type
+     * @return
+     */
+    List<SignStat> findByActivityId(String activityId, SignStat.STAT_TYPE type);
+
+    /**
+     * 参与统计的签到
+     */
+    class SignRow {
+
+        private final String activityId;
+
+        private final String userId;
+
+        private final String signTime;
+
+        private final Sign.SIGN_TYPE signType;
+
+        public SignRow(String activityId, String userId, String signTime, Sign.SIGN_TYPE signType) {
+            this.activityId = activityId;
+            this.userId = userId;
+            this.signTime = signTime;
+            this.signType = signType == null ? Sign.SIGN_TYPE.normal : signType;
+        }
+
+        public String getActivityId() {
+            return activityId;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public String getSignTime() {
+            return signTime;
+        }
+
+        public Sign.SIGN_TYPE getSignType() {
+            return signType;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.iyundao.service;
+
+import com.alibaba.fastjson.JSONObject;
+
+import java.util.List;
+
+/**
+ * @ClassName: UserBatchService
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/3 14:10
+ * @Description: 服务 - 用户标签/岗位/角色批量调整
+ * @Version: V2.0
+ */
+public interface UserBatchService {
+
+    /**
+     * 每次调整的最大用户数
+     */
+    int MAX_USERS = 1000;
+
+    /**
+     * 为用户批量添加/移除标签, 已有的标签不重复添加
+     * @param userIds
+     * @param addIds 添加的标签ID
+     * @param removeIds 移除的标签ID
+     * @return users-用户数, added-添加数, removed-移除数, unchanged-已存在数; 用户或标签不存在时返回null
+     */
+    JSONObject updateLabels(List<String> userIds, List<String> addIds, List<String> removeIds);
+
+    /**
+     * 为用户批量分配/取消岗位, 已有的岗位不重复分配
+     * @param userIds
+     * @param addIds 分配的岗位ID
+     * @param removeIds 取消的岗位ID
+     * @return 同updateLabels, 用户或岗位不存在时返回null
+     */
+    JSONObject updatePositions(List<String> userIds, List<String> addIds, List<String> removeIds);
+
+    /**
+     * 为用户批量添加/移除角色, 添加的角色拥有permissionIds中的权限, 移除角色时同时移除其所有权限
+     * @param userIds
+     * @param roleIds 添加的角色ID
+     * @param permissionIds 添加的角色的权限ID
+     * @param removeIds 移除的角色ID
+     * @return 同updateLabels, 用户、角色或权限不存在时返回null
+     */
+    JSONObject updateRoles(List<String> userIds, List<String> roleIds, List<String> permissionIds, List<String> removeIds);
+}
@@ -0,0 +1,52 @@
+package com.iyundao.service;
+
+import com.alibaba.fastjson.JSONObject;
+import com.iyundao.base.Page;
+import com.iyundao.base.Pageable;
+import com.iyundao.base.utils.ProgressListener;
+import com.iyundao.entity.UserRow;
+
+import java.util.Collection;
+
+/**
+ * @ClassName: UserRowService
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/11 9:50
+ * @Description: 服务 - 用户列表读模型
+ * @Version: V2.0
+ */
+public interface UserRowService {
+
+    /**
+     * 用户及其机构关系/标签变化后更新列表行, 用户已删除时删除其列表行
+     * @param userIds
+     */
+    void refreshUsers(Collection<String> userIds);
+
+    /**
+     * 机构名称变化后更新其下用户的列表行
+     * @param subjectId
+     */
+    void refreshSubject(String subjectId);
+
+    /**
+     * 部门名称变化后更新其下用户的列表行
+     * @param departId
+     */
+    void refreshDepart(String departId);
+
+    /**
+     * 重建所有用户的列表行, 用于修复; 已有用户的列表行由V6迁移回填
+     * @param listener
+     * @return 处理的用户数及删除的多余行数
+     */
+    JSONObject rebuild(ProgressListener listener);
+
+    /**
+     * 用户列表分页, 单表查询
+     * @param pageable searchKey为字符串列时按包含匹配, orders按任意列排序
+     * @return 查询或排序的列不存在时返回null
+     */
+    Page<UserRow> findPage(Pageable pageable);
+}
@@ -4,8 +4,12 @@ import com.alibaba.fastjson.JSONObject;
 import com.iyundao.base.Page;
 import com.iyundao.base.Pageable;
 import com.iyundao.base.utils.JsonResult;
+import com.iyundao.base.utils.ProgressListener;
 import com.iyundao.entity.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 
@@ -72,7 +76,7 @@ public interface UserService {
     List<User> findAll();
 
     /**
-     * 查询组织用户分页
+     * 查询组织用户分页, 用户关系及其机构/部门/组织已加载
      * @return
      */
     List<User> findByGroupIdForPage(String groupId);
@@ -254,4 +258,31 @@ public interface UserService {
      */
     List<UserWork> findUserWorkByUserId(String userId);
 
+    /**
+     * 批量导入用户
+     * 首行为表头, 列名对应User/UserInfo中@Excel的name
+     * @param fileName 文件名, 按后缀区分xls/xlsx
+     * @param is excel文件内容, 读取完成后关闭
+     * @param subject
+     * @param departId
+     * @param groupsId
+     * @param roles
+     * @param permissions
+     * @param defaultPassword 未填写密码列时使用
+     * @param listener 每批写入后回调已处理行数, 取消时已写入的批次保留
+     * @param jsonResult
+     * @return 导入统计及逐行错误
+     * @throws IOException
+     */
+    JsonResult importUsers(String fileName, InputStream is, Subject subject, String departId, String groupsId, List<Role> roles, List<Permission> permissions, String defaultPassword, ProgressListener listener, JsonResult jsonResult) throws IOException;
+
+    /**
+     * 导出机构用户名册(xlsx)
+     * @param subject
+     * @param os
+     * @param listener
+     * @throws IOException
+     */
+    void exportUsers(Subject subject, OutputStream os, ProgressListener listener) throws IOException;
+
 }
@@ -1,17 +1,39 @@
 package com.iyundao.service.impl;
 
-import com.iyundao.base.Page;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
 import com.iyundao.base.Pageable;
+import com.iyundao.base.config.ServiceCacheConfig;
+import com.iyundao.base.utils.TimeUtils;
 import com.iyundao.entity.*;
 import com.iyundao.repository.*;
 import com.iyundao.service.ActivityService;
+import com.iyundao.service.AudienceService;
+import com.iyundao.service.FeedService;
+import com.iyundao.service.FileBlobService;
+import com.iyundao.service.ImageService;
+import com.iyundao.service.SignService;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.*;
 
 /**
@@ -26,9 +48,17 @@ import java.util.*;
 @Transactional(rollbackFor = Exception.class)
 public class ActivityServiceImpl implements ActivityService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ActivityServiceImpl.class);
+
     @Autowired
     private ActivityRepository activityRepository;
 
+    /**
+     * 活动仓库的find按@Where过滤已删除, 缓存确认未删除后直接按主键加载
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Autowired
     private ActivityFileRepository activityFileRepository;
 
@@ -53,6 +83,39 @@ public class ActivityServiceImpl implements ActivityService {
     @Autowired
     private LabelRepository labelRepository;
 
+    @Autowired
+    private SignStatRepository signStatRepository;
+
+    @Autowired
+    private FileBlobService fileBlobService;
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private AudienceService audienceService;
+
+    @Autowired
+    private FeedService feedService;
+
+    @Autowired
+    private SignService signService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 删除时只做标记, 由后台定时清理关联数据
+     */
+    @Value("${server.activity.softDelete:false}")
+    private boolean softDelete;
+
+    /**
+     * 每次查询待清理活动的数量
+     */
+    @Value("${server.activity.purgeBatchSize:100}")
+    private int purgeBatchSize;
+
     @Override
     @Modifying
     public Activity save(Activity activity, List<Attendance> attendances, List<ActivityFile> activityFiles, List<ActivityImage> activityImages, String subjectId, String departId, String groupId) {
@@ -103,26 +166,83 @@ public class ActivityServiceImpl implements ActivityService {
             rg.setGroupsId(groupId);
             releaseGroupRepository.save(rg);
         }
+        audienceService.refreshActivity(activity.getId());
         return activity;
     }
 
     @Override
     public Activity find(String id) {
-
-        return activityRepository.find(id);
+        // 缓存只记录活动未删除, 实体按主键加载
+        String liveId = id == null ? null : activityRepository.findLiveId(id);
+        return liveId == null ? null : entityManager.find(Activity.class, liveId);
     }
 
     @Override
+    @CacheEvict(cacheNames = ServiceCacheConfig.ACTIVITY, key = "#p0.id")
     public void delete(Activity activity) {
-        List<Attendance> attendances = attendanceRepository.findByActivityId(activity.getId());
-        List<ActivityFile> activityFiles = activityFileRepository.findByActivityId(activity.getId());
-        List<ActivityImage> activityImages = activityImageRepository.findByActivityId(activity.getId());
-        List<Sign> signs = signRepository.findByActivityId(activity.getId());
-        attendanceRepository.deleteAll(attendances);
-        activityFileRepository.deleteAll(activityFiles);
-        activityImageRepository.deleteAll(activityImages);
-        signRepository.deleteAll(signs);
-        activityRepository.delete(activity);
+        signService.evictActivity(activity.getId());
+        if (softDelete) {
+            activityRepository.markDeleted(activity.getId(), TimeUtils.now());
+            feedService.delete(FeedService.FEED_TYPE.activity, activity.getId(), audienceService.findUserIds(activity.getId()));
+            return;
+        }
+        purge(activity.getId());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Scheduled(initialDelayString = "${server.activity.purgeMillis:600000}",
+            fixedDelayString = "${server.activity.purgeMillis:600000}")
+    public int purgeDeleted() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int purged = 0;
+        List<String> ids;
+        do {
+            ids = activityRepository.findDeletedIds(purgeBatchSize);
+            for (String id : ids) {
+                try {
+                    Boolean done = transactionTemplate.execute(status -> purge(id));
+                    if (Boolean.TRUE.equals(done)) {
+                        purged++;
+                    }
+                } catch (RuntimeException e) {
+                    // 失败的活动会被重复查到, 停止本轮, 等下次定时再试
+                    logger.error("purge activity fail: " + id, e);
+                    return purged;
+                }
+            }
+        } while (ids.size() == purgeBatchSize);
+        return purged;
+    }
+
+    /**
+     * 按依赖顺序批量删除活动及其关联数据, 文件内容在提交后释放
+     * @param activityId
+     * @return 活动已被其他节点清理时返回false
+     */
+    private boolean purge(String activityId) {
+        // 先锁定活动行, 并发清理时后到的事务在此等待, 之后匹配不到行直接返回
+        if (activityRepository.markDeleted(activityId, TimeUtils.now()) == 0) {
+            return false;
+        }
+        // 快照过期前签到仍会被接受, 先清除快照和队列中的签到, 避免写入时违反外键
+        signService.evictActivity(activityId);
+        List<FileBlob> blobs = new ArrayList<>(activityFileRepository.findBlobsByActivityId(activityId));
+        blobs.addAll(activityImageRepository.findBlobsByActivityId(activityId));
+        signRepository.deleteByActivityId(activityId);
+        signStatRepository.deleteByActivityId(activityId);
+        attendanceRepository.deleteByActivityId(activityId);
+        activityFileRepository.deleteByActivityId(activityId);
+        activityImageRepository.deleteByActivityId(activityId);
+        releaseSubjectRepository.deleteByActivityId(activityId);
+        releaseDepartRepository.deleteByActivityId(activityId);
+        releaseGroupRepository.deleteByActivityId(activityId);
+        audienceService.refreshActivity(activityId);
+        activityRepository.purge(activityId);
+        for (FileBlob blob : blobs) {
+            fileBlobService.release(blob);
+        }
+        return true;
     }
 
     @Override
@@ -135,6 +255,24 @@ public class ActivityServiceImpl implements ActivityService {
         return activityImageRepository.save(image);
     }
 
+    @Override
+    public ActivityFile saveFile(ActivityFile file, MultipartFile upload) throws IOException {
+        FileBlob blob = fileBlobService.store(upload);
+        file.setBlob(blob);
+        file.setUrl(blob.getUrl());
+        return activityFileRepository.save(file);
+    }
+
+    @Override
+    public ActivityImage saveImage(ActivityImage image, MultipartFile upload) throws IOException {
+        FileBlob blob = fileBlobService.store(upload);
+        image.setBlob(blob);
+        image.setUrl(blob.getUrl());
+        image = activityImageRepository.save(image);
+        imageService.generate(blob.getUrl());
+        return image;
+    }
+
     @Override
     public List<ActivityFile> findActivityFilesByIds(String[] activityFileIds) {
         List<ActivityFile> activityFiles = activityFileRepository.findByIds(activityFileIds);
@@ -155,23 +293,105 @@ public class ActivityServiceImpl implements ActivityService {
     public void delFileByIds(String[] ids) {
         List<ActivityFile> activityFiles = activityFileRepository.findByIds(ids);
         activityFileRepository.deleteAll(activityFiles);
+        for (ActivityFile activityFile : activityFiles) {
+            fileBlobService.release(activityFile.getBlob());
+        }
     }
 
     @Override
     public void delImage(String[] ids) {
         List<ActivityImage> activityImages = activityImageRepository.findByIds(ids);
         activityImageRepository.deleteAll(activityImages);
+        for (ActivityImage activityImage : activityImages) {
+            fileBlobService.release(activityImage.getBlob());
+        }
     }
 
     @Override
-    public List<Activity> findAll() {
-        return activityRepository.findAllForList();
+    public Activity findDetail(String id) {
+        return activityRepository.findDetail(id);
     }
 
     @Override
-    public Page<Activity> findAllForPage(Pageable pageable) {
+    public JSONArray findAll() {
+        JSONArray arr = new JSONArray();
+        for (Object[] row : activityRepository.findSummary(null, null, null, org.springframework.data.domain.Pageable.unpaged())) {
+            arr.add(convertSummary(row));
+        }
+        return arr;
+    }
+
+    @Override
+    public JSONObject findAllForPage(Pageable pageable, LocalDateTime from, LocalDateTime to) {
+        String name = "name".equals(pageable.getSearchKey()) && StringUtils.isNotEmpty(pageable.getSearchValue())
+                ? "%" + pageable.getSearchValue() + "%"
+                : null;
+        long total = activityRepository.countSummary(name, from, to);
+        JSONArray arr = new JSONArray();
+        if (total > (long) pageable.getPageNumber() * pageable.getPageSize()) {
+            List<Object[]> rows = activityRepository.findSummary(name, from, to,
+                    PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+            for (Object[] row : rows) {
+                arr.add(convertSummary(row));
+            }
+        }
+        return toPage(arr, total, pageable);
+    }
+
+    @Override
+    public JSONObject findPageByIds(List<String> ids, Pageable pageable) {
+        int from = pageable.getPageNumber() * pageable.getPageSize();
+        JSONArray arr = new JSONArray();
+        if (from < ids.size()) {
+            List<String> pageIds = ids.subList(from, Math.min(from + pageable.getPageSize(), ids.size()));
+            Map<Object, JSONObject> summaries = new HashMap<>();
+            for (Object[] row : activityRepository.findSummaryByIds(pageIds)) {
+                summaries.put(row[0], convertSummary(row));
+            }
+            for (String id : pageIds) {
+                // 缓存的ID列表中可能有已删除的活动
+                JSONObject summary = summaries.get(id);
+                if (summary != null) {
+                    arr.add(summary);
+                }
+            }
+        }
+        return toPage(arr, ids.size(), pageable);
+    }
+
+    /**
+     * 分页json, 格式与实体分页一致
+     * @param content
+     * @param total
+     * @param pageable
+     * @return
+     */
+    private JSONObject toPage(JSONArray content, long total, Pageable pageable) {
+        JSONObject json = new JSONObject();
+        json.put("total", total);
+        json.put("totalPage", (int) Math.ceil((double) total / pageable.getPageSize()));
+        json.put("page", pageable.getPageNumber());
+        json.put("content", content);
+        return json;
+    }
 
-        return activityRepository.findPage(pageable);
+    /**
+     * 列表视图的一行转为json, 字段与实体转换的json一致, 附加关联数量
+     * @param row
+     * @return
+     */
+    private JSONObject convertSummary(Object[] row) {
+        JSONObject json = new JSONObject();
+        json.put("id", row[0]);
+        json.put("name", row[1]);
+        json.put("content", row[2] == null ? "" : row[2]);
+        json.put("number", String.valueOf(row[3]));
+        json.put("total", row[4]);
+        json.put("type", row[5] == null ? "" : ((Activity.ACTIVITY_TYPE) row[5]).name());
+        json.put("attendanceCount", row[6]);
+        json.put("fileCount", row[7]);
+        json.put("imageCount", row[8]);
+        return json;
     }
 
     @Override
@@ -0,0 +1,439 @@
+package com.iyundao.service.impl;
+
+import com.alibaba.fastjson.JSONObject;
+import com.iyundao.base.shiro.RedisManager;
+import com.iyundao.base.utils.ProgressListener;
+import com.iyundao.base.utils.TimeUtils;
+import com.iyundao.service.AudienceService;
+import com.iyundao.service.FeedService;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.*;
+
+/**
+ * @ClassName: AudienceServiceImpl
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/8/30 9:40
+ * @Description: 服务实现 - 活动可见范围
+ * @Version: V2.0
+ */
+@Service
+@Transactional(rollbackFor = Exception.class)
+public class AudienceServiceImpl implements AudienceService {
+
+    /**
+     * 用户可见活动ID缓存, 逗号分隔
+     */
+    private static final String PREFIX_FEED = "iyundao:audience:";
+
+    /**
+     * 发布范围类型, 与查询中的常量一致
+     */
+    private static final int TARGET_SUBJECT = 0;
+
+    private static final int TARGET_DEPART = 1;
+
+    private static final int TARGET_GROUP = 2;
+
+    private static final String SELECT_RELEASE = "SELECT 0, SUBJECTID FROM t_release_subject WHERE ACTIVITYID = ? " +
+            "UNION ALL SELECT 1, DEPARTID FROM t_release_depart WHERE ACTIVITYID = ? " +
+            "UNION ALL SELECT 2, GROUPSID FROM t_release_groups WHERE ACTIVITYID = ?";
+
+    private static final String SELECT_RELEASE_BY_TARGET = "SELECT 0, SUBJECTID, ACTIVITYID FROM t_release_subject WHERE SUBJECTID IN (:subjects) " +
+            "UNION ALL SELECT 1, DEPARTID, ACTIVITYID FROM t_release_depart WHERE DEPARTID IN (:departs) " +
+            "UNION ALL SELECT 2, GROUPSID, ACTIVITYID FROM t_release_groups WHERE GROUPSID IN (:groups)";
+
+    private static final String SELECT_RELEASED_ACTIVITY = "SELECT ACTIVITYID FROM t_release_subject " +
+            "UNION SELECT ACTIVITYID FROM t_release_depart " +
+            "UNION SELECT ACTIVITYID FROM t_release_groups " +
+            "UNION SELECT ACTIVITYID FROM t_activity_audience";
+
+    private static final String SELECT_TARGET_USER = "SELECT DISTINCT USERID FROM t_user_relations WHERE USERID IS NOT NULL " +
+            "AND (SUBJECTID IN (:subjects) OR DEPARTID IN (:departs) OR GROUPID IN (:groups))";
+
+    private static final String SELECT_DEPART_USER = "SELECT DISTINCT USERID FROM t_user_relations WHERE USERID IS NOT NULL AND DEPARTID IN (:ids)";
+
+    private static final String SELECT_RELATION = "SELECT USERID, SUBJECTID, DEPARTID, GROUPID FROM t_user_relations WHERE USERID IN (:ids)";
+
+    private static final String SELECT_DEPART_TREE = "SELECT ID, FATHERID FROM t_depart";
+
+    private static final String SELECT_GROUP_TREE = "SELECT ID, FATHERID FROM t_group";
+
+    private static final String SELECT_ACTIVITY_AUDIENCE = "SELECT USERID FROM t_activity_audience WHERE ACTIVITYID = ?";
+
+    private static final String SELECT_ACTIVITY = "SELECT NAME, CREATEDATE FROM t_activity WHERE ID = ? AND DELETED = 0";
+
+    private static final String SELECT_USER_AUDIENCE = "SELECT USERID, ACTIVITYID FROM t_activity_audience WHERE USERID IN (:ids)";
+
+    private static final String INSERT_AUDIENCE = "INSERT IGNORE INTO t_activity_audience (ACTIVITYID, USERID) VALUES (?, ?)";
+
+    private static final String DELETE_AUDIENCE = "DELETE FROM t_activity_audience WHERE ACTIVITYID = ? AND USERID = ?";
+
+    private static final String SELECT_FEED = "SELECT aa.ACTIVITYID FROM t_activity_audience aa JOIN t_activity a ON a.ID = aa.ACTIVITYID " +
+            "WHERE aa.USERID = ? AND a.DELETED = 0 ORDER BY a.CREATEDATE DESC LIMIT ?";
+
+    /**
+     * 按用户更新时每批的用户数
+     */
+    private static final int USER_BATCH_SIZE = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RedisManager redisManager;
+
+    @Autowired
+    private FeedService feedService;
+
+    /**
+     * 发布范围/用户关系可能刚通过JPA保存, 用JDBC读取前先写入数据库
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${server.audience.feedSize:1000}")
+    private int feedSize;
+
+    @Value("${server.audience.cacheSeconds:300}")
+    private long cacheSeconds;
+
+    @Override
+    public void refreshActivity(String activityId) {
+        entityManager.flush();
+        refreshActivity(activityId, Hierarchy.load(jdbcTemplate, SELECT_DEPART_TREE), Hierarchy.load(jdbcTemplate, SELECT_GROUP_TREE));
+    }
+
+    @Override
+    public void refreshUsers(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        refreshUsers(new ArrayList<>(new LinkedHashSet<>(userIds)),
+                Hierarchy.load(jdbcTemplate, SELECT_DEPART_TREE), Hierarchy.load(jdbcTemplate, SELECT_GROUP_TREE));
+    }
+
+    @Override
+    public void refreshDepart(String departId) {
+        entityManager.flush();
+        Hierarchy departs = Hierarchy.load(jdbcTemplate, SELECT_DEPART_TREE);
+        Set<String> subtree = departs.descendants(Collections.singleton(departId));
+        List<String> userIds = namedParameterJdbcTemplate.queryForList(SELECT_DEPART_USER,
+                Collections.singletonMap("ids", subtree), String.class);
+        refreshUsers(userIds, departs, Hierarchy.load(jdbcTemplate, SELECT_GROUP_TREE));
+    }
+
+    /**
+     * 每个活动在单独的事务中更新, 层级只加载一次
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public JSONObject rebuild(ProgressListener listener) {
+        Hierarchy departs = Hierarchy.load(jdbcTemplate, SELECT_DEPART_TREE);
+        Hierarchy groups = Hierarchy.load(jdbcTemplate, SELECT_GROUP_TREE);
+        List<String> activityIds = jdbcTemplate.queryForList(SELECT_RELEASED_ACTIVITY, String.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long changed = 0;
+        long done = 0;
+        for (String activityId : activityIds) {
+            Integer count = transactionTemplate.execute(status -> refreshActivity(activityId, departs, groups));
+            changed += count == null ? 0 : count;
+            listener.progress(++done);
+        }
+        JSONObject json = new JSONObject();
+        json.put("activities", activityIds.size());
+        json.put("changed", changed);
+        return json;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<String> findUserIds(String activityId) {
+        return jdbcTemplate.queryForList(SELECT_ACTIVITY_AUDIENCE, String.class, activityId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<String> findActivityIds(String userId) {
+        String key = PREFIX_FEED + userId;
+        Object cached = redisManager.get(key);
+        if (cached != null) {
+            return new ArrayList<>(Arrays.asList(StringUtils.split(cached.toString(), ',')));
+        }
+        List<String> activityIds = jdbcTemplate.queryForList(SELECT_FEED, String.class, userId, feedSize);
+        redisManager.set(key, StringUtils.join(activityIds, ','), cacheSeconds);
+        return activityIds;
+    }
+
+    /**
+     * 按发布范围计算活动的可见用户, 只写入增减的部分
+     * @param activityId
+     * @param departs
+     * @param groups
+     * @return 变化的可见关系数
+     */
+    private int refreshActivity(String activityId, Hierarchy departs, Hierarchy groups) {
+        Targets targets = new Targets();
+        jdbcTemplate.query(SELECT_RELEASE, rs -> {
+            targets.add(rs.getInt(1), rs.getString(2));
+        }, activityId, activityId, activityId);
+        Set<String> audience = new HashSet<>();
+        if (!targets.isEmpty()) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("subjects", orNone(targets.get(TARGET_SUBJECT)));
+            params.put("departs", orNone(departs.descendants(targets.get(TARGET_DEPART))));
+            params.put("groups", orNone(groups.descendants(targets.get(TARGET_GROUP))));
+            audience.addAll(namedParameterJdbcTemplate.queryForList(SELECT_TARGET_USER, params, String.class));
+        }
+        Set<String> existing = new HashSet<>(jdbcTemplate.queryForList(SELECT_ACTIVITY_AUDIENCE, String.class, activityId));
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        Set<String> addedUsers = new HashSet<>();
+        Set<String> removedUsers = new HashSet<>();
+        for (String userId : audience) {
+            if (!existing.contains(userId)) {
+                inserts.add(new Object[]{activityId, userId});
+                addedUsers.add(userId);
+            }
+        }
+        for (String userId : existing) {
+            if (!audience.contains(userId)) {
+                deletes.add(new Object[]{activityId, userId});
+                removedUsers.add(userId);
+            }
+        }
+        write(inserts, deletes);
+        Set<String> changedUsers = new HashSet<>(addedUsers);
+        changedUsers.addAll(removedUsers);
+        evictAfterCommit(changedUsers);
+        List<String[]> activity = jdbcTemplate.query(SELECT_ACTIVITY,
+                (rs, i) -> new String[]{rs.getString(1), TimeUtils.format(rs.getTimestamp(2))}, activityId);
+        if (activity.isEmpty()) {
+            feedService.delete(FeedService.FEED_TYPE.activity, activityId, removedUsers);
+        } else {
+            feedService.publish(FeedService.FEED_TYPE.activity, activityId, activity.get(0)[0], activity.get(0)[1], addedUsers);
+            feedService.remove(FeedService.FEED_TYPE.activity, activityId, removedUsers);
+        }
+        return changedUsers.size();
+    }
+
+    /**
+     * 按用户所属机构/部门/组织(含上级)计算可见的活动, 只写入增减的部分
+     * @param userIds
+     * @param departs
+     * @param groups
+     */
+    private void refreshUsers(List<String> userIds, Hierarchy departs, Hierarchy groups) {
+        for (int from = 0; from < userIds.size(); from += USER_BATCH_SIZE) {
+            List<String> batch = userIds.subList(from, Math.min(from + USER_BATCH_SIZE, userIds.size()));
+            Map<String, Targets> relations = new HashMap<>();
+            for (String userId : batch) {
+                relations.put(userId, new Targets());
+            }
+            namedParameterJdbcTemplate.query(SELECT_RELATION, Collections.singletonMap("ids", batch), rs -> {
+                Targets targets = relations.get(rs.getString(1));
+                targets.add(TARGET_SUBJECT, rs.getString(2));
+                targets.add(TARGET_DEPART, rs.getString(3));
+                targets.add(TARGET_GROUP, rs.getString(4));
+            });
+            Targets all = new Targets();
+            for (Targets targets : relations.values()) {
+                targets.set(TARGET_DEPART, departs.ancestors(targets.get(TARGET_DEPART)));
+                targets.set(TARGET_GROUP, groups.ancestors(targets.get(TARGET_GROUP)));
+                all.addAll(targets);
+            }
+            Map<String, List<String>> released = new HashMap<>();
+            if (!all.isEmpty()) {
+                Map<String, Object> params = new HashMap<>();
+                params.put("subjects", orNone(all.get(TARGET_SUBJECT)));
+                params.put("departs", orNone(all.get(TARGET_DEPART)));
+                params.put("groups", orNone(all.get(TARGET_GROUP)));
+                namedParameterJdbcTemplate.query(SELECT_RELEASE_BY_TARGET, params, rs -> {
+                    released.computeIfAbsent(rs.getInt(1) + ":" + rs.getString(2), k -> new ArrayList<>()).add(rs.getString(3));
+                });
+            }
+            Map<String, Set<String>> existing = new HashMap<>();
+            namedParameterJdbcTemplate.query(SELECT_USER_AUDIENCE, Collections.singletonMap("ids", batch), rs -> {
+                existing.computeIfAbsent(rs.getString(1), k -> new HashSet<>()).add(rs.getString(2));
+            });
+            List<Object[]> inserts = new ArrayList<>();
+            List<Object[]> deletes = new ArrayList<>();
+            for (Map.Entry<String, Targets> entry : relations.entrySet()) {
+                String userId = entry.getKey();
+                Set<String> visible = new HashSet<>();
+                for (int type = TARGET_SUBJECT; type <= TARGET_GROUP; type++) {
+                    for (String targetId : entry.getValue().get(type)) {
+                        visible.addAll(released.getOrDefault(type + ":" + targetId, Collections.emptyList()));
+                    }
+                }
+                Set<String> before = existing.getOrDefault(userId, Collections.emptySet());
+                for (String activityId : visible) {
+                    if (!before.contains(activityId)) {
+                        inserts.add(new Object[]{activityId, userId});
+                    }
+                }
+                for (String activityId : before) {
+                    if (!visible.contains(activityId)) {
+                        deletes.add(new Object[]{activityId, userId});
+                    }
+                }
+            }
+            write(inserts, deletes);
+            evictAfterCommit(batch);
+            feedService.evict(batch);
+        }
+    }
+
+    private void write(List<Object[]> inserts, List<Object[]> deletes) {
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_AUDIENCE, deletes);
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_AUDIENCE, inserts);
+        }
+    }
+
+    /**
+     * 提交后清除用户的可见活动缓存, 避免提交前被其他请求以旧数据重新缓存
+     * @param userIds
+     */
+    private void evictAfterCommit(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        String[] keys = new String[userIds.size()];
+        int i = 0;
+        for (String userId : userIds) {
+            keys[i++] = PREFIX_FEED + userId;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            redisManager.del(keys);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                redisManager.del(keys);
+            }
+        });
+    }
+
+    /**
+     * IN条件不能为空, 空集合时使用不会匹配任何ID的值
+     * @param ids
+     * @return
+     */
+    private static Collection<String> orNone(Set<String> ids) {
+        return ids.isEmpty() ? Collections.singleton("") : ids;
+    }
+
+    /**
+     * 发布范围/用户所属的机构、部门、组织ID
+     */
+    private static class Targets {
+
+        private final List<Set<String>> ids = Arrays.asList(new HashSet<>(), new HashSet<>(), new HashSet<>());
+
+        private void add(int type, String id) {
+            if (StringUtils.isNotEmpty(id)) {
+                ids.get(type).add(id);
+            }
+        }
+
+        private void addAll(Targets other) {
+            for (int type = TARGET_SUBJECT; type <= TARGET_GROUP; type++) {
+                ids.get(type).addAll(other.get(type));
+            }
+        }
+
+        private Set<String> get(int type) {
+            return ids.get(type);
+        }
+
+        private void set(int type, Set<String> values) {
+            ids.set(type, values);
+        }
+
+        private boolean isEmpty() {
+            return ids.get(TARGET_SUBJECT).isEmpty() && ids.get(TARGET_DEPART).isEmpty() && ids.get(TARGET_GROUP).isEmpty();
+        }
+    }
+
+    /**
+     * 部门/组织的上下级关系
+     */
+    private static class Hierarchy {
+
+        private final Map<String, String> fathers = new HashMap<>();
+
+        private final Map<String, List<String>> children = new HashMap<>();
+
+        private static Hierarchy load(JdbcTemplate jdbcTemplate, String sql) {
+            Hierarchy hierarchy = new Hierarchy();
+            jdbcTemplate.query(sql, rs -> {
+                String id = rs.getString(1);
+                String fatherId = rs.getString(2);
+                if (fatherId != null) {
+                    hierarchy.fathers.put(id, fatherId);
+                    hierarchy.children.computeIfAbsent(fatherId, k -> new ArrayList<>()).add(id);
+                }
+            });
+            return hierarchy;
+        }
+
+        /**
+         * 自身及所有下级
+         * @param ids
+         * @return
+         */
+        private Set<String> descendants(Collection<String> ids) {
+            Set<String> result = new HashSet<>(ids);
+            Deque<String> queue = new ArrayDeque<>(ids);
+            while (!queue.isEmpty()) {
+                for (String child : children.getOrDefault(queue.poll(), Collections.emptyList())) {
+                    if (result.add(child)) {
+                        queue.add(child);
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * 自身及所有上级, 数据中存在循环时在重复处停止
+         * @param ids
+         * @return
+         */
+        private Set<String> ancestors(Collection<String> ids) {
+            Set<String> result = new HashSet<>();
+            for (String id : ids) {
+                String current = id;
+                while (current != null && result.add(current)) {
+                    current = fathers.get(current);
+                }
+            }
+            return result;
+        }
+    }
+}
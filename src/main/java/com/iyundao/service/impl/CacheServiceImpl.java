@@ -0,0 +1,74 @@
+package com.iyundao.service.impl;
+
+import com.alibaba.fastjson.JSONObject;
+import com.iyundao.base.ServiceCache;
+import com.iyundao.base.ServiceCacheManager;
+import com.iyundao.service.CacheService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+
+/**
+ * @ClassName: CacheServiceImpl
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/6 11:20
+ * @Description: 服务实现 - 缓存统计
+ * @Version: V2.0
+ */
+@Service
+public class CacheServiceImpl implements CacheService {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ServiceCacheManager serviceCacheManager;
+
+    @Override
+    public JSONObject statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        JSONObject regions = new JSONObject(true);
+        String[] names = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(names);
+        for (String name : names) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(name);
+            if (region != null) {
+                JSONObject json = stat(region.getHitCount(), region.getMissCount(), region.getPutCount());
+                json.put("size", region.getElementCountInMemory());
+                regions.put(name, json);
+            }
+        }
+        JSONObject json = new JSONObject(true);
+        json.put("total", stat(statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount(),
+                statistics.getSecondLevelCachePutCount()));
+        json.put("query", stat(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount()));
+        json.put("regions", regions);
+        JSONObject services = new JSONObject(true);
+        for (ServiceCache cache : serviceCacheManager.getServiceCaches()) {
+            JSONObject service = stat(cache.getLocalHits() + cache.getRedisHits(), cache.getMisses(), cache.getPuts());
+            service.put("localHit", cache.getLocalHits());
+            service.put("redisHit", cache.getRedisHits());
+            service.put("evict", cache.getEvictions());
+            service.put("size", cache.getLocalSize());
+            services.put(cache.getName(), service);
+        }
+        json.put("services", services);
+        return json;
+    }
+
+    private static JSONObject stat(long hit, long miss, long put) {
+        JSONObject json = new JSONObject(true);
+        json.put("hit", hit);
+        json.put("miss", miss);
+        json.put("put", put);
+        json.put("hitRate", hit + miss == 0 ? 0 : (double) hit / (hit + miss));
+        return json;
+    }
+}
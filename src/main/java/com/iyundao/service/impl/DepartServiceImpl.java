@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -26,7 +27,16 @@ public class DepartServiceImpl implements DepartService {
 
     @Override
     public List<Depart> findBySubjectId(String subjectId) {
-        return departRepository.findBySubjectId(subjectId);
+        List<String> ids = departRepository.findIdsBySubjectId(subjectId);
+        List<Depart> departs = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            // 按主键加载, 命中二级缓存时不查询数据库
+            Depart depart = departRepository.find(id);
+            if (depart != null) {
+                departs.add(depart);
+            }
+        }
+        return departs;
     }
 
     @Override
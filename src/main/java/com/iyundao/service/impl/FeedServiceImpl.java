@@ -0,0 +1,258 @@
+package com.iyundao.service.impl;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.iyundao.base.shiro.RedisManager;
+import com.iyundao.base.utils.ProgressListener;
+import com.iyundao.base.utils.TimeUtils;
+import com.iyundao.service.FeedService;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName: FeedServiceImpl
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/2 10:30
+ * @Description: 服务实现 - 用户动态(活动/议事)
+ * @Version: V2.0
+ */
+@Service
+@Transactional(rollbackFor = Exception.class)
+public class FeedServiceImpl implements FeedService {
+
+    /**
+     * 用户动态, 有序集合, 值为 类型:ID, 分数为创建时间 yyyyMMddHHmmss
+     */
+    private static final String PREFIX_FEED = "iyundao:feed:";
+
+    /**
+     * 动态标题, hash, 项为 类型:ID
+     */
+    private static final String KEY_TITLE = "iyundao:feed_title";
+
+    /**
+     * 占位值, 区分没有动态的用户和未加载的用户, 分数小于任何创建时间, 读取时不返回
+     */
+    private static final String PLACEHOLDER = "";
+
+    private static final double MIN_SCORE = 1;
+
+    private static final String SELECT_USER_ACTIVITY = "SELECT a.ID, a.NAME, a.CREATEDATE FROM t_activity_audience aa " +
+            "JOIN t_activity a ON a.ID = aa.ACTIVITYID WHERE aa.USERID = ? AND a.DELETED = 0 ORDER BY a.CREATEDATE DESC LIMIT ?";
+
+    private static final String SELECT_USER_POLITICS = "SELECT p.ID, p.TITLE, p.CREATEDATE FROM t_politics_user pu " +
+            "JOIN t_politics p ON p.ID = pu.POLITICSID WHERE pu.USERID = ? ORDER BY p.CREATEDATE DESC LIMIT ?";
+
+    private static final String SELECT_USER = "SELECT ID FROM t_user WHERE ID > ? ORDER BY ID LIMIT ?";
+
+    /**
+     * 重新加载时每批的用户数
+     */
+    private static final int USER_BATCH_SIZE = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RedisManager redisManager;
+
+    @Value("${server.feed.maxSize:500}")
+    private int maxSize;
+
+    @Value("${server.feed.expireDays:7}")
+    private int expireDays;
+
+    @Override
+    public void publish(FEED_TYPE type, String id, String title, String createdDate, Collection<String> userIds) {
+        String member = member(type, id);
+        long score = NumberUtils.toLong(createdDate);
+        List<String> keys = keys(userIds);
+        afterCommit(() -> {
+            redisManager.hset(KEY_TITLE, member, StringUtils.defaultString(title));
+            if (keys.isEmpty() || score < MIN_SCORE) {
+                return;
+            }
+            // 只写入已加载的动态, 未加载的用户读取时从数据库加载
+            redisManager.zAddAllIfExists(keys, member, score, maxSize);
+        });
+    }
+
+    @Override
+    public void remove(FEED_TYPE type, String id, Collection<String> userIds) {
+        String member = member(type, id);
+        List<String> keys = keys(userIds);
+        if (keys.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> redisManager.zRemoveAll(keys, member));
+    }
+
+    @Override
+    public void delete(FEED_TYPE type, String id, Collection<String> userIds) {
+        String member = member(type, id);
+        List<String> keys = keys(userIds);
+        afterCommit(() -> {
+            redisManager.zRemoveAll(keys, member);
+            redisManager.hdel(KEY_TITLE, member);
+        });
+    }
+
+    @Override
+    public void evict(Collection<String> userIds) {
+        List<String> keys = keys(userIds);
+        if (keys.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> redisManager.del(keys.toArray(new String[0])));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public JSONObject read(String userId, String cursor, int size) {
+        double max = Double.POSITIVE_INFINITY;
+        long skip = 0;
+        if (StringUtils.isNotEmpty(cursor)) {
+            String[] parts = StringUtils.split(cursor, '-');
+            if (parts.length != 2 || !NumberUtils.isDigits(parts[0]) || !NumberUtils.isDigits(parts[1])) {
+                return null;
+            }
+            max = Long.parseLong(parts[0]);
+            skip = Long.parseLong(parts[1]);
+        }
+        String key = PREFIX_FEED + userId;
+        Set<ZSetOperations.TypedTuple<Object>> tuples = redisManager.zRevRangeByScore(key, MIN_SCORE, max, skip, size);
+        if (tuples.isEmpty() && StringUtils.isEmpty(cursor) && !redisManager.hasKey(key)) {
+            load(userId);
+            tuples = redisManager.zRevRangeByScore(key, MIN_SCORE, max, skip, size);
+        }
+        List<Object> members = new ArrayList<>(tuples.size());
+        for (ZSetOperations.TypedTuple<Object> tuple : tuples) {
+            members.add(tuple.getValue());
+        }
+        List<Object> titles = members.isEmpty() ? Collections.emptyList() : redisManager.hmultiGet(KEY_TITLE, members);
+        JSONArray content = new JSONArray();
+        long lastScore = 0;
+        long sameScore = 0;
+        int i = 0;
+        for (ZSetOperations.TypedTuple<Object> tuple : tuples) {
+            String member = String.valueOf(tuple.getValue());
+            long score = tuple.getScore().longValue();
+            sameScore = score == lastScore ? sameScore + 1 : 1;
+            lastScore = score;
+            JSONObject json = new JSONObject();
+            json.put("type", StringUtils.substringBefore(member, ":"));
+            json.put("id", StringUtils.substringAfter(member, ":"));
+            json.put("title", titles.get(i++));
+            json.put("createdDate", String.valueOf(score));
+            content.add(json);
+        }
+        JSONObject json = new JSONObject();
+        json.put("content", content);
+        if (content.size() == size) {
+            // 同一秒创建的动态按已返回的个数跳过
+            if (lastScore == max) {
+                sameScore += skip;
+            }
+            json.put("cursor", lastScore + "-" + sameScore);
+        } else {
+            json.put("cursor", null);
+        }
+        return json;
+    }
+
+    /**
+     * 不在事务中执行, 每个用户的查询读取最新提交的数据, 不会用任务开始时的快照覆盖期间发布的动态
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public JSONObject backfill(ProgressListener listener) {
+        long done = 0;
+        String last = "";
+        List<String> userIds;
+        do {
+            userIds = jdbcTemplate.queryForList(SELECT_USER, String.class, last, USER_BATCH_SIZE);
+            for (String userId : userIds) {
+                load(userId);
+                last = userId;
+            }
+            done += userIds.size();
+            listener.progress(done);
+        } while (userIds.size() == USER_BATCH_SIZE);
+        JSONObject json = new JSONObject();
+        json.put("users", done);
+        return json;
+    }
+
+    /**
+     * 从数据库加载用户最近的活动和议事;
+     * 查询前先把键重置为只有占位值: 之前提交的发布由查询读到, 之后提交的由publish写入已存在的键,
+     * 查询结果只添加不替换, 不会覆盖查询期间写入的动态
+     * @param userId
+     */
+    private void load(String userId) {
+        String key = PREFIX_FEED + userId;
+        long expireSeconds = TimeUnit.DAYS.toSeconds(expireDays);
+        redisManager.zReplace(key, Collections.singletonMap(PLACEHOLDER, 0D), expireSeconds);
+        List<Object[]> items = new ArrayList<>();
+        jdbcTemplate.query(SELECT_USER_ACTIVITY, rs -> {
+            items.add(new Object[]{member(FEED_TYPE.activity, rs.getString(1)), rs.getString(2), NumberUtils.toLong(TimeUtils.format(rs.getTimestamp(3)))});
+        }, userId, maxSize);
+        jdbcTemplate.query(SELECT_USER_POLITICS, rs -> {
+            items.add(new Object[]{member(FEED_TYPE.politics, rs.getString(1)), rs.getString(2), NumberUtils.toLong(TimeUtils.format(rs.getTimestamp(3)))});
+        }, userId, maxSize);
+        items.sort((a, b) -> Long.compare((Long) b[2], (Long) a[2]));
+        Map<Object, Double> values = new HashMap<>();
+        Map<String, Object> titles = new HashMap<>();
+        for (Object[] item : items.subList(0, Math.min(items.size(), maxSize))) {
+            values.put(item[0], ((Long) item[2]).doubleValue());
+            titles.put((String) item[0], StringUtils.defaultString((String) item[1]));
+        }
+        if (!titles.isEmpty()) {
+            redisManager.hmset(KEY_TITLE, titles);
+        }
+        // 占位值占一个名额, 与原先一样保留maxSize条动态
+        redisManager.zAddAll(key, values, maxSize + 1, expireSeconds);
+    }
+
+    private static String member(FEED_TYPE type, String id) {
+        return type.name() + ":" + id;
+    }
+
+    private static List<String> keys(Collection<String> userIds) {
+        List<String> keys = new ArrayList<>(userIds.size());
+        for (String userId : new LinkedHashSet<>(userIds)) {
+            keys.add(PREFIX_FEED + userId);
+        }
+        return keys;
+    }
+
+    /**
+     * 提交后写入redis, 避免回滚的数据出现在动态中
+     * @param action
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
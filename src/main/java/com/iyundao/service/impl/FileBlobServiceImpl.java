@@ -0,0 +1,146 @@
+package com.iyundao.service.impl;
+
+import com.iyundao.base.utils.FileUtils;
+import com.iyundao.base.utils.ImageUtils;
+import com.iyundao.base.utils.IdUtils;
+import com.iyundao.base.utils.TimeUtils;
+import com.iyundao.entity.FileBlob;
+import com.iyundao.repository.FileBlobRepository;
+import com.iyundao.service.FileBlobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.*;
+
+/**
+ * @ClassName: FileBlobServiceImpl
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/8/23 9:30
+ * @Description: 服务实现 - 文件内容
+ * @Version: V2.0
+ */
+@Service
+@Transactional(rollbackFor = Exception.class)
+public class FileBlobServiceImpl implements FileBlobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileBlobServiceImpl.class);
+
+    /**
+     * 内容文件目录, 按摘要前两级分目录避免单目录文件过多
+     */
+    private static final String BLOB_DIR = "blob/";
+
+    @Autowired
+    private FileBlobRepository fileBlobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${server.upload}")
+    private String uploadPath;
+
+    /**
+     * 上传内容只读取一遍, 写入临时文件的同时计算摘要;
+     * reference持有摘要的行锁到提交, 之后再确认文件存在, 与release提交后的删除互斥;
+     * 文件路径以摘要对应行的URL为准, 新路径只在首次上传该内容时使用
+     */
+    @Override
+    public FileBlob store(MultipartFile file) throws IOException {
+        Path dir = FileUtils.resolve(uploadPath, BLOB_DIR);
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, "upload", ".tmp");
+        try {
+            String hash;
+            try (InputStream is = file.getInputStream();
+                 OutputStream os = Files.newOutputStream(temp)) {
+                hash = FileUtils.sha256(is, os);
+            }
+            String suffix = FileUtils.getSuffix(file.getOriginalFilename()).toLowerCase();
+            String url = BLOB_DIR + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash
+                    + (suffix.isEmpty() || suffix.length() > 4 ? "" : "." + suffix);
+            fileBlobRepository.reference(IdUtils.nextId(), TimeUtils.now(), hash, file.getSize(), url);
+            // 相同内容已存在时沿用原有行的路径(后缀可能不同), 文件丢失时按该路径补写
+            FileBlob blob = fileBlobRepository.findByHash(hash);
+            Path target = FileUtils.resolve(uploadPath, blob.getUrl());
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                // 改名是原子的, 并发上传相同内容时不会读到写了一半的文件
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    logger.debug("blob exists: " + hash);
+                }
+            }
+            return blob;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void release(FileBlob blob) {
+        if (blob == null) {
+            return;
+        }
+        String id = blob.getId();
+        fileBlobRepository.release(id);
+        if (fileBlobRepository.deleteUnreferenced(id) == 0) {
+            return;
+        }
+        String hash = blob.getHash();
+        Path path = FileUtils.resolve(uploadPath, blob.getUrl());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deleteUnreferenced(hash, path);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                deleteUnreferenced(hash, path);
+            }
+        });
+    }
+
+    /**
+     * 提交后在新事务中锁定摘要再删除文件: 并发store已重新引用时保留文件,
+     * 否则store的reference等待本事务提交, 之后发现文件已删除会重新写入
+     * @param hash
+     * @param path
+     */
+    private void deleteUnreferenced(String hash, Path path) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.execute(status -> {
+            if (fileBlobRepository.lockByHash(hash) == 0) {
+                deleteFile(path);
+            }
+            return null;
+        });
+    }
+
+    private void deleteFile(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+            ImageUtils.deleteDerivatives(path);
+        } catch (IOException e) {
+            logger.error("delete blob fail: " + path, e);
+        }
+    }
+}
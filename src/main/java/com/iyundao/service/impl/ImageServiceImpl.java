@@ -0,0 +1,151 @@
+package com.iyundao.service.impl;
+
+import com.iyundao.base.utils.FileUtils;
+import com.iyundao.base.utils.ImageUtils;
+import com.iyundao.service.ImageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @ClassName: ImageServiceImpl
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/8/23 14:50
+ * @Description: 服务实现 - 图片衍生尺寸
+ * @Version: V2.0
+ */
+@Service
+public class ImageServiceImpl implements ImageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageServiceImpl.class);
+
+    static {
+        // 解码/编码在内存中进行, 不写ImageIO的磁盘缓存
+        ImageIO.setUseCache(false);
+    }
+
+    @Autowired
+    @Qualifier("imageExecutor")
+    private ThreadPoolTaskExecutor imageExecutor;
+
+    @Value("${server.upload}")
+    private String uploadPath;
+
+    /**
+     * 排队/生成中的原图, 同一张图片只提交一次
+     */
+    private final Set<Path> pending = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void generate(String url) {
+        Path original = FileUtils.resolve(uploadPath, url);
+        if (original == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit(original);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                submit(original);
+            }
+        });
+    }
+
+    @Override
+    public Path find(String url, IMAGE_SIZE size) {
+        Path original = FileUtils.resolve(uploadPath, url);
+        if (original == null || !Files.exists(original)) {
+            return null;
+        }
+        if (size == null) {
+            return original;
+        }
+        Path derivative = ImageUtils.derivative(original, size.name());
+        if (Files.exists(derivative)) {
+            return derivative;
+        }
+        // 已确认无法解码的原图不再重复提交
+        if (!Files.exists(ImageUtils.failedMarker(original))) {
+            submit(original);
+        }
+        return original;
+    }
+
+    private void submit(Path original) {
+        if (!pending.add(original)) {
+            return;
+        }
+        try {
+            imageExecutor.execute(() -> {
+                try {
+                    createDerivatives(original);
+                } finally {
+                    pending.remove(original);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            pending.remove(original);
+            logger.warn("image queue full, skip: " + original);
+        }
+    }
+
+    /**
+     * 只解码一次, 从大到小依次缩放, 小尺寸由上一级结果缩放; 无法解码时写入标记, 原图内容不变, 标记随原图删除
+     * @param original
+     */
+    private void createDerivatives(Path original) {
+        IMAGE_SIZE[] sizes = IMAGE_SIZE.values();
+        BufferedImage image;
+        try {
+            image = ImageUtils.read(original, sizes[sizes.length - 1].getMaxSide());
+        } catch (Exception e) {
+            logger.warn("decode image fail: " + original, e);
+            image = null;
+        }
+        if (image == null) {
+            markFailed(original);
+            return;
+        }
+        try {
+            for (int i = sizes.length - 1; i >= 0; i--) {
+                image = ImageUtils.scale(image, sizes[i].getMaxSide());
+                ImageUtils.writeJpeg(image, sizes[i].getQuality(), ImageUtils.derivative(original, sizes[i].name()));
+            }
+        } catch (Exception e) {
+            logger.error("create image derivatives fail: " + original, e);
+        }
+    }
+
+    private void markFailed(Path original) {
+        if (!Files.exists(original)) {
+            return;
+        }
+        try {
+            Files.createFile(ImageUtils.failedMarker(original));
+        } catch (FileAlreadyExistsException e) {
+            logger.debug("image already marked failed: " + original);
+        } catch (IOException e) {
+            logger.error("mark image failed fail: " + original, e);
+        }
+    }
+}
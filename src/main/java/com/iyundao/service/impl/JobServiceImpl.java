@@ -0,0 +1,230 @@
+package com.iyundao.service.impl;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.iyundao.base.shiro.RedisManager;
+import com.iyundao.base.utils.TimeUtils;
+import com.iyundao.service.JobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName: JobServiceImpl
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/8/22 10:32
+ * @Description: 服务实现 - 后台任务
+ * @Version: V2.0
+ */
+@Service
+public class JobServiceImpl implements JobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobServiceImpl.class);
+
+    /**
+     * 任务状态保存在redis, 任意节点均可查询/取消
+     */
+    private static final String PREFIX_JOB = "iyundao:job:";
+
+    private static final String RESULT_SUFFIX = ".xlsx";
+
+    @Autowired
+    private RedisManager redisManager;
+
+    @Autowired
+    @Qualifier("jobExecutor")
+    private ThreadPoolTaskExecutor jobExecutor;
+
+    @Value("${server.upload}")
+    private String uploadPath;
+
+    @Value("${server.job.expireHours:24}")
+    private int expireHours;
+
+    /**
+     * 本节点排队/执行中的任务
+     */
+    private final Map<String, FutureTask<Void>> futures = new ConcurrentHashMap<>();
+
+    @Override
+    public String submit(String type, String userId, String resultName, Task task) {
+        String id = UUID.randomUUID().toString().replace("-", "");
+        String key = PREFIX_JOB + id;
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", id);
+        map.put("type", type);
+        map.put("userId", userId);
+        map.put("status", JOB_STATUS.waiting.name());
+        map.put("progress", 0);
+        map.put("createdDate", TimeUtils.nowTime());
+        if (resultName != null) {
+            map.put("resultName", resultName);
+        }
+        redisManager.hmset(key, map, TimeUnit.HOURS.toSeconds(expireHours));
+        FutureTask<Void> future = new FutureTask<>(() -> execute(id, resultName != null, task), null);
+        futures.put(id, future);
+        try {
+            jobExecutor.execute(future);
+        } catch (TaskRejectedException e) {
+            futures.remove(id);
+            redisManager.del(key);
+            return null;
+        }
+        purgeExpiredResults();
+        return id;
+    }
+
+    @Override
+    public JSONObject find(String id) {
+        Map<Object, Object> map = redisManager.hmget(PREFIX_JOB + id);
+        if (map == null || map.isEmpty()) {
+            return null;
+        }
+        JSONObject json = new JSONObject();
+        for (Map.Entry<Object, Object> entry : map.entrySet()) {
+            json.put(entry.getKey().toString(), entry.getValue());
+        }
+        json.remove("cancel");
+        Object data = json.remove("data");
+        if (data != null) {
+            json.put("data", JSON.parse(data.toString()));
+        }
+        return json;
+    }
+
+    @Override
+    public boolean cancel(String id) {
+        String key = PREFIX_JOB + id;
+        Object status = redisManager.hget(key, "status");
+        if (!JOB_STATUS.waiting.name().equals(status)
+                && !JOB_STATUS.running.name().equals(status)) {
+            return false;
+        }
+        redisManager.hset(key, "cancel", "1");
+        FutureTask<Void> future = futures.get(id);
+        if (future != null && JOB_STATUS.waiting.name().equals(status) && future.cancel(false)) {
+            futures.remove(id);
+            finish(key, JOB_STATUS.cancelled, "任务已取消", null);
+        }
+        return true;
+    }
+
+    @Override
+    public Path findResult(String id) {
+        JSONObject job = find(id);
+        if (job == null
+                || !JOB_STATUS.success.name().equals(job.getString("status"))
+                || job.getString("resultName") == null) {
+            return null;
+        }
+        Path result = getJobDir().resolve(id + RESULT_SUFFIX);
+        return Files.exists(result) ? result : null;
+    }
+
+    @Override
+    public Path getJobDir() {
+        Path dir = Paths.get(uploadPath, "job");
+        try {
+            return Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 执行任务, 每批处理完后检查取消标记并更新进度
+     * @param id
+     * @param hasResult
+     * @param task
+     */
+    private void execute(String id, boolean hasResult, Task task) {
+        String key = PREFIX_JOB + id;
+        Path result = hasResult ? getJobDir().resolve(id + RESULT_SUFFIX) : null;
+        try {
+            if (isCancelled(key)) {
+                throw new CancellationException();
+            }
+            redisManager.hset(key, "status", JOB_STATUS.running.name());
+            Object data = task.run(result, done -> {
+                if (Thread.currentThread().isInterrupted() || isCancelled(key)) {
+                    throw new CancellationException();
+                }
+                redisManager.hset(key, "progress", done);
+            });
+            finish(key, JOB_STATUS.success, null, data);
+        } catch (CancellationException e) {
+            deleteResult(result);
+            finish(key, JOB_STATUS.cancelled, "任务已取消", null);
+        } catch (Exception e) {
+            logger.error("job fail: " + id, e);
+            deleteResult(result);
+            finish(key, JOB_STATUS.failure, e.getMessage(), null);
+        } finally {
+            futures.remove(id);
+        }
+    }
+
+    private boolean isCancelled(String key) {
+        return "1".equals(redisManager.hget(key, "cancel"));
+    }
+
+    private void finish(String key, JOB_STATUS status, String message, Object data) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("status", status.name());
+        map.put("finishedDate", TimeUtils.nowTime());
+        if (message != null) {
+            map.put("message", message);
+        }
+        if (data != null) {
+            map.put("data", JSON.toJSONString(data));
+        }
+        redisManager.hmset(key, map);
+    }
+
+    private void deleteResult(Path result) {
+        if (result == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(result);
+        } catch (IOException e) {
+            logger.error("execute fail", e);
+        }
+    }
+
+    /**
+     * 删除超过保留时间的结果文件及上传的临时文件
+     */
+    private void purgeExpiredResults() {
+        long expireTime = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(expireHours);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(getJobDir())) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toMillis() < expireTime) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("execute fail", e);
+        }
+    }
+}
@@ -7,10 +7,13 @@ import com.iyundao.entity.UserLabel;
 import com.iyundao.repository.LabelRepository;
 import com.iyundao.repository.UserLabelRepository;
 import com.iyundao.service.LabelService;
+import com.iyundao.service.UserRowService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -32,6 +35,9 @@ public class LabelServiceImpl implements LabelService {
     @Autowired
     private UserLabelRepository userLabelRepository;
 
+    @Autowired
+    private UserRowService userRowService;
+
     @Override
     public boolean existsCode(String code) {
         Label label = labelRepository.findByCode(code);
@@ -63,7 +69,11 @@ public class LabelServiceImpl implements LabelService {
 
     @Override
     public void deleteLabel(Label label) {
+        // 用户标签随标签级联删除, 删除前取出需要更新列表行的用户
+        List<String> userIds = label.getType() == Label.LABEL_TYPE.user
+                ? userLabelRepository.findUserIdsByLabelId(label.getId()) : Collections.emptyList();
         labelRepository.delete(label);
+        userRowService.refreshUsers(userIds);
     }
 
     @Override
@@ -79,22 +89,35 @@ public class LabelServiceImpl implements LabelService {
     @Override
     public void delUserLabel(UserLabel userLabel) {
         userLabelRepository.delete(userLabel);
+        userRowService.refreshUsers(Collections.singletonList(userLabel.getUser().getId()));
     }
 
     @Override
     public Page<Label> findUserLabelPage(Pageable pageable) {
-        List<Label> list = labelRepository.findLabelByType(Label.LABEL_TYPE.user.ordinal(), pageable.getPageNumber(), pageable.getPageSize());
-        int count = labelRepository.countLabelByType(Label.LABEL_TYPE.user.ordinal());
-        Page<Label> page = new Page<>(list, count, pageable);
-        return page;
+        return findLabelPage(Label.LABEL_TYPE.user, pageable);
     }
 
     @Override
     public Page<Label> findActivityLabelPage(Pageable pageable) {
-        List<Label> list = labelRepository.findLabelByType(Label.LABEL_TYPE.activity.ordinal(), pageable.getPageNumber(), pageable.getPageSize());
-        int count = labelRepository.countLabelByType(Label.LABEL_TYPE.activity.ordinal());
-        Page<Label> page = new Page<>(list, count, pageable);
-        return page;
+        return findLabelPage(Label.LABEL_TYPE.activity, pageable);
     }
 
+    /**
+     * 缓存的是标签ID和数量, 标签按主键加载, 命中二级缓存时不查询数据库
+     * @param type
+     * @param pageable
+     * @return
+     */
+    private Page<Label> findLabelPage(Label.LABEL_TYPE type, Pageable pageable) {
+        List<String> ids = labelRepository.findIdsByType(type.ordinal(), pageable.getPageNumber(), pageable.getPageSize());
+        List<Label> list = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Label label = labelRepository.find(id);
+            if (label != null) {
+                list.add(label);
+            }
+        }
+        int count = labelRepository.countLabelByType(type.ordinal());
+        return new Page<>(list, count, pageable);
+    }
 }
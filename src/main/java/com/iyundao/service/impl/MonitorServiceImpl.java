@@ -0,0 +1,100 @@
+package com.iyundao.service.impl;
+
+import com.alibaba.fastjson.JSONObject;
+import com.iyundao.base.SqlStatistics;
+import com.iyundao.service.MonitorService;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @ClassName: MonitorServiceImpl
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/10 10:30
+ * @Description: 服务实现 - 接口监控, 统计保存在本节点内存中
+ * @Version: V2.0
+ */
+@Service
+public class MonitorServiceImpl implements MonitorService {
+
+    private final ConcurrentMap<String, SqlStat> sqlStats = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordSql(String endpoint, SqlStatistics statistics, long requestMillis, boolean overBudget) {
+        SqlStat stat = sqlStats.computeIfAbsent(endpoint, k -> new SqlStat());
+        stat.requests.increment();
+        stat.statements.add(statistics.getStatements());
+        stat.maxStatements.accumulateAndGet(statistics.getStatements(), Math::max);
+        stat.duplicates.add(statistics.getDuplicates());
+        stat.maxDuplicates.accumulateAndGet(statistics.getDuplicates(), Math::max);
+        stat.executeMillis.add(statistics.getExecuteMillis());
+        stat.maxExecuteMillis.accumulateAndGet(statistics.getExecuteMillis(), Math::max);
+        long connectionMillis = statistics.getConnectionMillis();
+        stat.requestMillis.add(requestMillis);
+        stat.connections.add(statistics.getConnections());
+        stat.connectionMillis.add(connectionMillis);
+        stat.maxConnectionMillis.accumulateAndGet(connectionMillis, Math::max);
+        if (overBudget) {
+            stat.overBudget.increment();
+        }
+    }
+
+    @Override
+    public JSONObject sqlStatistics() {
+        JSONObject json = new JSONObject(true);
+        for (Map.Entry<String, SqlStat> entry : new TreeMap<>(sqlStats).entrySet()) {
+            SqlStat stat = entry.getValue();
+            JSONObject item = new JSONObject(true);
+            item.put("requests", stat.requests.sum());
+            item.put("statements", stat.statements.sum());
+            item.put("maxStatements", stat.maxStatements.get());
+            item.put("duplicates", stat.duplicates.sum());
+            item.put("maxDuplicates", stat.maxDuplicates.get());
+            item.put("executeMillis", stat.executeMillis.sum());
+            item.put("maxExecuteMillis", stat.maxExecuteMillis.get());
+            long requestMillis = stat.requestMillis.sum();
+            long connectionMillis = stat.connectionMillis.sum();
+            item.put("requestMillis", requestMillis);
+            item.put("connections", stat.connections.sum());
+            item.put("connectionMillis", connectionMillis);
+            item.put("maxConnectionMillis", stat.maxConnectionMillis.get());
+            item.put("connectionRatio", requestMillis == 0 ? 0 : (double) connectionMillis / requestMillis);
+            item.put("overBudget", stat.overBudget.sum());
+            json.put(entry.getKey(), item);
+        }
+        return json;
+    }
+
+    private static class SqlStat {
+
+        private final LongAdder requests = new LongAdder();
+
+        private final LongAdder statements = new LongAdder();
+
+        private final AtomicLong maxStatements = new AtomicLong();
+
+        private final LongAdder duplicates = new LongAdder();
+
+        private final AtomicLong maxDuplicates = new AtomicLong();
+
+        private final LongAdder executeMillis = new LongAdder();
+
+        private final AtomicLong maxExecuteMillis = new AtomicLong();
+
+        private final LongAdder requestMillis = new LongAdder();
+
+        private final LongAdder connections = new LongAdder();
+
+        private final LongAdder connectionMillis = new LongAdder();
+
+        private final AtomicLong maxConnectionMillis = new AtomicLong();
+
+        private final LongAdder overBudget = new LongAdder();
+    }
+}
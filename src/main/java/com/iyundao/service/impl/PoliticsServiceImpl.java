@@ -4,19 +4,28 @@ import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.iyundao.base.Page;
 import com.iyundao.base.Pageable;
+import com.iyundao.base.utils.ExcelUtils;
+import com.iyundao.base.utils.ProgressListener;
 import com.iyundao.base.utils.JsonUtils;
 import com.iyundao.entity.*;
 import com.iyundao.repository.*;
+import com.iyundao.service.FeedService;
 import com.iyundao.service.PoliticsService;
 import org.apache.commons.collections.CollectionUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * @ClassName: PoliticsServiceImpl
@@ -30,6 +39,10 @@ import java.util.Map;
 @Transactional(rollbackFor = Exception.class)
 public class PoliticsServiceImpl implements PoliticsService {
 
+    private static final String[] STATE_NAMES = {"未查看", "已查看"};
+
+    private static final String[] EXPORT_HEADERS = {"账号", "姓名", "编号", "查看状态"};
+
     @Autowired
     private PoliticsRepository politicsRepository;
 
@@ -51,6 +64,9 @@ public class PoliticsServiceImpl implements PoliticsService {
     @Autowired
     private PoliticsResolutionDataRepository politicsResolutionDataRepository;
 
+    @Autowired
+    private FeedService feedService;
+
     @Override
     public Politics add(String title, String content, String startTime, String endTime, int state) {
         Politics politics = new Politics();
@@ -76,6 +92,7 @@ public class PoliticsServiceImpl implements PoliticsService {
     @Override
     public void addDeptionAndPeople(Politics politics, List<Subject> subjects, List<Depart> departs, List<Group> groups, List<User> users) {
             PoliticsDeption pd ;
+        Set<String> userIds = new HashSet<>();
         if (CollectionUtils.isNotEmpty(subjects)){
             for (Subject subject : subjects) {
                 pd = new PoliticsDeption();
@@ -85,7 +102,7 @@ public class PoliticsServiceImpl implements PoliticsService {
                 pd.setSubject(subject);
                 politicsDeptionRepository.save(pd);
                 List<User> us = userRepository.findBySubjectIdForPage(subject.getId());
-                userSaveAll(us,politics);
+                userSaveAll(us,politics,userIds);
             }
         }
         if (CollectionUtils.isNotEmpty(departs)){
@@ -97,7 +114,7 @@ public class PoliticsServiceImpl implements PoliticsService {
                 pd.setDepart(depart);
                 politicsDeptionRepository.save(pd);
                 List<User> us = userRepository.findByDepartIdForPage(depart.getId());
-                userSaveAll(us,politics);
+                userSaveAll(us,politics,userIds);
             }
         }
         if (CollectionUtils.isNotEmpty(groups)){
@@ -109,12 +126,13 @@ public class PoliticsServiceImpl implements PoliticsService {
                 pd.setGroup(group);
                 politicsDeptionRepository.save(pd);
                 List<User> us = userRepository.findByGroupIdForPage(group.getId());
-                userSaveAll(us,politics);
+                userSaveAll(us,politics,userIds);
             }
         }
         if (CollectionUtils.isNotEmpty(users)){
-            userSaveAll(users,politics);
+            userSaveAll(users,politics,userIds);
         }
+        feedService.publish(FeedService.FEED_TYPE.politics, politics.getId(), politics.getTitle(), politics.getCreatedDate(), userIds);
     }
 
     @Override
@@ -212,7 +230,12 @@ public class PoliticsServiceImpl implements PoliticsService {
 
     @Override
     public void delete(Politics politics) {
+        List<String> userIds = new ArrayList<>();
+        for (PoliticsUser politicsUser : politics.getPoliticsUser()) {
+            userIds.add(politicsUser.getUser().getId());
+        }
         politicsRepository.delete(politics);
+        feedService.delete(FeedService.FEED_TYPE.politics, politics.getId(), userIds);
     }
 
     @Override
@@ -222,22 +245,39 @@ public class PoliticsServiceImpl implements PoliticsService {
 
     @Override
     public void deleteIssueDatas(List<PoliticsIssueData> politicsIssueData) {
+        if (CollectionUtils.isEmpty(politicsIssueData)) {
+            return;
+        }
+        List<String> ids = new ArrayList<>(politicsIssueData.size());
         for (PoliticsIssueData politicsIssueDatum : politicsIssueData) {
-            politicsDiscussDataRepository.deleteByIssueDataId(politicsIssueDatum.getId());
-            politicsResolutionDataRepository.deleteByIssueDataId(politicsIssueDatum.getId());
-            politicsIssueDataRepository.deleteByIssueDataId(politicsIssueDatum.getId());
+            ids.add(politicsIssueDatum.getId());
         }
+        politicsDiscussDataRepository.deleteByIssueDataIds(ids);
+        politicsResolutionDataRepository.deleteByIssueDataIds(ids);
+        politicsIssueDataRepository.deleteByIssueDataIds(ids);
     }
 
 
+    @Override
+    @Transactional(readOnly = true)
+    public void exportUsers(String politicsId, OutputStream os, ProgressListener listener) throws IOException {
+        ExcelUtils.<Object[]>writeExcel(os, EXPORT_HEADERS,
+                last -> politicsUserRepository.findExportPage(politicsId, last == null ? "" : (String) last[0], PageRequest.of(0, ExcelUtils.EXPORT_PAGE_SIZE)),
+                row -> new Object[]{row[1], row[2], row[3],
+                        row[4] == null ? null : STATE_NAMES[((PoliticsUser.POLITICSUSER_TYPE) row[4]).ordinal()]},
+                listener);
+    }
+
     /**
      * 添加参与人员
      * @param us
      * @param politics
+     * @param userIds 添加的人员ID
      */
-    private void userSaveAll(List<User> us, Politics politics) {
+    private void userSaveAll(List<User> us, Politics politics, Set<String> userIds) {
         PoliticsUser pu;
         for (User u : us) {
+            userIds.add(u.getId());
             pu = new PoliticsUser();
             pu.setCreatedDate(new Date());
             pu.setLastModifiedDate(new Date());
@@ -1,15 +1,49 @@
 package com.iyundao.service.impl;
 
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.iyundao.base.shiro.RedisManager;
+import com.iyundao.base.utils.ExcelUtils;
+import com.iyundao.base.utils.GeoFence;
+import com.iyundao.base.utils.IdUtils;
+import com.iyundao.base.utils.JsonResult;
+import com.iyundao.base.utils.ParallelUtils;
+import com.iyundao.base.utils.ProgressListener;
+import com.iyundao.base.utils.TimeUtils;
+import com.iyundao.entity.Activity;
+import com.iyundao.entity.Attendance;
 import com.iyundao.entity.Sign;
+import com.iyundao.repository.ActivityRepository;
+import com.iyundao.repository.AttendanceRepository;
 import com.iyundao.repository.SignRepository;
+import com.iyundao.repository.UserRepository;
 import com.iyundao.service.SignService;
+import com.iyundao.service.SignStatService;
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.ArrayList;
-import java.util.List;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 /**
  * @ClassName: SignServiceImpl
@@ -23,9 +57,155 @@ import java.util.List;
 @Transactional
 public class SignServiceImpl implements SignService {
 
+    private static final String[] TYPE_NAMES = {"正常", "超出范围", "异常"};
+
+    private static final String[] EXPORT_HEADERS = {"账号", "姓名", "签到时间", "签到类型", "经度", "纬度"};
+
+    private static final Logger logger = LoggerFactory.getLogger(SignServiceImpl.class);
+
+    private static final String INSERT_SIGN = "INSERT INTO t_sign (ID, CREATEDATE, LASTMODIFIEDTIME, VERSION, SIGNTIME, SIGNTS, TYPE, ACTIVITYID, USERID, AXISX, AXISY) VALUES (?, ?, ?, 0, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_REVALIDATE = "SELECT ID, AXISX, AXISY, TYPE FROM t_sign WHERE ACTIVITYID = ? AND ID > ? ORDER BY ID LIMIT ?";
+
+    private static final String UPDATE_SIGN_TYPE = "UPDATE t_sign SET TYPE = ?, LASTMODIFIEDTIME = ?, VERSION = VERSION + 1 WHERE ID = ?";
+
+    /**
+     * 签到去重标记, iyundao:sign:{活动ID}:{用户ID}
+     */
+    private static final String PREFIX_SIGN = "iyundao:sign:";
+
+    /**
+     * 逐条重试后仍写入失败的签到, 每项为签到JSON及失败原因, 待排查后补录
+     */
+    private static final String KEY_FAILED_SIGN = "iyundao:sign_failed";
+
+    /**
+     * 重新校验时每页读取的签到数
+     */
+    private static final int REVALIDATE_PAGE_SIZE = 1000;
+
+    /**
+     * 批量写入失败后的重试次数
+     */
+    private static final int FLUSH_RETRY = 3;
+
+    /**
+     * 重试前的等待时间, 每次翻倍, 单位：毫秒
+     */
+    private static final long FLUSH_BACKOFF_MILLIS = 200;
+
+    /**
+     * 缓存的用户数超过后清空, 避免无限增长
+     */
+    private static final int MAX_CACHED_USERS = 100000;
+
+    /**
+     * 缓存的活动数超过后清空
+     */
+    private static final int MAX_CACHED_ACTIVITIES = 10000;
+
     @Autowired
     private SignRepository signRepository;
 
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private RedisManager redisManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SignStatService signStatService;
+
+    /**
+     * 签到缓冲队列长度, 超出后拒绝签到
+     */
+    @Value("${server.sign.queueCapacity:10000}")
+    private int queueCapacity;
+
+    /**
+     * 每批写入的签到数
+     */
+    @Value("${server.sign.batchSize:500}")
+    private int batchSize;
+
+    /**
+     * 队列未满一批时的最长等待时间, 单位：毫秒
+     */
+    @Value("${server.sign.flushMillis:200}")
+    private long flushMillis;
+
+    /**
+     * 重复扫码的去重时间, 单位：秒
+     */
+    @Value("${server.sign.dedupSeconds:600}")
+    private long dedupSeconds;
+
+    /**
+     * 活动/出勤快照及用户的缓存时间, 单位：秒
+     */
+    @Value("${server.sign.snapshotSeconds:60}")
+    private long snapshotSeconds;
+
+    /**
+     * 重新校验时并行处理的活动数, 每个占用一个数据库连接
+     */
+    @Value("${server.sign.revalidateThreads:4}")
+    private int revalidateThreads;
+
+    private BlockingQueue<SignRecord> queue;
+
+    private Thread flusher;
+
+    private volatile boolean running;
+
+    /**
+     * 活动ID -> 活动快照, 只缓存存在的活动
+     */
+    private final Map<String, ActivitySnapshot> activities = new ConcurrentHashMap<>();
+
+    /**
+     * 正在查库的活动, 同一活动并发签到时只有一个线程查库, 其余等待其结果
+     */
+    private final Map<String, CompletableFuture<ActivitySnapshot>> loadingActivities = new ConcurrentHashMap<>();
+
+    /**
+     * 已校验存在的用户ID -> 过期时间
+     */
+    private final Map<String, Long> users = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        flusher = new Thread(this::flushLoop, "sign-flush");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+        List<SignRecord> batch = new ArrayList<>();
+        while (queue.drainTo(batch, batchSize) > 0) {
+            flush(batch);
+            batch.clear();
+        }
+    }
+
     @Override
     public List<Sign> findByActivityId(String id) {
         List<Sign> signs = signRepository.findByActivityId(id);
@@ -33,4 +213,490 @@ public class SignServiceImpl implements SignService {
                 ? new ArrayList<>()
                 : signs;
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportByActivityId(String activityId, OutputStream os, ProgressListener listener) throws IOException {
+        ExcelUtils.<Object[]>writeExcel(os, EXPORT_HEADERS,
+                last -> signRepository.findExportPage(activityId, last == null ? "" : (String) last[0], PageRequest.of(0, ExcelUtils.EXPORT_PAGE_SIZE)),
+                row -> new Object[]{row[1], row[2], row[3],
+                        row[4] == null ? null : TYPE_NAMES[((Sign.SIGN_TYPE) row[4]).ordinal()],
+                        row[5], row[6]},
+                listener);
+    }
+
+    /**
+     * 只读缓存和redis, 不开启事务, 不占用数据库连接
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public JsonResult sign(String userId, String activityId, Sign.SIGN_TYPE signType, String signTime, String axisx, String axisy, JsonResult jsonResult) {
+        if (!existsUser(userId)) {
+            return JsonResult.failure(601, "用户不存在");
+        }
+        ActivitySnapshot activity = findSnapshot(activityId);
+        if (activity.id == null) {
+            return JsonResult.failure(602, "活动不存在");
+        }
+        signType = check(activity.fences, signType, axisx, axisy);
+        String key = PREFIX_SIGN + activity.id + ":" + userId;
+        if (!redisManager.setIfAbsent(key, TimeUtils.nowTime(), dedupSeconds)) {
+            return JsonResult.failure(604, "请勿重复签到");
+        }
+        SignRecord record = new SignRecord(IdUtils.nextId(), TimeUtils.nowTime(),
+                StringUtils.isBlank(signTime) ? TimeUtils.nowTime() : signTime, signType, activity.id, userId,
+                StringUtils.defaultString(axisx), StringUtils.defaultString(axisy));
+        if (!queue.offer(record)) {
+            redisManager.del(key);
+            return JsonResult.failure(605, "签到人数过多,请稍后再试");
+        }
+        jsonResult.setData(record.toJson());
+        return jsonResult;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public JSONObject revalidate(String activityId, ProgressListener listener) {
+        List<String> activityIds = StringUtils.isBlank(activityId)
+                ? attendanceRepository.findFencedActivityIds()
+                : Collections.singletonList(activityId);
+        RevalidateStats stats = new RevalidateStats();
+        Set<String> changedIds = ConcurrentHashMap.newKeySet();
+        ParallelUtils.forEach(activityIds, revalidateThreads, id -> {
+            if (revalidateActivity(id, stats, listener)) {
+                changedIds.add(id);
+            }
+        });
+        // 签到状态有变化的活动重新计算统计
+        for (String id : changedIds) {
+            signStatService.rebuild(id, ProgressListener.NONE);
+        }
+        return stats.toJson();
+    }
+
+    /**
+     * 按ID分页读取活动的签到记录, 每页并行校验后批量更新有变化的记录
+     * @param activityId
+     * @param stats
+     * @param listener
+     * @return 是否有记录被修改
+     */
+    private boolean revalidateActivity(String activityId, RevalidateStats stats, ProgressListener listener) {
+        List<GeoFence> fences = compile(attendanceRepository.findByActivityId(activityId));
+        if (fences.isEmpty()) {
+            return false;
+        }
+        boolean changed = false;
+        Sign.SIGN_TYPE[] types = Sign.SIGN_TYPE.values();
+        String lastId = "";
+        while (true) {
+            List<Object[]> rows = jdbcTemplate.query(SELECT_REVALIDATE,
+                    (rs, i) -> new Object[]{rs.getString(1), rs.getString(2), rs.getString(3), rs.getObject(4)},
+                    activityId, lastId, REVALIDATE_PAGE_SIZE);
+            if (rows.isEmpty()) {
+                return changed;
+            }
+            Timestamp now = Timestamp.valueOf(TimeUtils.now());
+            List<Object[]> updates = rows.parallelStream().map(row -> {
+                Sign.SIGN_TYPE current = row[3] == null ? Sign.SIGN_TYPE.normal : types[((Number) row[3]).intValue()];
+                Sign.SIGN_TYPE checked = check(fences, current, (String) row[1], (String) row[2]);
+                stats.add(checked, checked != current);
+                return checked == current ? null : new Object[]{checked.ordinal(), now, row[0]};
+            }).filter(Objects::nonNull).collect(Collectors.toList());
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_SIGN_TYPE, updates);
+                changed = true;
+            }
+            lastId = (String) rows.get(rows.size() - 1)[0];
+            listener.progress(stats.total.sum());
+        }
+    }
+
+    /**
+     * 预编译出勤的签到范围
+     * @param attendances
+     * @return
+     */
+    private static List<GeoFence> compile(Collection<Attendance> attendances) {
+        if (CollectionUtils.isEmpty(attendances)) {
+            return Collections.emptyList();
+        }
+        List<GeoFence> fences = new ArrayList<>();
+        for (Attendance attendance : attendances) {
+            GeoFence fence = GeoFence.compile(attendance.getAxisx(), attendance.getAxisy(), attendance.getArea());
+            if (fence != null) {
+                fences.add(fence);
+            }
+        }
+        return fences;
+    }
+
+    /**
+     * 按签到范围判断签到状态: 在任一范围内时保留提交的状态(超出范围改为正常), 范围外为超出范围, 坐标无法解析为异常
+     * @param fences 为空时不限制
+     * @param signType 提交的状态
+     * @param axisx
+     * @param axisy
+     * @return
+     */
+    private static Sign.SIGN_TYPE check(List<GeoFence> fences, Sign.SIGN_TYPE signType, String axisx, String axisy) {
+        if (fences.isEmpty()) {
+            return signType;
+        }
+        Double x = GeoFence.parse(axisx);
+        Double y = GeoFence.parse(axisy);
+        if (x == null || y == null) {
+            return Sign.SIGN_TYPE.abnormal;
+        }
+        for (GeoFence fence : fences) {
+            if (fence.contains(x, y)) {
+                return signType == Sign.SIGN_TYPE.out ? Sign.SIGN_TYPE.normal : signType;
+            }
+        }
+        return Sign.SIGN_TYPE.out;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public JSONObject findHistory(String userId, Sign.SIGN_TYPE signType, String cursor, int size) {
+        long lastTs = Long.MAX_VALUE;
+        String lastId = "";
+        if (StringUtils.isNotBlank(cursor)) {
+            String[] parts = StringUtils.split(cursor, '-');
+            if (parts.length != 2 || !StringUtils.isNumeric(parts[0])) {
+                return null;
+            }
+            lastTs = Long.parseLong(parts[0]);
+            lastId = parts[1];
+        }
+        List<Object[]> rows = signRepository.findHistory(userId, signType, lastTs, lastId, PageRequest.of(0, size));
+        JSONArray content = new JSONArray();
+        for (Object[] row : rows) {
+            JSONObject json = new JSONObject();
+            json.put("id", row[0]);
+            json.put("signTime", row[1]);
+            json.put("signTs", row[2]);
+            json.put("signType", ((Sign.SIGN_TYPE) row[3]).name());
+            json.put("axisx", row[4]);
+            json.put("axisy", row[5]);
+            json.put("activityId", row[6]);
+            json.put("activityName", row[7]);
+            content.add(json);
+        }
+        JSONObject json = new JSONObject();
+        json.put("content", content);
+        Object[] last = rows.size() < size ? null : rows.get(rows.size() - 1);
+        json.put("cursor", last == null ? null : last[2] + "-" + last[0]);
+        return json;
+    }
+
+    private boolean existsUser(String userId) {
+        if (StringUtils.isBlank(userId)) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        Long expireAt = users.get(userId);
+        if (expireAt != null && expireAt > now) {
+            return true;
+        }
+        if (!userRepository.exists(userId)) {
+            return false;
+        }
+        if (users.size() >= MAX_CACHED_USERS) {
+            users.clear();
+        }
+        users.put(userId, now + TimeUnit.SECONDS.toMillis(snapshotSeconds));
+        return true;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void evictActivity(String activityId) {
+        discard(activityId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    discard(activityId);
+                }
+            });
+        }
+    }
+
+    private void discard(String activityId) {
+        activities.remove(activityId);
+        List<SignRecord> dropped = new ArrayList<>();
+        queue.removeIf(record -> {
+            if (activityId.equals(record.activityId)) {
+                dropped.add(record);
+                return true;
+            }
+            return false;
+        });
+        if (!dropped.isEmpty()) {
+            logger.info("drop " + dropped.size() + " queued signs of deleted activity " + activityId);
+        }
+    }
+
+    private ActivitySnapshot findSnapshot(String activityId) {
+        if (StringUtils.isBlank(activityId)) {
+            return ActivitySnapshot.EMPTY;
+        }
+        long now = System.currentTimeMillis();
+        ActivitySnapshot snapshot = activities.get(activityId);
+        if (snapshot != null && snapshot.expireAt > now) {
+            return snapshot;
+        }
+        CompletableFuture<ActivitySnapshot> loading = new CompletableFuture<>();
+        CompletableFuture<ActivitySnapshot> existing = loadingActivities.putIfAbsent(activityId, loading);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            Activity activity = activityRepository.find(activityId);
+            snapshot = activity == null
+                    ? ActivitySnapshot.EMPTY
+                    : new ActivitySnapshot(activity, now + TimeUnit.SECONDS.toMillis(snapshotSeconds));
+            if (activity != null) {
+                if (activities.size() >= MAX_CACHED_ACTIVITIES) {
+                    activities.clear();
+                }
+                activities.put(activityId, snapshot);
+            }
+            loading.complete(snapshot);
+            return snapshot;
+        } catch (RuntimeException e) {
+            loading.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadingActivities.remove(activityId, loading);
+        }
+    }
+
+    /**
+     * 攒够一批或等待超时后写入
+     */
+    private void flushLoop() {
+        List<SignRecord> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                SignRecord first = queue.poll(flushMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || wait <= 0) {
+                        break;
+                    }
+                    SignRecord next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 批量写入并累加统计, 失败后等待递增的时间重试;
+     * 仍失败时逐条写入, 避免一条无效记录(如活动已清理)拖累整批, 逐条仍失败的转存到redis
+     * @param batch
+     */
+    private void flush(List<SignRecord> batch) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        Exception error = null;
+        for (int i = 1; i <= FLUSH_RETRY; i++) {
+            try {
+                write(template, batch);
+                return;
+            } catch (Exception e) {
+                error = e;
+                logger.error("flush sign fail, retry " + i + ", size " + batch.size(), e);
+            }
+            if (i < FLUSH_RETRY && !backoff(i)) {
+                break;
+            }
+        }
+        if (batch.size() == 1) {
+            deadLetter(batch.get(0), error);
+            return;
+        }
+        for (SignRecord record : batch) {
+            try {
+                write(template, Collections.singletonList(record));
+            } catch (Exception e) {
+                deadLetter(record, e);
+            }
+        }
+    }
+
+    private void write(TransactionTemplate template, List<SignRecord> records) {
+        List<Object[]> args = new ArrayList<>(records.size());
+        List<SignStatService.SignRow> rows = new ArrayList<>(records.size());
+        for (SignRecord record : records) {
+            args.add(record.toArgs());
+            rows.add(new SignStatService.SignRow(record.activityId, record.userId, record.signTime, record.signType));
+        }
+        template.execute(status -> {
+            jdbcTemplate.batchUpdate(INSERT_SIGN, args);
+            signStatService.increment(rows);
+            return null;
+        });
+    }
+
+    /**
+     * @param attempt 已尝试的次数
+     * @return 等待期间被中断时返回false, 不再重试
+     */
+    private boolean backoff(int attempt) {
+        try {
+            Thread.sleep(FLUSH_BACKOFF_MILLIS << (attempt - 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 转存无法写入的签到, 保留去重标记; redis也不可用时记录到日志并清除去重标记, 用户可重新签到
+     * @param record
+     * @param error
+     */
+    private void deadLetter(SignRecord record, Exception error) {
+        JSONObject json = record.toJson();
+        json.put("error", error == null ? null : String.valueOf(error.getMessage()));
+        if (redisManager.lSet(KEY_FAILED_SIGN, json.toJSONString())) {
+            logger.error("sign saved to " + KEY_FAILED_SIGN + ": " + record.id, error);
+            return;
+        }
+        logger.error("sign lost: " + json.toJSONString(), error);
+        redisManager.del(PREFIX_SIGN + record.activityId + ":" + record.userId);
+    }
+
+    /**
+     * 活动快照, 签到校验只读取快照
+     */
+    private static class ActivitySnapshot {
+
+        private static final ActivitySnapshot EMPTY = new ActivitySnapshot(null, Long.MAX_VALUE);
+
+        private final String id;
+
+        /**
+         * 出勤的签到范围, 为空时不限制
+         */
+        private final List<GeoFence> fences;
+
+        private final long expireAt;
+
+        private ActivitySnapshot(Activity activity, long expireAt) {
+            this.id = activity == null ? null : activity.getId();
+            this.fences = activity == null ? Collections.emptyList() : compile(activity.getAttendances());
+            this.expireAt = expireAt;
+        }
+    }
+
+    /**
+     * 重新校验的统计
+     */
+    private static class RevalidateStats {
+
+        private final LongAdder total = new LongAdder();
+
+        private final LongAdder changed = new LongAdder();
+
+        private final LongAdder[] types = new LongAdder[Sign.SIGN_TYPE.values().length];
+
+        private RevalidateStats() {
+            for (int i = 0; i < types.length; i++) {
+                types[i] = new LongAdder();
+            }
+        }
+
+        private void add(Sign.SIGN_TYPE signType, boolean isChanged) {
+            total.increment();
+            types[signType.ordinal()].increment();
+            if (isChanged) {
+                changed.increment();
+            }
+        }
+
+        private JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("total", total.sum());
+            json.put("changed", changed.sum());
+            for (Sign.SIGN_TYPE signType : Sign.SIGN_TYPE.values()) {
+                json.put(signType.name(), types[signType.ordinal()].sum());
+            }
+            return json;
+        }
+    }
+
+    /**
+     * 待写入的签到
+     */
+    private static class SignRecord {
+
+        private final String id;
+
+        private final String createdDate;
+
+        private final String signTime;
+
+        private final Sign.SIGN_TYPE signType;
+
+        private final String activityId;
+
+        private final String userId;
+
+        private final String axisx;
+
+        private final String axisy;
+
+        private SignRecord(String id, String createdDate, String signTime, Sign.SIGN_TYPE signType, String activityId, String userId, String axisx, String axisy) {
+            this.id = id;
+            this.createdDate = createdDate;
+            this.signTime = signTime;
+            this.signType = signType;
+            this.activityId = activityId;
+            this.userId = userId;
+            this.axisx = axisx;
+            this.axisy = axisy;
+        }
+
+        private Object[] toArgs() {
+            Long signTs = TimeUtils.toMillis(signTime);
+            Timestamp created = Timestamp.valueOf(TimeUtils.parse(createdDate));
+            return new Object[]{id, created, created, signTime, signTs != null ? signTs : TimeUtils.toMillis(createdDate),
+                    signType.ordinal(), activityId, userId, axisx, axisy};
+        }
+
+        private JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("id", id);
+            json.put("version", "0");
+            json.put("createdDate", createdDate);
+            json.put("lastModifiedDate", createdDate);
+            json.put("activityId", activityId);
+            json.put("userId", userId);
+            json.put("signTime", signTime);
+            json.put("signType", signType.name());
+            json.put("axisx", axisx);
+            json.put("axisy", axisy);
+            return json;
+        }
+    }
 }
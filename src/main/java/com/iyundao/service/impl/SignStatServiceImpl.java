@@ -0,0 +1,285 @@
+package com.iyundao.service.impl;
+
+import com.alibaba.fastjson.JSONObject;
+import com.iyundao.base.utils.IdUtils;
+import com.iyundao.base.utils.ParallelUtils;
+import com.iyundao.base.utils.ProgressListener;
+import com.iyundao.base.utils.TimeUtils;
+import com.iyundao.entity.Sign;
+import com.iyundao.entity.SignStat;
+import com.iyundao.repository.SignStatRepository;
+import com.iyundao.service.SignStatService;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @ClassName: SignStatServiceImpl
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/8/26 15:50
+ * @Description: 服务实现 - 签到统计
+ * @Version: V2.0
+ */
+@Service
+@Transactional(rollbackFor = Exception.class)
+public class SignStatServiceImpl implements SignStatService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignStatServiceImpl.class);
+
+    private static final String UPSERT_STAT = "INSERT INTO t_sign_stat (ID, CREATEDATE, LASTMODIFIEDTIME, VERSION, ACTIVITYID, DIMTYPE, DIMID, TOTAL, NORMAL, OUTS, ABNORMAL) VALUES (?, ?, ?, 0, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE TOTAL = TOTAL + VALUES(TOTAL), NORMAL = NORMAL + VALUES(NORMAL), OUTS = OUTS + VALUES(OUTS), ABNORMAL = ABNORMAL + VALUES(ABNORMAL), LASTMODIFIEDTIME = VALUES(LASTMODIFIEDTIME)";
+
+    private static final String SELECT_ATTENDANCE = "SELECT ID, ACTIVITYID, STARTTIME, ENDTIME FROM t_attendance WHERE ACTIVITYID IN (:ids)";
+
+    private static final String SELECT_RELATION = "SELECT USERID, SUBJECTID, DEPARTID, GROUPID FROM t_user_relations WHERE USERID IN (:ids)";
+
+    /**
+     * TYPE可为空(V0), 无类型的签到不计入统计
+     */
+    private static final String SELECT_SIGN_PAGE = "SELECT ID, USERID, SIGNTIME, TYPE FROM t_sign WHERE ACTIVITYID = ? AND ID > ? AND TYPE IS NOT NULL ORDER BY ID LIMIT ?";
+
+    private static final String SELECT_SIGNED_ACTIVITY = "SELECT DISTINCT ACTIVITYID FROM t_sign";
+
+    /**
+     * 重建时每页读取的签到数
+     */
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    @Autowired
+    private SignStatRepository signStatRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 重建时并行处理的活动数, 每个占用一个数据库连接
+     */
+    @Value("${server.sign.rebuildThreads:4}")
+    private int rebuildThreads;
+
+    @Override
+    public void increment(List<SignRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Map<StatKey, long[]> counts = new HashMap<>();
+        aggregate(rows, counts, new HashMap<>());
+        write(counts);
+    }
+
+    /**
+     * 分批读取签到并在内存中汇总, 最后在一个事务中替换活动的统计
+     * 重建期间新写入的签到可能漏计, 应在活动签到结束后执行
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public JSONObject rebuild(String activityId, ProgressListener listener) {
+        List<String> activityIds = StringUtils.isBlank(activityId)
+                ? jdbcTemplate.queryForList(SELECT_SIGNED_ACTIVITY, String.class)
+                : Collections.singletonList(activityId);
+        LongAdder signs = new LongAdder();
+        ParallelUtils.forEach(activityIds, rebuildThreads, id -> {
+            signs.add(rebuildActivity(id));
+            listener.progress(signs.sum());
+        });
+        JSONObject json = new JSONObject();
+        json.put("activities", activityIds.size());
+        json.put("signs", signs.sum());
+        return json;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SignStat find(String activityId, SignStat.STAT_TYPE type, String dimId) {
+        return signStatRepository.find(activityId, type, dimId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SignStat> findByActivityId(String activityId, SignStat.STAT_TYPE type) {
+        return signStatRepository.findByActivityId(activityId, type);
+    }
+
+    private long rebuildActivity(String activityId) {
+        Map<StatKey, long[]> counts = new HashMap<>();
+        Map<String, List<String[]>> windows = new HashMap<>();
+        Sign.SIGN_TYPE[] types = Sign.SIGN_TYPE.values();
+        long total = 0;
+        String[] lastId = {""};
+        while (true) {
+            List<SignRow> rows = new ArrayList<>();
+            jdbcTemplate.query(SELECT_SIGN_PAGE, rs -> {
+                lastId[0] = rs.getString(1);
+                rows.add(new SignRow(activityId, rs.getString(2), rs.getString(3), types[rs.getInt(4)]));
+            }, activityId, lastId[0], REBUILD_PAGE_SIZE);
+            if (rows.isEmpty()) {
+                break;
+            }
+            aggregate(rows, counts, windows);
+            total += rows.size();
+        }
+        new TransactionTemplate(transactionManager).execute(status -> {
+            signStatRepository.deleteByActivityId(activityId);
+            write(counts);
+            return null;
+        });
+        return total;
+    }
+
+    /**
+     * 按活动/出勤时间段/用户所在机构,部门,小组/用户汇总
+     * @param rows
+     * @param counts 汇总结果, 累加
+     * @param windows 活动ID -> 出勤时间段[ID, 开始时间, 结束时间], 缺少的活动从数据库补充
+     */
+    private void aggregate(List<SignRow> rows, Map<StatKey, long[]> counts, Map<String, List<String[]>> windows) {
+        Set<String> activityIds = new HashSet<>();
+        Set<String> userIds = new HashSet<>();
+        for (SignRow row : rows) {
+            if (!windows.containsKey(row.getActivityId())) {
+                activityIds.add(row.getActivityId());
+            }
+            userIds.add(row.getUserId());
+        }
+        if (!activityIds.isEmpty()) {
+            for (String id : activityIds) {
+                windows.put(id, new ArrayList<>());
+            }
+            namedParameterJdbcTemplate.query(SELECT_ATTENDANCE, Collections.singletonMap("ids", activityIds), rs -> {
+                windows.get(rs.getString(2)).add(new String[]{rs.getString(1), rs.getString(3), rs.getString(4)});
+            });
+        }
+        Map<String, Set<StatKey>> orgs = new HashMap<>();
+        namedParameterJdbcTemplate.query(SELECT_RELATION, Collections.singletonMap("ids", userIds), rs -> {
+            Set<StatKey> keys = orgs.computeIfAbsent(rs.getString(1), k -> new HashSet<>());
+            addOrg(keys, SignStat.STAT_TYPE.subject, rs.getString(2));
+            addOrg(keys, SignStat.STAT_TYPE.depart, rs.getString(3));
+            addOrg(keys, SignStat.STAT_TYPE.groups, rs.getString(4));
+        });
+        for (SignRow row : rows) {
+            if (row.getSignType() == null) {
+                logger.warn("sign without type skipped: " + row.getActivityId() + ", " + row.getUserId());
+                continue;
+            }
+            String activityId = row.getActivityId();
+            add(counts, new StatKey(activityId, SignStat.STAT_TYPE.activity, activityId), row.getSignType());
+            add(counts, new StatKey(activityId, SignStat.STAT_TYPE.user, row.getUserId()), row.getSignType());
+            String attendanceId = findWindow(windows.get(activityId), row.getSignTime());
+            if (attendanceId != null) {
+                add(counts, new StatKey(activityId, SignStat.STAT_TYPE.attendance, attendanceId), row.getSignType());
+            }
+            for (StatKey org : orgs.getOrDefault(row.getUserId(), Collections.emptySet())) {
+                add(counts, new StatKey(activityId, org.type, org.dimId), row.getSignType());
+            }
+        }
+    }
+
+    /**
+     * 按唯一键排序后批量写入, 多个节点同时写入时加锁顺序一致, 避免死锁
+     * @param counts
+     */
+    private void write(Map<StatKey, long[]> counts) {
+        List<StatKey> keys = new ArrayList<>(counts.keySet());
+        keys.sort(Comparator.comparing((StatKey key) -> key.activityId)
+                .thenComparing(key -> key.type)
+                .thenComparing(key -> key.dimId));
+        Timestamp now = Timestamp.valueOf(TimeUtils.now());
+        List<Object[]> args = new ArrayList<>(keys.size());
+        for (StatKey key : keys) {
+            long[] count = counts.get(key);
+            args.add(new Object[]{IdUtils.nextId(), now, now,
+                    key.activityId, key.type.ordinal(), key.dimId, count[0], count[1], count[2], count[3]});
+        }
+        jdbcTemplate.batchUpdate(UPSERT_STAT, args);
+    }
+
+    /**
+     * 签到时间所在的出勤时间段, 只比较yyyyMMddHHmmss格式的时间
+     * @param windows
+     * @param signTime
+     * @return
+     */
+    private static String findWindow(List<String[]> windows, String signTime) {
+        if (windows == null || !isTime(signTime)) {
+            return null;
+        }
+        for (String[] window : windows) {
+            if (isTime(window[1]) && isTime(window[2])
+                    && signTime.compareTo(window[1]) >= 0 && signTime.compareTo(window[2]) <= 0) {
+                return window[0];
+            }
+        }
+        return null;
+    }
+
+    private static boolean isTime(String time) {
+        return time != null && time.length() == 14 && StringUtils.isNumeric(time);
+    }
+
+    private static void addOrg(Set<StatKey> keys, SignStat.STAT_TYPE type, String id) {
+        if (id != null) {
+            keys.add(new StatKey(null, type, id));
+        }
+    }
+
+    /**
+     * counts: [签到数, 正常, 超出范围, 异常]
+     */
+    private static void add(Map<StatKey, long[]> counts, StatKey key, Sign.SIGN_TYPE signType) {
+        long[] count = counts.computeIfAbsent(key, k -> new long[4]);
+        count[0]++;
+        count[signType.ordinal() + 1]++;
+    }
+
+    private static class StatKey {
+
+        private final String activityId;
+
+        private final SignStat.STAT_TYPE type;
+
+        private final String dimId;
+
+        private StatKey(String activityId, SignStat.STAT_TYPE type, String dimId) {
+            this.activityId = activityId;
+            this.type = type;
+            this.dimId = dimId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof StatKey)) {
+                return false;
+            }
+            StatKey key = (StatKey) o;
+            return Objects.equals(activityId, key.activityId) && type == key.type && dimId.equals(key.dimId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(activityId, type, dimId);
+        }
+    }
+}
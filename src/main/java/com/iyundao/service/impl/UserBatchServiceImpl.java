@@ -0,0 +1,243 @@
+package com.iyundao.service.impl;
+
+import com.alibaba.fastjson.JSONObject;
+import com.iyundao.base.shiro.RedisManager;
+import com.iyundao.base.shiro.SecurityConsts;
+import com.iyundao.base.utils.IdUtils;
+import com.iyundao.base.utils.TimeUtils;
+import com.iyundao.service.UserBatchService;
+import com.iyundao.service.UserRowService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * @ClassName: UserBatchServiceImpl
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/3 14:30
+ * @Description: 服务实现 - 用户标签/岗位/角色批量调整
+ * @Version: V2.0
+ */
+@Service
+@Transactional(rollbackFor = Exception.class)
+public class UserBatchServiceImpl implements UserBatchService {
+
+    private static final Relation LABEL = new Relation("t_user_label", "LABELID");
+
+    private static final Relation POSITION = new Relation("t_position_relation", "POSITIONID");
+
+    private static final Relation ROLE = new Relation("t_role_relation", "ROLEID", "PERMISSIONID");
+
+    private static final String SELECT_USER = "SELECT ID, ACCOUNT FROM t_user WHERE ID IN (:ids)";
+
+    private static final String COUNT_USER_LABEL = "SELECT COUNT(*) FROM t_label WHERE TYPE = 0 AND ID IN (:ids)";
+
+    private static final String COUNT_POSITION = "SELECT COUNT(*) FROM t_position WHERE ID IN (:ids)";
+
+    private static final String COUNT_ROLE = "SELECT COUNT(*) FROM t_role WHERE ID IN (:ids)";
+
+    private static final String COUNT_PERMISSION = "SELECT COUNT(*) FROM t_permission WHERE ID IN (:ids)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private RedisManager redisManager;
+
+    @Autowired
+    private UserRowService userRowService;
+
+    @Override
+    public JSONObject updateLabels(List<String> userIds, List<String> addIds, List<String> removeIds) {
+        Set<String> targetIds = new HashSet<>(addIds);
+        targetIds.addAll(removeIds);
+        if (findAccounts(userIds) == null || !exists(COUNT_USER_LABEL, targetIds)) {
+            return null;
+        }
+        JSONObject summary = apply(LABEL, userIds, single(addIds), removeIds);
+        if (summary.getIntValue("added") + summary.getIntValue("removed") > 0) {
+            userRowService.refreshUsers(userIds);
+        }
+        return summary;
+    }
+
+    @Override
+    public JSONObject updatePositions(List<String> userIds, List<String> addIds, List<String> removeIds) {
+        Set<String> targetIds = new HashSet<>(addIds);
+        targetIds.addAll(removeIds);
+        if (findAccounts(userIds) == null || !exists(COUNT_POSITION, targetIds)) {
+            return null;
+        }
+        return apply(POSITION, userIds, single(addIds), removeIds);
+    }
+
+    @Override
+    public JSONObject updateRoles(List<String> userIds, List<String> roleIds, List<String> permissionIds, List<String> removeIds) {
+        Set<String> targetIds = new HashSet<>(roleIds);
+        targetIds.addAll(removeIds);
+        List<String> accounts = findAccounts(userIds);
+        if (accounts == null || !exists(COUNT_ROLE, targetIds) || !exists(COUNT_PERMISSION, new HashSet<>(permissionIds))) {
+            return null;
+        }
+        List<String[]> adds = new ArrayList<>();
+        for (String roleId : new LinkedHashSet<>(roleIds)) {
+            for (String permissionId : new LinkedHashSet<>(permissionIds)) {
+                adds.add(new String[]{roleId, permissionId});
+            }
+        }
+        JSONObject summary = apply(ROLE, userIds, adds, removeIds);
+        if (summary.getIntValue("added") + summary.getIntValue("removed") > 0) {
+            evictAuthorizationAfterCommit(accounts);
+        }
+        return summary;
+    }
+
+    /**
+     * 一次查出用户已有的关联, 与要添加/移除的比较后批量写入
+     * @param relation
+     * @param userIds
+     * @param adds 添加的关联, 每项为关联表中除USERID外的各列
+     * @param removeIds 移除的关联, 匹配第一列
+     * @return
+     */
+    private JSONObject apply(Relation relation, List<String> userIds, List<String[]> adds, List<String> removeIds) {
+        Set<String> users = new LinkedHashSet<>(userIds);
+        Set<String> removes = new HashSet<>(removeIds);
+        Map<String, Map<String, String>> existing = new HashMap<>();
+        namedParameterJdbcTemplate.query(relation.select, Collections.singletonMap("ids", users), rs -> {
+            String[] target = new String[relation.columns.length];
+            for (int i = 0; i < target.length; i++) {
+                target[i] = rs.getString(i + 3);
+            }
+            existing.computeIfAbsent(rs.getString(2), k -> new HashMap<>()).put(String.join(",", target), rs.getString(1));
+        });
+        Timestamp now = Timestamp.valueOf(TimeUtils.now());
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        int unchanged = 0;
+        for (String userId : users) {
+            Map<String, String> rows = existing.getOrDefault(userId, Collections.emptyMap());
+            for (Map.Entry<String, String> row : rows.entrySet()) {
+                if (removes.contains(row.getKey().split(",", 2)[0])) {
+                    deletes.add(new Object[]{row.getValue()});
+                }
+            }
+            Set<String> added = new HashSet<>();
+            for (String[] target : adds) {
+                String key = String.join(",", target);
+                if (rows.containsKey(key)) {
+                    unchanged++;
+                } else if (added.add(key)) {
+                    Object[] args = new Object[4 + target.length];
+                    args[0] = IdUtils.nextId();
+                    args[1] = now;
+                    args[2] = now;
+                    args[3] = userId;
+                    System.arraycopy(target, 0, args, 4, target.length);
+                    inserts.add(args);
+                }
+            }
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(relation.delete, deletes);
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(relation.insert, inserts);
+        }
+        JSONObject json = new JSONObject();
+        json.put("users", users.size());
+        json.put("added", inserts.size());
+        json.put("removed", deletes.size());
+        json.put("unchanged", unchanged);
+        return json;
+    }
+
+    /**
+     * @param userIds
+     * @return 用户账号, 有用户不存在时返回null
+     */
+    private List<String> findAccounts(List<String> userIds) {
+        Set<String> ids = new HashSet<>(userIds);
+        if (ids.isEmpty()) {
+            return null;
+        }
+        List<String> accounts = new ArrayList<>();
+        namedParameterJdbcTemplate.query(SELECT_USER, Collections.singletonMap("ids", ids), rs -> {
+            accounts.add(rs.getString(2));
+        });
+        return accounts.size() == ids.size() ? accounts : null;
+    }
+
+    private boolean exists(String countSql, Set<String> ids) {
+        if (ids.isEmpty()) {
+            return true;
+        }
+        Integer count = namedParameterJdbcTemplate.queryForObject(countSql, Collections.singletonMap("ids", ids), Integer.class);
+        return count != null && count == ids.size();
+    }
+
+    private static List<String[]> single(List<String> ids) {
+        List<String[]> targets = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(ids)) {
+            targets.add(new String[]{id});
+        }
+        return targets;
+    }
+
+    /**
+     * 角色变化后清除用户的权限缓存, 下次请求时重新加载
+     * @param accounts
+     */
+    private void evictAuthorizationAfterCommit(List<String> accounts) {
+        String[] keys = new String[accounts.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = SecurityConsts.PREFIX_SHIRO_CACHE + accounts.get(i);
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            redisManager.del(keys);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                redisManager.del(keys);
+            }
+        });
+    }
+
+    /**
+     * 用户关联表
+     */
+    private static class Relation {
+
+        private final String[] columns;
+
+        private final String select;
+
+        private final String insert;
+
+        private final String delete;
+
+        private Relation(String table, String... columns) {
+            String names = String.join(", ", columns);
+            String[] marks = new String[columns.length];
+            Arrays.fill(marks, "?");
+            this.columns = columns;
+            this.select = "SELECT ID, USERID, " + names + " FROM " + table + " WHERE USERID IN (:ids)";
+            this.insert = "INSERT INTO " + table + " (ID, CREATEDATE, LASTMODIFIEDTIME, VERSION, USERID, " + names + ") " +
+                    "VALUES (?, ?, ?, 0, ?, " + String.join(", ", marks) + ")";
+            this.delete = "DELETE FROM " + table + " WHERE ID = ?";
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.iyundao.service.impl;
+
+import com.alibaba.fastjson.JSONObject;
+import com.iyundao.base.Order;
+import com.iyundao.base.Page;
+import com.iyundao.base.Pageable;
+import com.iyundao.base.utils.ProgressListener;
+import com.iyundao.entity.UserRow;
+import com.iyundao.repository.UserRowRepository;
+import com.iyundao.service.UserRowService;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.*;
+
+/**
+ * @ClassName: UserRowServiceImpl
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/11 10:00
+ * @Description: 服务实现 - 用户列表读模型, 列表行由用户、机构关系、标签表计算后整行写入
+ * @Version: V2.0
+ */
+@Service
+@Transactional(rollbackFor = Exception.class)
+public class UserRowServiceImpl implements UserRowService {
+
+    /**
+     * 可按包含匹配查询的列
+     */
+    private static final Set<String> SEARCH_PROPERTIES = new HashSet<>(Arrays.asList(
+            "account", "name", "code", "statusName", "remark", "relations", "labels"));
+
+    /**
+     * 可排序的列
+     */
+    private static final Set<String> ORDER_PROPERTIES = new HashSet<>(Arrays.asList(
+            "account", "name", "code", "sex", "status", "statusName", "remark", "relations", "labels",
+            "createdDate", "lastModifiedDate"));
+
+    /**
+     * 用户已删除但仍有列表行的ID, 只返回存在的行, 删除时只锁这些行
+     */
+    private static final String SELECT_ORPHAN_ROW = "SELECT r.ID FROM t_user_row r LEFT JOIN t_user u ON u.ID = r.ID WHERE r.ID IN (:ids) AND u.ID IS NULL";
+
+    private static final String DELETE_ROW = "DELETE FROM t_user_row WHERE ID IN (:ids)";
+
+    /**
+     * 状态名称与User.ACCOUNT_TYPE的顺序一致; 关系和标签超出列长度时截断;
+     * 按主键插入或覆盖, 与V6__user_row.sql的回填语句一致
+     */
+    private static final String INSERT_ROW = "INSERT INTO t_user_row (ID, CREATEDATE, LASTMODIFIEDTIME, VERSION, ACCOUNT, NAME, CODE, SEX, STATUS, STATUSNAME, REMARK, RELATIONS, LABELS) " +
+            "SELECT u.ID, u.CREATEDATE, u.LASTMODIFIEDTIME, 1, u.ACCOUNT, u.NAME, u.CODE, u.SEX, u.STATUS, " +
+            "CASE u.STATUS WHEN 0 THEN '正常' WHEN 1 THEN '禁用' WHEN 2 THEN '锁定' END, u.REMARK, " +
+            "(SELECT LEFT(GROUP_CONCAT(CONCAT_WS('-', s.NAME, d.NAME, g.NAME) SEPARATOR ','), 1000) FROM t_user_relations ur " +
+            "JOIN t_subject s ON s.ID = ur.SUBJECTID LEFT JOIN t_depart d ON d.ID = ur.DEPARTID LEFT JOIN t_group g ON g.ID = ur.GROUPID " +
+            "WHERE ur.USERID = u.ID), " +
+            "(SELECT LEFT(GROUP_CONCAT(l.NAME SEPARATOR ','), 1000) FROM t_user_label ul JOIN t_label l ON l.ID = ul.LABELID " +
+            "WHERE ul.USERID = u.ID) " +
+            "FROM t_user u WHERE u.ID IN (:ids) " +
+            "ON DUPLICATE KEY UPDATE CREATEDATE = VALUES(CREATEDATE), LASTMODIFIEDTIME = VALUES(LASTMODIFIEDTIME), " +
+            "VERSION = t_user_row.VERSION + 1, ACCOUNT = VALUES(ACCOUNT), NAME = VALUES(NAME), CODE = VALUES(CODE), " +
+            "SEX = VALUES(SEX), STATUS = VALUES(STATUS), STATUSNAME = VALUES(STATUSNAME), REMARK = VALUES(REMARK), " +
+            "RELATIONS = VALUES(RELATIONS), LABELS = VALUES(LABELS)";
+
+    private static final String SELECT_SUBJECT_USER = "SELECT DISTINCT USERID FROM t_user_relations WHERE USERID IS NOT NULL AND SUBJECTID = ?";
+
+    private static final String SELECT_DEPART_USER = "SELECT DISTINCT USERID FROM t_user_relations WHERE USERID IS NOT NULL AND DEPARTID = ?";
+
+    private static final String SELECT_USER = "SELECT ID FROM t_user";
+
+    private static final String DELETE_ORPHAN_ROW = "DELETE FROM t_user_row WHERE ID NOT IN (SELECT ID FROM t_user)";
+
+    /**
+     * 每批更新的用户数
+     */
+    private static final int USER_BATCH_SIZE = 500;
+
+    @Autowired
+    private UserRowRepository userRowRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 用户/关系/标签可能刚通过JPA保存, 用JDBC读取前先写入数据库
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void refreshUsers(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(userIds));
+        for (int from = 0; from < ids.size(); from += USER_BATCH_SIZE) {
+            write(ids.subList(from, Math.min(from + USER_BATCH_SIZE, ids.size())));
+        }
+    }
+
+    @Override
+    public void refreshSubject(String subjectId) {
+        refreshUsers(jdbcTemplate.queryForList(SELECT_SUBJECT_USER, String.class, subjectId));
+    }
+
+    @Override
+    public void refreshDepart(String departId) {
+        refreshUsers(jdbcTemplate.queryForList(SELECT_DEPART_USER, String.class, departId));
+    }
+
+    /**
+     * 用于修复列表行, 每批用户在单独的事务中更新
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public JSONObject rebuild(ProgressListener listener) {
+        List<String> userIds = jdbcTemplate.queryForList(SELECT_USER, String.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long done = 0;
+        for (int from = 0; from < userIds.size(); from += USER_BATCH_SIZE) {
+            List<String> batch = userIds.subList(from, Math.min(from + USER_BATCH_SIZE, userIds.size()));
+            transactionTemplate.execute(status -> {
+                write(batch);
+                return null;
+            });
+            done += batch.size();
+            listener.progress(done);
+        }
+        JSONObject json = new JSONObject();
+        json.put("users", userIds.size());
+        json.put("deleted", jdbcTemplate.update(DELETE_ORPHAN_ROW));
+        return json;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<UserRow> findPage(Pageable pageable) {
+        if (StringUtils.isNotEmpty(pageable.getSearchKey()) && !SEARCH_PROPERTIES.contains(pageable.getSearchKey())) {
+            return null;
+        }
+        for (Order order : pageable.getOrders()) {
+            if (!ORDER_PROPERTIES.contains(order.getProperty())) {
+                return null;
+            }
+        }
+        return userRowRepository.findPage(pageable);
+    }
+
+    /**
+     * 按当前数据整行插入或覆盖, 用户已删除时删除其列表行;
+     * 不先删除再插入, 避免在调用方事务中对不存在的主键加间隙锁, 并发写入时互相死锁
+     * 先删除已删除用户的行, 避免其账号被新用户使用时按唯一键覆盖到旧行
+     * @param userIds
+     */
+    private void write(List<String> userIds) {
+        Map<String, Object> params = Collections.singletonMap("ids", userIds);
+        List<String> orphans = namedParameterJdbcTemplate.queryForList(SELECT_ORPHAN_ROW, params, String.class);
+        if (!orphans.isEmpty()) {
+            namedParameterJdbcTemplate.update(DELETE_ROW, Collections.singletonMap("ids", orphans));
+        }
+        namedParameterJdbcTemplate.update(INSERT_ROW, params);
+    }
+}
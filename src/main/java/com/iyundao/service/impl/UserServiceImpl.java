@@ -4,21 +4,32 @@ import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.iyundao.base.Page;
 import com.iyundao.base.Pageable;
-import com.iyundao.base.utils.JsonResult;
-import com.iyundao.base.utils.JsonUtils;
+import com.iyundao.base.config.ServiceCacheConfig;
+import com.iyundao.base.utils.*;
 import com.iyundao.entity.*;
 import com.iyundao.repository.*;
+import com.iyundao.service.AudienceService;
+import com.iyundao.service.UserRowService;
 import com.iyundao.service.UserService;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Date;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
 
 /**
  * @ClassName: UserServiceImpl
@@ -35,6 +46,9 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     @Autowired
     private DepartRepository departRepository;
 
@@ -63,11 +77,47 @@ public class UserServiceImpl implements UserService {
     private UserInfoRepository userInfoRepository;
 
     @Autowired
-    private UserInfoRepository userInfoRepository;
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AudienceService audienceService;
+
+    @Autowired
+    private UserRowService userRowService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 导入时每批处理的行数
+     */
+    private static final int IMPORT_BATCH_SIZE = 500;
+
+    private static final String[] STATUS_NAMES = {"正常", "禁用", "锁定"};
+
+    private static final String[] EXPORT_HEADERS = {"账号", "姓名", "编号", "性别", "状态", "电话", "邮箱", "创建时间"};
+
+    private static final String INSERT_USER = "INSERT INTO t_user (ID, CREATEDATE, LASTMODIFIEDTIME, VERSION, ACCOUNT, NAME, CODE, PASSWORD, SALT, SEX, STATUS, REMARK) VALUES (?, ?, ?, 0, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_USER_INFO = "INSERT INTO t_user_info (ID, CREATEDATE, LASTMODIFIEDTIME, VERSION, USERID, name, NATION, AGE, POLITICAL, NATIVEPLACE, UNIVERSITY, MAJOR, EDUCATION, BIRTHDAY, ADDRESS, TEL, EMAIL, WX, QQ, ICARD) VALUES (?, ?, ?, 0, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_USER_RELATION = "INSERT INTO t_user_relations (ID, CREATEDATE, LASTMODIFIEDTIME, VERSION, SUBJECTID, DEPARTID, GROUPID, USERID) VALUES (?, ?, ?, 0, ?, ?, ?, ?)";
+
+    private static final String INSERT_ROLE_RELATION = "INSERT INTO t_role_relation (ID, CREATEDATE, LASTMODIFIEDTIME, VERSION, USERID, ROLEID, PERMISSIONID) VALUES (?, ?, ?, 0, ?, ?, ?)";
 
     @Override
     public User findByAccount(String account) {
-        return userRepository.findByAccount(account);
+        String id = StringUtils.isEmpty(account) ? null : userRepository.findIdByAccount(account);
+        if (id == null) {
+            return null;
+        }
+        User user = userRepository.find(id);
+        // 账号已修改或用户已删除时缓存的ID过期, 清除后按账号查询
+        if (user == null || !account.equalsIgnoreCase(user.getAccount())) {
+            cacheManager.getCache(ServiceCacheConfig.USER_ACCOUNT).evict(account);
+            return userRepository.findByAccount(account);
+        }
+        return user;
     }
 
     @Override
@@ -89,6 +139,8 @@ public class UserServiceImpl implements UserService {
     public void delete(String id) {
         User user = userRepository.findByUserId(id);
         userRepository.delete(user);
+        audienceService.refreshUsers(Collections.singletonList(id));
+        userRowService.refreshUsers(Collections.singletonList(id));
     }
 
     @Override
@@ -130,6 +182,7 @@ public class UserServiceImpl implements UserService {
             user.setRoleRelations(set);
         }
         userRelationRepository.save(userRelation);
+        audienceService.refreshUsers(Collections.singletonList(user.getId()));
         Set<UserRelation> userRelations = new HashSet<>();
         userRelations.add(userRelation);
         user.setUserRelations(userRelations);
@@ -146,6 +199,7 @@ public class UserServiceImpl implements UserService {
         }
         user.setLabels(userLabels);
         user = userRepository.save(user);
+        userRowService.refreshUsers(Collections.singletonList(user.getId()));
         jsonResult.setData(getUserInfoJson(user));
         return jsonResult;
     }
@@ -197,7 +251,7 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public List<User> findByGroupIdForPage(String groupId) {
-        return userRepository.findByGroupIdForPage(groupId);
+        return userRepository.findWithRelationsByGroupId(groupId);
     }
 
     @Override
@@ -354,43 +408,342 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public UserInfo saveUserInfo(User user, String name, String nation, int age, String political, String nativePlace, String university, String major, String education, String birthDay, String address, long tel, String email, String wx, String qq, String iCard, String selfEvaluation) {
-        UserInfo info = new UserInfo();
-        info.setCreatedDate(new Date());
-        info.setLastModifiedDate(new Date());
-        info.setUser(user);
-        return saveUserInfo(info, name, nation, age, political, nativePlace, university, major, education, birthDay, address, tel, email, wx, qq, iCard, selfEvaluation);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public JsonResult importUsers(String fileName, InputStream is, Subject subject, String departId, String groupsId, List<Role> roles, List<Permission> permissions, String defaultPassword, ProgressListener listener, JsonResult jsonResult) throws IOException {
+        if (subject == null) {
+            is.close();
+            return JsonResult.failure(604, "机构不存在");
+        }
+        Depart depart = StringUtils.isBlank(departId) ? null : departRepository.findByDepartId(departId);
+        Group groups = StringUtils.isBlank(groupsId) ? null : groupRepository.findByGroupId(groupsId);
+        if (depart == null && groups == null) {
+            is.close();
+            return JsonResult.failure(603, "部门/组织不存在");
+        }
+        long start = System.currentTimeMillis();
+        UserImport userImport = new UserImport(subject, depart, groups, roles, permissions, defaultPassword, listener);
+        ExcelUtils.read(fileName, is, userImport::accept);
+        userImport.flush();
+        long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+        JSONObject json = new JSONObject();
+        json.put("total", userImport.total);
+        json.put("success", userImport.success);
+        json.put("failed", userImport.errors.size());
+        json.put("elapsed", elapsed);
+        json.put("rowsPerSecond", userImport.total * 1000L / elapsed);
+        json.put("errors", userImport.errors);
+        jsonResult.setData(json);
+        return jsonResult;
     }
 
     @Override
-    public UserInfo findUserInfoById(String id) {
-        return userInfoRepository.find(id);
+    @Transactional(readOnly = true)
+    public void exportUsers(Subject subject, OutputStream os, ProgressListener listener) throws IOException {
+        ExcelUtils.<Object[]>writeExcel(os, EXPORT_HEADERS,
+                last -> userRepository.findExportPage(subject.getId(), last == null ? "" : (String) last[0], PageRequest.of(0, ExcelUtils.EXPORT_PAGE_SIZE)),
+                row -> new Object[]{row[1], row[2], row[3],
+                        Integer.valueOf(1).equals(row[4]) ? "女" : "男",
+                        row[5] == null ? null : STATUS_NAMES[((User.ACCOUNT_TYPE) row[5]).ordinal()],
+                        row[6] == null || ((Long) row[6]) == 0 ? null : String.valueOf(row[6]),
+                        row[7], TimeUtils.format((LocalDateTime) row[8])},
+                listener);
     }
 
-    @Override
-    public UserInfo modifyUserInfo(UserInfo userInfo, String name, String nation, int age, String political, String nativePlace, String university, String major, String education, String birthDay, String address, long tel, String email, String wx, String qq, String iCard, String selfEvaluation) {
-        userInfo.setLastModifiedDate(new Date());
-        return saveUserInfo(userInfo, name, nation, age, political, nativePlace, university, major, education, birthDay, address, tel, email, wx, qq, iCard, selfEvaluation);
+    /**
+     * 导入行
+     */
+    private static class ImportRow {
+
+        private final int sheet;
+
+        private final int row;
+
+        private final User user = new User();
+
+        private UserInfo info;
+
+        private String error;
+
+        private ImportRow(int sheet, int row) {
+            this.sheet = sheet;
+            this.row = row;
+        }
     }
 
-    private UserInfo saveUserInfo(UserInfo userInfo, String name, String nation, int age, String political, String nativePlace, String university, String major, String education, String birthDay, String address, long tel, String email, String wx, String qq, String iCard, String selfEvaluation) {
-        userInfo.setName(name);
-        userInfo.setNation(nation);
-        userInfo.setAddress(address);
-        userInfo.setAge(age);
-        userInfo.setPolitical(political);
-        userInfo.setNativePlace(nativePlace);
-        userInfo.setUniversity(university);
-        userInfo.setMajor(major);
-        userInfo.setEducation(education);
-        userInfo.setBirthDay(birthDay);
-        userInfo.setTel(tel);
-        userInfo.setEmail(email);
-        userInfo.setWx(wx);
-        userInfo.setQq(qq);
-        userInfo.setiCard(iCard);
-        userInfo.setSelfEvaluation(selfEvaluation);
-        userInfo = userInfoRepository.save(userInfo);
-        return userInfo;
+    /**
+     * 单次导入的状态: 逐行接收解析结果, 每IMPORT_BATCH_SIZE行校验并批量写入一次
+     */
+    private class UserImport {
+
+        private final Subject subject;
+
+        private final Depart depart;
+
+        private final Group groups;
+
+        private final List<Role> roles;
+
+        private final List<Permission> permissions;
+
+        private final String defaultPassword;
+
+        private final ProgressListener listener;
+
+        private final Map<Integer, ExcelMapper<User>> userMappers = new HashMap<>();
+
+        private final Map<Integer, ExcelMapper<UserInfo>> infoMappers = new HashMap<>();
+
+        private final List<ImportRow> rows = new ArrayList<>(IMPORT_BATCH_SIZE);
+
+        /**
+         * 文件内已出现的账号/编号/电话/身份证号/微信号/QQ号
+         */
+        private final Set<String> accounts = new HashSet<>();
+
+        private final Set<String> codes = new HashSet<>();
+
+        private final Set<Long> tels = new HashSet<>();
+
+        private final Set<String> iCards = new HashSet<>();
+
+        private final Set<String> wxs = new HashSet<>();
+
+        private final Set<String> qqs = new HashSet<>();
+
+        private final JSONArray errors = new JSONArray();
+
+        private int total;
+
+        private int success;
+
+        private UserImport(Subject subject, Depart depart, Group groups, List<Role> roles, List<Permission> permissions, String defaultPassword, ProgressListener listener) {
+            this.subject = subject;
+            this.depart = depart;
+            this.groups = groups;
+            this.roles = roles == null ? Collections.emptyList() : roles;
+            this.permissions = permissions == null ? Collections.emptyList() : permissions;
+            this.defaultPassword = defaultPassword;
+            this.listener = listener;
+        }
+
+        private void accept(int sheetIndex, int rowNum, List<String> cells) {
+            ExcelMapper<User> userMapper = userMappers.get(sheetIndex);
+            if (userMapper == null) {
+                userMappers.put(sheetIndex, new ExcelMapper<>(User.class, cells));
+                infoMappers.put(sheetIndex, new ExcelMapper<>(UserInfo.class, cells));
+                return;
+            }
+            ExcelMapper<UserInfo> infoMapper = infoMappers.get(sheetIndex);
+            ImportRow row = new ImportRow(sheetIndex, rowNum + 1);
+            total++;
+            try {
+                userMapper.map(cells, row.user);
+                if (infoMapper.hasValue(cells)) {
+                    row.info = new UserInfo();
+                    infoMapper.map(cells, row.info);
+                }
+            } catch (IllegalArgumentException e) {
+                row.error = e.getMessage();
+            }
+            rows.add(row);
+            if (rows.size() >= IMPORT_BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (rows.isEmpty()) {
+                return;
+            }
+            rows.parallelStream().filter(r -> r.error == null).forEach(this::validate);
+            checkUnique();
+            List<ImportRow> valid = new ArrayList<>(rows.size());
+            for (ImportRow row : rows) {
+                if (row.error == null) {
+                    valid.add(row);
+                } else {
+                    addError(row);
+                }
+            }
+            if (!valid.isEmpty()) {
+                try {
+                    write(valid);
+                    success += valid.size();
+                } catch (RuntimeException e) {
+                    for (ImportRow row : valid) {
+                        row.error = "保存失败: " + e.getMessage();
+                        addError(row);
+                    }
+                }
+            }
+            rows.clear();
+            listener.progress(total);
+        }
+
+        /**
+         * 与其他行无关的校验及密码加密, 并行执行
+         * @param row
+         */
+        private void validate(ImportRow row) {
+            User user = row.user;
+            if (StringUtils.isBlank(user.getAccount())
+                    || StringUtils.isBlank(user.getName())
+                    || StringUtils.isBlank(user.getCode())) {
+                row.error = "账号/姓名/编号不能为空";
+                return;
+            }
+            if (user.getAccount().length() > 50 || user.getName().length() > 50 || user.getCode().length() > 10) {
+                row.error = "账号/姓名/编号长度超出限制";
+                return;
+            }
+            if (user.getSex() != 0 && user.getSex() != 1) {
+                row.error = "性别只能为0或1";
+                return;
+            }
+            if (row.info != null) {
+                if (row.info.getTel() == 0) {
+                    row.error = "填写个人详情时电话不能为空";
+                    return;
+                }
+                if (String.valueOf(row.info.getTel()).length() != 11) {
+                    row.error = "电话格式不正确";
+                    return;
+                }
+            }
+            String password = StringUtils.isBlank(user.getPassword()) ? defaultPassword : user.getPassword();
+            if (StringUtils.isBlank(password)) {
+                row.error = "密码不能为空";
+                return;
+            }
+            user.setSalt(EncryptUtils.getSalt());
+            user.setPassword(EncryptUtils.getSaltMD5(password, user.getSalt()));
+        }
+
+        /**
+         * 文件内及库内唯一性校验, 每批各查询一次
+         */
+        private void checkUnique() {
+            Set<String> batchAccounts = new HashSet<>();
+            Set<String> batchCodes = new HashSet<>();
+            Set<Long> batchTels = new HashSet<>();
+            Set<String> batchICards = new HashSet<>();
+            Set<String> batchWxs = new HashSet<>();
+            Set<String> batchQqs = new HashSet<>();
+            for (ImportRow row : rows) {
+                if (row.error != null) {
+                    continue;
+                }
+                if (!accounts.add(row.user.getAccount())) {
+                    row.error = "账号在文件中重复: " + row.user.getAccount();
+                } else if (!codes.add(row.user.getCode())) {
+                    row.error = "编号在文件中重复: " + row.user.getCode();
+                } else if (row.info != null && !tels.add(row.info.getTel())) {
+                    row.error = "电话在文件中重复: " + row.info.getTel();
+                } else if (row.info != null && StringUtils.isNotBlank(row.info.getiCard()) && !iCards.add(row.info.getiCard())) {
+                    row.error = "身份证号在文件中重复: " + row.info.getiCard();
+                } else if (row.info != null && StringUtils.isNotBlank(row.info.getWx()) && !wxs.add(row.info.getWx())) {
+                    row.error = "微信号在文件中重复: " + row.info.getWx();
+                } else if (row.info != null && StringUtils.isNotBlank(row.info.getQq()) && !qqs.add(row.info.getQq())) {
+                    row.error = "QQ号在文件中重复: " + row.info.getQq();
+                }
+                if (row.error == null) {
+                    batchAccounts.add(row.user.getAccount());
+                    batchCodes.add(row.user.getCode());
+                    if (row.info != null) {
+                        batchTels.add(row.info.getTel());
+                        if (StringUtils.isNotBlank(row.info.getiCard())) {
+                            batchICards.add(row.info.getiCard());
+                        }
+                        if (StringUtils.isNotBlank(row.info.getWx())) {
+                            batchWxs.add(row.info.getWx());
+                        }
+                        if (StringUtils.isNotBlank(row.info.getQq())) {
+                            batchQqs.add(row.info.getQq());
+                        }
+                    }
+                }
+            }
+            Set<String> existsAccounts = batchAccounts.isEmpty() ? Collections.emptySet() : new HashSet<>(userRepository.findAccountsIn(batchAccounts));
+            Set<String> existsCodes = batchCodes.isEmpty() ? Collections.emptySet() : new HashSet<>(userRepository.findCodesIn(batchCodes));
+            Set<Long> existsTels = batchTels.isEmpty() ? Collections.emptySet() : new HashSet<>(userInfoRepository.findTelsIn(batchTels));
+            Set<String> existsICards = batchICards.isEmpty() ? Collections.emptySet() : new HashSet<>(userInfoRepository.findICardsIn(batchICards));
+            Set<String> existsWxs = batchWxs.isEmpty() ? Collections.emptySet() : new HashSet<>(userInfoRepository.findWxsIn(batchWxs));
+            Set<String> existsQqs = batchQqs.isEmpty() ? Collections.emptySet() : new HashSet<>(userInfoRepository.findQqsIn(batchQqs));
+            for (ImportRow row : rows) {
+                if (row.error != null) {
+                    continue;
+                }
+                if (existsAccounts.contains(row.user.getAccount())) {
+                    row.error = "账号已存在: " + row.user.getAccount();
+                } else if (existsCodes.contains(row.user.getCode())) {
+                    row.error = "编号已存在: " + row.user.getCode();
+                } else if (row.info != null && existsTels.contains(row.info.getTel())) {
+                    row.error = "电话已存在: " + row.info.getTel();
+                } else if (row.info != null && existsICards.contains(row.info.getiCard())) {
+                    row.error = "身份证号已存在: " + row.info.getiCard();
+                } else if (row.info != null && existsWxs.contains(row.info.getWx())) {
+                    row.error = "微信号已存在: " + row.info.getWx();
+                } else if (row.info != null && existsQqs.contains(row.info.getQq())) {
+                    row.error = "QQ号已存在: " + row.info.getQq();
+                }
+            }
+        }
+
+        /**
+         * 同一事务内批量写入用户/详情/机构关系/角色关系
+         * @param valid
+         */
+        private void write(List<ImportRow> valid) {
+            Timestamp now = Timestamp.valueOf(TimeUtils.now());
+            List<Object[]> users = new ArrayList<>(valid.size());
+            List<Object[]> infos = new ArrayList<>();
+            List<Object[]> userRelations = new ArrayList<>(valid.size());
+            List<Object[]> roleRelations = new ArrayList<>();
+            List<String> userIds = new ArrayList<>(valid.size());
+            for (ImportRow row : valid) {
+                User user = row.user;
+                String userId = IdUtils.nextId();
+                userIds.add(userId);
+                users.add(new Object[]{userId, now, now, user.getAccount(), user.getName(), user.getCode(),
+                        user.getPassword(), user.getSalt(), user.getSex(), User.ACCOUNT_TYPE.normal.ordinal(), user.getRemark()});
+                UserInfo info = row.info;
+                if (info != null) {
+                    infos.add(new Object[]{IdUtils.nextId(), now, now, userId, user.getName(), info.getNation(), info.getAge(),
+                            info.getPolitical(), info.getNativePlace(), info.getUniversity(), info.getMajor(),
+                            info.getEducation(), info.getBirthDay(), info.getAddress(), info.getTel(), info.getEmail(),
+                            StringUtils.trimToNull(info.getWx()), StringUtils.trimToNull(info.getQq()), StringUtils.trimToNull(info.getiCard())});
+                }
+                userRelations.add(new Object[]{IdUtils.nextId(), now, now, subject.getId(),
+                        depart == null ? null : depart.getId(), groups == null ? null : groups.getId(), userId});
+                for (Role role : roles) {
+                    for (Permission permission : permissions) {
+                        roleRelations.add(new Object[]{IdUtils.nextId(), now, now, userId, role.getId(), permission.getId()});
+                    }
+                }
+            }
+            TransactionTemplate template = new TransactionTemplate(transactionManager);
+            template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            template.execute(status -> {
+                jdbcTemplate.batchUpdate(INSERT_USER, users);
+                if (!infos.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_USER_INFO, infos);
+                }
+                jdbcTemplate.batchUpdate(INSERT_USER_RELATION, userRelations);
+                if (!roleRelations.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_ROLE_RELATION, roleRelations);
+                }
+                audienceService.refreshUsers(userIds);
+                userRowService.refreshUsers(userIds);
+                return null;
+            });
+        }
+
+        private void addError(ImportRow row) {
+            JSONObject json = new JSONObject();
+            json.put("sheet", row.sheet + 1);
+            json.put("row", row.row);
+            json.put("message", row.error);
+            errors.add(json);
+        }
     }
 }
@@ -0,0 +1,48 @@
+-- 迁移引入前由ddl-auto建好的库: V0对已有的表不做修改, 这里补建之后实体新增的列及其外键/索引
+-- 每项先查information_schema, 已存在时不执行; 新库由V0建表, 本版本不做任何修改
+
+-- 签到时间戳, V1回填并建立索引
+SET @sql = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE t_sign ADD COLUMN SIGNTS BIGINT AFTER SIGNTIME', 'DO 0')
+    FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 't_sign' AND COLUMN_NAME = 'SIGNTS');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 活动附件内容
+SET @sql = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE t_activity_file ADD COLUMN BLOBID VARCHAR(32)', 'DO 0')
+    FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 't_activity_file' AND COLUMN_NAME = 'BLOBID');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @sql = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE t_activity_file ADD KEY FKbqrixdj2io0y6s5beadp5glgv (BLOBID), ADD CONSTRAINT FKbqrixdj2io0y6s5beadp5glgv FOREIGN KEY (BLOBID) REFERENCES t_file_blob (ID)', 'DO 0')
+    FROM information_schema.TABLE_CONSTRAINTS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 't_activity_file' AND CONSTRAINT_NAME = 'FKbqrixdj2io0y6s5beadp5glgv');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 活动图片内容
+SET @sql = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE t_activity_image ADD COLUMN BLOBID VARCHAR(32)', 'DO 0')
+    FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 't_activity_image' AND COLUMN_NAME = 'BLOBID');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @sql = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE t_activity_image ADD KEY FK3hrjhfifa3jv4yh0ipaba7vfn (BLOBID), ADD CONSTRAINT FK3hrjhfifa3jv4yh0ipaba7vfn FOREIGN KEY (BLOBID) REFERENCES t_file_blob (ID)', 'DO 0')
+    FROM information_schema.TABLE_CONSTRAINTS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 't_activity_image' AND CONSTRAINT_NAME = 'FK3hrjhfifa3jv4yh0ipaba7vfn');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 用户文件内容
+SET @sql = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE t_user_file ADD COLUMN BLOBID VARCHAR(32) AFTER URL', 'DO 0')
+    FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 't_user_file' AND COLUMN_NAME = 'BLOBID');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @sql = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE t_user_file ADD KEY FKjv365m5dw35cjph9j5vnlndi1 (BLOBID), ADD CONSTRAINT FKjv365m5dw35cjph9j5vnlndi1 FOREIGN KEY (BLOBID) REFERENCES t_file_blob (ID)', 'DO 0')
+    FROM information_schema.TABLE_CONSTRAINTS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 't_user_file' AND CONSTRAINT_NAME = 'FKjv365m5dw35cjph9j5vnlndi1');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,547 @@
+-- 基线: 实体映射对应的全部表, 外键和唯一约束与Hibernate生成的同名
+-- 已由ddl-auto建好表的库中各语句不做任何修改, 之后新增的列由V0.1补建; 新库由此建表后再执行V0.1及以后的版本
+SET FOREIGN_KEY_CHECKS = 0;
+
+CREATE TABLE IF NOT EXISTS t_activity (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    CONTENT VARCHAR(500),
+    NAME VARCHAR(50) NOT NULL,
+    NUMBER TINYINT DEFAULT 0,
+    TOTAL VARCHAR(50) DEFAULT 'blank' NOT NULL,
+    TYPE INTEGER,
+    PRIMARY KEY (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_activity_file (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    CONTENT VARCHAR(500),
+    FROMTO VARCHAR(50),
+    HOTS TINYINT DEFAULT 0 NOT NULL,
+    NAME VARCHAR(50) NOT NULL,
+    SUFFIX VARCHAR(4),
+    TYPE INTEGER,
+    URL VARCHAR(100),
+    ACTIVITYID VARCHAR(32),
+    BLOBID VARCHAR(32),
+    PRIMARY KEY (ID),
+    CONSTRAINT FK5qcxrdpvl1ld3kkj7dpedsa69 FOREIGN KEY (ACTIVITYID) REFERENCES t_activity (ID),
+    CONSTRAINT FKbqrixdj2io0y6s5beadp5glgv FOREIGN KEY (BLOBID) REFERENCES t_file_blob (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_activity_image (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    HOTS TINYINT DEFAULT 0,
+    NAME VARCHAR(50) NOT NULL,
+    SUFFIX VARCHAR(4) NOT NULL,
+    URL VARCHAR(100) NOT NULL,
+    ACTIVITYID VARCHAR(32),
+    BLOBID VARCHAR(32),
+    PRIMARY KEY (ID),
+    CONSTRAINT FKna4ejnfxbuqc7u24xu2wpms3e FOREIGN KEY (ACTIVITYID) REFERENCES t_activity (ID),
+    CONSTRAINT FK3hrjhfifa3jv4yh0ipaba7vfn FOREIGN KEY (BLOBID) REFERENCES t_file_blob (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_attendance (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    AREA VARCHAR(50),
+    TYPE INTEGER,
+    AXISX VARCHAR(50),
+    AXISY VARCHAR(50),
+    DAY INTEGER,
+    ENDTIME VARCHAR(255) NOT NULL,
+    STARTTIME VARCHAR(255) NOT NULL,
+    ACTIVITYID VARCHAR(32),
+    PRIMARY KEY (ID),
+    CONSTRAINT FKmmah3yp3v845eflyxluvc9gmq FOREIGN KEY (ACTIVITYID) REFERENCES t_activity (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_depart (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    CODE VARCHAR(10) NOT NULL,
+    NAME VARCHAR(50) NOT NULL,
+    FATHERID VARCHAR(32),
+    SUBJECT_ID VARCHAR(32) NOT NULL,
+    USERID VARCHAR(32),
+    PRIMARY KEY (ID),
+    UNIQUE KEY UK_2sp1ch3s0bh9d2rclk89439n6 (CODE),
+    CONSTRAINT FK8qh59976j2ae58ngq4cwwkvdn FOREIGN KEY (FATHERID) REFERENCES t_depart (ID),
+    CONSTRAINT FKgkgym27yo30afg8bg9sr3x9we FOREIGN KEY (SUBJECT_ID) REFERENCES t_subject (ID),
+    CONSTRAINT FKjbdwq2568gcs8nc89oxtfyqoa FOREIGN KEY (USERID) REFERENCES t_user (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_file_blob (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    HASH CHAR(64) NOT NULL,
+    REFCOUNT INTEGER NOT NULL,
+    FILESIZE BIGINT NOT NULL,
+    URL VARCHAR(100) NOT NULL,
+    PRIMARY KEY (ID),
+    UNIQUE KEY UK_7ttsmjiyupogsdjyu1sf74okh (HASH)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_group (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    CODE VARCHAR(10) NOT NULL,
+    NAME VARCHAR(50),
+    REMARK VARCHAR(500),
+    FATHERID VARCHAR(32),
+    SUBJECTID VARCHAR(32),
+    USERID VARCHAR(32),
+    PRIMARY KEY (ID),
+    UNIQUE KEY UK_1s2m11ua4tdfg0n2outl66bsw (CODE),
+    CONSTRAINT FKl4gv3qxhlm5fw7l2wpq79n9w4 FOREIGN KEY (FATHERID) REFERENCES t_group (ID),
+    CONSTRAINT FKaqogmchspdjjv5n9hal759lh5 FOREIGN KEY (SUBJECTID) REFERENCES t_subject (ID),
+    CONSTRAINT FKk4wpowm53mouf8a45ct2jeolu FOREIGN KEY (USERID) REFERENCES t_user (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_industry (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    CODE VARCHAR(10) NOT NULL,
+    NAME VARCHAR(50) NOT NULL,
+    FATHERID VARCHAR(32),
+    PRIMARY KEY (ID),
+    UNIQUE KEY UK_63hoj1vaftqllx0h50xs60wog (CODE),
+    CONSTRAINT FK4pb5aaq31akh4jvy7ahje3ieq FOREIGN KEY (FATHERID) REFERENCES t_industry (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_label (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    CODE VARCHAR(10) NOT NULL,
+    NAME VARCHAR(50) NOT NULL,
+    REMARK VARCHAR(255),
+    TYPE TINYINT(1) DEFAULT '0' NOT NULL,
+    PRIMARY KEY (ID),
+    UNIQUE KEY UK_607j7jnay4ldrv2rwae07nae3 (CODE)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_permission (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    code VARCHAR(255),
+    name VARCHAR(255),
+    PRIMARY KEY (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_politics (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    CONTENT VARCHAR(2000),
+    ENDTIME VARCHAR(50),
+    STARTTIME VARCHAR(50),
+    STATE INTEGER,
+    TITLE VARCHAR(50) NOT NULL,
+    PRIMARY KEY (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_politics_deption (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    DEPARTID VARCHAR(32),
+    GROUPID VARCHAR(32),
+    POLITICSID VARCHAR(32),
+    SUBJECTID VARCHAR(32),
+    PRIMARY KEY (ID),
+    CONSTRAINT FKhcoxix4hm277wyc95er5ckvid FOREIGN KEY (DEPARTID) REFERENCES t_depart (ID),
+    CONSTRAINT FKett6j0u03432wdcra4uktq4yk FOREIGN KEY (GROUPID) REFERENCES t_group (ID),
+    CONSTRAINT FKjr4clsxf3nc0ifxd1adhpalv9 FOREIGN KEY (POLITICSID) REFERENCES t_politics (ID),
+    CONSTRAINT FKq8iy9c4k4nk00rvja2paes7w2 FOREIGN KEY (SUBJECTID) REFERENCES t_subject (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_politics_discuss_data (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    CONTENT VARCHAR(500),
+    POLITICSID VARCHAR(32),
+    POLITICSISSUEDATAID VARCHAR(32),
+    USERID VARCHAR(32),
+    PRIMARY KEY (ID),
+    CONSTRAINT FKoeq7pgs9xnhf8ei0uanq754b8 FOREIGN KEY (POLITICSID) REFERENCES t_politics (ID),
+    CONSTRAINT FK65r9vq85w21p3iw1jsvdcl1db FOREIGN KEY (POLITICSISSUEDATAID) REFERENCES t_politics_issue_data (ID),
+    CONSTRAINT FKgc89tl7kfvp7ugrgd4lhes6b FOREIGN KEY (USERID) REFERENCES t_user (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_politics_issue_data (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    CONTENT VARCHAR(5000),
+    SORT INTEGER,
+    TITLE VARCHAR(50) NOT NULL,
+    POLITICSID VARCHAR(32),
+    PRIMARY KEY (ID),
+    CONSTRAINT FK76ya9t9e7m7o35r0mktg6gfye FOREIGN KEY (POLITICSID) REFERENCES t_politics (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_politics_resolution_data (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    CONTENT VARCHAR(500),
+    POLITICSID VARCHAR(32),
+    POLITICSISSUEDATAID VARCHAR(32),
+    PRIMARY KEY (ID),
+    CONSTRAINT FKtrtli6t1cnrshl87qct75wads FOREIGN KEY (POLITICSID) REFERENCES t_politics (ID),
+    CONSTRAINT FKbtr2plll7ejwpmb87u8ed72vp FOREIGN KEY (POLITICSISSUEDATAID) REFERENCES t_politics_issue_data (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_politics_user (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    STATE INT DEFAULT 0,
+    POLITICSID VARCHAR(32),
+    USERID VARCHAR(32),
+    PRIMARY KEY (ID),
+    CONSTRAINT FKtp7y998tfwvi0bmlu3iftcm74 FOREIGN KEY (POLITICSID) REFERENCES t_politics (ID),
+    CONSTRAINT FK8cj95lsc5s7v3dl4yn584ylfi FOREIGN KEY (USERID) REFERENCES t_user (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_position (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    NAME VARCHAR(50) NOT NULL,
+    REMARK VARCHAR(255),
+    DEPARTID VARCHAR(32),
+    GROUPID VARCHAR(32),
+    INDUSTRYID VARCHAR(32) NOT NULL,
+    PRIMARY KEY (ID),
+    CONSTRAINT FK8s5jx7g7u4bgw78gj7qyafkws FOREIGN KEY (DEPARTID) REFERENCES t_depart (ID),
+    CONSTRAINT FK8ua4i5mwdu5807o8kmy7lkgs5 FOREIGN KEY (GROUPID) REFERENCES t_group (ID),
+    CONSTRAINT FKbkhq22qg9iaso677ohbsni00p FOREIGN KEY (INDUSTRYID) REFERENCES t_industry (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_position_relation (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    POSITIONID VARCHAR(32) NOT NULL,
+    USERID VARCHAR(32) NOT NULL,
+    PRIMARY KEY (ID),
+    CONSTRAINT FKafxtp3n1ntx8owhaaowyg26j0 FOREIGN KEY (POSITIONID) REFERENCES t_position (ID),
+    CONSTRAINT FKh8ccje7gj2vcdc0s7iifmaip9 FOREIGN KEY (USERID) REFERENCES t_user (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_release_depart (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    DEPARTID VARCHAR(255) NOT NULL,
+    ACTIVITYID VARCHAR(32) NOT NULL,
+    PRIMARY KEY (ID),
+    CONSTRAINT FKdaipcctkmug15doyhn56bhos FOREIGN KEY (ACTIVITYID) REFERENCES t_activity (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_release_groups (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    GROUPSID VARCHAR(255) NOT NULL,
+    ACTIVITYID VARCHAR(32) NOT NULL,
+    PRIMARY KEY (ID),
+    CONSTRAINT FKlq1fffqw55bfg51kdtttk0m7s FOREIGN KEY (ACTIVITYID) REFERENCES t_activity (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_release_subject (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    SUBJECTID VARCHAR(255) NOT NULL,
+    ACTIVITYID VARCHAR(32) NOT NULL,
+    PRIMARY KEY (ID),
+    CONSTRAINT FKe7bjes0dn71ynxmm71u5htt5x FOREIGN KEY (ACTIVITYID) REFERENCES t_activity (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_role (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    CODE VARCHAR(50) NOT NULL,
+    NAME VARCHAR(50) NOT NULL,
+    PRIMARY KEY (ID),
+    UNIQUE KEY UK_qrwx99xr4ym4d8uwv3p4ptlg7 (CODE)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_role_relation (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    PERMISSIONID VARCHAR(32),
+    ROLEID VARCHAR(32),
+    USERID VARCHAR(32),
+    PRIMARY KEY (ID),
+    CONSTRAINT FKrlq8pgutj1nry5cu53yxuv3ek FOREIGN KEY (PERMISSIONID) REFERENCES t_permission (ID),
+    CONSTRAINT FKs2ssvqf38liov3mye2y166cny FOREIGN KEY (ROLEID) REFERENCES t_role (ID),
+    CONSTRAINT FKs7ypsb24j1q0em5ihllpy2egy FOREIGN KEY (USERID) REFERENCES t_user (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_sign (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    AXISX VARCHAR(255) NOT NULL,
+    AXISY VARCHAR(255) NOT NULL,
+    SIGNTIME VARCHAR(255) NOT NULL,
+    SIGNTS BIGINT,
+    TYPE INTEGER,
+    USERID VARCHAR(255) NOT NULL,
+    ACTIVITYID VARCHAR(32) NOT NULL,
+    PRIMARY KEY (ID),
+    CONSTRAINT FK55mcp80vw5ljutwqqk66hco8x FOREIGN KEY (ACTIVITYID) REFERENCES t_activity (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_sign_stat (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    ABNORMAL BIGINT NOT NULL,
+    ACTIVITYID VARCHAR(32) NOT NULL,
+    DIMID VARCHAR(32) NOT NULL,
+    NORMAL BIGINT NOT NULL,
+    OUTS BIGINT NOT NULL,
+    TOTAL BIGINT NOT NULL,
+    DIMTYPE INTEGER NOT NULL,
+    PRIMARY KEY (ID),
+    UNIQUE KEY UK_SIGN_STAT (ACTIVITYID, DIMTYPE, DIMID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_subject (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    CODE VARCHAR(10) NOT NULL,
+    NAME VARCHAR(30) NOT NULL,
+    SUBJECT_TYPE INTEGER,
+    PRIMARY KEY (ID),
+    UNIQUE KEY UK_fqpbywlqdlyvfr5ek613ilxqi (CODE)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_user (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    ACCOUNT VARCHAR(50) NOT NULL,
+    CODE VARCHAR(10) NOT NULL,
+    NAME VARCHAR(50) NOT NULL,
+    PASSWORD VARCHAR(50) NOT NULL,
+    REMARK VARCHAR(20) DEFAULT '未填写',
+    SALT VARCHAR(50) NOT NULL,
+    SEX INTEGER,
+    STATUS INTEGER,
+    PRIMARY KEY (ID),
+    UNIQUE KEY UK_nin10mtym9irv7dkqpt1mypji (ACCOUNT),
+    UNIQUE KEY UK_7beptvcnra9kr1tgj6y9iym24 (CODE)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_user_app (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    AVATARURL VARCHAR(255),
+    CITY VARCHAR(50),
+    LASTLOGINTIME DATETIME NOT NULL,
+    NICKNAME VARCHAR(50) NOT NULL,
+    OPENID VARCHAR(50) NOT NULL,
+    PROVINCE VARCHAR(50),
+    APPTYPE INTEGER NOT NULL,
+    UNIONID VARCHAR(255),
+    USERID VARCHAR(32),
+    PRIMARY KEY (ID),
+    CONSTRAINT FK8v7adgg1i08soj5iyist70jkj FOREIGN KEY (USERID) REFERENCES t_user (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_user_file (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    CODE BIGINT NOT NULL,
+    ISPUBLIC BOOLEAN DEFAULT 0,
+    NAME VARCHAR(50) NOT NULL,
+    STATUS INTEGER,
+    SUFFIX VARCHAR(255) NOT NULL,
+    TYPE INTEGER,
+    URL VARCHAR(255) NOT NULL,
+    BLOBID VARCHAR(32),
+    USERID VARCHAR(32),
+    PRIMARY KEY (ID),
+    UNIQUE KEY UK_d5sqm0koudnykitjwj3orfr84 (CODE),
+    CONSTRAINT FKjv365m5dw35cjph9j5vnlndi1 FOREIGN KEY (BLOBID) REFERENCES t_file_blob (ID),
+    CONSTRAINT FK4sddabw200dvbd25vvy210po2 FOREIGN KEY (USERID) REFERENCES t_user (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_user_file_to (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    DEPARTID VARCHAR(255),
+    DEPARTNAME VARCHAR(255),
+    GROUPID VARCHAR(255),
+    GROUPNAME VARCHAR(255),
+    SUBJECTID VARCHAR(255),
+    SUBJECTNAME VARCHAR(255),
+    USERID VARCHAR(255),
+    USERNAME VARCHAR(255),
+    USERRESOURCESID VARCHAR(32) NOT NULL,
+    PRIMARY KEY (ID),
+    CONSTRAINT FKq1eh31fg3aik4cms8wqgvhatb FOREIGN KEY (USERRESOURCESID) REFERENCES t_user_file (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_user_group (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    NAME VARCHAR(50) NOT NULL,
+    FATHERID VARCHAR(32),
+    USERID VARCHAR(32),
+    PRIMARY KEY (ID),
+    CONSTRAINT FKdwo90ogv41m1mbat6oo6bfv4x FOREIGN KEY (FATHERID) REFERENCES t_user_group (ID),
+    CONSTRAINT FKgmbid5m7cefb0vluwwo69iblr FOREIGN KEY (USERID) REFERENCES t_user (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_user_info (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    ADDRESS VARCHAR(100),
+    AGE TINYINT(3) DEFAULT '0',
+    BIRTHDAY VARCHAR(8),
+    EDUCATION VARCHAR(50),
+    EMAIL VARCHAR(50),
+    ICARD VARCHAR(18),
+    MAJOR VARCHAR(50),
+    name VARCHAR(50),
+    NATION VARCHAR(20),
+    NATIVEPLACE VARCHAR(50),
+    POLITICAL VARCHAR(50),
+    QQ VARCHAR(20),
+    SELFEVALUATION VARCHAR(255),
+    TEL BIGINT,
+    UNIVERSITY VARCHAR(50),
+    WX VARCHAR(50),
+    USERID VARCHAR(32) NOT NULL,
+    PRIMARY KEY (ID),
+    UNIQUE KEY UK_3bqik3671y07tegqurx7pg4dp (ICARD),
+    UNIQUE KEY UK_nlhmst8w8f9f69bx76cnbyur (QQ),
+    UNIQUE KEY UK_b9fi17fge255633qrycsvqxj8 (TEL),
+    UNIQUE KEY UK_hjpr5masjuif6wsn9o3qco1mw (WX),
+    CONSTRAINT FKblddi0k2j5j4jnwi474f5cd6h FOREIGN KEY (USERID) REFERENCES t_user (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_user_label (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    LABELID VARCHAR(32),
+    USERID VARCHAR(32),
+    PRIMARY KEY (ID),
+    CONSTRAINT FKdicqtp3317cmm3dpf92w40cy0 FOREIGN KEY (LABELID) REFERENCES t_label (ID),
+    CONSTRAINT FK74cbp2l4lhv08b03leoefnmd6 FOREIGN KEY (USERID) REFERENCES t_user (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_user_relations (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    DEPARTID VARCHAR(32),
+    GROUPID VARCHAR(32),
+    POSITIONID VARCHAR(32),
+    SUBJECTID VARCHAR(32),
+    USERID VARCHAR(32),
+    USERGROUPID VARCHAR(32),
+    PRIMARY KEY (ID),
+    CONSTRAINT FKena3p962poi3wnc5apifp00so FOREIGN KEY (DEPARTID) REFERENCES t_depart (ID),
+    CONSTRAINT FKtjd63sof0aes32ptc7u3un74v FOREIGN KEY (GROUPID) REFERENCES t_group (ID),
+    CONSTRAINT FKb6awcuu71dylb1u1nqlnptm2v FOREIGN KEY (POSITIONID) REFERENCES t_position (ID),
+    CONSTRAINT FKen66j2m3i091o4al7jet1npij FOREIGN KEY (SUBJECTID) REFERENCES t_subject (ID),
+    CONSTRAINT FK8oi3k69bcvyey7lu0vn5o7fdp FOREIGN KEY (USERID) REFERENCES t_user (ID),
+    CONSTRAINT FK46na93wophlm67c602qnxu192 FOREIGN KEY (USERGROUPID) REFERENCES t_user_group (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_user_train (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    ENDTIME VARCHAR(50) NOT NULL,
+    HONOR VARCHAR(100),
+    NAME VARCHAR(50) NOT NULL,
+    remark VARCHAR(255),
+    STARTTIME VARCHAR(50) NOT NULL,
+    USERID VARCHAR(32),
+    PRIMARY KEY (ID),
+    CONSTRAINT FKls3c6pjlq2gdi3bus4s198ssv FOREIGN KEY (USERID) REFERENCES t_user (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS t_user_work (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    COMPANYNAME VARCHAR(50) NOT NULL,
+    ENDTIME VARCHAR(20) NOT NULL,
+    POSITIONNAME VARCHAR(50) NOT NULL,
+    STARTTIME VARCHAR(20) NOT NULL,
+    INDUSTRYID VARCHAR(32) NOT NULL,
+    USERID VARCHAR(32) NOT NULL,
+    PRIMARY KEY (ID),
+    CONSTRAINT FKf0ncdy3i3a0jlbucw0707xfmd FOREIGN KEY (INDUSTRYID) REFERENCES t_industry (ID),
+    CONSTRAINT FKhd7jrjoiowjy6gf1y44ye2gju FOREIGN KEY (USERID) REFERENCES t_user (ID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+SET FOREIGN_KEY_CHECKS = 1;
@@ -0,0 +1,9 @@
+-- 签到历史: 按(用户, 签到类型, 签到时间戳)倒序分页
+-- SIGNTS列由V0(新库)或V0.1(迁移前已有的库)创建, 这里回填历史数据并建立索引
+UPDATE t_sign SET SIGNTS = UNIX_TIMESTAMP(STR_TO_DATE(SIGNTIME, '%Y%m%d%H%i%s')) * 1000
+WHERE SIGNTS IS NULL AND SIGNTIME REGEXP '^[0-9]{14}$';
+
+UPDATE t_sign SET SIGNTS = UNIX_TIMESTAMP(STR_TO_DATE(CREATEDATE, '%Y%m%d%H%i%s')) * 1000
+WHERE SIGNTS IS NULL;
+
+CREATE INDEX IDX_SIGN_USER_TYPE_TS ON t_sign (USERID, TYPE, SIGNTS);
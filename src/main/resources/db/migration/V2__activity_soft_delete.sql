@@ -0,0 +1,2 @@
+-- 活动软删除: 标记删除的活动不再被查询, 关联数据由后台定时清理
+ALTER TABLE t_activity ADD COLUMN DELETED BIT NOT NULL DEFAULT 0;
@@ -0,0 +1,8 @@
+-- 活动可见范围: 发布范围(含下级部门/组织)展开后的(活动, 用户), 按用户查询可见活动
+-- 已有活动需执行一次/job/rebuildAudience
+CREATE TABLE t_activity_audience (
+    ACTIVITYID VARCHAR(32) NOT NULL,
+    USERID VARCHAR(32) NOT NULL,
+    PRIMARY KEY (USERID, ACTIVITYID),
+    KEY IDX_AUDIENCE_ACTIVITY (ACTIVITYID)
+);
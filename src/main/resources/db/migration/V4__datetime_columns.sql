@@ -0,0 +1,41 @@
+-- 创建/最后修改时间由yyyyMMddHHmmss字符串改为DATETIME, 已有数据由MySQL按格式直接转换
+-- 改列类型需要复制表, LOCK=SHARED保证迁移期间仍可读取, 写入在复制完成后继续
+ALTER TABLE t_activity MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_activity_file MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_activity_image MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_attendance MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_depart MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_file_blob MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_group MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_industry MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_label MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_permission MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_politics MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_politics_deption MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_politics_discuss_data MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_politics_issue_data MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_politics_resolution_data MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_politics_user MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_position MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_position_relation MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_release_depart MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_release_groups MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_release_subject MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_role MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_role_relation MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_sign MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_sign_stat MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_subject MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_user MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_user_app MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, MODIFY LASTLOGINTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_user_file MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_user_file_to MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_user_group MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_user_info MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_user_label MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_user_relations MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_user_train MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+ALTER TABLE t_user_work MODIFY CREATEDATE DATETIME NOT NULL, MODIFY LASTMODIFIEDTIME DATETIME NOT NULL, LOCK=SHARED;
+
+-- 活动列表按创建时间排序/范围过滤
+CREATE INDEX IDX_ACTIVITY_CREATEDATE ON t_activity (CREATEDATE);
@@ -0,0 +1,19 @@
+-- 按仓库及服务中的查询条件补充索引
+-- 外键列(t_user_relations各关联、活动附件/签到等的ACTIVITYID)和编码唯一约束已由约束自带索引, 不再重复建立
+
+-- 标签分页/计数: WHERE TYPE = ?
+CREATE INDEX IDX_LABEL_TYPE ON t_label (TYPE);
+
+-- 小程序登录: WHERE OPENID = ?
+CREATE INDEX IDX_USER_APP_OPENID ON t_user_app (OPENID);
+
+-- 用户在主体下的关联: WHERE USERID = ? AND SUBJECTID = ?
+CREATE INDEX IDX_USER_RELATIONS_USER_SUBJECT ON t_user_relations (USERID, SUBJECTID);
+
+-- 按部门/组织/主体展开活动可见范围: WHERE DEPARTID/GROUPSID/SUBJECTID IN (...)
+CREATE INDEX IDX_RELEASE_DEPART_DEPART ON t_release_depart (DEPARTID);
+CREATE INDEX IDX_RELEASE_GROUPS_GROUPS ON t_release_groups (GROUPSID);
+CREATE INDEX IDX_RELEASE_SUBJECT_SUBJECT ON t_release_subject (SUBJECTID);
+
+-- 清理软删除的活动: WHERE DELETED = 1
+CREATE INDEX IDX_ACTIVITY_DELETED ON t_activity (DELETED);
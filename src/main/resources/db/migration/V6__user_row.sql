@@ -0,0 +1,34 @@
+-- 用户列表读模型: 每个用户一行, 含机构关系和标签名称, 用户/关系/标签写入时更新
+-- 已有用户在本迁移中回填, /job/rebuildUserRow只用于修复
+CREATE TABLE t_user_row (
+    ID VARCHAR(32) NOT NULL,
+    CREATEDATE DATETIME NOT NULL,
+    LASTMODIFIEDTIME DATETIME NOT NULL,
+    VERSION BIGINT(20) DEFAULT 1 NOT NULL,
+    ACCOUNT VARCHAR(50) NOT NULL,
+    NAME VARCHAR(50) NOT NULL,
+    CODE VARCHAR(10) NOT NULL,
+    SEX INTEGER,
+    STATUS INTEGER,
+    STATUSNAME VARCHAR(10),
+    REMARK VARCHAR(500),
+    RELATIONS VARCHAR(1000),
+    LABELS VARCHAR(1000),
+    PRIMARY KEY (ID),
+    UNIQUE KEY UK_USER_ROW_ACCOUNT (ACCOUNT),
+    KEY IDX_USER_ROW_NAME (NAME),
+    KEY IDX_USER_ROW_CODE (CODE),
+    KEY IDX_USER_ROW_STATUS (STATUS),
+    KEY IDX_USER_ROW_CREATEDATE (CREATEDATE)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+-- 回填, 与UserRowServiceImpl.INSERT_ROW一致
+INSERT INTO t_user_row (ID, CREATEDATE, LASTMODIFIEDTIME, VERSION, ACCOUNT, NAME, CODE, SEX, STATUS, STATUSNAME, REMARK, RELATIONS, LABELS)
+SELECT u.ID, u.CREATEDATE, u.LASTMODIFIEDTIME, 1, u.ACCOUNT, u.NAME, u.CODE, u.SEX, u.STATUS,
+    CASE u.STATUS WHEN 0 THEN '正常' WHEN 1 THEN '禁用' WHEN 2 THEN '锁定' END, u.REMARK,
+    (SELECT LEFT(GROUP_CONCAT(CONCAT_WS('-', s.NAME, d.NAME, g.NAME) SEPARATOR ','), 1000) FROM t_user_relations ur
+        JOIN t_subject s ON s.ID = ur.SUBJECTID LEFT JOIN t_depart d ON d.ID = ur.DEPARTID LEFT JOIN t_group g ON g.ID = ur.GROUPID
+        WHERE ur.USERID = u.ID),
+    (SELECT LEFT(GROUP_CONCAT(l.NAME SEPARATOR ','), 1000) FROM t_user_label ul JOIN t_label l ON l.ID = ul.LABELID
+        WHERE ul.USERID = u.ID)
+FROM t_user u;
@@ -0,0 +1,5 @@
+-- V3建表时未指定存储引擎和字符集, 取决于服务器默认值; 与其他表统一为InnoDB/utf8,
+-- 避免与t_activity/t_user关联时字符集或排序规则不同导致无法使用主键索引或报Illegal mix of collations
+ALTER TABLE t_activity_audience ENGINE=InnoDB;
+
+ALTER TABLE t_activity_audience CONVERT TO CHARACTER SET utf8;
@@ -0,0 +1,78 @@
+package com.iyundao.benchmark;
+
+import com.iyundao.base.BaseEntity;
+import com.iyundao.base.utils.IdUtils;
+import com.iyundao.entity.Label;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName: BaseEntityBenchmark
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/12 10:20
+ * @Description: BaseEntity.equals/hashCode, 10000个已保存实体放入HashSet, 以及用同ID的另一组实例逐个查找
+ * @Version: V2.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BaseEntityBenchmark {
+
+    private static final int SIZE = 10000;
+
+    private Label[] entities;
+
+    /**
+     * 与entities的ID相同的另一组实例, 相当于另一个会话中加载的实体
+     */
+    private Label[] copies;
+
+    private Set<Label> set;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        Field id = BaseEntity.class.getDeclaredField("id");
+        id.setAccessible(true);
+        entities = new Label[SIZE];
+        copies = new Label[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            String value = IdUtils.ID_STRATEGY.ulid.next();
+            entities[i] = new Label();
+            id.set(entities[i], value);
+            copies[i] = new Label();
+            id.set(copies[i], value);
+        }
+        set = new HashSet<>();
+        for (Label entity : entities) {
+            set.add(entity);
+        }
+    }
+
+    @Benchmark
+    public Set<Label> add() {
+        Set<Label> result = new HashSet<>();
+        for (Label entity : entities) {
+            result.add(entity);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int contains() {
+        int found = 0;
+        for (Label copy : copies) {
+            if (set.contains(copy)) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
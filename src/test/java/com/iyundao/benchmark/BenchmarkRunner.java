@@ -0,0 +1,45 @@
+package com.iyundao.benchmark;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @ClassName: BenchmarkRunner
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/12 9:30
+ * @Description: 微基准测试入口, 参数为要运行的基准类名正则, 不传时运行本包下全部基准;
+ *               JMH在独立的JVM中运行基准, 需要完整的classpath:
+ *               mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+ *               java -cp target/test-classes:target/classes:$(cat target/classpath.txt) com.iyundao.benchmark.BenchmarkRunner TimeUtils
+ *               benchmark.*系统属性传给运行基准的JVM; 未指定benchmark.jdbc.url时不运行需要数据库的IdInsertBenchmark
+ * @Version: V2.0
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder builder = new OptionsBuilder();
+        if (args.length == 0) {
+            builder.include(BenchmarkRunner.class.getPackage().getName() + ".*Benchmark");
+        }
+        for (String arg : args) {
+            builder.include(arg);
+        }
+        if (System.getProperty(IdInsertBenchmark.URL_PROPERTY) == null) {
+            builder.exclude(IdInsertBenchmark.class.getSimpleName());
+        }
+        List<String> jvmArgs = new ArrayList<>();
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("benchmark.")) {
+                jvmArgs.add("-D" + name + "=" + System.getProperty(name));
+            }
+        }
+        Options options = builder.jvmArgsAppend(jvmArgs.toArray(new String[0])).build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,37 @@
+package com.iyundao.benchmark;
+
+import com.iyundao.base.utils.IdUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName: IdBenchmark
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/12 10:00
+ * @Description: 各主键策略生成ID的耗时, 单线程及4线程并发(ulid/uuid7在IdUtils.class上同步)
+ * @Version: V2.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdBenchmark {
+
+    @Param({"ulid", "uuid7", "uuid"})
+    private IdUtils.ID_STRATEGY strategy;
+
+    @Benchmark
+    public String next() {
+        return strategy.next();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String nextConcurrent() {
+        return strategy.next();
+    }
+}
@@ -0,0 +1,100 @@
+package com.iyundao.benchmark;
+
+import com.iyundao.base.utils.IdUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName: IdInsertBenchmark
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/12 10:40
+ * @Description: 各主键策略的插入吞吐量, 按签到表的行宽向InnoDB临时表批量插入, 表随迭代增长;
+ *               需要MySQL, 通过-Dbenchmark.jdbc.url/user/password指定(url建议带rewriteBatchedStatements=true),
+ *               未指定时BenchmarkRunner不运行本基准; 结束时输出表的数据/索引大小及空闲空间, 用于比较页分裂
+ * @Version: V2.0
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdInsertBenchmark {
+
+    public static final String URL_PROPERTY = "benchmark.jdbc.url";
+
+    private static final String TABLE = "t_id_benchmark";
+
+    /**
+     * 每次迭代插入的行数
+     */
+    private static final int ROWS = 20000;
+
+    private static final int BATCH_SIZE = 500;
+
+    @Param({"ulid", "uuid7", "uuid"})
+    private IdUtils.ID_STRATEGY strategy;
+
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        String url = System.getProperty(URL_PROPERTY);
+        if (url == null) {
+            throw new IllegalStateException("-D" + URL_PROPERTY + " is required");
+        }
+        connection = DriverManager.getConnection(url, System.getProperty("benchmark.jdbc.user"), System.getProperty("benchmark.jdbc.password"));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + TABLE);
+            statement.execute("CREATE TABLE " + TABLE + " (ID VARCHAR(32) NOT NULL, CREATEDATE DATETIME NOT NULL, " +
+                    "LASTMODIFIEDTIME DATETIME NOT NULL, VERSION BIGINT(20) DEFAULT 1 NOT NULL, AXISX VARCHAR(255) NOT NULL, " +
+                    "AXISY VARCHAR(255) NOT NULL, SIGNTIME VARCHAR(255) NOT NULL, USERID VARCHAR(255) NOT NULL, " +
+                    "ACTIVITYID VARCHAR(32) NOT NULL, PRIMARY KEY (ID)) ENGINE=InnoDB DEFAULT CHARSET=utf8");
+        }
+        connection.setAutoCommit(false);
+    }
+
+    @Benchmark
+    public int insert() throws SQLException {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO " + TABLE +
+                " (ID, CREATEDATE, LASTMODIFIEDTIME, AXISX, AXISY, SIGNTIME, USERID, ACTIVITYID) VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= ROWS; i++) {
+                statement.setString(1, strategy.next());
+                statement.setTimestamp(2, now);
+                statement.setTimestamp(3, now);
+                statement.setString(4, "120.153576");
+                statement.setString(5, "30.287459");
+                statement.setString(6, "20190912104000");
+                statement.setString(7, "0123456789abcdef0123456789abcdef");
+                statement.setString(8, "0123456789abcdef0123456789abcdef");
+                statement.addBatch();
+                if (i % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                    connection.commit();
+                }
+            }
+        }
+        return ROWS;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE " + TABLE);
+            try (ResultSet rs = statement.executeQuery("SELECT TABLE_ROWS, DATA_LENGTH, INDEX_LENGTH, DATA_FREE FROM information_schema.TABLES " +
+                    "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = '" + TABLE + "'")) {
+                if (rs.next()) {
+                    System.out.println(strategy + ": rows=" + rs.getLong(1) + ", data=" + rs.getLong(2) + ", index=" + rs.getLong(3)
+                            + ", free=" + rs.getLong(4));
+                }
+            }
+            statement.execute("DROP TABLE IF EXISTS " + TABLE);
+        } finally {
+            connection.close();
+        }
+    }
+}
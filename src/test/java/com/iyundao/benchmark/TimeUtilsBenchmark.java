@@ -0,0 +1,73 @@
+package com.iyundao.benchmark;
+
+import com.iyundao.base.utils.TimeUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName: TimeUtilsBenchmark
+ * @project: IYunDao
+ * @author: 念
+ * @Date: 2019/9/12 9:40
+ * @Description: TimeUtils格式化/解析yyyyMMddHHmmss, 与DateTimeFormatter及原先每次新建SimpleDateFormat的方式对比
+ * @Version: V2.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimeUtilsBenchmark {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern(TimeUtils.yyyyMMddHHmmss);
+
+    private LocalDateTime time;
+
+    private Date date;
+
+    private String text;
+
+    @Setup
+    public void setup() {
+        time = LocalDateTime.of(2019, 9, 12, 9, 40, 21);
+        date = java.sql.Timestamp.valueOf(time);
+        text = "20190912094021";
+    }
+
+    @Benchmark
+    public String format() {
+        return TimeUtils.format(time);
+    }
+
+    @Benchmark
+    public String formatDateTimeFormatter() {
+        return FORMATTER.format(time);
+    }
+
+    @Benchmark
+    public String formatSimpleDateFormat() {
+        return new SimpleDateFormat(TimeUtils.yyyyMMddHHmmss).format(date);
+    }
+
+    @Benchmark
+    public LocalDateTime parse() {
+        return TimeUtils.parse(text);
+    }
+
+    @Benchmark
+    public LocalDateTime parseDateTimeFormatter() {
+        return LocalDateTime.parse(text, FORMATTER);
+    }
+
+    @Benchmark
+    public Date parseSimpleDateFormat() throws ParseException {
+        return new SimpleDateFormat(TimeUtils.yyyyMMddHHmmss).parse(text);
+    }
+}